@@ -35,6 +35,8 @@ public class CoordinatorEnvironmentBean implements CoordinatorEnvironmentBeanMBe
     private volatile boolean transactionLog = false; // rename to useTransactionLog ?
 
     private volatile int maxTwoPhaseCommitThreads = 100;
+    private volatile String twoPhaseCommitExecutor = "FIXED";
+    private volatile boolean parallelPhase2 = false;
 
     // public static final String TRANSACTION_LOG_REMOVAL_MARKER = "com.arjuna.ats.arjuna.coordinator.transactionLog.removalMarker";
     //private String removalMarker;
@@ -175,6 +177,55 @@ public class CoordinatorEnvironmentBean implements CoordinatorEnvironmentBeanMBe
         this.maxTwoPhaseCommitThreads = maxTwoPhaseCommitThreads;
     }
 
+    /**
+     * Returns the kind of executor used to run asynchronous prepare, commit, rollback and
+     * synchronization work. One of "FIXED", a pool bounded by maxTwoPhaseCommitThreads,
+     * "VIRTUAL", which starts a virtual thread per task when the JVM supports them, or the
+     * name of a class implementing java.util.concurrent.ExecutorService.
+     *
+     * Default: "FIXED"
+     *
+     * @return the kind of executor used for two phase commit work.
+     */
+    public String getTwoPhaseCommitExecutor() {
+        return twoPhaseCommitExecutor;
+    }
+
+    /**
+     * Sets the kind of executor used for two phase commit work.
+     *
+     * @param twoPhaseCommitExecutor "FIXED", "VIRTUAL" or an ExecutorService class name.
+     */
+    public void setTwoPhaseCommitExecutor(String twoPhaseCommitExecutor) {
+        this.twoPhaseCommitExecutor = twoPhaseCommitExecutor;
+    }
+
+    /**
+     * Returns true if the participants of a top level action are committed or rolled back
+     * concurrently during the second phase, so that the phase takes as long as the slowest
+     * participant rather than the sum of all of them.
+     *
+     * The records for one object, i.e. those with the same order, are still completed one
+     * after the other in intentions list order. No order is kept between records for
+     * different objects.
+     *
+     * Default: false
+     *
+     * @return true if the second phase is run in parallel, false otherwise.
+     */
+    public boolean isParallelPhase2() {
+        return parallelPhase2;
+    }
+
+    /**
+     * Sets if the second phase should run the participants of a top level action concurrently.
+     *
+     * @param parallelPhase2 true to run the second phase in parallel, false to run it in order.
+     */
+    public void setParallelPhase2(boolean parallelPhase2) {
+        this.parallelPhase2 = parallelPhase2;
+    }
+
     /**
      * Returns true if one phase commit optimization is to be used.
      *
@@ -390,6 +441,8 @@ public class CoordinatorEnvironmentBean implements CoordinatorEnvironmentBeanMBe
 
     /**
      * Returns the operating mode of the transaction timeout processing system.
+     * One of "DYNAMIC", "PERIODIC" or "TIMING_WHEEL". TIMING_WHEEL behaves as DYNAMIC but holds
+     * timeouts in a timing wheel, which scales better with very large numbers of in-flight transactions.
      *
      * Default: "DYNAMIC"
      * Equivalent deprecated property: com.arjuna.ats.arjuna.coordinator.txReaperMode
@@ -18,6 +18,10 @@ public interface CoordinatorEnvironmentBeanMBean
 
     boolean isAsyncRollback();
 
+    String getTwoPhaseCommitExecutor();
+
+    boolean isParallelPhase2();
+
     boolean isCommitOnePhase();
 
     boolean isMaintainHeuristics();
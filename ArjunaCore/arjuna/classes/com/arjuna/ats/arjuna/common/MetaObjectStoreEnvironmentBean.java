@@ -86,6 +86,46 @@ public class MetaObjectStoreEnvironmentBean extends ObjectStoreEnvironmentBean {
         instances.forEach(i -> i.setCacheStoreHash(cacheStoreHash));
     }
 
+    @Override
+    public int getWriteBehindStoreFlushers() {
+        return actionStoreEnvironmentBean.getWriteBehindStoreFlushers();
+    }
+
+    @Override
+    public void setWriteBehindStoreFlushers(int writeBehindStoreFlushers) {
+        instances.forEach(i -> i.setWriteBehindStoreFlushers(writeBehindStoreFlushers));
+    }
+
+    @Override
+    public int getWriteBehindStoreCheckpointPeriod() {
+        return actionStoreEnvironmentBean.getWriteBehindStoreCheckpointPeriod();
+    }
+
+    @Override
+    public void setWriteBehindStoreCheckpointPeriod(int writeBehindStoreCheckpointPeriod) {
+        instances.forEach(i -> i.setWriteBehindStoreCheckpointPeriod(writeBehindStoreCheckpointPeriod));
+    }
+
+    @Override
+    public int getWriteBehindStoreMaxEntries() {
+        return actionStoreEnvironmentBean.getWriteBehindStoreMaxEntries();
+    }
+
+    @Override
+    public void setWriteBehindStoreMaxEntries(int writeBehindStoreMaxEntries) {
+        instances.forEach(i -> i.setWriteBehindStoreMaxEntries(writeBehindStoreMaxEntries));
+    }
+
+    @Override
+    public boolean isWriteBehindStoreSync() {
+        return actionStoreEnvironmentBean.isWriteBehindStoreSync();
+    }
+
+    @Override
+    public void setWriteBehindStoreSync(boolean writeBehindStoreSync) {
+        instances.forEach(i -> i.setWriteBehindStoreSync(writeBehindStoreSync));
+    }
+
     @Override
     public String getLocalOSRoot() {
         return actionStoreEnvironmentBean.getLocalOSRoot();
@@ -196,6 +236,26 @@ public class MetaObjectStoreEnvironmentBean extends ObjectStoreEnvironmentBean {
         instances.forEach(i -> i.setSynchronousRemoval(synchronousRemoval));
     }
 
+    @Override
+    public int getAsyncRemovalMaxBatchSize() {
+        return actionStoreEnvironmentBean.getAsyncRemovalMaxBatchSize();
+    }
+
+    @Override
+    public void setAsyncRemovalMaxBatchSize(int asyncRemovalMaxBatchSize) {
+        instances.forEach(i -> i.setAsyncRemovalMaxBatchSize(asyncRemovalMaxBatchSize));
+    }
+
+    @Override
+    public int getAsyncRemovalMaxBacklog() {
+        return actionStoreEnvironmentBean.getAsyncRemovalMaxBacklog();
+    }
+
+    @Override
+    public void setAsyncRemovalMaxBacklog(int asyncRemovalMaxBacklog) {
+        instances.forEach(i -> i.setAsyncRemovalMaxBacklog(asyncRemovalMaxBacklog));
+    }
+
     @Override
     public long getTxLogSize() {
         return actionStoreEnvironmentBean.getTxLogSize();
@@ -216,6 +276,36 @@ public class MetaObjectStoreEnvironmentBean extends ObjectStoreEnvironmentBean {
         instances.forEach(i -> i.setPurgeTime(purgeTime));
     }
 
+    @Override
+    public boolean isGroupCommit() {
+        return actionStoreEnvironmentBean.isGroupCommit();
+    }
+
+    @Override
+    public void setGroupCommit(boolean groupCommit) {
+        instances.forEach(i -> i.setGroupCommit(groupCommit));
+    }
+
+    @Override
+    public int getGroupCommitMaxBatchSize() {
+        return actionStoreEnvironmentBean.getGroupCommitMaxBatchSize();
+    }
+
+    @Override
+    public void setGroupCommitMaxBatchSize(int groupCommitMaxBatchSize) {
+        instances.forEach(i -> i.setGroupCommitMaxBatchSize(groupCommitMaxBatchSize));
+    }
+
+    @Override
+    public long getGroupCommitMaxBatchDelay() {
+        return actionStoreEnvironmentBean.getGroupCommitMaxBatchDelay();
+    }
+
+    @Override
+    public void setGroupCommitMaxBatchDelay(long groupCommitMaxBatchDelay) {
+        instances.forEach(i -> i.setGroupCommitMaxBatchDelay(groupCommitMaxBatchDelay));
+    }
+
     @Override
     public String getJdbcAccess() {
         return actionStoreEnvironmentBean.getJdbcAccess();
@@ -256,6 +346,36 @@ public class MetaObjectStoreEnvironmentBean extends ObjectStoreEnvironmentBean {
         instances.forEach(i -> i.setCreateTable(createTable));
     }
 
+    @Override
+    public boolean getJdbcBatchWrites() {
+        return actionStoreEnvironmentBean.getJdbcBatchWrites();
+    }
+
+    @Override
+    public void setJdbcBatchWrites(boolean jdbcBatchWrites) {
+        instances.forEach(i -> i.setJdbcBatchWrites(jdbcBatchWrites));
+    }
+
+    @Override
+    public int getJdbcBatchMaxSize() {
+        return actionStoreEnvironmentBean.getJdbcBatchMaxSize();
+    }
+
+    @Override
+    public void setJdbcBatchMaxSize(int jdbcBatchMaxSize) {
+        instances.forEach(i -> i.setJdbcBatchMaxSize(jdbcBatchMaxSize));
+    }
+
+    @Override
+    public long getJdbcBatchMaxDelay() {
+        return actionStoreEnvironmentBean.getJdbcBatchMaxDelay();
+    }
+
+    @Override
+    public void setJdbcBatchMaxDelay(long jdbcBatchMaxDelay) {
+        instances.forEach(i -> i.setJdbcBatchMaxDelay(jdbcBatchMaxDelay));
+    }
+
     @Override
     public boolean getExposeAllLogRecordsAsMBeans() {
         return actionStoreEnvironmentBean.getExposeAllLogRecordsAsMBeans();
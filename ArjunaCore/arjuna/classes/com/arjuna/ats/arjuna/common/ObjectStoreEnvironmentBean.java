@@ -41,6 +41,8 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
 
     private volatile boolean volatileStoreSupportAllObjUids;
 
+    private volatile int uidPageSize = 1000;
+
     @FullPropertyName(name = "com.arjuna.ats.internal.arjuna.objectstore.cacheStore.size")
     private volatile int cacheStoreSize = 10240;  // size in bytes
     @FullPropertyName(name = "com.arjuna.ats.internal.arjuna.objectstore.cacheStore.sync")
@@ -54,12 +56,25 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
     @FullPropertyName(name = "com.arjuna.ats.internal.arjuna.objectstore.cacheStore.hash")
     private volatile int cacheStoreHash = 128;
 
+    private volatile int writeBehindStoreFlushers = 2;
+    private volatile int writeBehindStoreCheckpointPeriod = 100; // in milliseconds
+    private volatile int writeBehindStoreMaxEntries = 10000;
+    private volatile boolean writeBehindStoreSync = false;
+
     @FullPropertyName(name = "com.arjuna.ats.arjuna.coordinator.transactionLog.synchronousRemoval")
     private volatile boolean synchronousRemoval = true;
+    private volatile int asyncRemovalMaxBatchSize = 256;
+    private volatile int asyncRemovalMaxBacklog = 10000;
     @FullPropertyName(name = "com.arjuna.ats.arjuna.coordinator.transactionLog.size")
     private volatile long txLogSize = 10 * 1024 * 1024;  // default maximum log txLogSize in bytes;
     @FullPropertyName(name = "com.arjuna.ats.arjuna.coordinator.transactionLog.purgeTime")
     private volatile long purgeTime = 100000; // in milliseconds
+    @FullPropertyName(name = "com.arjuna.ats.arjuna.coordinator.transactionLog.groupCommit")
+    private volatile boolean groupCommit = false;
+    @FullPropertyName(name = "com.arjuna.ats.arjuna.coordinator.transactionLog.groupCommitMaxBatchSize")
+    private volatile int groupCommitMaxBatchSize = 128;
+    @FullPropertyName(name = "com.arjuna.ats.arjuna.coordinator.transactionLog.groupCommitMaxBatchDelay")
+    private volatile long groupCommitMaxBatchDelay = 0; // in microseconds
 
     private volatile boolean androidDirCheck = false;
     
@@ -72,6 +87,12 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
 	private volatile boolean dropTable;
 	
 	private volatile boolean createTable = true;
+
+	private volatile boolean jdbcBatchWrites = false;
+
+	private volatile int jdbcBatchMaxSize = 128;
+
+	private volatile long jdbcBatchMaxDelay = 0; // in microseconds
     
     private volatile boolean exposeAllLogRecordsAsMBeans = false;
 
@@ -262,6 +283,122 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
         this.cacheStoreHash = cacheStoreHash;
     }
 
+    /**
+     * Returns the number of flusher threads used by the write-behind store. Pending states
+     * are sharded across the flushers by Uid.
+     *
+     * This property is used by the following object store implementations: WriteBehindStore.
+     *
+     * Default: 2
+     *
+     * @return the number of flusher threads.
+     */
+    public int getWriteBehindStoreFlushers()
+    {
+        if (writeBehindStoreFlushers <= 0)
+        {
+            return 1;
+        }
+
+        return writeBehindStoreFlushers;
+    }
+
+    /**
+     * Sets the number of flusher threads used by the write-behind store.
+     *
+     * This property is used by the following object store implementations: WriteBehindStore.
+     *
+     * @param writeBehindStoreFlushers the number of flusher threads.
+     */
+    public void setWriteBehindStoreFlushers(int writeBehindStoreFlushers)
+    {
+        this.writeBehindStoreFlushers = writeBehindStoreFlushers;
+    }
+
+    /**
+     * Returns the period, in milliseconds, between the durability checkpoints of the
+     * write-behind store. At each checkpoint every pending state is written to disk, so
+     * this bounds how long a state can stay in memory only. States which are overwritten
+     * or removed within the period are never written at all.
+     *
+     * This property is used by the following object store implementations: WriteBehindStore.
+     *
+     * Default: 100 milliseconds
+     *
+     * @return the checkpoint period in milliseconds.
+     */
+    public int getWriteBehindStoreCheckpointPeriod()
+    {
+        return writeBehindStoreCheckpointPeriod;
+    }
+
+    /**
+     * Sets the period, in milliseconds, between the durability checkpoints of the
+     * write-behind store.
+     *
+     * This property is used by the following object store implementations: WriteBehindStore.
+     *
+     * @param writeBehindStoreCheckpointPeriod the checkpoint period in milliseconds.
+     */
+    public void setWriteBehindStoreCheckpointPeriod(int writeBehindStoreCheckpointPeriod)
+    {
+        this.writeBehindStoreCheckpointPeriod = writeBehindStoreCheckpointPeriod;
+    }
+
+    /**
+     * Returns the number of pending states a write-behind store flusher may hold before
+     * callers have to wait for an early checkpoint.
+     *
+     * This property is used by the following object store implementations: WriteBehindStore.
+     *
+     * Default: 10000
+     *
+     * @return the maximum number of pending states per flusher.
+     */
+    public int getWriteBehindStoreMaxEntries()
+    {
+        return writeBehindStoreMaxEntries;
+    }
+
+    /**
+     * Sets the number of pending states a write-behind store flusher may hold.
+     *
+     * This property is used by the following object store implementations: WriteBehindStore.
+     *
+     * @param writeBehindStoreMaxEntries the maximum number of pending states per flusher.
+     */
+    public void setWriteBehindStoreMaxEntries(int writeBehindStoreMaxEntries)
+    {
+        this.writeBehindStoreMaxEntries = writeBehindStoreMaxEntries;
+    }
+
+    /**
+     * Returns true if the states written by write-behind store checkpoints should be
+     * synched to disk.
+     *
+     * This property is used by the following object store implementations: WriteBehindStore.
+     *
+     * Default: false
+     *
+     * @return true if checkpoint writes should be synched to disk, false otherwise.
+     */
+    public boolean isWriteBehindStoreSync()
+    {
+        return writeBehindStoreSync;
+    }
+
+    /**
+     * Sets if the states written by write-behind store checkpoints should be synched to disk.
+     *
+     * This property is used by the following object store implementations: WriteBehindStore.
+     *
+     * @param writeBehindStoreSync true to enable syncing, false to disable.
+     */
+    public void setWriteBehindStoreSync(boolean writeBehindStoreSync)
+    {
+        this.writeBehindStoreSync = writeBehindStoreSync;
+    }
+
 
     /**
      * Returns the local ObjectStore root directory name. This should be a path element, not a complete path.
@@ -594,10 +731,14 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
     }
 
     /**
-     * Returns true if the LogStore should write removal records synchronously.
-     * Disabling this may increase performance at the cost of recovery complexity.
+     * Returns true if the transaction log should be removed synchronously once a transaction
+     * has completed. Disabling this may increase performance at the cost of recovery complexity.
      *
-     * This property is used by the following object store implementations: LogStore.
+     * LogStore buffers its removal records itself. For the other stores, the action store
+     * is wrapped in a DeferredRemovalStore, which removes the logs in the background and
+     * hides those it has yet to remove from recovery.
+     *
+     * This property is used by the following object store implementations: all.
      *
      * Default: true
      * Equivalent deprecated property: com.arjuna.ats.arjuna.coordinator.transactionLog.synchronousRemoval
@@ -610,9 +751,9 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
     }
 
     /**
-     * Sets if the LogStore should write removal records synchronously or not.
+     * Sets if the transaction log should be removed synchronously or not.
      *
-     * This property is used by the following object store implementations: LogStore.
+     * This property is used by the following object store implementations: all.
      *
      * @param synchronousRemoval true for synchronous operation, false for asynchronous.
      */
@@ -621,6 +762,67 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
         this.synchronousRemoval = synchronousRemoval;
     }
 
+    /**
+     * Returns the maximum number of removals applied by the background thread of a
+     * DeferredRemovalStore before it looks for more work. Removals of the same state
+     * which are queued together are applied once.
+     *
+     * This property is used by the following object store implementations: DeferredRemovalStore.
+     *
+     * Default: 256
+     *
+     * @return the maximum number of removals in a batch.
+     */
+    public int getAsyncRemovalMaxBatchSize()
+    {
+        if (asyncRemovalMaxBatchSize <= 0)
+        {
+            return 1;
+        }
+
+        return asyncRemovalMaxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of removals applied by the background thread of a
+     * DeferredRemovalStore in one batch.
+     *
+     * This property is used by the following object store implementations: DeferredRemovalStore.
+     *
+     * @param asyncRemovalMaxBatchSize the maximum number of removals in a batch.
+     */
+    public void setAsyncRemovalMaxBatchSize(int asyncRemovalMaxBatchSize)
+    {
+        this.asyncRemovalMaxBatchSize = asyncRemovalMaxBatchSize;
+    }
+
+    /**
+     * Returns the number of removals a DeferredRemovalStore may hold before callers apply
+     * their own removals synchronously rather than queueing them.
+     *
+     * This property is used by the following object store implementations: DeferredRemovalStore.
+     *
+     * Default: 10000
+     *
+     * @return the maximum number of pending removals.
+     */
+    public int getAsyncRemovalMaxBacklog()
+    {
+        return asyncRemovalMaxBacklog;
+    }
+
+    /**
+     * Sets the number of removals a DeferredRemovalStore may hold.
+     *
+     * This property is used by the following object store implementations: DeferredRemovalStore.
+     *
+     * @param asyncRemovalMaxBacklog the maximum number of pending removals.
+     */
+    public void setAsyncRemovalMaxBacklog(int asyncRemovalMaxBacklog)
+    {
+        this.asyncRemovalMaxBacklog = asyncRemovalMaxBacklog;
+    }
+
     /**
      * Returns the default size of the LogStore file, in bytes.
      *
@@ -675,6 +877,89 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
         this.purgeTime = purgeTime;
     }
 
+    /**
+     * Returns true if the LogStore should coalesce concurrent log writes into batches
+     * which are written sequentially and made durable with a single sync.
+     *
+     * This property is used by the following object store implementations: LogStore.
+     *
+     * Default: false
+     *
+     * @return true if group commit is enabled, false otherwise.
+     */
+    public boolean isGroupCommit()
+    {
+        return groupCommit;
+    }
+
+    /**
+     * Sets if the LogStore should coalesce concurrent log writes into batches.
+     *
+     * This property is used by the following object store implementations: LogStore.
+     *
+     * @param groupCommit true to enable group commit, false to sync each write individually.
+     */
+    public void setGroupCommit(boolean groupCommit)
+    {
+        this.groupCommit = groupCommit;
+    }
+
+    /**
+     * Returns the maximum number of log entries written and synced as a single batch
+     * when group commit is enabled.
+     *
+     * This property is used by the following object store implementations: LogStore.
+     *
+     * Default: 128
+     *
+     * @return the maximum group commit batch size.
+     */
+    public int getGroupCommitMaxBatchSize()
+    {
+        return groupCommitMaxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of log entries written and synced as a single batch.
+     *
+     * This property is used by the following object store implementations: LogStore.
+     *
+     * @param groupCommitMaxBatchSize the maximum group commit batch size.
+     */
+    public void setGroupCommitMaxBatchSize(int groupCommitMaxBatchSize)
+    {
+        this.groupCommitMaxBatchSize = groupCommitMaxBatchSize;
+    }
+
+    /**
+     * Returns the maximum time, in microseconds, that the group commit writer will wait
+     * for further entries to arrive before writing a batch which is not yet full. With
+     * the default of 0 a batch contains whatever was queued while the previous batch
+     * was being synced.
+     *
+     * This property is used by the following object store implementations: LogStore.
+     *
+     * Default: 0 microseconds
+     *
+     * @return the maximum group commit batch delay in microseconds.
+     */
+    public long getGroupCommitMaxBatchDelay()
+    {
+        return groupCommitMaxBatchDelay;
+    }
+
+    /**
+     * Sets the maximum time, in microseconds, to wait for a group commit batch to fill.
+     *
+     * This property is used by the following object store implementations: LogStore.
+     *
+     * @param groupCommitMaxBatchDelay the maximum group commit batch delay in microseconds.
+     */
+    public void setGroupCommitMaxBatchDelay(long groupCommitMaxBatchDelay)
+    {
+        this.groupCommitMaxBatchDelay = groupCommitMaxBatchDelay;
+    }
+
 	/**
 	 * Returns an instance of a class implementing JDBCAccess.
 	 * 
@@ -773,6 +1058,78 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
 		this.createTable = createTable;
 	}
 
+	/**
+	 * Should the JDBC store coalesce concurrent writes and removes into
+	 * batches which are executed and committed in a single database
+	 * transaction.
+	 * 
+	 * Default: false
+	 * 
+	 * @return Whether batching is enabled
+	 */
+	public boolean getJdbcBatchWrites() {
+		return jdbcBatchWrites;
+	}
+
+	/**
+	 * Set whether the JDBC store should coalesce concurrent writes and
+	 * removes into batches.
+	 * 
+	 * @param jdbcBatchWrites
+	 *            true to batch, false to use a database transaction per
+	 *            operation
+	 */
+	public void setJdbcBatchWrites(boolean jdbcBatchWrites) {
+		this.jdbcBatchWrites = jdbcBatchWrites;
+	}
+
+	/**
+	 * Get the maximum number of writes and removes executed in one JDBC
+	 * batch.
+	 * 
+	 * Default: 128
+	 * 
+	 * @return The maximum batch size
+	 */
+	public int getJdbcBatchMaxSize() {
+		return jdbcBatchMaxSize;
+	}
+
+	/**
+	 * Set the maximum number of writes and removes executed in one JDBC
+	 * batch.
+	 * 
+	 * @param jdbcBatchMaxSize
+	 *            The maximum batch size
+	 */
+	public void setJdbcBatchMaxSize(int jdbcBatchMaxSize) {
+		this.jdbcBatchMaxSize = jdbcBatchMaxSize;
+	}
+
+	/**
+	 * Get the maximum time, in microseconds, that the batch writer will wait
+	 * for further operations before executing a batch which is not yet full.
+	 * With the default of 0 a batch contains whatever was queued while the
+	 * previous batch was being committed.
+	 * 
+	 * Default: 0 microseconds
+	 * 
+	 * @return The maximum batch delay in microseconds
+	 */
+	public long getJdbcBatchMaxDelay() {
+		return jdbcBatchMaxDelay;
+	}
+
+	/**
+	 * Set the maximum time, in microseconds, to wait for a batch to fill.
+	 * 
+	 * @param jdbcBatchMaxDelay
+	 *            The maximum batch delay in microseconds
+	 */
+	public void setJdbcBatchMaxDelay(long jdbcBatchMaxDelay) {
+		this.jdbcBatchMaxDelay = jdbcBatchMaxDelay;
+	}
+
     /**
      * @return Whether basic information about all log reccords are exposed
      */
@@ -862,4 +1219,26 @@ public class ObjectStoreEnvironmentBean implements ObjectStoreEnvironmentBeanMBe
     public String getJmxToolingMBeanName() {
         return jmxToolingMBeanName;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the maximum number of Uids that {@link com.arjuna.ats.arjuna.objectstore.ObjectStoreIterator}
+     * (and so the recovery modules which use it) fetches from a
+     * {@link com.arjuna.ats.arjuna.objectstore.UidCursor} at a time.
+     *
+     * Default: 1000
+     *
+     * @return the number of Uids in each page.
+     */
+    public int getUidPageSize() {
+        return uidPageSize;
+    }
+
+    /**
+     * Sets the maximum number of Uids to fetch from the object store at a time when enumerating its contents.
+     *
+     * @param uidPageSize the number of Uids in each page.
+     */
+    public void setUidPageSize(int uidPageSize) {
+        this.uidPageSize = uidPageSize;
+    }
+}
@@ -26,6 +26,14 @@ public interface ObjectStoreEnvironmentBeanMBean
 
     int getCacheStoreHash();
 
+    int getWriteBehindStoreFlushers();
+
+    int getWriteBehindStoreCheckpointPeriod();
+
+    int getWriteBehindStoreMaxEntries();
+
+    boolean isWriteBehindStoreSync();
+
     String getLocalOSRoot();
 
     String getObjectStoreDir();
@@ -46,9 +54,19 @@ public interface ObjectStoreEnvironmentBeanMBean
 
     boolean isSynchronousRemoval();
 
+    int getAsyncRemovalMaxBatchSize();
+
+    int getAsyncRemovalMaxBacklog();
+
     long getTxLogSize();
 
     long getPurgeTime();
+
+    boolean isGroupCommit();
+
+    int getGroupCommitMaxBatchSize();
+
+    long getGroupCommitMaxBatchDelay();
     
 	/**
 	 * Get the JDBCAccess details.
@@ -93,4 +111,25 @@ public interface ObjectStoreEnvironmentBeanMBean
 	 */
 	public void setDropTable(boolean dropTable);
 
+	/**
+	 * Should the JDBC store batch concurrent writes and removes
+	 * 
+	 * @return Whether batching is enabled
+	 */
+	public boolean getJdbcBatchWrites();
+
+	/**
+	 * Get the maximum number of operations in one JDBC batch
+	 * 
+	 * @return The maximum batch size
+	 */
+	public int getJdbcBatchMaxSize();
+
+	/**
+	 * Get the maximum time, in microseconds, to wait for a batch to fill
+	 * 
+	 * @return The maximum batch delay
+	 */
+	public long getJdbcBatchMaxDelay();
+
 }
\ No newline at end of file
@@ -7,15 +7,11 @@
 
 package com.arjuna.ats.arjuna.common;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.net.UnknownHostException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.arjuna.ats.arjuna.exceptions.FatalError;
@@ -30,7 +26,7 @@ import com.arjuna.ats.arjuna.utils.Utility;
  * @since 1.0.
  */
 
-public class Uid implements Cloneable, Serializable
+public class Uid implements Cloneable, Serializable, Comparable<Uid>
 {
     private static final long serialVersionUID = 7808395904206530189L;
 
@@ -51,8 +47,10 @@ public class Uid implements Cloneable, Serializable
 
         try
         {
-            hostAddr = Utility.hostInetAddr(); /* calculated only once */
-            process = Utility.getpid();
+            Node node = Uid.localNode();
+
+            hostAddr = node.hostAddr;
+            process = node.process;
 
             if (Uid.initTime == 0)
                 Uid.initTime = (int) (System.currentTimeMillis() / 1000);
@@ -92,15 +90,14 @@ public class Uid implements Cloneable, Serializable
         
         try
         {
-            ByteArrayInputStream ba = new ByteArrayInputStream(byteForm);
-            DataInputStream ds = new DataInputStream(ba);
-            
-            hostAddr[0] = ds.readLong();
-            hostAddr[1] = ds.readLong();
-            process = ds.readInt();
-            sec = ds.readInt();
-            other = ds.readInt();
-            
+            ByteBuffer bb = ByteBuffer.wrap(byteForm);
+
+            hostAddr[0] = bb.getLong();
+            hostAddr[1] = bb.getLong();
+            process = bb.getInt();
+            sec = bb.getInt();
+            other = bb.getInt();
+
             _valid = true;
         }
         catch (final Throwable ex) {
@@ -298,11 +295,14 @@ public class Uid implements Cloneable, Serializable
         // no need to synchronize since object is immutable
 
         if (_stringForm == null)
-            _stringForm = Utility.longToHexString(hostAddr[0]) + Uid.breakChar
-                    + Utility.longToHexString(hostAddr[1]) + Uid.breakChar
-                    + Utility.intToHexString(process) + Uid.breakChar
-                    + Utility.intToHexString(sec) + Uid.breakChar
+        {
+            Node node = Uid.node;
+            String prefix = ((node != null) && node.isPrefixOf(this)) ? node.stringPrefix
+                    : prefix(hostAddr, process, Uid.breakChar);
+
+            _stringForm = prefix + Utility.intToHexString(sec) + Uid.breakChar
                     + Utility.intToHexString(other);
+        }
 
         return _stringForm;
     }
@@ -314,11 +314,17 @@ public class Uid implements Cloneable, Serializable
 
     public String fileStringForm ()
     {
-        return Utility.longToHexString(hostAddr[0]) + Uid.fileBreakChar
-                + Utility.longToHexString(hostAddr[1]) + Uid.fileBreakChar
-                + Utility.intToHexString(process) + Uid.fileBreakChar
-                + Utility.intToHexString(sec) + Uid.fileBreakChar
-                + Utility.intToHexString(other);
+        if (_fileStringForm == null)
+        {
+            Node node = Uid.node;
+            String prefix = ((node != null) && node.isPrefixOf(this)) ? node.fileStringPrefix
+                    : prefix(hostAddr, process, Uid.fileBreakChar);
+
+            _fileStringForm = prefix + Utility.intToHexString(sec) + Uid.fileBreakChar
+                    + Utility.intToHexString(other);
+        }
+
+        return _fileStringForm;
     }
     
     /**
@@ -337,30 +343,78 @@ public class Uid implements Cloneable, Serializable
         
         if (_byteForm == null)
         {
-            ByteArrayOutputStream ba = new ByteArrayOutputStream(UID_SIZE);
-            DataOutputStream ds = new DataOutputStream(ba);
-            
-            try
-            {
-                ds.writeLong(hostAddr[0]);
-                ds.writeLong(hostAddr[1]);
-                ds.writeInt(process);
-                ds.writeInt(sec);
-                ds.writeInt(other);
-                //_byteForm = stringForm().getBytes(StandardCharsets.UTF_8);
-                
-                _byteForm = ba.toByteArray();
-            }
-            catch (final Throwable ex) {
-                tsLogger.i18NLogger.warn_common_Uid_getbytes(ex);
+            byte[] byteForm = new byte[UID_SIZE];
 
-                _byteForm = null;
-            }
+            writeTo(byteForm, 0);
+
+            _byteForm = byteForm;
         }
 
         return _byteForm;
     }
 
+    /**
+     * Write the {@link #UID_SIZE} byte representation of the Uid, as returned
+     * by {@link #getBytes()}, into the given array. Two Uids are equal if and
+     * only if their representations are, so it may be used as a fixed size
+     * index key without creating the string form.
+     *
+     * @param dest the array to write to.
+     * @param offset where to start writing.
+     */
+
+    public void writeTo (byte[] dest, int offset)
+    {
+        putLong(dest, offset, hostAddr[0]);
+        putLong(dest, offset + 8, hostAddr[1]);
+        putInt(dest, offset + 16, process);
+        putInt(dest, offset + 20, sec);
+        putInt(dest, offset + 24, other);
+    }
+
+    /**
+     * Write the {@link #UID_SIZE} byte representation of the Uid at the
+     * current position of the buffer.
+     */
+
+    public void writeTo (ByteBuffer dest)
+    {
+        dest.putLong(hostAddr[0]);
+        dest.putLong(hostAddr[1]);
+        dest.putInt(process);
+        dest.putInt(sec);
+        dest.putInt(other);
+    }
+
+    /**
+     * Recreate a Uid from the representation written by {@link #writeTo(byte[], int)}.
+     *
+     * @param src the array to read from.
+     * @param offset where the representation starts.
+     */
+
+    public static Uid readFrom (byte[] src, int offset)
+    {
+        if ((src == null) || (offset < 0) || (src.length - offset < UID_SIZE))
+            throw new IllegalArgumentException();
+
+        long[] addr = { getLong(src, offset), getLong(src, offset + 8) };
+
+        return new Uid(addr, getInt(src, offset + 16), getInt(src, offset + 20), getInt(src, offset + 24));
+    }
+
+    /**
+     * Recreate a Uid from the representation at the current position of the
+     * buffer, as written by {@link #writeTo(ByteBuffer)}.
+     */
+
+    public static Uid readFrom (ByteBuffer src)
+    {
+        long[] addr = { src.getLong(), src.getLong() };
+
+        return new Uid(addr, src.getInt(), src.getInt(), src.getInt());
+    }
+
     /**
      * Same as stringForm()
      */
@@ -522,6 +576,51 @@ public class Uid implements Cloneable, Serializable
         return false;
     }
 
+    /**
+     * A total order over Uids, which agrees with lessThan and greaterThan
+     * whenever either holds. Those only order Uids created on different
+     * nodes if both halves of the node address compare the same way, so
+     * this is for sorting and indexing; it does not replace them.
+     *
+     * @return a negative value, zero or a positive value as this Uid is
+     *         less than, equal to or greater than the one given.
+     */
+
+    public int compareTo (Uid u)
+    {
+        if (u == this)
+            return 0;
+
+        // invalid Uids have no address, and come first
+        if ((hostAddr == null) || (u.hostAddr == null))
+            return (hostAddr == null) ? ((u.hostAddr == null) ? 0 : -1) : 1;
+
+        if (this.equals(u))
+            return 0;
+
+        if (LAST_RESOURCE_UID.equals(this))
+            return 1;
+
+        if (LAST_RESOURCE_UID.equals(u))
+            return -1;
+
+        int result = Long.compare(hostAddr[0], u.hostAddr[0]);
+
+        if (result == 0)
+            result = Long.compare(hostAddr[1], u.hostAddr[1]);
+
+        if (result == 0)
+            result = Integer.compare(process, u.process);
+
+        if (result == 0)
+            result = Integer.compare(sec, u.sec);
+
+        if (result == 0)
+            result = Integer.compare(other, u.other);
+
+        return result;
+    }
+
     /**
      * Is the Uid valid?
      */
@@ -686,6 +785,87 @@ public class Uid implements Cloneable, Serializable
         }
     }
 
+    private static void putLong (byte[] dest, int offset, long value)
+    {
+        putInt(dest, offset, (int) (value >>> 32));
+        putInt(dest, offset + 4, (int) value);
+    }
+
+    private static void putInt (byte[] dest, int offset, int value)
+    {
+        dest[offset] = (byte) (value >>> 24);
+        dest[offset + 1] = (byte) (value >>> 16);
+        dest[offset + 2] = (byte) (value >>> 8);
+        dest[offset + 3] = (byte) value;
+    }
+
+    private static long getLong (byte[] src, int offset)
+    {
+        return ((long) getInt(src, offset) << 32) | (getInt(src, offset + 4) & 0xffffffffL);
+    }
+
+    private static int getInt (byte[] src, int offset)
+    {
+        return ((src[offset] & 0xff) << 24) | ((src[offset + 1] & 0xff) << 16)
+                | ((src[offset + 2] & 0xff) << 8) | (src[offset + 3] & 0xff);
+    }
+
+    private static String prefix (long[] addr, int processId, char separator)
+    {
+        return Utility.longToHexString(addr[0]) + separator
+                + Utility.longToHexString(addr[1]) + separator
+                + Utility.intToHexString(processId) + separator;
+    }
+
+    /*
+     * The parts of a Uid which are the same for every Uid created by this
+     * process. The host address and process id are only ever calculated once
+     * by Utility, so we look them up when the first Uid is created and then
+     * reuse them, along with their string forms, for all of the others.
+     */
+
+    private static final class Node
+    {
+        Node (long[] hostAddr, int process)
+        {
+            this.hostAddr = hostAddr;
+            this.process = process;
+            this.stringPrefix = prefix(hostAddr, process, Uid.breakChar);
+            this.fileStringPrefix = prefix(hostAddr, process, Uid.fileBreakChar);
+        }
+
+        boolean isPrefixOf (Uid u)
+        {
+            long[] addr = u.hostAddr;
+
+            return (u.process == process) && ((addr == hostAddr)
+                    || ((addr[0] == hostAddr[0]) && (addr[1] == hostAddr[1])));
+        }
+
+        final long[] hostAddr;
+        final int process;
+        final String stringPrefix;
+        final String fileStringPrefix;
+    }
+
+    private static Node localNode () throws UnknownHostException
+    {
+        Node n = Uid.node;
+
+        if (n == null)
+        {
+            /*
+             * No need to lock: a race can only create identical copies.
+             */
+
+            n = new Node(Utility.hostInetAddr(), Utility.getpid());
+
+            Uid.node = n;
+        }
+
+        return n;
+    }
+
     /*
      * Since we may be given a Uid from the file system (which uses '_' to
      * separate fields, we need to be able to convert.
@@ -716,9 +896,13 @@ public class Uid implements Cloneable, Serializable
     private volatile boolean _valid;
 
     private volatile String _stringForm;
-    
+
+    private transient volatile String _fileStringForm;
+
     private volatile byte[] _byteForm;
 
+    private static volatile Node node;
+
     private static final AtomicInteger uidsCreated = new AtomicInteger();
 
     private static volatile int initTime;
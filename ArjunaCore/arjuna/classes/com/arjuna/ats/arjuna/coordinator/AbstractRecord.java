@@ -281,6 +281,21 @@ public abstract class AbstractRecord extends StateManager
 		return "/StateManager/AbstractRecord";
 	}
 
+	/**
+	 * The name under which the latencies of this participant are recorded by
+	 * {@link TxStats}. Records which front a resource manager should include
+	 * its name so that a slow one can be told apart from the others. The
+	 * value is requested every time the participant is driven so should not
+	 * be computed afresh on each call.
+	 *
+	 * @return the simple class name by default.
+	 */
+
+	public String statisticsName ()
+	{
+		return getClass().getSimpleName();
+	}
+
 	/**
 	 * Write information about this specific instance to the specified stream.
 	 *
@@ -526,6 +541,23 @@ public abstract class AbstractRecord extends StateManager
 
 	public abstract boolean shouldReplace (AbstractRecord a);
 
+	/**
+	 * Can shouldAdd, shouldAlter, shouldMerge and shouldReplace only hold for
+	 * records with the same order as this one? If so a RecordList need not
+	 * ask every record it holds when inserting this one, but can go straight
+	 * to those for the same object. Types which may act on records for other
+	 * objects must leave this as it is.
+	 *
+	 * @return <code>true</code> if the record only acts on records with the
+	 *         same order, <code>false</code> otherwise. The default is
+	 *         <code>false</code>.
+	 */
+
+	public boolean isOrderScoped ()
+	{
+		return false;
+	}
+
 	/**
 	 * The current record is about to replace the one presented. This method is
 	 * invoked to give the current record a chance to copy information, for
@@ -645,6 +677,16 @@ public abstract class AbstractRecord extends StateManager
         }
 	}
 
+	/**
+	 * @return <code>true</code> if records are ordered by object (i.e. uid)
+	 *         first, which is the default, <code>false</code> if by type.
+	 */
+
+	static final boolean isOrderedByUid ()
+	{
+		return !useAlternativeOrdering;
+	}
+
 	/**
 	 * ensure records of the same type are grouped together in the list, rather
 	 * than grouping them by object (i.e. uid)
@@ -0,0 +1,224 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+
+package com.arjuna.ats.arjuna.coordinator;
+
+import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.ats.internal.arjuna.thread.ThreadActionData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drives the participants of an action through one phase of the protocol
+ * concurrently, using the executor of {@link TwoPhaseCommitThreadPool}.
+ * One participant is always driven on the calling thread, so an action with
+ * a single participant never leaves it.
+ *
+ * Records for the same object can be kept in intentions list order, see
+ * {@link #inOrderPerObject()}.
+ *
+ * Only the participants are invoked concurrently: the outcomes are returned
+ * to the caller, which files the records and records any heuristics once
+ * every invocation has finished. The intentions lists are therefore only
+ * ever touched by the thread which is terminating the action.
+ */
+
+/*
+ * Default visibility.
+ */
+class AsyncPhase {
+    /**
+     * The participant operation for a phase, e.g. topLevelPrepare.
+     */
+    interface Invocation {
+        int invoke(AbstractRecord record);
+    }
+
+    /**
+     * The result of driving one participant through the phase.
+     */
+    static final class Outcome {
+        final AbstractRecord record;
+        final int outcome;
+        final long nanos;
+
+        private Outcome(AbstractRecord record, int outcome, long nanos) {
+            this.record = record;
+            this.outcome = outcome;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return false if the participant was skipped because another one had
+         * already failed.
+         */
+        boolean wasInvoked() {
+            return nanos >= 0;
+        }
+    }
+
+    AsyncPhase(BasicAction action, String phase, int statistic, Invocation invocation, int errorOutcome) {
+        _theAction = action;
+        _phase = phase;
+        _statistic = statistic;
+        _invocation = invocation;
+        _errorOutcome = errorOutcome;
+    }
+
+    /**
+     * Stop invoking participants which have not yet started once one of them
+     * returns an outcome other than those given. The participants which are
+     * skipped are returned with the error outcome and
+     * {@link Outcome#wasInvoked()} false.
+     */
+    AsyncPhase shortCircuitUnless(int... acceptable) {
+        _acceptable = acceptable;
+
+        return this;
+    }
+
+    /**
+     * Invoke the records for the same object, i.e. with the same order, one
+     * after the other in the order they are given, as the sequential phase
+     * does. Only records for different objects are invoked concurrently. The
+     * records must be sorted, as a RecordList is, so that those with the same
+     * order are next to each other.
+     */
+    AsyncPhase inOrderPerObject() {
+        _inOrderPerObject = true;
+
+        return this;
+    }
+
+    /**
+     * Invoke every record and wait for all of the invocations to complete.
+     *
+     * @return the outcomes in the same order as the records.
+     */
+    List<Outcome> run(List<AbstractRecord> records) {
+        List<List<AbstractRecord>> chains = chains(records);
+        List<CompletableFuture<List<Outcome>>> futures = new ArrayList<>(chains.size());
+        int last = chains.size() - 1;
+
+        for (int i = 0; i < last; i++) {
+            final List<AbstractRecord> chain = chains.get(i);
+
+            futures.add(CompletableFuture.supplyAsync(() -> invokeOnWorker(chain), TwoPhaseCommitThreadPool.getExecutor()));
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(records.size());
+        List<Outcome> callerOutcomes = (last >= 0) ? invoke(chains.get(last)) : null;
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        for (CompletableFuture<List<Outcome>> future : futures)
+            outcomes.addAll(future.join());
+
+        if (callerOutcomes != null)
+            outcomes.addAll(callerOutcomes);
+
+        return outcomes;
+    }
+
+    /*
+     * The records which have to be invoked one after the other: each on its
+     * own, or every run of records with the same order.
+     */
+    private List<List<AbstractRecord>> chains(List<AbstractRecord> records) {
+        List<List<AbstractRecord>> chains = new ArrayList<>(records.size());
+        List<AbstractRecord> chain = null;
+
+        for (AbstractRecord record : records) {
+            if (chain == null || !_inOrderPerObject || !record.order().equals(chain.get(chain.size() - 1).order())) {
+                chain = new ArrayList<>(1);
+                chains.add(chain);
+            }
+
+            chain.add(record);
+        }
+
+        return chains;
+    }
+
+    private List<Outcome> invokeOnWorker(List<AbstractRecord> chain) {
+        /*
+         * This is a transient thread so we don't want to register it with the
+         * action, only change its notion of the current transaction so that
+         * any abstract records that need that information can still have it.
+         */
+
+        ThreadActionData.pushAction(_theAction, false);
+
+        try {
+            return invoke(chain);
+        } finally {
+            ThreadActionData.popAction(false);
+        }
+    }
+
+    private List<Outcome> invoke(List<AbstractRecord> chain) {
+        List<Outcome> outcomes = new ArrayList<>(chain.size());
+
+        for (AbstractRecord record : chain)
+            outcomes.add(invoke(record));
+
+        return outcomes;
+    }
+
+    private Outcome invoke(AbstractRecord record) {
+        if (_failed.get())
+            return new Outcome(record, _errorOutcome, -1);
+
+        long start = System.nanoTime();
+        int outcome;
+
+        try {
+            outcome = _invocation.invoke(record);
+        } catch (Throwable e) {
+            // the caller has already taken the records off the intentions list, so each must get an outcome
+            tsLogger.i18NLogger.warn_coordinator_AsyncPhase_exception(String.valueOf(record), _theAction.get_uid(), _phase, e);
+
+            outcome = _errorOutcome;
+        }
+
+        long nanos = System.nanoTime() - start;
+
+        if (TxStats.enabled())
+            TxStats.getInstance().recordParticipantLatency(_statistic, record, nanos);
+
+        if (_acceptable != null && !isAcceptable(outcome))
+            _failed.set(true);
+
+        if (tsLogger.logger.isTraceEnabled()) {
+            tsLogger.logger.tracef("BasicAction::%s() for action-id (%s) on record id: (%s) returned (%s) after %d us",
+                    _phase, _theAction.get_uid(), record.order(), TwoPhaseOutcome.stringForm(outcome), nanos / 1000);
+        }
+
+        return new Outcome(record, outcome, nanos);
+    }
+
+    private boolean isAcceptable(int outcome) {
+        for (int acceptable : _acceptable) {
+            if (outcome == acceptable)
+                return true;
+        }
+
+        return false;
+    }
+
+    private final BasicAction _theAction;
+    private final String _phase;
+    private final int _statistic;
+    private final Invocation _invocation;
+    private final int _errorOutcome;
+    private final AtomicBoolean _failed = new AtomicBoolean();
+    private int[] _acceptable;
+    private boolean _inOrderPerObject;
+}
@@ -18,8 +18,8 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -1437,6 +1437,9 @@ public class BasicAction extends StateManager
                         if (parentAct != null)
                             TxStats.getInstance().incrementNestedTransactions();
                     }
+
+                    if (actionType == ActionType.TOP_LEVEL)
+                        beginTime = TxStats.startTime();
                 }
             }
 
@@ -1562,12 +1565,7 @@ public class BasicAction extends StateManager
                 if (TxStats.enabled())
                 {
                     if (heuristicDecision != TwoPhaseOutcome.HEURISTIC_ROLLBACK)
-                    {
-                        if (startTime == null)
-                            TxStats.getInstance().incrementCommittedTransactions(0L);
-                        else
-                            TxStats.getInstance().incrementCommittedTransactions(System.nanoTime() - startTime);
-                    }
+                        updateCommitStatistics(startTime);
                 }
             }
 
@@ -1980,10 +1978,7 @@ public class BasicAction extends StateManager
                 if (TxStats.enabled()) {
                     if (heuristicDecision != TwoPhaseOutcome.HEURISTIC_ROLLBACK) {
                         // NB statistics monitoring could have been dynamically enabled after starting this transaction
-                        if (startTime == null)
-                            TxStats.getInstance().incrementCommittedTransactions(0L);
-                        else
-                            TxStats.getInstance().incrementCommittedTransactions(System.nanoTime() - startTime);
+                        updateCommitStatistics(startTime);
                     }
                 }
 
@@ -2079,9 +2074,9 @@ public class BasicAction extends StateManager
      */
 
     protected int async_prepare(boolean reportHeuristics) {
-        int p = TwoPhaseOutcome.PREPARE_OK;
+        int p = TwoPhaseOutcome.PREPARE_READONLY;
         Collection<AbstractRecord> lastResourceRecords = new ArrayList<AbstractRecord>();
-        Collection<Future<Integer>> tasks = new ArrayList<Future<Integer>>();
+        List<AbstractRecord> records = new ArrayList<AbstractRecord>(pendingList.size());
 
         AbstractRecord last2PCAwareRecord = pendingList.getRear();
 
@@ -2091,35 +2086,35 @@ public class BasicAction extends StateManager
             last2PCAwareRecord = pendingList.getRear();
         }
 
-        // Prepare 2PC aware resources
+        // Prepare 2PC aware resources, the last (or only) one on the callers thread
         while (pendingList.size() != 0) {
-            tasks.add(TwoPhaseCommitThreadPool.submitJob(new AsyncPrepare(this, reportHeuristics, pendingList.getFront())));
+            records.add(pendingList.getFront());
         }
 
-        // Prepare the last (or only) 2PC aware resource on the callers thread
         if (last2PCAwareRecord != null) {
-            p = doPrepare(reportHeuristics, last2PCAwareRecord);
+            records.add(last2PCAwareRecord);
         }
 
-        // Get results of the 2PC aware resources prepare
-        for (Future<Integer> task : tasks) {
-            try {
-                int outcome = task.get();
-
-                if (p == TwoPhaseOutcome.PREPARE_OK) {
-                    p = outcome;
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            } catch (ExecutionException e) {
-                e.printStackTrace();
+        List<AsyncPhase.Outcome> outcomes = new AsyncPhase(this, "prepare", TxStats.PARTICIPANT_PREPARE,
+                record -> (actionType == ActionType.TOP_LEVEL) ? record.topLevelPrepare() : record.nestedPrepare(),
+                TwoPhaseOutcome.PREPARE_NOTOK)
+                .shortCircuitUnless(TwoPhaseOutcome.PREPARE_OK, TwoPhaseOutcome.PREPARE_READONLY)
+                .run(records);
+
+        // File the records now that every prepare has finished
+        for (AsyncPhase.Outcome outcome : outcomes) {
+            if (!outcome.wasInvoked()) {
+                // Another resource failed before this one was asked to prepare
+                pendingList.insert(outcome.record);
+            } else {
+                p = combinePrepareOutcomes(p, prepared(reportHeuristics, outcome.record, outcome.outcome));
             }
         }
 
         // Commit one phase aware resources
         for (AbstractRecord lastResourceRecord : lastResourceRecords) {
-            if (p == TwoPhaseOutcome.PREPARE_OK) {
-                p = doPrepare(reportHeuristics, lastResourceRecord);
+            if (p == TwoPhaseOutcome.PREPARE_OK || p == TwoPhaseOutcome.PREPARE_READONLY) {
+                p = combinePrepareOutcomes(p, doPrepare(reportHeuristics, lastResourceRecord));
             } else {
                 // Prepare failed, put remaining records back to the pendingList.
                 pendingList.insert(lastResourceRecord);
@@ -2129,6 +2124,18 @@ public class BasicAction extends StateManager
         return p;
     }
 
+    /*
+     * The overall outcome is read-only only if every participant is, and the
+     * first failure is the one reported.
+     */
+
+    private static int combinePrepareOutcomes(int overall, int individual) {
+        if (overall != TwoPhaseOutcome.PREPARE_OK && overall != TwoPhaseOutcome.PREPARE_READONLY)
+            return overall;
+
+        return (individual == TwoPhaseOutcome.PREPARE_READONLY) ? overall : individual;
+    }
+
     /**
      * Phase one of a two phase commit protocol. This function returns the
      * ouctome of the prepare operation. If all goes well it will be PREPARE_OK,
@@ -2146,6 +2153,8 @@ public class BasicAction extends StateManager
     {
         synchronizationLock.lock();
 
+        long startTime = (actionType == ActionType.TOP_LEVEL) ? TxStats.startTime() : 0L;
+
         try {
             if (tsLogger.logger.isTraceEnabled()) {
                 tsLogger.logger.trace("BasicAction::prepare () for action-id "
@@ -2367,7 +2376,12 @@ public class BasicAction extends StateManager
                 {
                     try
                     {
-                        if (!transactionStore.write_committed(u, tn, state)) {
+                        long logWriteStartTime = TxStats.startTime();
+                        boolean written = transactionStore.write_committed(u, tn, state);
+
+                        TxStats.getInstance().recordPhase(TxStats.LOG_WRITE, logWriteStartTime);
+
+                        if (!written) {
                             tsLogger.i18NLogger.warn_coordinator_BasicAction_46(get_uid());
 
                             criticalEnd();
@@ -2397,6 +2411,8 @@ public class BasicAction extends StateManager
             else
                 return TwoPhaseOutcome.PREPARE_OK;
         } finally {
+            TxStats.getInstance().recordPhase(TxStats.PREPARE, startTime);
+
             synchronizationLock.unlock();
         }
     }
@@ -2454,9 +2470,13 @@ public class BasicAction extends StateManager
 
         recordBeingHandled = pendingList.getFront();
 
+        long participantStartTime = TxStats.startTime();
+
         int p = ((actionType == ActionType.TOP_LEVEL) ? recordBeingHandled.topLevelOnePhaseCommit()
                 : recordBeingHandled.nestedOnePhaseCommit());
 
+        TxStats.getInstance().recordParticipant(TxStats.PARTICIPANT_ONE_PHASE_COMMIT, recordBeingHandled, participantStartTime);
+
         if ((p == TwoPhaseOutcome.FINISH_OK)
                 || (p == TwoPhaseOutcome.PREPARE_READONLY))
         {
@@ -2582,15 +2602,33 @@ public class BasicAction extends StateManager
             if (actionStatus == ActionStatus.ABORTED) {
                 TxStats.getInstance().incrementAbortedTransactions();
             } else {
-                if (startTime == null)
-                    TxStats.getInstance().incrementCommittedTransactions(0L);
-                else
-                    TxStats.getInstance().incrementCommittedTransactions(System.nanoTime() - startTime);
+                updateCommitStatistics(startTime);
             }
         }
 
     }
 
+    /*
+     * Count a committed transaction. Also record how long it took to commit
+     * and, if we are top level, how long it has taken since it began.
+     */
+
+    private void updateCommitStatistics (Long startTime)
+    {
+        TxStats stats = TxStats.getInstance();
+
+        if (startTime == null) {
+            stats.incrementCommittedTransactions(0L);
+        } else {
+            stats.incrementCommittedTransactions(System.nanoTime() - startTime);
+
+            if (actionType == ActionType.TOP_LEVEL)
+                stats.recordPhase(TxStats.COMMIT, startTime);
+        }
+
+        stats.recordPhase(TxStats.TRANSACTION, beginTime);
+    }
+
     /**
      * @return the current heuristic decision. Each time a heuristic outcome is
      *         received, we need to merge it with any previous outcome to
@@ -2749,10 +2787,23 @@ public class BasicAction extends StateManager
          */
 
         int p = TwoPhaseOutcome.PREPARE_NOTOK;
+        long startTime = TxStats.startTime();
 
         p = ((actionType == ActionType.TOP_LEVEL) ? record.topLevelPrepare()
                 : record.nestedPrepare());
 
+        TxStats.getInstance().recordParticipant(TxStats.PARTICIPANT_PREPARE, record, startTime);
+
+        return prepared(reportHeuristics, record, p);
+    }
+
+    /*
+     * Move a record which has been asked to prepare to the list corresponding
+     * to its vote.
+     */
+
+    private int prepared (boolean reportHeuristics, AbstractRecord record, int p)
+    {
         if (tsLogger.logger.isTraceEnabled()) {
             tsLogger.logger.tracef(
                     "BasicAction::doPrepare() result for action-id (%s) on record id: (%s) is (%s) node id: (%s)",
@@ -2890,6 +2941,9 @@ public class BasicAction extends StateManager
     {
         if ((rl != null) && (rl.size() > 0))
         {
+            if (isParallelPhase2(rl))
+                return parallelCommit(rl, reportHeuristics);
+
             AbstractRecord rec;
 
             while (((rec = rl.getFront()) != null))
@@ -2957,6 +3011,25 @@ public class BasicAction extends StateManager
         return TwoPhaseOutcome.FINISH_OK;
     }
 
+    /*
+     * Commit every record on the list at the same time. Since all of the
+     * participants have been told to commit, a heuristic rollback from the
+     * first of them can no longer be used to roll back the others.
+     */
+
+    private int parallelCommit (RecordList rl, boolean reportHeuristics)
+    {
+        pastFirstParticipant = true;
+
+        List<AsyncPhase.Outcome> outcomes = new AsyncPhase(this, "doCommit", TxStats.PARTICIPANT_COMMIT, AbstractRecord::topLevelCommit,
+                TwoPhaseOutcome.FINISH_ERROR).inOrderPerObject().run(drain(rl));
+
+        for (AsyncPhase.Outcome outcome : outcomes)
+            committed(reportHeuristics, outcome.record, outcome.outcome);
+
+        return TwoPhaseOutcome.FINISH_OK;
+    }
+
     protected int doCommit (boolean reportHeuristics, AbstractRecord record)
     {
         if (tsLogger.logger.isTraceEnabled()) {
@@ -2976,71 +3049,24 @@ public class BasicAction extends StateManager
 
         if (recordBeingHandled != null)
         {
+            long startTime = TxStats.startTime();
+
             if (actionType == ActionType.TOP_LEVEL)
             {
-                if ((ok = recordBeingHandled.topLevelCommit()) == TwoPhaseOutcome.FINISH_OK)
+                ok = recordBeingHandled.topLevelCommit();
+
+                TxStats.getInstance().recordParticipant(TxStats.PARTICIPANT_COMMIT, record, startTime);
+
+                if (ok == TwoPhaseOutcome.FINISH_OK)
                 {
                     /*
                      * Record successfully committed, we can delete it now.
                      */
 
                     recordBeingHandled = null;
-
-                    updateHeuristic(TwoPhaseOutcome.FINISH_OK, true); // must
-                    // remember
-                    // that
-                    // something
-                    // has
-                    // committed
                 }
-                else
-                {
-                    if (tsLogger.logger.isTraceEnabled()) {
-                        tsLogger.logger.trace("BasicAction.doCommit for "+get_uid()+" received "+
-                                TwoPhaseOutcome.stringForm(ok)+" from "+RecordType.typeToClass(recordBeingHandled.typeIs()));
-                    }
-
-                    if ((reportHeuristics)
-                            && ((ok == TwoPhaseOutcome.HEURISTIC_ROLLBACK)
-                            || (ok == TwoPhaseOutcome.HEURISTIC_COMMIT)
-                            || (ok == TwoPhaseOutcome.HEURISTIC_MIXED) || (ok == TwoPhaseOutcome.HEURISTIC_HAZARD)))
-                    {
-                        updateHeuristic(ok, true);
-                        heuristicList.insert(recordBeingHandled);
-                        addDeferredThrowables(recordBeingHandled, deferredThrowables);
-                    }
-                    else
-                    {
-                        if (ok == TwoPhaseOutcome.NOT_PREPARED)
-                        {
-                            /*
-                             * If this is the first resource then rollback,
-                             * otherwise promote to HEURISTIC_HAZARD, but don't
-                             * add to heuristicList.
-                             */
-
-                            updateHeuristic(TwoPhaseOutcome.HEURISTIC_HAZARD, true);
-                        }
-                        else
-                        {
-                            /*
-                             * The commit failed. Add this record to the failed
-                             * list to indicate this. Covers statuses like FAILED_ERROR.
-                             */
-
 
-                            if ((ok == TwoPhaseOutcome.HEURISTIC_ROLLBACK)
-                                    || (ok == TwoPhaseOutcome.HEURISTIC_COMMIT)
-                                    || (ok == TwoPhaseOutcome.HEURISTIC_MIXED) || (ok == TwoPhaseOutcome.HEURISTIC_HAZARD))
-                            {
-                                updateHeuristic(ok, true);
-                            }
-
-                            failedList.insert(recordBeingHandled);
-                            addDeferredThrowables(recordBeingHandled, deferredThrowables);
-                        }
-                    }
-                }
+                committed(reportHeuristics, record, ok);
             }
             else
             {
@@ -3050,6 +3076,8 @@ public class BasicAction extends StateManager
 
                 ok = recordBeingHandled.nestedCommit();
 
+                TxStats.getInstance().recordParticipant(TxStats.PARTICIPANT_COMMIT, record, startTime);
+
                 if (recordBeingHandled.propagateOnCommit())
                 {
                     merge(recordBeingHandled);
@@ -3077,6 +3105,71 @@ public class BasicAction extends StateManager
         return ok;
     }
 
+    /*
+     * Record the outcome of committing a record of a top level action.
+     */
+
+    private void committed (boolean reportHeuristics, AbstractRecord record, int ok)
+    {
+        if (ok == TwoPhaseOutcome.FINISH_OK)
+        {
+            updateHeuristic(TwoPhaseOutcome.FINISH_OK, true); // must
+            // remember
+            // that
+            // something
+            // has
+            // committed
+        }
+        else
+        {
+            if (tsLogger.logger.isTraceEnabled()) {
+                tsLogger.logger.trace("BasicAction.doCommit for "+get_uid()+" received "+
+                        TwoPhaseOutcome.stringForm(ok)+" from "+RecordType.typeToClass(record.typeIs()));
+            }
+
+            if ((reportHeuristics)
+                    && ((ok == TwoPhaseOutcome.HEURISTIC_ROLLBACK)
+                    || (ok == TwoPhaseOutcome.HEURISTIC_COMMIT)
+                    || (ok == TwoPhaseOutcome.HEURISTIC_MIXED) || (ok == TwoPhaseOutcome.HEURISTIC_HAZARD)))
+            {
+                updateHeuristic(ok, true);
+                heuristicList.insert(record);
+                addDeferredThrowables(record, deferredThrowables);
+            }
+            else
+            {
+                if (ok == TwoPhaseOutcome.NOT_PREPARED)
+                {
+                    /*
+                     * If this is the first resource then rollback,
+                     * otherwise promote to HEURISTIC_HAZARD, but don't
+                     * add to heuristicList.
+                     */
+
+                    updateHeuristic(TwoPhaseOutcome.HEURISTIC_HAZARD, true);
+                }
+                else
+                {
+                    /*
+                     * The commit failed. Add this record to the failed
+                     * list to indicate this. Covers statuses like FAILED_ERROR.
+                     */
+
+
+                    if ((ok == TwoPhaseOutcome.HEURISTIC_ROLLBACK)
+                            || (ok == TwoPhaseOutcome.HEURISTIC_COMMIT)
+                            || (ok == TwoPhaseOutcome.HEURISTIC_MIXED) || (ok == TwoPhaseOutcome.HEURISTIC_HAZARD))
+                    {
+                        updateHeuristic(ok, true);
+                    }
+
+                    failedList.insert(record);
+                    addDeferredThrowables(record, deferredThrowables);
+                }
+            }
+        }
+    }
+
     /*
      * Walk down a record list extracting records and calling the appropriate
      * abort function. Discard records when done.
@@ -3086,6 +3179,17 @@ public class BasicAction extends StateManager
     {
         if ((list_toprocess != null) && (list_toprocess.size() > 0))
         {
+            if (isParallelPhase2(list_toprocess))
+            {
+                List<AsyncPhase.Outcome> outcomes = new AsyncPhase(this, "doAbort", TxStats.PARTICIPANT_ROLLBACK, AbstractRecord::topLevelAbort,
+                        TwoPhaseOutcome.FINISH_ERROR).inOrderPerObject().run(drain(list_toprocess));
+
+                for (AsyncPhase.Outcome outcome : outcomes)
+                    aborted(reportHeuristics, outcome.record, outcome.outcome);
+
+                return TwoPhaseOutcome.FINISH_OK;
+            }
+
             while ((recordBeingHandled = list_toprocess.getFront()) != null)
             {
                 doAbort(reportHeuristics, recordBeingHandled);
@@ -3108,11 +3212,15 @@ public class BasicAction extends StateManager
 
         if (recordBeingHandled != null)
         {
+            long startTime = TxStats.startTime();
+
             if (actionType == ActionType.TOP_LEVEL)
                 ok = recordBeingHandled.topLevelAbort();
             else
                 ok = recordBeingHandled.nestedAbort();
 
+            TxStats.getInstance().recordParticipant(TxStats.PARTICIPANT_ROLLBACK, record, startTime);
+
             if ((actionType != ActionType.TOP_LEVEL)
                     && (recordBeingHandled.propagateOnAbort()))
             {
@@ -3120,43 +3228,7 @@ public class BasicAction extends StateManager
             }
             else
             {
-                if (ok == TwoPhaseOutcome.FINISH_OK)
-                {
-                    updateHeuristic(TwoPhaseOutcome.FINISH_OK, false); // remember
-                    // that
-                    // something
-                    // aborted
-                    // ok
-                }
-                else
-                {
-                    if ((reportHeuristics)
-                            && ((ok == TwoPhaseOutcome.HEURISTIC_ROLLBACK)
-                            || (ok == TwoPhaseOutcome.HEURISTIC_COMMIT)
-                            || (ok == TwoPhaseOutcome.HEURISTIC_MIXED) || (ok == TwoPhaseOutcome.HEURISTIC_HAZARD))) {
-                        if (actionType == ActionType.TOP_LEVEL)
-                            tsLogger.i18NLogger.warn_coordinator_BasicAction_52(get_uid(), TwoPhaseOutcome.stringForm(ok));
-                        else
-                            tsLogger.i18NLogger.warn_coordinator_BasicAction_53(get_uid(), TwoPhaseOutcome.stringForm(ok));
-
-                        updateHeuristic(ok, false);
-                        heuristicList.insert(recordBeingHandled);
-                        addDeferredThrowables(recordBeingHandled, deferredThrowables);
-                    }
-                    else
-                    {
-                        if (ok != TwoPhaseOutcome.FINISH_OK) {
-                            if (actionType == ActionType.TOP_LEVEL)
-                                tsLogger.i18NLogger.warn_coordinator_BasicAction_54(get_uid(),
-                                        TwoPhaseOutcome.stringForm(ok),
-                                        RecordType.typeToClass(recordBeingHandled.typeIs()).getCanonicalName());
-                            else
-                                tsLogger.i18NLogger.warn_coordinator_BasicAction_55(get_uid(),
-                                        TwoPhaseOutcome.stringForm(ok),
-                                        RecordType.typeToClass(recordBeingHandled.typeIs()).getCanonicalName());
-                        }
-                    }
-                }
+                aborted(reportHeuristics, record, ok);
 
                 /*
                  * Don't need a canDelete as in the C++ version since Java's
@@ -3178,6 +3250,75 @@ public class BasicAction extends StateManager
         return ok;
     }
 
+    /*
+     * Record the outcome of rolling back a record which is not being
+     * propagated to the parent action.
+     */
+
+    private void aborted (boolean reportHeuristics, AbstractRecord record, int ok)
+    {
+        if (ok == TwoPhaseOutcome.FINISH_OK)
+        {
+            updateHeuristic(TwoPhaseOutcome.FINISH_OK, false); // remember
+            // that
+            // something
+            // aborted
+            // ok
+        }
+        else
+        {
+            if ((reportHeuristics)
+                    && ((ok == TwoPhaseOutcome.HEURISTIC_ROLLBACK)
+                    || (ok == TwoPhaseOutcome.HEURISTIC_COMMIT)
+                    || (ok == TwoPhaseOutcome.HEURISTIC_MIXED) || (ok == TwoPhaseOutcome.HEURISTIC_HAZARD))) {
+                if (actionType == ActionType.TOP_LEVEL)
+                    tsLogger.i18NLogger.warn_coordinator_BasicAction_52(get_uid(), TwoPhaseOutcome.stringForm(ok));
+                else
+                    tsLogger.i18NLogger.warn_coordinator_BasicAction_53(get_uid(), TwoPhaseOutcome.stringForm(ok));
+
+                updateHeuristic(ok, false);
+                heuristicList.insert(record);
+                addDeferredThrowables(record, deferredThrowables);
+            }
+            else
+            {
+                if (ok != TwoPhaseOutcome.FINISH_OK) {
+                    if (actionType == ActionType.TOP_LEVEL)
+                        tsLogger.i18NLogger.warn_coordinator_BasicAction_54(get_uid(),
+                                TwoPhaseOutcome.stringForm(ok),
+                                RecordType.typeToClass(record.typeIs()).getCanonicalName());
+                    else
+                        tsLogger.i18NLogger.warn_coordinator_BasicAction_55(get_uid(),
+                                TwoPhaseOutcome.stringForm(ok),
+                                RecordType.typeToClass(record.typeIs()).getCanonicalName());
+                }
+            }
+        }
+    }
+
+    /*
+     * The second phase of a top level action may be run in parallel if there
+     * is more than one record to complete. The records for each object are
+     * still completed in intentions list order, e.g. a PersistenceRecord
+     * before the LockRecord for the same object.
+     */
+
+    private boolean isParallelPhase2 (RecordList rl)
+    {
+        return TxControl.parallelPhase2 && (actionType == ActionType.TOP_LEVEL) && (rl.size() > 1);
+    }
+
+    private static List<AbstractRecord> drain (RecordList rl)
+    {
+        List<AbstractRecord> records = new ArrayList<AbstractRecord>(rl.size());
+        AbstractRecord rec;
+
+        while ((rec = rl.getFront()) != null)
+            records.add(rec);
+
+        return records;
+    }
+
     protected AbstractRecord insertRecord (RecordList reclist, AbstractRecord record)
     {
         boolean lock = TxControl.asyncPrepare;
@@ -3383,19 +3524,45 @@ public class BasicAction extends StateManager
                 {
                     if (savedIntentionList)
                     {
-                        if (transactionStore.remove_committed(getSavingUid(), type()))
+                        /*
+                         * The outcome is decided, so don't wait for a store
+                         * which can tell us later whether the removal made
+                         * it to disk. The others have already finished. The
+                         * list only counts as removed once the store says so.
+                         */
+
+                        CompletableFuture<Boolean> removal = transactionStore.remove_committed_async(getSavingUid(), type()).toCompletableFuture();
+
+                        if (!removal.isDone())
                         {
-                            savedIntentionList = false;
+                            removal.whenComplete((removed, ex) -> {
+                                if (ex != null)
+                                    tsLogger.i18NLogger.warn_coordinator_BasicAction_70((ex instanceof CompletionException) && (ex.getCause() != null) ? ex.getCause() : ex);
+                                else
+                                    intentionListRemoved(removed);
+                            });
+                        }
+                        else
+                        {
+                            intentionListRemoved(removal.join());
                         }
                     }
                 }
-                catch (ObjectStoreException e) {
-                    tsLogger.i18NLogger.warn_coordinator_BasicAction_70(e);
+                catch (CompletionException e) {
+                    tsLogger.i18NLogger.warn_coordinator_BasicAction_70(e.getCause());
                 }
             }
         }
     }
 
+    private final void intentionListRemoved (boolean removed)
+    {
+        if (removed)
+            savedIntentionList = false;
+        else
+            tsLogger.i18NLogger.warn_coordinator_BasicAction_remove_failed(getSavingUid());
+    }
+
     /*
      * This is only meant as an instance cut of the children, so don't lock the
      * entire transaction. Thus, the list may change before we return.
@@ -3874,7 +4041,7 @@ public class BasicAction extends StateManager
     protected RecordList readonlyList;
     protected RecordList failedList;
     protected RecordList heuristicList;
-    protected boolean savedIntentionList;
+    protected volatile boolean savedIntentionList;
 
     private ActionHierarchy currentHierarchy;
     private ParticipantStore transactionStore;  // a ParticipantStore is also a TxLog
@@ -3891,6 +4058,7 @@ public class BasicAction extends StateManager
     private CheckedAction _checkedAction; // control what happens if threads active when terminating.
     private boolean pastFirstParticipant;  // remember where we are (were) in committing during recovery
     private boolean internalError; // is there an error internal to the TM (such as write log errors, for example)
+    private long beginTime; // when a top level action began, if statistics were enabled
 
     /*
      * We need to keep track of the number of threads associated with each
@@ -0,0 +1,113 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.arjuna.coordinator;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.arjuna.ats.arjuna.coordinator.internal.LatencyHistogram;
+
+/**
+ * An immutable copy of one of the latency histograms maintained by
+ * {@link TxStats}. All values are in nanoseconds and are accurate to within
+ * about 3%. The counts are cumulative since the JVM started, so a collector
+ * which wants a rate should subtract the previous snapshot.
+ */
+public final class LatencySnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    public LatencySnapshot(String name, long[] counts, long total, long max) {
+        long count = 0;
+
+        for (long c : counts)
+            count += c;
+
+        this.name = name;
+        this.counts = counts;
+        this.count = count;
+        this.total = total;
+        this.max = max;
+    }
+
+    /**
+     * @return the name of the histogram, e.g. "prepare" or "commit:XAResourceRecord/java:/ExampleDS".
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of values recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the largest value recorded, or 0 if there are none.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean of the values recorded, or 0 if there are none.
+     */
+    public long getMean() {
+        return (count == 0) ? 0 : total / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return the value which the given percentage of the recorded values do
+     * not exceed, or 0 if there are none.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+
+            if (seen >= target)
+                return Math.min(LatencyHistogram.highestValueIn(i), max);
+        }
+
+        return max;
+    }
+
+    /**
+     * @return the number of values in each non-empty bucket keyed by the
+     * largest value the bucket holds, in ascending order.
+     */
+    public Map<Long, Long> getBuckets() {
+        Map<Long, Long> buckets = new LinkedHashMap<>();
+
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0)
+                buckets.put(LatencyHistogram.highestValueIn(i), counts[i]);
+        }
+
+        return buckets;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": count=" + count + " mean=" + getMean() + " p50=" + getValueAtPercentile(50)
+                + " p90=" + getValueAtPercentile(90) + " p99=" + getValueAtPercentile(99)
+                + " p99.9=" + getValueAtPercentile(99.9) + " max=" + max;
+    }
+}
@@ -8,7 +8,10 @@
 package com.arjuna.ats.arjuna.coordinator;
 
 import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
 
+import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.logging.tsLogger;
 
 /**
@@ -25,6 +28,15 @@ import com.arjuna.ats.arjuna.logging.tsLogger;
  * instances of this class are only used from within synchronized classes.
  * Applications should not use this class.
  * 
+ * Transactions may have thousands of records, so the list keeps track of
+ * whether it is sorted by order() and, once it is long enough, indexes the
+ * first record for each order. A record which only acts on those for the
+ * same object (see AbstractRecord.isOrderScoped) is then inserted by starting
+ * the search at those records, or appended straight away if it sorts after
+ * the tail, rather than by asking every record in the list. The outcome is
+ * the same as for a search from the head. Lists which are not sorted, or
+ * which are ordered by type, are always searched from the head.
+ * 
  * @author Mark Little (mark@arjuna.com)
  * @version $Id: RecordList.java 2342 2006-03-30 13:06:17Z $
  * @since JTS 1.0.
@@ -45,6 +57,7 @@ public class RecordList
         listHead = copy.listHead;
         listTail = copy.listTail;
         noEntries = copy.noEntries;
+        ordered = copy.ordered;
     }
 
     /**
@@ -61,9 +74,13 @@ public class RecordList
         {
             listHead = listTail = null;
             noEntries = 0;
+
+            cleared();
         }
         else if (noEntries > 1)
         {
+            unlinking(temp);
+
             listHead = listHead.getNext();
             listHead.setPrevious(null);
             temp.setNext(null);
@@ -88,9 +105,13 @@ public class RecordList
         {
             listHead = listTail = null;
             noEntries = 0;
+
+            cleared();
         }
         else if (noEntries > 1)
         {
+            unlinking(temp);
+
             listTail = listTail.getPrevious();
             listTail.setNext(null);
             temp.setPrevious(null);
@@ -116,6 +137,33 @@ public class RecordList
 
     public final boolean insert (AbstractRecord newRecord)
     {
+        if (ordered && (listTail != null) && newRecord.isOrderScoped() && AbstractRecord.isOrderedByUid())
+        {
+            Uid order = newRecord.order();
+
+            if (order != null)
+            {
+                /*
+                 * The records before those for the same object would neither
+                 * act on the new one nor sort after it, so start from the
+                 * first of those, or from whatever follows, or just append.
+                 */
+
+                if (listTail.order().compareTo(order) < 0)
+                    return insert(newRecord, null);
+
+                if (noEntries >= INDEX_THRESHOLD)
+                {
+                    if (index == null)
+                        buildIndex();
+
+                    Map.Entry<Uid, AbstractRecord> start = index.ceilingEntry(order);
+
+                    return insert(newRecord, (start == null) ? null : start.getValue());
+                }
+            }
+        }
+
         /* Do the insert starting at the head of the list */
         return insert(newRecord, listHead);
     }
@@ -152,6 +200,8 @@ public class RecordList
         }
 
         noEntries++;
+
+        linked(newRecord);
     }
 
     /**
@@ -175,6 +225,8 @@ public class RecordList
         }
 
         noEntries++;
+
+        linked(newRecord);
     }
 
     public final AbstractRecord peekFront ()
@@ -205,9 +257,13 @@ public class RecordList
         {
             listHead = listTail = null;
             noEntries = 0;
+
+            cleared();
         }
         else if (noEntries > 1)
         {
+            unlinking(oldRecord);
+
             if (listHead == oldRecord)
             {
                 listHead = listHead.getNext();
@@ -417,11 +473,15 @@ public class RecordList
             listHead = newRecord;
 
         noEntries++;
+
+        linked(newRecord);
     }
 
     private final void replace (AbstractRecord newRecord,
             AbstractRecord oldRecord)
     {
+        unlinking(oldRecord);
+
         newRecord.setPrevious(oldRecord.getPrevious());
         newRecord.setNext(oldRecord.getNext());
 
@@ -436,6 +496,75 @@ public class RecordList
             listTail = newRecord;
 
         oldRecord = null;
+
+        linked(newRecord);
+    }
+
+    /*
+     * Called once a record is in its place in the list, to check the list is
+     * still sorted and, if so, keep the index up to date.
+     */
+
+    private final void linked (AbstractRecord newRecord)
+    {
+        if (!ordered)
+            return;
+
+        AbstractRecord previous = newRecord.getPrevious();
+        AbstractRecord next = newRecord.getNext();
+        Uid order = newRecord.order();
+
+        if ((order == null) || ((previous != null) && !inOrder(previous.order(), order))
+                || ((next != null) && !inOrder(order, next.order())))
+        {
+            ordered = false;
+            index = null;
+        }
+        else if ((index != null) && ((previous == null) || !order.equals(previous.order())))
+        {
+            index.put(order, newRecord);
+        }
+    }
+
+    /*
+     * Called before a record is taken out of the list, while its successor
+     * can still be found.
+     */
+
+    private final void unlinking (AbstractRecord oldRecord)
+    {
+        if ((index != null) && (oldRecord.order() != null) && (index.get(oldRecord.order()) == oldRecord))
+        {
+            AbstractRecord next = oldRecord.getNext();
+
+            if ((next != null) && oldRecord.order().equals(next.order()))
+                index.put(next.order(), next);
+            else
+                index.remove(oldRecord.order());
+        }
+    }
+
+    /*
+     * An empty list is sorted, whatever was in it before.
+     */
+
+    private final void cleared ()
+    {
+        ordered = true;
+        index = null;
+    }
+
+    private final void buildIndex ()
+    {
+        index = new TreeMap<Uid, AbstractRecord>();
+
+        for (AbstractRecord rec = listHead; rec != null; rec = rec.getNext())
+            index.putIfAbsent(rec.order(), rec);
+    }
+
+    private static boolean inOrder (Uid first, Uid second)
+    {
+        return (first != null) && (second != null) && (first.compareTo(second) <= 0);
     }
 
     protected AbstractRecord listHead;
@@ -444,4 +573,16 @@ public class RecordList
 
     private int noEntries;
 
+    /*
+     * Whether the records are sorted by order(), and if so the first record
+     * for each order. The index is only built once the list is long enough
+     * for it to be worth keeping.
+     */
+
+    private boolean ordered = true;
+
+    private TreeMap<Uid, AbstractRecord> index;
+
+    private static final int INDEX_THRESHOLD = 16;
+
 }
\ No newline at end of file
@@ -19,8 +19,10 @@ import com.arjuna.ats.arjuna.coordinator.listener.ReaperMonitor;
 import com.arjuna.ats.arjuna.logging.tsLogger;
 import com.arjuna.ats.internal.arjuna.coordinator.ReaperElement;
 import com.arjuna.ats.internal.arjuna.coordinator.ReaperElementManager;
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElementQueue;
 import com.arjuna.ats.internal.arjuna.coordinator.ReaperThread;
 import com.arjuna.ats.internal.arjuna.coordinator.ReaperWorkerThread;
+import com.arjuna.ats.internal.arjuna.coordinator.TimingWheelReaperElementManager;
 
 /**
  * Class to record transactions with non-zero timeout values, and class to
@@ -41,7 +43,9 @@ public class TransactionReaper
 
     public static final String PERIODIC = "PERIODIC"; // the new name for 'NORMAL'
 
-    private TransactionReaper(long checkPeriod)
+    public static final String TIMING_WHEEL = "TIMING_WHEEL"; // DYNAMIC, but with timeouts held in a timing wheel
+
+    private TransactionReaper(long checkPeriod, ReaperElementQueue reaperElements)
     {
         if (tsLogger.logger.isTraceEnabled()) {
             tsLogger.logger.trace("TransactionReaper::TransactionReaper ( " + checkPeriod
@@ -49,6 +53,7 @@ public class TransactionReaper
         }
 
         _checkPeriod = checkPeriod;
+        _reaperElements = reaperElements;
     }
 
     public final long checkingPeriod()
@@ -860,11 +865,18 @@ public class TransactionReaper
                 tsLogger.i18NLogger.warn_coordinator_TransactionReaper_19();
             }
 
+            ReaperElementQueue reaperElements;
+            if (mode.compareTo(TransactionReaper.TIMING_WHEEL) == 0) {
+                reaperElements = new TimingWheelReaperElementManager();
+            } else {
+                reaperElements = new ReaperElementManager();
+            }
+
             long checkPeriod = Long.MAX_VALUE;
             if (!TransactionReaper._dynamic) {
                 checkPeriod = arjPropertyManager.getCoordinatorEnvironmentBean().getTxReaperTimeout();
             }
-            TransactionReaper._theReaper = new TransactionReaper(checkPeriod);
+            TransactionReaper._theReaper = new TransactionReaper(checkPeriod, reaperElements);
 
             TransactionReaper._theReaper._cancelWaitPeriod = arjPropertyManager.getCoordinatorEnvironmentBean().getTxReaperCancelWaitPeriod();
 
@@ -969,7 +981,7 @@ public class TransactionReaper
         _theReaper = null;
     }
 
-    private final ReaperElementManager _reaperElements = new ReaperElementManager();
+    private final ReaperElementQueue _reaperElements;
 
     // The keys are actually Reapable, as that's what insert takes. However, some functions use get(Object)
     // and rely on clever hashcode/equals behaviour, especially for the JTS. Thus the generics key type is Object.
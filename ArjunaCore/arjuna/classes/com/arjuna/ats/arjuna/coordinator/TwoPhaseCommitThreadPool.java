@@ -1,13 +1,19 @@
 package com.arjuna.ats.arjuna.coordinator;
 
 import com.arjuna.ats.arjuna.common.arjPropertyManager;
+import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.common.internal.util.ClassloadingUtility;
 
 import java.util.concurrent.*;
 
 public class TwoPhaseCommitThreadPool {
+    public static final String FIXED = "FIXED";
+    public static final String VIRTUAL = "VIRTUAL";
+
     private static final int poolSize = arjPropertyManager.getCoordinatorEnvironmentBean().
             getMaxTwoPhaseCommitThreads();
-    private static final ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+    private static final ExecutorService executor = createExecutor(arjPropertyManager.getCoordinatorEnvironmentBean().
+            getTwoPhaseCommitExecutor());
 
     public static Future<Integer> submitJob(Callable<Integer> job) {
         return executor.submit(job);
@@ -20,4 +26,29 @@ public class TwoPhaseCommitThreadPool {
     public static CompletionService<Boolean> getNewCompletionService() {
         return new ExecutorCompletionService<Boolean>(executor);
     }
+
+    /**
+     * @return the executor which runs two phase commit work, for use with CompletableFuture
+     */
+    public static Executor getExecutor() {
+        return executor;
+    }
+
+    static ExecutorService createExecutor(String type) {
+        ExecutorService service = null;
+
+        if (VIRTUAL.equalsIgnoreCase(type)) {
+            try {
+                // the build targets a JDK without virtual threads so look the factory up reflectively
+                service = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                tsLogger.i18NLogger.warn_coordinator_TwoPhaseCommitThreadPool_virtual(e);
+            }
+        } else if (type != null && !FIXED.equalsIgnoreCase(type)) {
+            // failures to load the class are logged by the utility
+            service = ClassloadingUtility.loadAndInstantiateClass(ExecutorService.class, type, null);
+        }
+
+        return (service != null) ? service : Executors.newFixedThreadPool(poolSize);
+    }
 }
@@ -302,6 +302,8 @@ public class TwoPhaseCoordinator extends BasicAction implements Reapable
 			{
 				_beforeCalled = true;
 
+				long startTime = (_synchs == null) ? 0L : TxStats.startTime();
+
 				/*
 				 * If we have a synchronization list then we must be top-level.
 				 */
@@ -371,6 +373,8 @@ public class TwoPhaseCoordinator extends BasicAction implements Reapable
 						}
 					}
 				}
+
+				TxStats.getInstance().recordPhase(TxStats.BEFORE_COMPLETION, startTime);
 			}
 
 			if (problem && !preventCommit()) {
@@ -493,7 +497,11 @@ public class TwoPhaseCoordinator extends BasicAction implements Reapable
 
 				if (_synchs == null) {
 					return !problem;
-				} else if (TxControl.asyncAfterSynch && _synchs.size() > 1) {
+				}
+
+				long startTime = TxStats.startTime();
+
+				if (TxControl.asyncAfterSynch && _synchs.size() > 1) {
 					problem = asyncAfterCompletion(myStatus, report_heuristics);
 				} else {
 					// afterCompletions should run in reverse order compared to
@@ -555,6 +563,8 @@ public class TwoPhaseCoordinator extends BasicAction implements Reapable
 					// nulling _syncs causes concurrency problems, so dispose contents instead:
 					_synchs.clear();
 				}
+
+				TxStats.getInstance().recordPhase(TxStats.AFTER_COMPLETION, startTime);
 			}
 		} finally {
 			_syncLock.unlock();
@@ -126,6 +126,11 @@ public class TxControl
 		return asyncPrepare;
 	}
 
+	public static final boolean isParallelPhase2()
+	{
+		return parallelPhase2;
+	}
+
 	public static final boolean getMaintainHeuristics()
 	{
 		return maintainHeuristics;
@@ -202,6 +207,8 @@ public class TxControl
 
 	static final boolean asyncRollback = arjPropertyManager.getCoordinatorEnvironmentBean().isAsyncRollback();
 
+	static final boolean parallelPhase2 = arjPropertyManager.getCoordinatorEnvironmentBean().isParallelPhase2();
+
     static final boolean asyncBeforeSynch = arjPropertyManager.getCoordinatorEnvironmentBean().isAsyncBeforeSynchronization();
 
     static final boolean asyncAfterSynch = arjPropertyManager.getCoordinatorEnvironmentBean().isAsyncAfterSynchronization();
@@ -7,11 +7,16 @@
 
 package com.arjuna.ats.arjuna.coordinator;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.arjuna.ats.arjuna.common.CoordinatorEnvironmentBean;
 import com.arjuna.ats.arjuna.common.arjPropertyManager;
+import com.arjuna.ats.arjuna.coordinator.internal.LatencyHistogram;
 import com.arjuna.ats.arjuna.coordinator.internal.TxCommitStatistic;
 
 /**
@@ -26,6 +31,32 @@ import com.arjuna.ats.arjuna.coordinator.internal.TxCommitStatistic;
 
 public class TxStats implements TxStatsMBean
 {
+    /*
+     * The phases of a transaction which have a latency histogram.
+     */
+
+    static final int TRANSACTION = 0;
+    static final int BEFORE_COMPLETION = 1;
+    static final int PREPARE = 2;
+    static final int LOG_WRITE = 3;
+    static final int COMMIT = 4;
+    static final int AFTER_COMPLETION = 5;
+
+    private static final String[] PHASE_NAMES = { "transaction", "beforeCompletion", "prepare", "logWrite",
+            "commit", "afterCompletion" };
+
+    /*
+     * The participant operations which have a latency histogram for each
+     * kind of participant.
+     */
+
+    static final int PARTICIPANT_PREPARE = 0;
+    static final int PARTICIPANT_COMMIT = 1;
+    static final int PARTICIPANT_ROLLBACK = 2;
+    static final int PARTICIPANT_ONE_PHASE_COMMIT = 3;
+
+    private static final String[] PARTICIPANT_PHASE_NAMES = { "prepare", "commit", "rollback", "onePhaseCommit" };
+
     private static TxStats _instance = new TxStats();
 
     private static CoordinatorEnvironmentBean _environmentBean;
@@ -134,6 +165,75 @@ public class TxStats implements TxStatsMBean
         return numberOfResourceAborts.get();
 	}
 
+	/**
+	 * @return a snapshot of every latency histogram: first those for the
+	 * phases of the transaction (transaction, beforeCompletion, prepare,
+	 * logWrite, commit and afterCompletion) and then those for each kind of
+	 * participant which has been driven, named by the participant operation
+	 * and {@link AbstractRecord#statisticsName()}, e.g.
+	 * "prepare:XAResourceRecord/java:/ExampleDS".
+	 */
+	public List<LatencySnapshot> getLatencySnapshots()
+	{
+		List<LatencySnapshot> snapshots = new ArrayList<>();
+
+		for (int i = 0; i < phaseLatencies.length; i++)
+			snapshots.add(phaseLatencies[i].snapshot(PHASE_NAMES[i]));
+
+		for (Map.Entry<String, LatencyHistogram[]> entry : participantLatencies.entrySet()) {
+			LatencyHistogram[] histograms = entry.getValue();
+
+			for (int i = 0; i < histograms.length; i++)
+				snapshots.add(histograms[i].snapshot(PARTICIPANT_PHASE_NAMES[i] + ":" + entry.getKey()));
+		}
+
+		return snapshots;
+	}
+
+	/**
+	 * @param name the name of the histogram, as given by {@link LatencySnapshot#getName()}.
+	 * @return a snapshot of the histogram or null if there is none with that name.
+	 */
+	public LatencySnapshot getLatencySnapshot(String name)
+	{
+		for (int i = 0; i < PHASE_NAMES.length; i++) {
+			if (PHASE_NAMES[i].equals(name))
+				return phaseLatencies[i].snapshot(name);
+		}
+
+		int separator = name.indexOf(':');
+
+		if (separator != -1) {
+			LatencyHistogram[] histograms = participantLatencies.get(name.substring(separator + 1));
+
+			if (histograms != null) {
+				String phase = name.substring(0, separator);
+
+				for (int i = 0; i < PARTICIPANT_PHASE_NAMES.length; i++) {
+					if (PARTICIPANT_PHASE_NAMES[i].equals(phase))
+						return histograms[i].snapshot(name);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return a one line summary of each latency histogram which has any values.
+	 */
+	public String[] getLatencySummary()
+	{
+		List<String> summary = new ArrayList<>();
+
+		for (LatencySnapshot snapshot : getLatencySnapshots()) {
+			if (snapshot.getCount() != 0)
+				summary.add(snapshot.toString());
+		}
+
+		return summary.toArray(new String[0]);
+	}
+
 	/**
 	 * Print all of the current statistics information.
 	 * 
@@ -163,6 +263,9 @@ public class TxStats implements TxStatsMBean
 				+ getNumberOfResourceRollbacks());
 		pw.println("Average time (in nanosecs) to commit a transaction: "
 				+ getAverageCommitTime());
+
+		for (String latency : getLatencySummary())
+			pw.println("Latency (in nanosecs) of " + latency);
 	}
 
 	void incrementTransactions()
@@ -224,6 +327,57 @@ public class TxStats implements TxStatsMBean
 		} while (!commitStatistic.compareAndSet(prev, next));
 	}
 
+	/**
+	 * @return the time to pass to the methods which record latencies, or 0 if
+	 * statistics are disabled.
+	 */
+	static long startTime()
+	{
+		return enabled() ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * @param phase one of the phase constants, e.g. {@link #PREPARE}.
+	 * @param startTime the value of {@link #startTime()} when the phase began.
+	 */
+	void recordPhase(int phase, long startTime)
+	{
+		if (startTime != 0L)
+			phaseLatencies[phase].record(System.nanoTime() - startTime);
+	}
+
+	/**
+	 * @param phase one of the participant constants, e.g. {@link #PARTICIPANT_PREPARE}.
+	 * @param record the participant which was driven.
+	 * @param startTime the value of {@link #startTime()} before it was driven.
+	 */
+	void recordParticipant(int phase, AbstractRecord record, long startTime)
+	{
+		if (startTime != 0L)
+			recordParticipantLatency(phase, record, System.nanoTime() - startTime);
+	}
+
+	void recordParticipantLatency(int phase, AbstractRecord record, long nanos)
+	{
+		String name = record.statisticsName();
+		LatencyHistogram[] histograms = participantLatencies.get(name);
+
+		if (histograms == null)
+			histograms = participantLatencies.computeIfAbsent(name, k -> newHistograms(PARTICIPANT_PHASE_NAMES.length));
+
+		histograms[phase].record(nanos);
+	}
+
+	private static LatencyHistogram[] newHistograms(int count)
+	{
+		LatencyHistogram[] histograms = new LatencyHistogram[count];
+
+		for (int i = 0; i < count; i++)
+			histograms[i] = new LatencyHistogram();
+
+		return histograms;
+	}
+
 	void incrementHeuristics()
 	{
         numberOfHeuristics.incrementAndGet();
@@ -259,4 +413,6 @@ public class TxStats implements TxStatsMBean
 	private AtomicLong numberOfResourceAborts = new AtomicLong(0);
 	private AtomicReference<TxCommitStatistic> commitStatistic =
 			new AtomicReference<>(new TxCommitStatistic(0, 0));
+	private final LatencyHistogram[] phaseLatencies = newHistograms(PHASE_NAMES.length);
+	private final Map<String, LatencyHistogram[]> participantLatencies = new ConcurrentHashMap<>();
 }
\ No newline at end of file
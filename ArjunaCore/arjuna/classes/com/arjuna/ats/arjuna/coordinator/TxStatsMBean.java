@@ -5,6 +5,8 @@
 
 package com.arjuna.ats.arjuna.coordinator;
 
+import java.util.List;
+
 /**
  * MBean interface for monitoring transaction statistics.
  *
@@ -96,4 +98,31 @@ public interface TxStatsMBean
      * @return the number of transactions that rolled back due to resource (participant) failure.
      */
     long getNumberOfResourceRollbacks();
-}
\ No newline at end of file
+
+    /**
+     * Returns a snapshot of each latency histogram. There is one for each phase of the transaction:
+     *
+     * <ul>
+     *   <li>transaction: from begin until the transaction is known to have committed;
+     *   <li>beforeCompletion and afterCompletion: driving the synchronizations;
+     *   <li>prepare: the first phase of the protocol, including writing the log;
+     *   <li>logWrite: writing the log;
+     *   <li>commit: the second phase of the protocol, or one phase commit;
+     * </ul>
+     *
+     * and one for each operation (prepare, commit, rollback and onePhaseCommit) on each kind of participant,
+     * e.g. "commit:XAResourceRecord/java:/ExampleDS". Only top level transactions are included in the
+     * phase histograms. The histograms are only updated while statistics are enabled.
+     *
+     * @return a snapshot of each latency histogram.
+     */
+    List<LatencySnapshot> getLatencySnapshots();
+
+    /**
+     * Returns the count, mean, maximum and percentiles of each latency histogram which has any values, in
+     * nanoseconds, one histogram per line.
+     *
+     * @return a summary of each latency histogram which has any values.
+     */
+    String[] getLatencySummary();
+}
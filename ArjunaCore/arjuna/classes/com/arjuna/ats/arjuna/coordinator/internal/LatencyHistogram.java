@@ -0,0 +1,83 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.arjuna.coordinator.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.arjuna.ats.arjuna.coordinator.LatencySnapshot;
+
+/**
+ * A histogram of latencies in nanoseconds with log-linear buckets, in the
+ * style of HdrHistogram: every power of two is split into
+ * {@link #SUB_BUCKETS} equal buckets, so any value can be recorded and is
+ * reported to within about 3%. Recording is lock free and does not allocate.
+ */
+public final class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for Long.MAX_VALUE.
+     */
+    public static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0; // the clock is monotonic but guard against misuse
+
+        counts.incrementAndGet(indexFor(nanos));
+        total.add(nanos);
+
+        long current;
+
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+        }
+    }
+
+    /**
+     * @return a copy of the histogram. Values recorded while the copy is taken
+     * may be partially reflected in it.
+     */
+    public LatencySnapshot snapshot(String name) {
+        long[] copy = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++)
+            copy[i] = counts.get(i);
+
+        return new LatencySnapshot(name, copy, total.sum(), max.get());
+    }
+
+    /**
+     * @return the bucket which holds the value.
+     */
+    public static int indexFor(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return the largest value which is held in the bucket.
+     */
+    public static long highestValueIn(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+
+        return lowest + ((1L << shift) - 1);
+    }
+}
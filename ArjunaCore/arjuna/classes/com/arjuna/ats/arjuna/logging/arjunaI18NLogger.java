@@ -1619,6 +1619,39 @@ public interface arjunaI18NLogger {
 	@LogMessage(level = WARN)
 	void warn_invalidObjStoreBrowser_type(String type, @Cause Exception e);
 
+	@Message(id = 12407, value = "LogStore group commit failed to write batch to log ''{0}''", format = MESSAGE_FORMAT)
+	@LogMessage(level = WARN)
+	void warn_objectstore_LogStore_group_commit_failed(String logName, @Cause Throwable exception);
+
+	@Message(id = 12408, value = "Could not read the object store directory ''{0}''", format = MESSAGE_FORMAT)
+	String get_objectstore_FileSystemStore_cursor(String directory);
+
+	@Message(id = 12409, value = "Could not read the next page of Uids of type ''{0}'' from the object store", format = MESSAGE_FORMAT)
+	String get_objectstore_JDBCImple_cursor(String typeName);
+
+	@Message(id = 12410, value = "Virtual threads are not available, using a fixed size thread pool for two phase commit work", format = MESSAGE_FORMAT)
+	@LogMessage(level = WARN)
+	void warn_coordinator_TwoPhaseCommitThreadPool_virtual(@Cause Throwable cause);
+
+	@Message(id = 12411, value = "Participant {0} of action {1} threw an exception during {2}", format = MESSAGE_FORMAT)
+	@LogMessage(level = WARN)
+	void warn_coordinator_AsyncPhase_exception(String record, Uid actionUid, String phase, @Cause Throwable cause);
+
+	@Message(id = 12412, value = "JDBC store batch of {0} operations failed, retrying each operation individually", format = MESSAGE_FORMAT)
+	@LogMessage(level = WARN)
+	void warn_objectstore_JDBCImple_batch_failed(int size, @Cause Throwable cause);
+
+	@Message(id = 12413, value = "Deferred removal of {0} of type {1} failed, recovery will complete it", format = MESSAGE_FORMAT)
+	@LogMessage(level = WARN)
+	void warn_objectstore_DeferredRemovalStore_failed(Uid objUid, String tName, @Cause Throwable cause);
+
+	@Message(id = 12414, value = "Journal I/O failed with error {0}: {1}", format = MESSAGE_FORMAT)
+	String get_journal_io_failed(int errorCode, String errorMessage);
+
+	@Message(id = 12415, value = "Could not remove intentions list for {0}", format = MESSAGE_FORMAT)
+	@LogMessage(level = WARN)
+	void warn_coordinator_BasicAction_remove_failed(Uid actionUid);
+
     /*
         Allocate new messages directly above this notice.
           - id: use the next id number in numeric sequence. Don't reuse ids.
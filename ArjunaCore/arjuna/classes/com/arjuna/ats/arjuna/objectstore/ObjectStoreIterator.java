@@ -8,15 +8,20 @@
 package com.arjuna.ats.arjuna.objectstore;
 
 import java.io.IOException;
+import java.util.Iterator;
 
 import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.common.arjPropertyManager;
 import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
-import com.arjuna.ats.arjuna.state.InputObjectState;
-import com.arjuna.ats.internal.arjuna.common.UidHelper;
 
 /**
  * Class that allows us to iterate through instances of objects that may be
  * stored within a specific object store.
+ *
+ * The Uids are fetched from the store a page at a time (see
+ * {@link com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean#getUidPageSize()})
+ * as the iteration proceeds, so entries written or removed after the iterator
+ * was created may or may not be returned.
  */
 
 public class ObjectStoreIterator
@@ -24,25 +29,62 @@ public class ObjectStoreIterator
 
     public ObjectStoreIterator(RecoveryStore recoveryStore, String tName) throws ObjectStoreException
     {
-        recoveryStore.allObjUids(tName, uidList);
+        this(recoveryStore, tName, StateStatus.OS_UNKNOWN);
+    }
+
+    public ObjectStoreIterator(RecoveryStore recoveryStore, String tName, int match) throws ObjectStoreException
+    {
+        cursor = recoveryStore.openUidCursor(tName, match);
+        pageSize = Math.max(1, arjPropertyManager.getObjectStoreEnvironmentBean().getUidPageSize());
     }
 
     /**
-     * return the Uids from the list one at a time. ObjStore returns either null
-     * list or a list terminated by the NIL_UID. Use the latter to return 0 (for
-     * end of list)
-     * @throws IOException 
+     * return the Uids from the list one at a time. Returns the NIL_UID at the
+     * end of the list, after which the iterator is closed.
+     * @throws IOException if the next page of Uids could not be read from
+     * the object store
      */
 
     public final synchronized Uid iterate () throws IOException
     {
-        Uid newUid = null;
+        while (cursor != null && (page == null || !page.hasNext()))
+        {
+            try
+            {
+                page = cursor.next(pageSize).iterator();
+            }
+            catch (ObjectStoreException e)
+            {
+                close();
 
-        newUid = UidHelper.unpackFrom(uidList);
+                throw new IOException(e);
+            }
 
-        return newUid;
+            if (!page.hasNext())
+                close();
+        }
+
+        if (cursor == null)
+            return Uid.nullUid();
+
+        return page.next();
+    }
+
+    /**
+     * Stop the iteration early, releasing any resources held by the store.
+     */
+
+    public final synchronized void close ()
+    {
+        if (cursor != null)
+        {
+            cursor.close();
+            cursor = null;
+        }
     }
 
-    private InputObjectState uidList = new InputObjectState();
+    private final int pageSize;
+    private UidCursor cursor;
+    private Iterator<Uid> page;
 
-}
\ No newline at end of file
+}
@@ -47,6 +47,26 @@ public interface RecoveryStore extends TxLog
      */
 
     public boolean allObjUids (String s, InputObjectState buff) throws ObjectStoreException;
+
+    /**
+     * Obtain a cursor over the Uids of a specified type, which returns them
+     * a page at a time rather than packing all of them into one buffer as
+     * {@link #allObjUids(String, InputObjectState, int)} does.
+     *
+     * The default implementation is built on
+     * {@link #allObjUids(String, InputObjectState, int)}. Implementations
+     * which can enumerate their contents incrementally should override it.
+     *
+     * @param s The type to scan for.
+     * @param m The file type to look for (e.g., committed, shadowed). [StateStatus] Note: m=OS_UNKNOWN matches any state.
+     *
+     * @return a cursor which the caller must close.
+     */
+
+    public default UidCursor openUidCursor (String s, int m) throws ObjectStoreException
+    {
+        return UidCursor.fromAllObjUids(this, s, m);
+    }
     
     /**
      * Obtain all types of objects stored in the object store.
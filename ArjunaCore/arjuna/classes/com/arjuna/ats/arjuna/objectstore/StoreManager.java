@@ -8,6 +8,8 @@ package com.arjuna.ats.arjuna.objectstore;
 import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
 import com.arjuna.ats.arjuna.exceptions.FatalError;
 import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.ats.internal.arjuna.objectstore.DeferredRemovalStore;
+import com.arjuna.ats.internal.arjuna.objectstore.LogStore;
 import com.arjuna.common.internal.util.ClassloadingUtility;
 import com.arjuna.common.internal.util.propertyservice.BeanPopulator;
 
@@ -28,6 +30,15 @@ public class StoreManager
             throw new IllegalStateException("store already initialized!");
         }
 
+        if(actionStore != null) {
+            // the caller manages the store's lifecycle, so only the background removals are started here
+            actionStore = deferRemovals(actionStore, BeanPopulator.getDefaultInstance(ObjectStoreEnvironmentBean.class));
+
+            if(actionStore instanceof DeferredRemovalStore) {
+                ((DeferredRemovalStore) actionStore).startRemover();
+            }
+        }
+
         StoreManager.actionStore = actionStore;
         StoreManager.stateStore = stateStore;
         StoreManager.communicationStore = communicationStore;
@@ -145,11 +156,29 @@ public class StoreManager
             throw new FatalError(tsLogger.i18NLogger.init_StoreManager_instantiate_class_failure(name, storeType));
         }
 
+        if(name == null) {
+            store = deferRemovals(store, storeEnvBean);
+        }
+
         store.start();
 
         return store;
     }
 
+    /*
+     * Transaction logs can be removed in the background once the outcome is
+     * decided. The LogStore does this itself.
+     */
+
+    private static final ObjectStoreAPI deferRemovals(ObjectStoreAPI store, ObjectStoreEnvironmentBean storeEnvBean)
+    {
+        if(storeEnvBean.isSynchronousRemoval() || store instanceof LogStore || store instanceof DeferredRemovalStore) {
+            return store;
+        }
+
+        return new DeferredRemovalStore(store, storeEnvBean);
+    }
+
     public static ObjectStoreAPI getTxOJStore() {
         return (ObjectStoreAPI) setupStore(null, StateType.OS_UNSHARED);
     }
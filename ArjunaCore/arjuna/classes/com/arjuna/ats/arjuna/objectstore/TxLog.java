@@ -7,6 +7,9 @@
 
 package com.arjuna.ats.arjuna.objectstore;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
@@ -46,6 +49,72 @@ public interface TxLog extends BaseStore
 
     public boolean write_committed (Uid u, String tn, OutputObjectState buff) throws ObjectStoreException;
 
+    /**
+     * Remove the object's committed state without waiting for the store to
+     * make the removal durable.
+     *
+     * The default implementation calls {@link #remove_committed(Uid, String)}
+     * and so returns a completed stage. Implementations which are told when
+     * their writes are durable, such as journals, should override it. Stages
+     * may be completed by a thread belonging to the store, so dependent
+     * actions should not block.
+     *
+     * @param u The object to work on.
+     * @param tn The type of the object to work on.
+     *
+     * @return a stage which completes with the result remove_committed would
+     * have returned, or exceptionally with an {@link ObjectStoreException}.
+     */
+
+    public default CompletionStage<Boolean> remove_committed_async (Uid u, String tn)
+    {
+        CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+
+        try
+        {
+            result.complete(remove_committed(u, tn));
+        }
+        catch (final ObjectStoreException ex)
+        {
+            result.completeExceptionally(ex);
+        }
+
+        return result;
+    }
+
+    /**
+     * Write a new copy of the object's committed state without waiting for
+     * the store to make the write durable.
+     *
+     * The default implementation calls
+     * {@link #write_committed(Uid, String, OutputObjectState)} and so returns
+     * a completed stage. The state must not be changed until the stage has
+     * completed.
+     *
+     * @param u The object to work on.
+     * @param tn The type of the object to work on.
+     * @param buff The state to write.
+     *
+     * @return a stage which completes with the result write_committed would
+     * have returned, or exceptionally with an {@link ObjectStoreException}.
+     */
+
+    public default CompletionStage<Boolean> write_committed_async (Uid u, String tn, OutputObjectState buff)
+    {
+        CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+
+        try
+        {
+            result.complete(write_committed(u, tn, buff));
+        }
+        catch (final ObjectStoreException ex)
+        {
+            result.completeExceptionally(ex);
+        }
+
+        return result;
+    }
+
     /**
      * Some object store implementations may be running with automatic
      * sync disabled. Calling this method will ensure that any states are
@@ -0,0 +1,150 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+
+package com.arjuna.ats.arjuna.objectstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.internal.arjuna.common.UidHelper;
+
+/**
+ * A position in an enumeration of the Uids of one type held in a
+ * {@link RecoveryStore}, obtained from {@link RecoveryStore#openUidCursor}.
+ * The Uids are returned a page at a time so that a store holding a very
+ * large number of entries can be processed without first gathering all of
+ * them into a single {@link InputObjectState}.
+ *
+ * Entries added or removed while the enumeration is in progress may or may
+ * not be returned, but no entry is returned more than once. A cursor is not
+ * thread safe and should be closed once it is no longer needed.
+ */
+
+public abstract class UidCursor implements Closeable
+{
+    /**
+     * Obtain the next page of Uids.
+     *
+     * @param maxUids the maximum number of Uids to return.
+     *
+     * @return the next Uids in the enumeration. An empty list means that the
+     * enumeration is complete.
+     */
+
+    public abstract List<Uid> next (int maxUids) throws ObjectStoreException;
+
+    /**
+     * Release any resources held by the cursor. The default does nothing.
+     */
+
+    @Override
+    public void close ()
+    {
+    }
+
+    /**
+     * Provide a cursor over an iterator, such as a weakly consistent view of
+     * the keys of a concurrent map, for stores which index their contents
+     * in memory.
+     */
+
+    public static UidCursor fromIterator (final Iterator<Uid> uids)
+    {
+        return new UidCursor()
+        {
+            @Override
+            public List<Uid> next (int maxUids)
+            {
+                List<Uid> page = new ArrayList<>(Math.min(maxUids, 1024));
+
+                while (!closed && page.size() < maxUids && uids.hasNext())
+                    page.add(uids.next());
+
+                return page;
+            }
+
+            @Override
+            public void close ()
+            {
+                closed = true;
+            }
+
+            private boolean closed;
+        };
+    }
+
+    /**
+     * Provide a cursor over the results of
+     * {@link RecoveryStore#allObjUids(String, InputObjectState, int)} for
+     * stores which cannot enumerate their contents incrementally. The Uids
+     * are still read in one go, but not until the first page is requested.
+     */
+
+    public static UidCursor fromAllObjUids (final RecoveryStore store, final String typeName, final int matchState)
+    {
+        return new UidCursor()
+        {
+            @Override
+            public List<Uid> next (int maxUids) throws ObjectStoreException
+            {
+                if (uids == null)
+                {
+                    uids = new InputObjectState();
+
+                    if (!store.allObjUids(typeName, uids, matchState))
+                        finished = true;
+                }
+
+                if (finished)
+                    return Collections.emptyList();
+
+                List<Uid> page = new ArrayList<>(Math.min(maxUids, 1024));
+
+                try
+                {
+                    while (page.size() < maxUids)
+                    {
+                        Uid u = UidHelper.unpackFrom(uids);
+
+                        if (u.equals(Uid.nullUid()))
+                        {
+                            finished = true;
+                            break;
+                        }
+
+                        page.add(u);
+                    }
+                }
+                catch (IOException e)
+                {
+                    // a list which has no terminating null Uid
+
+                    finished = true;
+                }
+
+                return page;
+            }
+
+            @Override
+            public void close ()
+            {
+                uids = null;
+                finished = true;
+            }
+
+            private InputObjectState uids;
+            private boolean finished;
+        };
+    }
+}
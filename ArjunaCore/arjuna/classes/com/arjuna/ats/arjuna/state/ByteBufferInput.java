@@ -0,0 +1,283 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.arjuna.state;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unpacks data packed by an {@link OutputBuffer} or {@link ByteBufferOutput}
+ * straight from a buffer view, e.g., data just read by an object store,
+ * rather than from a private copy of it. Nested buffers can be viewed in place
+ * with {@link #unpackBuffer()}.
+ * <p>
+ * Unlike an InputBuffer an instance is not thread safe, and must not be
+ * unpacked by more than one thread at a time. The data is not copied, so it
+ * must not be modified while an instance is in use.
+ */
+
+public class ByteBufferInput
+{
+    /**
+     * Create a new buffer which unpacks directly from the array provided.
+     */
+
+    public ByteBufferInput (byte[] b)
+    {
+        this(ByteBuffer.wrap(b));
+    }
+
+    /**
+     * Create a new buffer which unpacks directly from the remaining contents
+     * of the one provided.
+     */
+
+    public ByteBufferInput (ByteBuffer b)
+    {
+        _input = b.slice();
+
+        skipHeader();
+    }
+
+    /**
+     * Return the length of the buffer, including the buffer header.
+     */
+
+    public final int length ()
+    {
+        return _input.limit();
+    }
+
+    /**
+     * Return a read-only view of the whole buffer, including the header.
+     */
+
+    public final ByteBuffer asByteBuffer ()
+    {
+        ByteBuffer view = _input.duplicate();
+
+        view.clear();
+
+        return view.asReadOnlyBuffer();
+    }
+
+    /**
+     * Unpack a byte.
+     */
+
+    public final byte unpackByte () throws IOException
+    {
+        return (byte) unpackInt();
+    }
+
+    /**
+     * Unpack the next byte array, as a copy.
+     */
+
+    public final byte[] unpackBytes () throws IOException
+    {
+        int size = unpackInt();
+
+        checkSize(size);
+
+        byte[] b = new byte[size];
+
+        _input.get(b);
+        realign(size);
+
+        return b;
+    }
+
+    /**
+     * Unpack the next byte array as a read-only view within this buffer,
+     * rather than a copy. This is how a nested buffer, such as the state
+     * packed by OutputObjectState.packInto, is reached without copying it.
+     */
+
+    public final ByteBuffer unpackBuffer () throws IOException
+    {
+        int size = unpackInt();
+
+        checkSize(size);
+
+        ByteBuffer slice = _input.slice();
+
+        slice.limit(size);
+
+        _input.position(_input.position() + size);
+        realign(size);
+
+        return slice.asReadOnlyBuffer();
+    }
+
+    /**
+     * Unpack a boolean.
+     */
+
+    public final boolean unpackBoolean () throws IOException
+    {
+        try
+        {
+            _input.position(_input.position() + 3);
+
+            return (_input.get() != 0);
+        }
+        catch (final BufferUnderflowException | IllegalArgumentException ex)
+        {
+            throw underflow(ex);
+        }
+    }
+
+    /**
+     * Unpack a character.
+     */
+
+    public final char unpackChar () throws IOException
+    {
+        return (char) unpackInt();
+    }
+
+    /**
+     * Unpack a short.
+     */
+
+    public final short unpackShort () throws IOException
+    {
+        return (short) unpackInt();
+    }
+
+    /**
+     * Unpack an integer.
+     */
+
+    public final int unpackInt () throws IOException
+    {
+        try
+        {
+            return _input.getInt();
+        }
+        catch (final BufferUnderflowException ex)
+        {
+            throw underflow(ex);
+        }
+    }
+
+    /**
+     * Unpack a long.
+     */
+
+    public final long unpackLong () throws IOException
+    {
+        try
+        {
+            return _input.getLong();
+        }
+        catch (final BufferUnderflowException ex)
+        {
+            throw underflow(ex);
+        }
+    }
+
+    /**
+     * Unpack a float.
+     */
+
+    public final float unpackFloat () throws IOException
+    {
+        try
+        {
+            return _input.getFloat();
+        }
+        catch (final BufferUnderflowException ex)
+        {
+            throw underflow(ex);
+        }
+    }
+
+    /**
+     * Unpack a double.
+     */
+
+    public final double unpackDouble () throws IOException
+    {
+        try
+        {
+            return _input.getDouble();
+        }
+        catch (final BufferUnderflowException ex)
+        {
+            throw underflow(ex);
+        }
+    }
+
+    /**
+     * Unpack a String, which may be null.
+     */
+
+    public final String unpackString () throws IOException
+    {
+        int length = unpackInt();
+
+        if (length == 0)
+            return null;
+
+        checkSize(length);
+
+        byte[] b = new byte[length - 1];
+
+        _input.get(b);
+
+        // the terminating '\0' is only there for compatibility with C++
+        _input.position(_input.position() + 1);
+        realign(length);
+
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reset the read pointer for this buffer.
+     */
+
+    public final void reread ()
+    {
+        _input.clear();
+
+        skipHeader();
+    }
+
+    private final void checkSize (int size) throws IOException
+    {
+        if ((size < 0) || (size > _input.remaining()))
+            throw underflow(null);
+    }
+
+    private final void realign (int amount)
+    {
+        int excess = (OutputBuffer.ALIGNMENT - (amount % OutputBuffer.ALIGNMENT)) % OutputBuffer.ALIGNMENT;
+
+        _input.position(_input.position() + Math.min(excess, _input.remaining()));
+    }
+
+    private final void skipHeader ()
+    {
+        _input.position(Math.min(OutputBuffer.headerSize, _input.limit()));
+    }
+
+    private static IOException underflow (RuntimeException ex)
+    {
+        IOException eof = new EOFException();
+
+        if (ex != null)
+            eof.initCause(ex);
+
+        return eof;
+    }
+
+    private final ByteBuffer _input;
+}
@@ -0,0 +1,277 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.arjuna.state;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.arjuna.ats.arjuna.logging.tsLogger;
+
+/**
+ * Packs data in exactly the format of an {@link OutputBuffer}, so the result
+ * can be unpacked by an {@link InputBuffer} or {@link InputObjectState}, but
+ * straight into a single growable heap buffer rather than through a stream.
+ * The packed data can be viewed in place, via {@link #asByteBuffer()}, so that
+ * it can be written out without being copied.
+ * <p>
+ * Unlike an OutputBuffer an instance is not thread safe: it is meant for
+ * object stores and others which pack a buffer on one thread and hand it on,
+ * and so should not pay for a monitor on every call. It must not be packed by
+ * more than one thread at a time.
+ */
+
+public class ByteBufferOutput
+{
+    /**
+     * Create a new buffer.
+     */
+
+    public ByteBufferOutput ()
+    {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Create a new buffer with the specified initial size. If required, the
+     * buffer will be automatically increased in size.
+     */
+
+    public ByteBufferOutput (int buffSize)
+    {
+        _buffer = ByteBuffer.allocate(Math.max(buffSize, OutputBuffer.headerSize));
+
+        initBuffer();
+    }
+
+    /**
+     * Return a copy of the packed data.
+     *
+     * @see #asByteBuffer()
+     */
+
+    public final byte[] buffer ()
+    {
+        return Arrays.copyOf(_buffer.array(), _buffer.position());
+    }
+
+    /**
+     * Return a read-only view of the packed data, positioned at the start of
+     * the buffer header and limited to the current length. The data is not
+     * copied, so the view is only meaningful until the buffer is next packed
+     * or reset.
+     */
+
+    public final ByteBuffer asByteBuffer ()
+    {
+        ByteBuffer view = _buffer.duplicate();
+
+        view.flip();
+
+        return view.asReadOnlyBuffer();
+    }
+
+    /**
+     * Return the length of the packed data, including the buffer header.
+     */
+
+    public final int length ()
+    {
+        return _buffer.position();
+    }
+
+    /**
+     * Clear the buffer and rewind the pack pointer.
+     */
+
+    public final void reset ()
+    {
+        _buffer.clear();
+
+        initBuffer();
+    }
+
+    /**
+     * Pack a byte.
+     */
+
+    public final void packByte (byte b)
+    {
+        packInt(b);
+    }
+
+    /**
+     * Pack the array of bytes.
+     */
+
+    public final void packBytes (byte[] b)
+    {
+        ensureCapacity(4 + aligned(b.length));
+
+        _buffer.putInt(b.length);
+
+        if (b.length > 0)
+        {
+            _buffer.put(b);
+            realign(b.length);
+        }
+    }
+
+    /**
+     * Pack the boolean.
+     */
+
+    public final void packBoolean (boolean b)
+    {
+        ensureCapacity(4);
+
+        _buffer.put(PAD).put(PAD).put(PAD);
+        _buffer.put(b ? (byte) 1 : (byte) 0);
+    }
+
+    /**
+     * Pack the character.
+     */
+
+    public final void packChar (char c)
+    {
+        packInt(c);
+    }
+
+    /**
+     * Pack the short.
+     */
+
+    public final void packShort (short s)
+    {
+        packInt(s);
+    }
+
+    /**
+     * Pack the integer.
+     */
+
+    public final void packInt (int i)
+    {
+        ensureCapacity(4);
+
+        _buffer.putInt(i);
+    }
+
+    /**
+     * Pack the long.
+     */
+
+    public final void packLong (long l)
+    {
+        ensureCapacity(8);
+
+        _buffer.putLong(l);
+    }
+
+    /**
+     * Pack the float. As with DataOutputStream.writeFloat, a NaN is packed in
+     * canonical form.
+     */
+
+    public final void packFloat (float f)
+    {
+        ensureCapacity(4);
+
+        _buffer.putInt(Float.floatToIntBits(f));
+    }
+
+    /**
+     * Pack the double. As with DataOutputStream.writeDouble, a NaN is packed
+     * in canonical form.
+     */
+
+    public final void packDouble (double d)
+    {
+        ensureCapacity(8);
+
+        _buffer.putLong(Double.doubleToLongBits(d));
+    }
+
+    /**
+     * Pack the String, which may be null.
+     */
+
+    public final void packString (String s) throws IOException
+    {
+        if (s == null)
+            packInt(0);
+        else
+            packStringBytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Pack the UTF-8 encoding of a String.
+     */
+
+    public final void packStringBytes (byte[] bytes) throws IOException
+    {
+        if (bytes == null)
+            throw new IOException(tsLogger.i18NLogger.get_state_OutputBuffer_10());
+
+        ensureCapacity(4 + aligned(bytes.length + 1));
+
+        _buffer.putInt(bytes.length + 1);
+        _buffer.put(bytes);
+        _buffer.put(PAD);
+        realign(bytes.length + 1);
+    }
+
+    private final void realign (int amount)
+    {
+        for (int i = amount; (i % OutputBuffer.ALIGNMENT) > 0; i++)
+            _buffer.put(PAD);
+    }
+
+    private static int aligned (int amount)
+    {
+        return (amount + OutputBuffer.ALIGNMENT - 1) & ~(OutputBuffer.ALIGNMENT - 1);
+    }
+
+    /*
+     * Grow the buffer, if necessary, so that the given number of bytes can
+     * be packed. The capacity at least doubles each time to keep packing
+     * amortised constant time.
+     */
+
+    private final void ensureCapacity (int required)
+    {
+        if (_buffer.remaining() < required)
+        {
+            int capacity = Math.max(_buffer.capacity() * 2, _buffer.position() + required);
+            ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+
+            newBuffer.put(_buffer.array(), 0, _buffer.position());
+
+            _buffer = newBuffer;
+        }
+    }
+
+    private final void initBuffer ()
+    {
+        ensureCapacity(OutputBuffer.headerSize);
+
+        _buffer.put(HEADER);
+    }
+
+    private ByteBuffer _buffer;
+
+    private static final int DEFAULT_SIZE = 32;
+
+    private static final byte PAD = 0;
+
+    /*
+     * "#BE", true, then the sizes (in bits) of short, int and long.
+     */
+
+    private static final byte[] HEADER = { '#', 'B', 'E', 1, 16, 32, 64, 0 };
+}
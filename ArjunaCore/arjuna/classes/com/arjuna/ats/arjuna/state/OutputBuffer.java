@@ -11,6 +11,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 import com.arjuna.ats.arjuna.logging.tsLogger;
@@ -38,7 +39,7 @@ public class OutputBuffer
 
         try
         {
-            _outputStream = new ByteArrayOutputStream();
+            _outputStream = new ViewableOutputStream();
             _output = new DataOutputStream(_outputStream);
 
             initBuffer();
@@ -60,7 +61,7 @@ public class OutputBuffer
 
         try
         {
-            _outputStream = new ByteArrayOutputStream(buffSize);
+            _outputStream = new ViewableOutputStream(buffSize);
             _output = new DataOutputStream(_outputStream);
 
             initBuffer();
@@ -81,7 +82,7 @@ public class OutputBuffer
 
         try
         {
-            _outputStream = new ByteArrayOutputStream(0);
+            _outputStream = new ViewableOutputStream(0);
             _output = new DataOutputStream(_outputStream);
 
             _outputStream.write(b, 0, b.length);
@@ -139,6 +140,18 @@ public class OutputBuffer
         return _outputStream.toByteArray();
     }
 
+    /**
+     * Return a read-only view of the packed data, from the start of the
+     * buffer header to the current length. Unlike buffer() the data is not
+     * copied, so the view is only meaningful until the buffer is next reset,
+     * copied over or rewritten.
+     */
+
+    public final synchronized ByteBuffer asByteBuffer ()
+    {
+        return _outputStream.view();
+    }
+
     /**
      * Return the length of the byte array being used to store data types.
      */
@@ -160,7 +173,7 @@ public class OutputBuffer
 
             try
             {
-                _outputStream = new ByteArrayOutputStream(b.length());
+                _outputStream = new ViewableOutputStream(b.length());
                 _output = new DataOutputStream(_outputStream);
 
                 _outputStream.write(b.buffer(), 0, b.length());
@@ -408,7 +421,7 @@ public class OutputBuffer
 
         try
         {
-            _outputStream = new ByteArrayOutputStream();
+            _outputStream = new ViewableOutputStream();
             _output = new DataOutputStream(_outputStream);
 
             initBuffer();
@@ -449,6 +462,28 @@ public class OutputBuffer
         _output.writeByte(0);
     }
 
+    /*
+     * Lets the packed data be viewed in place.
+     */
+
+    private static final class ViewableOutputStream extends ByteArrayOutputStream
+    {
+        ViewableOutputStream ()
+        {
+            super();
+        }
+
+        ViewableOutputStream (int size)
+        {
+            super(size);
+        }
+
+        synchronized ByteBuffer view ()
+        {
+            return ByteBuffer.wrap(buf, 0, count).slice().asReadOnlyBuffer();
+        }
+    }
+
     protected boolean _valid;
 
     protected static final int headerSize = 8;
@@ -457,7 +492,7 @@ public class OutputBuffer
 
     private DataOutputStream _output;
 
-    private ByteArrayOutputStream _outputStream;
+    private ViewableOutputStream _outputStream;
 
     private static final byte[] _byte = new byte[1];
 
@@ -14,6 +14,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.arjuna.ats.arjuna.logging.tsLogger;
 
@@ -84,7 +85,35 @@ public class FileLock
         return lock(lmode, false);
     }
 
-    public synchronized boolean lock (int lmode, boolean create)
+    public boolean lock (int lmode, boolean create)
+    {
+        _lock.lock();
+
+        try
+        {
+            return lockInternal(lmode, create);
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    public boolean unlock ()
+    {
+        _lock.lock();
+
+        try
+        {
+            return unlockInternal();
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    private boolean lockInternal (int lmode, boolean create)
     {
         if (tsLogger.logger.isTraceEnabled()) {
             tsLogger.logger.trace("FileLock.lock called for "+_lockFile);
@@ -180,7 +209,7 @@ public class FileLock
         return false;
     }
 
-    public synchronized boolean unlock ()
+    private boolean unlockInternal ()
     {
         if (tsLogger.logger.isTraceEnabled()) {
             tsLogger.logger.trace("FileLock.unlock called "+_lockFile);
@@ -342,4 +371,8 @@ public class FileLock
 
     private long _retry;
 
+    // not a monitor, since lockFile may sleep while it is held
+
+    private final ReentrantLock _lock = new ReentrantLock();
+
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ package com.arjuna.ats.arjuna.utils;
 
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Provides utilities to manage thread ids.
@@ -22,6 +23,11 @@ public class ThreadUtil
      * The ID associated with the thread.
      */
     private static final WeakHashMap<Thread,String> THREAD_ID = new WeakHashMap<Thread,String>();
+    /**
+     * Guards THREAD_ID. A lock rather than a monitor, so that a virtual thread
+     * which has to wait for it does not pin its carrier thread.
+     */
+    private static final ReentrantLock THREAD_ID_LOCK = new ReentrantLock();
     /**
      * The thread id counter.
      */
@@ -53,7 +59,8 @@ public class ThreadUtil
 
         }
 
-        synchronized (ThreadUtil.class) {
+        THREAD_ID_LOCK.lock();
+        try {
             final String id = THREAD_ID.get(thread);
             if (id != null) {
                 if (thread == Thread.currentThread()) {
@@ -69,6 +76,8 @@ public class ThreadUtil
                 LOCAL_ID.set(newId);
             }
             return newId;
+        } finally {
+            THREAD_ID_LOCK.unlock();
         }
     }
 
@@ -225,6 +225,11 @@ public class ActivationRecord extends AbstractRecord
         return false;
     }
 
+    public boolean isOrderScoped ()
+    {
+        return true;
+    }
+
     public ActivationRecord()
     {
         super();
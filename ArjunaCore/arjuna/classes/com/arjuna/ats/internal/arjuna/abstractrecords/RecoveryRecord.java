@@ -242,6 +242,15 @@ public class RecoveryRecord extends AbstractRecord
         return false;
     }
 
+    /*
+     * Subclasses only merge with or replace records for the same object.
+     */
+
+    public boolean isOrderScoped ()
+    {
+        return true;
+    }
+
     /*
      * Creates a 'blank' recovery record. This is used during crash recovery
      * when recreating the prepared list of a server atomic action.
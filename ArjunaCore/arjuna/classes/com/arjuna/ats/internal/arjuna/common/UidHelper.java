@@ -10,6 +10,8 @@ package com.arjuna.ats.internal.arjuna.common;
 import java.io.IOException;
 
 import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.state.ByteBufferInput;
+import com.arjuna.ats.arjuna.state.ByteBufferOutput;
 import com.arjuna.ats.arjuna.state.InputBuffer;
 import com.arjuna.ats.arjuna.state.OutputBuffer;
 
@@ -35,6 +37,26 @@ public class UidHelper
             throw new IllegalArgumentException();
     }
 
+    public static final Uid unpackFrom (ByteBufferInput buff) throws IOException
+    {
+        if (buff == null)
+            throw new IllegalArgumentException();
+        
+        return new Uid(buff.unpackBytes());
+    }
+
+    public static final void packInto (Uid u, ByteBufferOutput buff)
+            throws IOException
+    {
+        if ((u == null) || (buff == null))
+            throw new IllegalArgumentException();
+        
+        if (u.valid())
+            buff.packBytes(u.getBytes());
+        else
+            throw new IllegalArgumentException();
+    }
+
     private UidHelper()
     {
     }
@@ -48,11 +48,12 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * @author Jonathan Halliday (jonathan.halliday@redhat.com) 2009-10
  */
-public class ReaperElementManager
+public class ReaperElementManager implements ReaperElementQueue
 {
     /**
      * @return the first (i.e. earliest to time out) element of the colleciton or null if empty
      */
+    @Override
     public synchronized ReaperElement getFirst() {
         flushPending(); // we need to order the elements before we can tell which is first.
         if(elementsOrderedByTimeout.isEmpty()) {
@@ -63,6 +64,7 @@ public class ReaperElementManager
     }
 
     // Note - unsynchronized for performance.
+    @Override
     public void add(ReaperElement reaperElement) throws IllegalStateException {
         if(pendingInsertions.putIfAbsent(reaperElement, reaperElement) != null) {
             // note this is best effort - we'll allow double inserts if the element is also in the ordered set.
@@ -75,6 +77,7 @@ public class ReaperElementManager
      * @param delayMillis the amount of time to increment the element's timeout by.
      * @return the new soonest timeout in the set (not necessarily that of the reordered element)
      */
+    @Override
     public synchronized long reorder(ReaperElement reaperElement, long delayMillis) {
         // assume it must be in the sorted list, as it was likely obtained via getFirst...
         removeSorted(reaperElement);
@@ -88,15 +91,18 @@ public class ReaperElementManager
     }
 
     // use only for testing, it's nasty from a performance perspective.
+    @Override
     public synchronized int size() {
         return (elementsOrderedByTimeout.size() + pendingInsertions.size());
     }
 
+    @Override
     public synchronized boolean isEmpty() {
         return (elementsOrderedByTimeout.isEmpty() && pendingInsertions.isEmpty());
     }
 
     // strange hack to force instant expire of tx during shutdown.
+    @Override
     public synchronized void setAllTimeoutsToZero() {
         flushPending();
         for(ReaperElement reaperElement : elementsOrderedByTimeout) {
@@ -105,6 +111,7 @@ public class ReaperElementManager
     }
 
     // Note - mostly unsynchronized for performance.
+    @Override
     public void remove(ReaperElement reaperElement) {
         if(pendingInsertions.remove(reaperElement) != null) {
             return;
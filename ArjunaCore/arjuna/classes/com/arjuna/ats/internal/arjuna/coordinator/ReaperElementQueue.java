@@ -0,0 +1,48 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.internal.arjuna.coordinator;
+
+/*
+ * The operations the transaction reaper needs from the data structure holding its ReaperElements.
+ *
+ * Inserts and removes are performed by application threads as transactions begin and terminate, so
+ * they should be cheap and should not block. The remaining operations are performed by the reaper
+ * itself, which also provides any additional synchronization needed to ensure the first element does
+ * not change between getFirst and any operation depending on its timeout value.
+ *
+ * The implementation is chosen according to the reaper mode, see
+ * {@link com.arjuna.ats.arjuna.common.CoordinatorEnvironmentBean#getTxReaperMode()}
+ */
+public interface ReaperElementQueue
+{
+    /**
+     * @return the first (i.e. earliest to time out) element of the collection or null if empty
+     */
+    ReaperElement getFirst();
+
+    /**
+     * @param reaperElement the element to add.
+     * @throws IllegalStateException if the element is already present.
+     */
+    void add(ReaperElement reaperElement) throws IllegalStateException;
+
+    /**
+     * @param reaperElement the reaper element to reorder.
+     * @param delayMillis the amount of time to increment the element's timeout by.
+     * @return the new soonest timeout in the collection (not necessarily that of the reordered element)
+     */
+    long reorder(ReaperElement reaperElement, long delayMillis);
+
+    // use only for testing, it may be expensive.
+    int size();
+
+    boolean isEmpty();
+
+    // force instant expiry of all elements during shutdown.
+    void setAllTimeoutsToZero();
+
+    void remove(ReaperElement reaperElement);
+}
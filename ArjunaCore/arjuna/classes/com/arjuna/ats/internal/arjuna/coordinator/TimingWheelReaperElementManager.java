@@ -0,0 +1,330 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.internal.arjuna.coordinator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+ * A hierarchical timing wheel alternative to the ReaperElementManager, for use when there are very
+ * many transactions with timeouts in flight at the same time.
+ *
+ * As with the ReaperElementManager, inserts go to an unsorted concurrent map and removes check there
+ * first, so a transaction which terminates before the reaper next looks at its elements never causes
+ * any locking. Elements are migrated into the wheel when the reaper needs to know which element is
+ * first, but unlike the sorted list each migration, and each subsequent removal, only touches the one
+ * bucket for the element's expiry tick rather than the whole collection.
+ *
+ * The wheel has two levels. Level 0 has a bucket for each tick of the current level 0 period, level 1
+ * has a bucket for each of the following level 0 periods and anything beyond that goes to an overflow
+ * set. As time advances, the level 1 bucket for each new period is cascaded into level 0 and level 0
+ * buckets whose tick has been reached are moved to the due set. The due set holds just the elements
+ * expiring in the current tick, so expiry is processed a bucket at a time rather than searching the
+ * whole collection.
+ *
+ * Each bucket keeps its elements sorted and each level keeps a bitmap of its non-empty buckets, so
+ * finding the first element when nothing is due is a scan of at most two bitmaps followed by a lookup
+ * of the head of one bucket, however many elements are held and however far away they expire.
+ *
+ * All structures other than the pending insertion map are guarded by the instance lock.
+ */
+public class TimingWheelReaperElementManager implements ReaperElementQueue
+{
+    public static final long DEFAULT_TICK_MILLIS = 10;
+
+    private static final int LEVEL_BITS = 10;
+    private static final int WHEEL_SIZE = 1 << LEVEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    public TimingWheelReaperElementManager()
+    {
+        this(DEFAULT_TICK_MILLIS);
+    }
+
+    public TimingWheelReaperElementManager(long tickMillis)
+    {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.tickMillis = tickMillis;
+
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            level0.add(new Bucket(level0Occupied, i));
+            level1.add(new Bucket(level1Occupied, i));
+        }
+
+        currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    @Override
+    public synchronized ReaperElement getFirst() {
+        flushPending();
+        advance(System.currentTimeMillis() / tickMillis);
+
+        if (!due.isEmpty()) {
+            return due.first();
+        }
+
+        // nothing due in this tick, so the earliest element is at the head of the first non-empty bucket
+        int index = level0Occupied.nextSetBit((int) (currentTick & WHEEL_MASK) + 1);
+        if (index >= 0) {
+            return level0.get(index).first();
+        }
+
+        /*
+         * The level 1 bucket for the current period was cascaded when the period started and
+         * is kept empty, so the search can wrap round to the start of the level.
+         */
+        index = level1Occupied.nextSetBit((int) ((currentTick >> LEVEL_BITS) & WHEEL_MASK) + 1);
+        if (index < 0) {
+            index = level1Occupied.nextSetBit(0);
+        }
+        if (index >= 0) {
+            return level1.get(index).first();
+        }
+
+        return overflow.first();
+    }
+
+    // Note - unsynchronized for performance.
+    @Override
+    public void add(ReaperElement reaperElement) throws IllegalStateException {
+        if (pendingInsertions.putIfAbsent(reaperElement, reaperElement) != null) {
+            // as with the ReaperElementManager this is best effort.
+            throw new IllegalStateException();
+        }
+        pendingOrder.add(reaperElement);
+    }
+
+    @Override
+    public synchronized long reorder(ReaperElement reaperElement, long delayMillis) {
+        if (pendingInsertions.remove(reaperElement) == null) {
+            removeFromWheel(reaperElement);
+        }
+        reaperElement.setNextCheckAbsoluteMillis((System.currentTimeMillis() + delayMillis));
+        insert(reaperElement);
+
+        return getFirst().getNextCheckAbsoluteMillis();
+    }
+
+    @Override
+    public synchronized int size() {
+        return (locations.size() + pendingInsertions.size());
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return (locations.isEmpty() && pendingInsertions.isEmpty());
+    }
+
+    @Override
+    public synchronized void setAllTimeoutsToZero() {
+        flushPending();
+
+        List<ReaperElement> elements = new ArrayList<ReaperElement>(locations.keySet());
+        for (ReaperElement reaperElement : elements) {
+            removeFromWheel(reaperElement);
+            reaperElement.setNextCheckAbsoluteMillis(0);
+            insert(reaperElement);
+        }
+    }
+
+    // Note - mostly unsynchronized for performance.
+    @Override
+    public void remove(ReaperElement reaperElement) {
+        if (pendingInsertions.remove(reaperElement) != null) {
+            return;
+        }
+
+        // it has already been migrated into the wheel, which is O(1) to remove from.
+        synchronized (this) {
+            removeFromWheel(reaperElement);
+        }
+    }
+
+    ////////////
+
+    private final long tickMillis;
+
+    // the last tick the wheel has been advanced to. Elements for this tick or earlier are in the due set.
+    private long currentTick;
+
+    // the non-empty buckets of each level.
+    private final BitSet level0Occupied = new BitSet(WHEEL_SIZE);
+    private final BitSet level1Occupied = new BitSet(WHEEL_SIZE);
+
+    private final Bucket due = new Bucket(null, 0);
+    private final List<Bucket> level0 = new ArrayList<Bucket>(WHEEL_SIZE);
+    private final List<Bucket> level1 = new ArrayList<Bucket>(WHEEL_SIZE);
+    private final Bucket overflow = new Bucket(null, 0);
+
+    // the bucket currently holding each element in the wheel, so that removal needs no searching.
+    private final Map<ReaperElement, Bucket> locations = new HashMap<ReaperElement, Bucket>();
+
+    private final ConcurrentHashMap<ReaperElement, ReaperElement> pendingInsertions = new ConcurrentHashMap<ReaperElement, ReaperElement>();
+
+    /*
+     * The pending insertions in the order they were made, so that migrating them costs the number of
+     * recent insertions rather than the capacity of the map, which never shrinks after a burst. An
+     * element removed before it was migrated stays here until the next flush, which skips it.
+     */
+    private final ConcurrentLinkedQueue<ReaperElement> pendingOrder = new ConcurrentLinkedQueue<ReaperElement>();
+
+    private void insert(ReaperElement reaperElement) {
+        Bucket target = bucketFor(reaperElement.getNextCheckAbsoluteMillis() / tickMillis);
+
+        if (!target.add(reaperElement)) {
+            throw new IllegalStateException();
+        }
+        locations.put(reaperElement, target);
+    }
+
+    private void removeFromWheel(ReaperElement reaperElement) {
+        Bucket location = locations.remove(reaperElement);
+        if (location != null) {
+            location.remove(reaperElement);
+        }
+    }
+
+    private Bucket bucketFor(long tick) {
+        if (tick <= currentTick) {
+            return due;
+        }
+
+        long period = tick >> LEVEL_BITS;
+        long currentPeriod = currentTick >> LEVEL_BITS;
+
+        if (period == currentPeriod) {
+            return level0.get((int) (tick & WHEEL_MASK));
+        } else if (period < currentPeriod + WHEEL_SIZE) {
+            return level1.get((int) (period & WHEEL_MASK));
+        } else {
+            return overflow;
+        }
+    }
+
+    /*
+     * Move the wheel forward to the given tick, cascading level 1 buckets into level 0
+     * as each new period starts and moving level 0 buckets to the due set as their tick is reached.
+     */
+    private void advance(long nowTick) {
+        if (locations.size() == due.size()) {
+            // only due elements (or none) so there is nothing to cascade, just jump ahead.
+            currentTick = Math.max(currentTick, nowTick);
+            return;
+        }
+
+        while (currentTick < nowTick) {
+            // skip straight to the next occupied level 0 bucket, or the start of the next period
+            int next = level0Occupied.nextSetBit((int) (currentTick & WHEEL_MASK) + 1);
+            long nextTick = (next >= 0) ? (currentTick & ~(long) WHEEL_MASK) + next
+                    : ((currentTick >> LEVEL_BITS) + 1) << LEVEL_BITS;
+
+            currentTick = Math.min(nextTick, nowTick);
+
+            if ((currentTick & WHEEL_MASK) == 0) {
+                long currentPeriod = currentTick >> LEVEL_BITS;
+
+                rehash(level1.get((int) (currentPeriod & WHEEL_MASK)));
+
+                // only the head of the overflow set can have come within range of level 1
+                ReaperElement first;
+                while ((first = overflow.first()) != null
+                        && (first.getNextCheckAbsoluteMillis() / tickMillis >> LEVEL_BITS) < currentPeriod + WHEEL_SIZE) {
+                    removeFromWheel(first);
+                    insert(first);
+                }
+            }
+
+            rehash(level0.get((int) (currentTick & WHEEL_MASK)));
+        }
+    }
+
+    private void rehash(Bucket bucket) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+
+        List<ReaperElement> elements = bucket.drain();
+
+        for (ReaperElement reaperElement : elements) {
+            insert(reaperElement);
+        }
+    }
+
+    private void flushPending() {
+        // see ReaperElementManager.flushPending, but each insert here only touches one bucket.
+        ReaperElement element;
+        while ((element = pendingOrder.poll()) != null) {
+            if (pendingInsertions.remove(element, element)) {
+                insert(element);
+            }
+        }
+    }
+
+    /*
+     * The elements sharing a slot of the wheel, in expiry order. A bucket in one of the levels
+     * records whether it is empty in the bitmap for that level.
+     */
+    private static final class Bucket
+    {
+        Bucket(BitSet occupied, int index)
+        {
+            this.occupied = occupied;
+            this.index = index;
+        }
+
+        boolean add(ReaperElement reaperElement) {
+            if (!elements.add(reaperElement)) {
+                return false;
+            }
+            if (occupied != null) {
+                occupied.set(index);
+            }
+            return true;
+        }
+
+        void remove(ReaperElement reaperElement) {
+            if (elements.remove(reaperElement) && elements.isEmpty() && occupied != null) {
+                occupied.clear(index);
+            }
+        }
+
+        List<ReaperElement> drain() {
+            List<ReaperElement> drained = new ArrayList<ReaperElement>(elements);
+
+            elements.clear();
+            if (occupied != null) {
+                occupied.clear(index);
+            }
+
+            return drained;
+        }
+
+        ReaperElement first() {
+            return elements.isEmpty() ? null : elements.first();
+        }
+
+        boolean isEmpty() {
+            return elements.isEmpty();
+        }
+
+        int size() {
+            return elements.size();
+        }
+
+        private final TreeSet<ReaperElement> elements = new TreeSet<ReaperElement>();
+        private final BitSet occupied;
+        private final int index;
+    }
+}
@@ -8,6 +8,9 @@
 package com.arjuna.ats.internal.arjuna.objectstore;
 
 import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
 import com.arjuna.ats.arjuna.common.Uid;
@@ -208,7 +211,9 @@ class ShutdownThread extends Thread // used to flush on exit
             CacheStore._storeManager.notifyAll();
         }
 
-        synchronized (CacheStore._storeManager._activeLock)
+        CacheStore._storeManager._activeLock.lock();
+
+        try
         {
             /*
              * We don't want to exit the VM if the worker thread is currently
@@ -220,6 +225,10 @@ class ShutdownThread extends Thread // used to flush on exit
               tsLogger.logger.trace("ShutdownThread.run () - terminating");
           }
       }
+        finally
+        {
+            CacheStore._storeManager._activeLock.unlock();
+        }
    }
 
 }
@@ -270,10 +279,16 @@ class AsyncStore extends Thread // keep priority same as app. threads
 
         do
         {
-            synchronized (_workList)
+            _workLock.lock();
+
+            try
             {
                 stop = _numberOfEntries <= 0;
             }
+            finally
+            {
+                _workLock.unlock();
+            }
 
             if (!stop)
             {
@@ -299,13 +314,15 @@ class AsyncStore extends Thread // keep priority same as app. threads
 
         do
         {
-            synchronized (_overflowLock)
+            _overflowLock.lock();
+
+            try
             {
                 if (cacheIsFull())
                 {
                     try
                     {
-                        _overflowLock.wait();
+                        _drained.await();
                     }
                     catch (Exception ex)
                     {
@@ -314,6 +331,10 @@ class AsyncStore extends Thread // keep priority same as app. threads
                 else
                     stop = true;
             }
+            finally
+            {
+                _overflowLock.unlock();
+            }
         }
         while (!stop);
 
@@ -325,13 +346,20 @@ class AsyncStore extends Thread // keep priority same as app. threads
             synchronized (list) {
                 list.addFirst(toAdd);
             }
-            synchronized (_workList) {
+            _workLock.lock();
+
+            try
+            {
 
                 if (state != null)
                     _currentCacheSize += state.size();
 
                 _numberOfEntries++;
             }
+            finally
+            {
+                _workLock.unlock();
+            }
 
         return true;
     }
@@ -376,7 +404,9 @@ class AsyncStore extends Thread // keep priority same as app. threads
 
             if (element != null) {
 
-                synchronized (_workList)
+                _workLock.lock();
+
+                try
                 {
                     synchronized (element)
                     {
@@ -413,14 +443,24 @@ class AsyncStore extends Thread // keep priority same as app. threads
                         }
                     }
                 }
+                finally
+                {
+                    _workLock.unlock();
+                }
             }
         }
 
         if (cacheIsFull())
         {
-            synchronized (_workList)
+            _workLock.lock();
+
+            try
+            {
+                _workAvailable.signal();
+            }
+            finally
             {
-                _workList.notify();
+                _workLock.unlock();
             }
         }
         
@@ -463,7 +503,9 @@ class AsyncStore extends Thread // keep priority same as app. threads
 
             if (element != null)
             {
-                synchronized (_workList)
+                _workLock.lock();
+
+                try
                 {
                     synchronized (element) {
                         if (!element.removed && element.objUid.equals(objUid))
@@ -522,14 +564,24 @@ class AsyncStore extends Thread // keep priority same as app. threads
                         }
                     }
                 }
+                finally
+                {
+                    _workLock.unlock();
+                }
             }
         }
 
         if (cacheIsFull())
         {
-            synchronized (_workList)
+            _workLock.lock();
+
+            try
             {
-                _workList.notify();
+                _workAvailable.signal();
+            }
+            finally
+            {
+                _workLock.unlock();
             }
         }
         
@@ -562,31 +614,45 @@ class AsyncStore extends Thread // keep priority same as app. threads
          * If not in cache then maybe we're working on it?
          */
 
-        synchronized (_workList)
+        _workLock.lock();
+
+        try
         {
             if ((_work != null) && (objUid.equals(_work.objUid)))
                 return _work.state;
         }
+        finally
+        {
+            _workLock.unlock();
+        }
 
         return null;
     }
 
     public void run ()
     {
-        synchronized (_workList)
+        _workLock.lock();
+
+        try
         {
             try
             {
-                _workList.wait();
+                _workAvailable.await();
             }
             catch (Exception ex)
             {
             }
         }
+        finally
+        {
+            _workLock.unlock();
+        }
 
         while (!_terminated)
         {
-            synchronized (_activeLock)
+            _activeLock.lock();
+
+            try
             {
                 while (!queueIsEmpty()) // drain the queue
                 {
@@ -598,25 +664,41 @@ class AsyncStore extends Thread // keep priority same as app. threads
                  * that they get a chance to add something to the queue again.
                  */
 
-                synchronized (_overflowLock)
+                _overflowLock.lock();
+
+                try
+                {
+                    _drained.signalAll();
+                }
+                finally
                 {
-                    _overflowLock.notifyAll();
+                    _overflowLock.unlock();
                 }
             }
+            finally
+            {
+                _activeLock.unlock();
+            }
+
+            _workLock.lock();
 
-            synchronized (_workList)
+            try
             {
                 if (!cacheIsFull())
                 {
                     try
                     {
-                        _workList.wait(_scanPeriod);
+                        _workAvailable.await(_scanPeriod, TimeUnit.MILLISECONDS);
                     }
                     catch (Exception ex)
                     {
                     }
                 }
             }
+            finally
+            {
+                _workLock.unlock();
+            }
         }
     }
 
@@ -624,7 +706,9 @@ class AsyncStore extends Thread // keep priority same as app. threads
     {
         try
         {
-            synchronized (_workList)
+            _workLock.lock();
+
+            try
             {
                 if (_work != null)
                 {
@@ -634,6 +718,10 @@ class AsyncStore extends Thread // keep priority same as app. threads
                     }
                 }
             }
+            finally
+            {
+                _workLock.unlock();
+            }
         }
         catch (Exception ex)
         {
@@ -650,7 +738,10 @@ class AsyncStore extends Thread // keep priority same as app. threads
         {
             synchronized (list)
             {
-                synchronized (_workList) {
+                _workLock.lock();
+
+                try
+                {
                     if (!list.isEmpty()) {
                         _work = (StoreElement) list.removeLast();
 
@@ -666,15 +757,29 @@ class AsyncStore extends Thread // keep priority same as app. threads
                         _work = null;
                     }
                 }
+                finally
+                {
+                    _workLock.unlock();
+                }
             }
         }
         else {
-            synchronized (_workList) {
+            _workLock.lock();
+
+            try
+            {
                 _work = null;
             }
+            finally
+            {
+                _workLock.unlock();
+            }
         }
 
-        synchronized (_workList) {
+        _workLock.lock();
+
+        try
+        {
             if ((_work != null) && !_work.removed)
             {
                 /*
@@ -722,11 +827,22 @@ class AsyncStore extends Thread // keep priority same as app. threads
                 }
             }
         }
+        finally
+        {
+            _workLock.unlock();
+        }
 
-        synchronized (_workList) {
+        _workLock.lock();
+
+        try
+        {
             // Must have the lock to write to _work
             _work = null;
         }
+        finally
+        {
+            _workLock.unlock();
+        }
     }
 
     /**
@@ -735,13 +851,19 @@ class AsyncStore extends Thread // keep priority same as app. threads
 
     private final boolean queueIsEmpty ()
     {
-        synchronized (_workList)
+        _workLock.lock();
+
+        try
         {
             if (_numberOfEntries == 0)
                 return true;
             else
                 return false;
         }
+        finally
+        {
+            _workLock.unlock();
+        }
     }
 
     /**
@@ -750,24 +872,33 @@ class AsyncStore extends Thread // keep priority same as app. threads
 
     private final boolean cacheIsFull ()
     {
-        synchronized (_workList)
+        _workLock.lock();
+
+        try
         {
             if ((_currentCacheSize >= _maximumCacheSize)
                     || (_removedItems >= _maximumRemovedItems)
                     || (_numberOfEntries - _removedItems >= _maximumWorkItems))
             {
-                _workList.notifyAll();
+                _workAvailable.signalAll();
 
                 return true; // cache is full, so wait
             }
             else
                 return false; // cache is ok
         }
+        finally
+        {
+            _workLock.unlock();
+        }
     }
 
     private final LinkedList getList ()
     {
-        synchronized (_workList) {
+        _workLock.lock();
+
+        try
+        {
             for (int i = 0; i < HASH_SIZE; i++)
             {
                 if ((_workList[i] != null) && (!_workList[i].isEmpty()))
@@ -776,22 +907,42 @@ class AsyncStore extends Thread // keep priority same as app. threads
 
             return null;
         }
+        finally
+        {
+            _workLock.unlock();
+        }
     }
 
     private final LinkedList getList (Uid objUid)
     {
         int index = objUid.hashCode() % HASH_SIZE;
 
-        synchronized (_workList)
+        _workLock.lock();
+
+        try
         {
             if (_workList[index] == null)
                 _workList[index] = new LinkedList();
 
             return _workList[index];
         }
+        finally
+        {
+            _workLock.unlock();
+        }
     }
 
-    public Object _activeLock = new Object();
+    /*
+     * Locks rather than monitors, since the worker holds them while it writes
+     * to disk and application threads, which may be virtual threads, block on
+     * them to add work or wait for the cache to drain.
+     */
+
+    public final ReentrantLock _activeLock = new ReentrantLock();
+
+    private final ReentrantLock _workLock = new ReentrantLock();
+
+    private final Condition _workAvailable = _workLock.newCondition();
 
     private LinkedList[] _workList = null;
 
@@ -809,7 +960,9 @@ class AsyncStore extends Thread // keep priority same as app. threads
 
     private int _scanPeriod = 0;
 
-    private Object _overflowLock = new Object();
+    private final ReentrantLock _overflowLock = new ReentrantLock();
+
+    private final Condition _drained = _overflowLock.newCondition();
 
     private StoreElement _work = null;
 
@@ -0,0 +1,691 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.internal.arjuna.objectstore;
+
+import java.io.IOException;
+import java.io.SyncFailedException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
+import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.ats.arjuna.objectstore.ObjectStoreAPI;
+import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.common.UidHelper;
+
+/**
+ * Wraps any object store so that remove_committed returns as soon as the
+ * removal is queued. Once a transaction has completed its outcome is decided,
+ * so there is no need for the committing thread to wait while its intentions
+ * list is unlinked, deleted from the journal or deleted from the database.
+ *
+ * A background thread applies the queued removals in batches: every removal
+ * in a batch is handed to the store's remove_committed_async before waiting
+ * for any of them, so a store which can group them (the journal's single
+ * sync, or the JDBC store's batch writer) does so. A removal of a state which
+ * is already queued is coalesced with it. Until a removal has
+ * been applied the state is treated as gone: read_committed returns null and
+ * the Uid is left out of allObjUids, so recovery never picks up a log which
+ * is only waiting to be deleted. Any other operation on the state applies its
+ * removal first, as does sync. If a removal fails the state is left for
+ * recovery to clean up, just as if the caller had crashed before removing it.
+ *
+ * Callers apply their removals themselves once the backlog reaches its limit,
+ * so a store which cannot keep up slows its callers rather than using an
+ * unbounded amount of memory.
+ *
+ * The background thread runs between start() (or startRemover(), when the
+ * wrapped store is started elsewhere) and stop(). Outside that time removals
+ * are applied straight away. While it runs, the backlog and counters are
+ * exposed through {@link DeferredRemovalStoreMBean}.
+ *
+ * This is the store-independent equivalent of the LogStore's asynchronous
+ * removal, and is used for the action store when synchronousRemoval is
+ * disabled.
+ */
+
+public class DeferredRemovalStore implements ObjectStoreAPI, DeferredRemovalStoreMBean
+{
+    /**
+     * A queued removal. It is handed to the store at most once, by whichever
+     * of the background thread and a caller which needs it out of the way
+     * claims it first. Everyone else waits for its outcome.
+     */
+
+    static final class Removal
+    {
+        Removal (Key key, Uid objUid, String tName)
+        {
+            this.key = key;
+            this.objUid = new Uid(objUid);
+            this.tName = tName;
+        }
+
+        final Key key;
+        final Uid objUid;
+        final String tName;
+
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final CompletableFuture<Boolean> outcome = new CompletableFuture<Boolean>();
+    }
+
+    /*
+     * Type names may be given with or without a leading separator.
+     */
+
+    static final class Key
+    {
+        Key (Uid objUid, String tName)
+        {
+            int start = 0;
+
+            while ((tName != null) && (start < tName.length()) && (tName.charAt(start) == '/'))
+                start++;
+
+            this.objUid = objUid;
+            this.tName = (tName == null) ? "" : tName.substring(start);
+        }
+
+        public boolean equals (Object obj)
+        {
+            if (!(obj instanceof Key))
+                return false;
+
+            Key other = (Key) obj;
+
+            return objUid.equals(other.objUid) && tName.equals(other.tName);
+        }
+
+        public int hashCode ()
+        {
+            return objUid.hashCode() * 31 + tName.hashCode();
+        }
+
+        private final Uid objUid;
+        private final String tName;
+    }
+
+    public DeferredRemovalStore (ObjectStoreAPI store, ObjectStoreEnvironmentBean objectStoreEnvironmentBean)
+    {
+        _store = store;
+        _maxBatchSize = objectStoreEnvironmentBean.getAsyncRemovalMaxBatchSize();
+        _maxBacklog = objectStoreEnvironmentBean.getAsyncRemovalMaxBacklog();
+        _mbeanName = objectStoreEnvironmentBean.getJmxToolingMBeanName() + ",name=DeferredRemovals,store="
+                + ObjectName.quote(String.valueOf(store.getStoreName()));
+    }
+
+    /**
+     * @return the store whose removals are deferred.
+     */
+
+    public ObjectStoreAPI getStore ()
+    {
+        return _store;
+    }
+
+    /**
+     * @return the number of removals which have been queued but not yet applied.
+     */
+
+    public int getPendingRemovals ()
+    {
+        return _backlog.get();
+    }
+
+    /**
+     * @return the number of removals applied, whether in the background or not.
+     */
+
+    public long getNumberOfRemovals ()
+    {
+        return _removals.sum();
+    }
+
+    /**
+     * @return the number of removals of a state which was already queued for removal.
+     */
+
+    public long getNumberOfCoalescedRemovals ()
+    {
+        return _coalesced.sum();
+    }
+
+    public String getStoreName ()
+    {
+        return _store.getStoreName();
+    }
+
+    /**
+     * Start the wrapped store, then the background thread.
+     */
+
+    public void start ()
+    {
+        _store.start();
+
+        startRemover();
+    }
+
+    /**
+     * Start the background thread, if it is not already running, without
+     * starting the wrapped store. For stores whose lifecycle is managed by
+     * whoever created them.
+     */
+
+    public void startRemover ()
+    {
+        _lifecycleLock.lock();
+
+        try
+        {
+            if (_remover != null)
+                return;
+
+            _remover = new Thread("DeferredRemovalStore-" + _store.getStoreName())
+            {
+                public void run ()
+                {
+                    removeQueued();
+                }
+            };
+
+            _remover.setDaemon(true);
+            _stopped = false;
+            _remover.start();
+
+            registerMBean();
+        }
+        finally
+        {
+            _lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Apply every pending removal, stop the background thread and then the
+     * wrapped store. Any later removals are applied straight away.
+     */
+
+    public void stop ()
+    {
+        _lifecycleLock.lock();
+
+        try
+        {
+            if (_remover != null)
+            {
+                _stopped = true;
+
+                LockSupport.unpark(_remover);
+
+                try
+                {
+                    _remover.join();
+                }
+                catch (final InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+
+                _remover = null;
+
+                unregisterMBean();
+            }
+        }
+        finally
+        {
+            _lifecycleLock.unlock();
+        }
+
+        removePending();
+
+        _store.stop();
+    }
+
+    /**
+     * Apply every pending removal, then sync the underlying store.
+     */
+
+    public void sync () throws SyncFailedException, ObjectStoreException
+    {
+        removePending();
+
+        _store.sync();
+    }
+
+    public boolean remove_committed (Uid u, String tn) throws ObjectStoreException
+    {
+        if (_stopped)
+            return _store.remove_committed(u, tn);
+
+        Key key = new Key(u, tn);
+        Removal removal = new Removal(key, u, tn);
+
+        if (_pending.putIfAbsent(key, removal) != null)
+        {
+            _coalesced.increment();
+
+            return true;
+        }
+
+        if (_backlog.incrementAndGet() > _maxBacklog)
+            return apply(removal);
+
+        _queue.offer(removal);
+
+        if (_idle)
+            LockSupport.unpark(_remover);
+
+        return true;
+    }
+
+    public boolean write_committed (Uid u, String tn, OutputObjectState buff) throws ObjectStoreException
+    {
+        removePending(u, tn);
+
+        return _store.write_committed(u, tn, buff);
+    }
+
+    public CompletionStage<Boolean> write_committed_async (Uid u, String tn, OutputObjectState buff)
+    {
+        try
+        {
+            removePending(u, tn);
+        }
+        catch (final ObjectStoreException ex)
+        {
+            CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+
+            result.completeExceptionally(ex);
+
+            return result;
+        }
+
+        return _store.write_committed_async(u, tn, buff);
+    }
+
+    public boolean commit_state (Uid u, String tn) throws ObjectStoreException
+    {
+        removePending(u, tn);
+
+        return _store.commit_state(u, tn);
+    }
+
+    public InputObjectState read_committed (Uid u, String tn) throws ObjectStoreException
+    {
+        if (_pending.containsKey(new Key(u, tn)))
+            return null;
+
+        return _store.read_committed(u, tn);
+    }
+
+    public InputObjectState read_uncommitted (Uid u, String tn) throws ObjectStoreException
+    {
+        return _store.read_uncommitted(u, tn);
+    }
+
+    public boolean remove_uncommitted (Uid u, String tn) throws ObjectStoreException
+    {
+        removePending(u, tn);
+
+        return _store.remove_uncommitted(u, tn);
+    }
+
+    public boolean write_uncommitted (Uid u, String tn, OutputObjectState buff) throws ObjectStoreException
+    {
+        removePending(u, tn);
+
+        return _store.write_uncommitted(u, tn, buff);
+    }
+
+    public boolean fullCommitNeeded ()
+    {
+        return _store.fullCommitNeeded();
+    }
+
+    /**
+     * The Uids of states waiting to be removed are left out, unless only
+     * uncommitted states were asked for.
+     */
+
+    public boolean allObjUids (String s, InputObjectState buff, int m) throws ObjectStoreException
+    {
+        if (!hides(m) || _pending.isEmpty())
+            return _store.allObjUids(s, buff, m);
+
+        InputObjectState all = new InputObjectState();
+
+        if (!_store.allObjUids(s, all, m))
+            return false;
+
+        OutputObjectState found = new OutputObjectState();
+
+        try
+        {
+            while (true)
+            {
+                Uid u;
+
+                try
+                {
+                    u = UidHelper.unpackFrom(all);
+                }
+                catch (final IOException ex)
+                {
+                    // a list which has no terminating null Uid
+                    break;
+                }
+
+                if (u.equals(Uid.nullUid()))
+                    break;
+
+                if (!_pending.containsKey(new Key(u, s)))
+                    UidHelper.packInto(u, found);
+            }
+
+            UidHelper.packInto(Uid.nullUid(), found);
+        }
+        catch (final IOException ex)
+        {
+            throw new ObjectStoreException(ex.toString(), ex);
+        }
+
+        buff.setBuffer(found.buffer());
+
+        return true;
+    }
+
+    public boolean allObjUids (String s, InputObjectState buff) throws ObjectStoreException
+    {
+        return allObjUids(s, buff, StateStatus.OS_UNKNOWN);
+    }
+
+    public UidCursor openUidCursor (final String s, int m) throws ObjectStoreException
+    {
+        final UidCursor cursor = _store.openUidCursor(s, m);
+
+        if (!hides(m))
+            return cursor;
+
+        return new UidCursor()
+        {
+            public List<Uid> next (int maxUids) throws ObjectStoreException
+            {
+                List<Uid> page;
+
+                do
+                {
+                    page = cursor.next(maxUids);
+
+                    if (_pending.isEmpty())
+                        return page;
+
+                    List<Uid> kept = new ArrayList<Uid>(page.size());
+
+                    for (Uid u : page)
+                    {
+                        if (!_pending.containsKey(new Key(u, s)))
+                            kept.add(u);
+                    }
+
+                    // an empty page would end the enumeration
+                    if (!kept.isEmpty())
+                        return kept;
+                }
+                while (!page.isEmpty());
+
+                return page;
+            }
+
+            public void close ()
+            {
+                cursor.close();
+            }
+        };
+    }
+
+    public boolean allTypes (InputObjectState buff) throws ObjectStoreException
+    {
+        return _store.allTypes(buff);
+    }
+
+    public int currentState (Uid u, String tn) throws ObjectStoreException
+    {
+        removePending(u, tn);
+
+        return _store.currentState(u, tn);
+    }
+
+    public boolean hide_state (Uid u, String tn) throws ObjectStoreException
+    {
+        removePending(u, tn);
+
+        return _store.hide_state(u, tn);
+    }
+
+    public boolean reveal_state (Uid u, String tn) throws ObjectStoreException
+    {
+        removePending(u, tn);
+
+        return _store.reveal_state(u, tn);
+    }
+
+    public boolean isType (Uid u, String tn, int st) throws ObjectStoreException
+    {
+        removePending(u, tn);
+
+        return _store.isType(u, tn, st);
+    }
+
+    private static boolean hides (int match)
+    {
+        return (match != StateStatus.OS_UNCOMMITTED) && (match != StateStatus.OS_UNCOMMITTED_HIDDEN);
+    }
+
+    /*
+     * Apply the pending removal of a state, if there is one, before some
+     * other operation on it.
+     */
+
+    private void removePending (Uid u, String tn) throws ObjectStoreException
+    {
+        if (_pending.isEmpty())
+            return;
+
+        Removal removal = _pending.get(new Key(u, tn));
+
+        if (removal != null)
+            apply(removal);
+    }
+
+    private void removePending ()
+    {
+        for (Removal removal : _pending.values())
+            applyQuietly(removal);
+    }
+
+    /*
+     * Every removal in a batch is handed to the store before waiting for any
+     * of them.
+     */
+
+    private void removeQueued ()
+    {
+        List<Removal> batch = new ArrayList<Removal>(_maxBatchSize);
+
+        while (true)
+        {
+            Removal removal = _queue.poll();
+
+            if (removal == null)
+            {
+                if (_stopped)
+                    return;
+
+                _idle = true;
+
+                // recheck, in case a removal was queued before we were seen to be idle
+                if (_queue.isEmpty() && !_stopped)
+                    LockSupport.park(this);
+
+                _idle = false;
+
+                continue;
+            }
+
+            while (removal != null)
+            {
+                begin(removal);
+                batch.add(removal);
+
+                removal = (batch.size() < _maxBatchSize) ? _queue.poll() : null;
+            }
+
+            for (Removal queued : batch)
+                applyQuietly(queued);
+
+            batch.clear();
+        }
+    }
+
+    private void applyQuietly (Removal removal)
+    {
+        try
+        {
+            apply(removal);
+        }
+        catch (final ObjectStoreException ex)
+        {
+            tsLogger.i18NLogger.warn_objectstore_DeferredRemovalStore_failed(removal.objUid, removal.tName, ex);
+        }
+    }
+
+    /*
+     * Whatever the outcome the state stops being hidden: if it could not be
+     * removed then recovery has to see it.
+     */
+
+    private boolean apply (Removal removal) throws ObjectStoreException
+    {
+        try
+        {
+            return begin(removal).join();
+        }
+        catch (final CompletionException ex)
+        {
+            Throwable cause = (ex.getCause() == null) ? ex : ex.getCause();
+
+            if (cause instanceof ObjectStoreException)
+                throw (ObjectStoreException) cause;
+
+            throw new ObjectStoreException(cause.toString(), cause);
+        }
+        finally
+        {
+            if (_pending.remove(removal.key, removal))
+                _backlog.decrementAndGet();
+        }
+    }
+
+    /*
+     * Hand the removal to the store unless someone else already has. No lock
+     * is held while the store does its I/O.
+     */
+
+    private CompletableFuture<Boolean> begin (final Removal removal)
+    {
+        if (removal.claimed.compareAndSet(false, true))
+        {
+            CompletionStage<Boolean> stage;
+
+            try
+            {
+                stage = _store.remove_committed_async(removal.objUid, removal.tName);
+            }
+            catch (final RuntimeException ex)
+            {
+                CompletableFuture<Boolean> failed = new CompletableFuture<Boolean>();
+
+                failed.completeExceptionally(ex);
+
+                stage = failed;
+            }
+
+            stage.whenComplete((result, failure) -> {
+                _removals.increment();
+
+                if (failure != null)
+                    removal.outcome.completeExceptionally(failure);
+                else
+                    removal.outcome.complete(result);
+            });
+        }
+
+        return removal.outcome;
+    }
+
+    private void registerMBean ()
+    {
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(_mbeanName));
+        }
+        catch (final JMException ex)
+        {
+            tsLogger.i18NLogger.warn_tools_osb_util_JMXServer_m_3(_mbeanName, ex);
+        }
+    }
+
+    private void unregisterMBean ()
+    {
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(_mbeanName));
+        }
+        catch (final JMException ex)
+        {
+            tsLogger.i18NLogger.warn_tools_osb_util_JMXServer_m_5(_mbeanName, ex);
+        }
+    }
+
+    private final ObjectStoreAPI _store;
+    private final int _maxBatchSize;
+    private final int _maxBacklog;
+
+    private final ConcurrentHashMap<Key, Removal> _pending = new ConcurrentHashMap<Key, Removal>();
+    private final ConcurrentLinkedQueue<Removal> _queue = new ConcurrentLinkedQueue<Removal>();
+    private final AtomicInteger _backlog = new AtomicInteger();
+
+    private final LongAdder _removals = new LongAdder();
+    private final LongAdder _coalesced = new LongAdder();
+
+    private final String _mbeanName;
+    private final ReentrantLock _lifecycleLock = new ReentrantLock();
+
+    private volatile Thread _remover;
+
+    private volatile boolean _idle;
+    private volatile boolean _stopped = true;
+}
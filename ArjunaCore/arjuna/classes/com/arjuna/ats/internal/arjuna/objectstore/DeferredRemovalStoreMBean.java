@@ -0,0 +1,40 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.internal.arjuna.objectstore;
+
+/**
+ * MBean interface for monitoring the background removal of transaction logs.
+ * A {@link DeferredRemovalStore} is registered under the object store's
+ * jmxToolingMBeanName with name=DeferredRemovals and store set to the name of
+ * the wrapped store while its background thread is running.
+ */
+public interface DeferredRemovalStoreMBean
+{
+    /**
+     * Returns the name of the store whose removals are deferred.
+     * @return the name of the wrapped store
+     */
+    String getStoreName();
+
+    /**
+     * Returns the number of removals which have been queued but not yet applied.
+     * A backlog which keeps growing means the store cannot keep up.
+     * @return the number of removals waiting to be applied
+     */
+    int getPendingRemovals();
+
+    /**
+     * Returns the number of removals applied, whether in the background or not.
+     * @return the number of removals applied
+     */
+    long getNumberOfRemovals();
+
+    /**
+     * Returns the number of removals of a state which was already queued for removal.
+     * @return the number of coalesced removals
+     */
+    long getNumberOfCoalescedRemovals();
+}
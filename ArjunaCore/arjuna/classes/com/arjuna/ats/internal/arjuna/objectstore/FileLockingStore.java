@@ -46,26 +46,44 @@ public abstract class FileLockingStore extends FileSystemStore
      * Lock files as we would do on a Unix system.
      */
 
-    protected synchronized boolean lock (File fd, int lmode, boolean create)
+    protected boolean lock (File fd, int lmode, boolean create)
     {
-        if (tsLogger.logger.isTraceEnabled()) {
-            tsLogger.logger.trace("FileLockingStore.lock(" + fd + ", " + FileLock.modeString(lmode) + ", " + create + ")");
-        }
+        storeLock.lock();
+
+        try
+        {
+            if (tsLogger.logger.isTraceEnabled()) {
+                tsLogger.logger.trace("FileLockingStore.lock(" + fd + ", " + FileLock.modeString(lmode) + ", " + create + ")");
+            }
 
-        FileLock fileLock = new FileLock(fd);
+            FileLock fileLock = new FileLock(fd);
 
-        return fileLock.lock(lmode, create);
+            return fileLock.lock(lmode, create);
+        }
+        finally
+        {
+            storeLock.unlock();
+        }
     }
 
-    protected synchronized boolean unlock (File fd)
+    protected boolean unlock (File fd)
     {
-        if (tsLogger.logger.isTraceEnabled()) {
-            tsLogger.logger.trace("FileLockingStore.unlock(" + fd + ")");
-        }
+        storeLock.lock();
+
+        try
+        {
+            if (tsLogger.logger.isTraceEnabled()) {
+                tsLogger.logger.trace("FileLockingStore.unlock(" + fd + ")");
+            }
 
-        FileLock fileLock = new FileLock(fd);
+            FileLock fileLock = new FileLock(fd);
 
-        return fileLock.unlock();
+            return fileLock.unlock();
+        }
+        finally
+        {
+            storeLock.unlock();
+        }
     }
 
 }
\ No newline at end of file
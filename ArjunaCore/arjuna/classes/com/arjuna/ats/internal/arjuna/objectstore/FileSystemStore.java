@@ -12,7 +12,17 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
@@ -26,6 +36,8 @@ import com.arjuna.ats.arjuna.logging.tsLogger;
 import com.arjuna.ats.arjuna.objectstore.ObjectStore;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
 import com.arjuna.ats.arjuna.objectstore.StateType;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
+import com.arjuna.ats.arjuna.state.ByteBufferOutput;
 import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
 import com.arjuna.ats.arjuna.utils.FileLock;
@@ -168,7 +180,7 @@ public abstract class FileSystemStore extends ObjectStore
         }
 
         String directory = null;
-        OutputObjectState store = new OutputObjectState();
+        ByteBufferOutput store = new ByteBufferOutput();
 
         /*
          * If typename starts with a '/' then skip over it.
@@ -245,6 +257,192 @@ public abstract class FileSystemStore extends ObjectStore
         return true;
     }
 
+    /**
+     * Enumerate the Uids of a type by reading its directory incrementally,
+     * rather than listing and packing all of the entries first.
+     */
+
+    @Override
+    public UidCursor openUidCursor (String tName, int match) throws ObjectStoreException
+    {
+        if (tsLogger.logger.isTraceEnabled()) {
+            tsLogger.logger.trace("FileSystemStore.openUidCursor(" + tName + ", " + match + ")");
+        }
+
+        File directory = new File(typeDirectory(fullStoreName, tName));
+
+        return new DirectoryUidCursor(tName, match, Collections.singletonList(directory).iterator());
+    }
+
+    /**
+     * @return the directory beneath <code>root</code> which holds the
+     * instances of <code>tName</code>.
+     */
+
+    protected static String typeDirectory (String root, String tName)
+    {
+        /*
+         * If typename starts with a '/' then skip over it.
+         */
+
+        if ((tName != null) && (tName.length() > 0) && (tName.charAt(0) == File.separatorChar))
+            return root + tName.substring(1);
+        else
+            return root + tName;
+    }
+
+    /**
+     * A cursor which streams the entries of each of a sequence of
+     * directories in turn, applying the same rules as
+     * {@link #allObjUids(String, InputObjectState, int)} to decide which of
+     * them are returned. Only one directory is open at a time.
+     */
+
+    protected class DirectoryUidCursor extends UidCursor
+    {
+        protected DirectoryUidCursor (String tName, int match, Iterator<File> directories)
+        {
+            _tName = tName;
+            _match = match;
+            _directories = directories;
+        }
+
+        @Override
+        public List<Uid> next (final int maxUids) throws ObjectStoreException
+        {
+            if (System.getSecurityManager() == null)
+                return nextPage(maxUids);
+
+            try {
+                return AccessController.doPrivileged(new PrivilegedExceptionAction<List<Uid>>() {
+                    @Override
+                    public List<Uid> run() throws Exception {
+                        return nextPage(maxUids);
+                    }
+                });
+            } catch (PrivilegedActionException e) {
+                throw unwrapException(e);
+            }
+        }
+
+        @Override
+        public void close ()
+        {
+            closeDirectory();
+
+            _directories = Collections.emptyIterator();
+        }
+
+        private List<Uid> nextPage (int maxUids) throws ObjectStoreException
+        {
+            List<Uid> page = new ArrayList<>(Math.min(maxUids, 1024));
+
+            try
+            {
+                while (page.size() < maxUids)
+                {
+                    if ((_entries == null) || !_entries.hasNext())
+                    {
+                        closeDirectory();
+
+                        if (!_directories.hasNext())
+                            break;
+
+                        _directory = _directories.next();
+
+                        try
+                        {
+                            _stream = Files.newDirectoryStream(_directory.toPath());
+                            _entries = _stream.iterator();
+                        }
+                        catch (NoSuchFileException e)
+                        {
+                            // nothing of this type has been written
+                        }
+                    }
+                    else
+                    {
+                        Uid aUid = toUid(_entries.next().getFileName().toString());
+
+                        if (aUid != null)
+                            page.add(aUid);
+                    }
+                }
+            }
+            catch (IOException | DirectoryIteratorException e)
+            {
+                String directory = String.valueOf(_directory);
+
+                close();
+
+                throw new ObjectStoreException(tsLogger.i18NLogger.get_objectstore_FileSystemStore_cursor(directory), e);
+            }
+
+            return page;
+        }
+
+        private Uid toUid (String name) throws ObjectStoreException
+        {
+            try
+            {
+                Uid aUid = new Uid(name, true);
+
+                if (!aUid.valid() || (aUid.equals(Uid.nullUid())))
+                {
+                    String revealed = revealedId(name);
+
+                    // don't want to give the same id twice.
+
+                    if (new File(_directory, revealed).exists())
+                        return null;
+
+                    aUid = new Uid(revealed);
+                }
+
+                if (aUid.valid() && aUid.notEquals(Uid.nullUid()) &&
+                        ((_match == StateStatus.OS_UNKNOWN) || isType(aUid, _tName, _match)))
+                {
+                    if (scanZeroLengthFiles || new File(_directory, name).length() > 0)
+                        return aUid;
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                /*
+                 * Not a number at start of file.
+                 */
+            }
+
+            return null;
+        }
+
+        private void closeDirectory ()
+        {
+            if (_stream != null)
+            {
+                try
+                {
+                    _stream.close();
+                }
+                catch (IOException e)
+                {
+                    // ignore
+                }
+
+                _stream = null;
+            }
+
+            _entries = null;
+        }
+
+        private final String _tName;
+        private final int _match;
+        private Iterator<File> _directories;
+        private File _directory;
+        private DirectoryStream<Path> _stream;
+        private Iterator<Path> _entries;
+    }
+
     public boolean allTypes (InputObjectState foundTypes) throws ObjectStoreException
     {
         if (tsLogger.logger.isTraceEnabled()) {
@@ -361,7 +559,7 @@ public abstract class FileSystemStore extends ObjectStore
      * Are synchronous write enabled?
      */
 
-    protected synchronized final boolean synchronousWrites ()
+    protected final boolean synchronousWrites ()
     {
         return doSync && syncWrites;
     }
@@ -370,19 +568,28 @@ public abstract class FileSystemStore extends ObjectStore
      * Lock the file in the object store.
      */
 
-    protected synchronized boolean lock (final File fd, final int lmode, final boolean create)
+    protected boolean lock (final File fd, final int lmode, final boolean create)
     {
-        if(System.getSecurityManager() == null) {
-            FileLock fileLock = new FileLock(fd);
-            return fileLock.lock(lmode, create);
-        } else {
-            return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-                @Override
-                public Boolean run() {
-                    FileLock fileLock = new FileLock(fd);
-                    return fileLock.lock(lmode, create);
-                }
-            });
+        storeLock.lock();
+
+        try
+        {
+            if(System.getSecurityManager() == null) {
+                FileLock fileLock = new FileLock(fd);
+                return fileLock.lock(lmode, create);
+            } else {
+                return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+                    @Override
+                    public Boolean run() {
+                        FileLock fileLock = new FileLock(fd);
+                        return fileLock.lock(lmode, create);
+                    }
+                });
+            }
+        }
+        finally
+        {
+            storeLock.unlock();
         }
     }
 
@@ -390,19 +597,28 @@ public abstract class FileSystemStore extends ObjectStore
      * Unlock the file in the object store.
      */
 
-    protected synchronized boolean unlock (final File fd)
+    protected boolean unlock (final File fd)
     {
-        if(System.getSecurityManager() == null) {
-            FileLock fileLock = new FileLock(fd);
-            return fileLock.unlock();
-        } else {
-            return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-                @Override
-                public Boolean run() {
-                    FileLock fileLock = new FileLock(fd);
-                    return fileLock.unlock();
-                }
-            });
+        storeLock.lock();
+
+        try
+        {
+            if(System.getSecurityManager() == null) {
+                FileLock fileLock = new FileLock(fd);
+                return fileLock.unlock();
+            } else {
+                return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+                    @Override
+                    public Boolean run() {
+                        FileLock fileLock = new FileLock(fd);
+                        return fileLock.unlock();
+                    }
+                });
+            }
+        }
+        finally
+        {
+            storeLock.unlock();
         }
     }
 
@@ -522,16 +738,21 @@ public abstract class FileSystemStore extends ObjectStore
      * to improve performance.
      */
 
-    protected synchronized final boolean renameFromTo (final File from, final File to) {
-        if(System.getSecurityManager() == null) {
-            return renameFromToInternal(from, to);
-        } else {
-            return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-                @Override
-                public Boolean run() {
-                    return renameFromToInternal(from, to);
-                }
-            });
+    protected final boolean renameFromTo (final File from, final File to) {
+        storeLock.lock();
+        try {
+            if(System.getSecurityManager() == null) {
+                return renameFromToInternal(from, to);
+            } else {
+                return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+                    @Override
+                    public Boolean run() {
+                        return renameFromToInternal(from, to);
+                    }
+                });
+            }
+        } finally {
+            storeLock.unlock();
         }
     }
 
@@ -761,72 +982,81 @@ public abstract class FileSystemStore extends ObjectStore
      * a few times. (This can happen across processes too.)
      */
     
-    protected final synchronized boolean createHierarchy (String path) throws ObjectStoreException
+    protected final boolean createHierarchy (String path) throws ObjectStoreException
     {
-        if (tsLogger.logger.isTraceEnabled()) {
-            tsLogger.logger.trace("FileSystemStore.createHierarchy(" + path + ")");
-        }
+        storeLock.lock();
 
-        if ((path != null) && (path.length() > 0))
+        try
         {
-            File f = null;
-
-            /*
-             * Is string a complete directory list, or is it an
-             * absolute file name?
-             */
+            if (tsLogger.logger.isTraceEnabled()) {
+                tsLogger.logger.trace("FileSystemStore.createHierarchy(" + path + ")");
+            }
 
-            if (path.charAt(path.length() -1) != File.separatorChar)
+            if ((path != null) && (path.length() > 0))
             {
-                int index = path.lastIndexOf(File.separator);
-
-                if (index <= 0)
-                    return true;
-                else
-                    f = new File(path.substring(0, index));
-            }
-            else
-                f = new File(path);
+                File f = null;
 
-            int retryLimit = FileSystemStore.createRetry;
+                /*
+                 * Is string a complete directory list, or is it an
+                 * absolute file name?
+                 */
 
-            do
-            {
-                if (f.exists())
+                if (path.charAt(path.length() -1) != File.separatorChar)
                 {
-                    return true;
+                    int index = path.lastIndexOf(File.separator);
+
+                    if (index <= 0)
+                        return true;
+                    else
+                        f = new File(path.substring(0, index));
                 }
                 else
+                    f = new File(path);
+
+                int retryLimit = FileSystemStore.createRetry;
+
+                do
                 {
-                    /*
-                     * Assume problem is due to concurrent processes, since we're
-                     * synchronized within the same VM.
-                     */
-                    
-                    if (!f.mkdirs())
+                    if (f.exists())
+                    {
+                        return true;
+                    }
+                    else
                     {
-                        retryLimit--;
+                        /*
+                         * Assume problem is due to concurrent processes, since we're
+                         * synchronized within the same VM.
+                         */
+                    
+                        if (!f.mkdirs())
+                        {
+                            retryLimit--;
 
-                        if (retryLimit == 0)
-                            return false;
+                            if (retryLimit == 0)
+                                return false;
 
-                        try
-                        {
-                            Thread.currentThread().sleep(FileSystemStore.createTimeout);
-                        }
-                        catch (Exception ex)
-                        {
+                            try
+                            {
+                                Thread.currentThread().sleep(FileSystemStore.createTimeout);
+                            }
+                            catch (Exception ex)
+                            {
+                            }
                         }
+                        else
+                            return true;
                     }
-                    else
-                        return true;
-                }
-            } while (!f.exists() && (retryLimit > 0));
+                } while (!f.exists() && (retryLimit > 0));
 
-            return f.exists();
+                return f.exists();
+            }
+            else
+                throw new ObjectStoreException(tsLogger.i18NLogger.get_objectstore_FileSystemStore_8());
+        }
+        finally
+        {
+            storeLock.unlock();
         }
-        else
-            throw new ObjectStoreException(tsLogger.i18NLogger.get_objectstore_FileSystemStore_8());
     }
 
     /**
@@ -914,6 +1144,15 @@ public abstract class FileSystemStore extends ObjectStore
     private final String fullStoreName;
     protected volatile boolean doSync = true;
 
+    /*
+     * Serialises file locking, renames and directory creation within this
+     * instance. A ReentrantLock rather than a monitor so that a virtual
+     * thread blocked on it, or holding it across file I/O, does not pin its
+     * carrier thread.
+     */
+
+    protected final ReentrantLock storeLock = new ReentrantLock();
+
     // global values (some of which may be reset on a per instance basis).
 
     private static final Hashtable fileCache = new Hashtable();
@@ -0,0 +1,366 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.internal.arjuna.objectstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.arjuna.ats.arjuna.logging.tsLogger;
+
+/**
+ * Group commit support for the LogStore. Rather than each committing thread
+ * writing and syncing its own log entry, entries are queued and a single
+ * writer thread appends everything that is waiting with one sequential write
+ * per log and then makes the lot durable with a single force. Each caller is
+ * released once the batch containing its entry has been forced to disk.
+ *
+ * When the writer is idle an entry is flushed straight away, so under light
+ * load latency is no worse than writing directly. As concurrency increases,
+ * entries accumulate while the previous batch is being forced, so the number
+ * of commits per sync grows with the number of committing threads. The
+ * maximum batch delay can be used to trade a little latency for larger
+ * batches.
+ */
+
+class GroupCommitLogWriter extends Thread
+{
+    class WriteRequest
+    {
+        WriteRequest (final File file, final long offset, final byte[] data)
+        {
+            this.file = file;
+            this.offset = offset;
+            this.data = data;
+        }
+
+        void complete (IOException ex)
+        {
+            failure = ex;
+            done.countDown();
+        }
+
+        /*
+         * The entry cannot be withdrawn once queued, so even if the
+         * caller is interrupted we wait for the outcome and restore the
+         * interrupt status afterwards.
+         */
+
+        void await () throws IOException
+        {
+            boolean interrupted = false;
+
+            for (;;)
+            {
+                try
+                {
+                    done.await();
+
+                    break;
+                }
+                catch (final InterruptedException ex)
+                {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted)
+                Thread.currentThread().interrupt();
+
+            if (failure != null)
+                throw new IOException(failure.getMessage(), failure);
+        }
+
+        final File file;
+        final long offset;
+        final byte[] data;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile IOException failure;
+    }
+
+    /**
+     * @param lock the lock used by the LogStore to guard log contents.
+     * @param sync whether or not each batch should be forced to disk.
+     * @param maxBatchSize the maximum number of entries written in one batch.
+     * @param maxBatchDelay the maximum time, in microseconds, to wait for a batch to fill.
+     */
+
+    public GroupCommitLogWriter (Lock lock, boolean sync, int maxBatchSize, long maxBatchDelay)
+    {
+        super("Log Writer");
+
+        _lock = lock;
+        _sync = sync;
+        _maxBatchSize = Math.max(1, maxBatchSize);
+        _maxBatchDelay = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxBatchDelay));
+    }
+
+    /**
+     * Queue the data to be written to the log at the given offset and
+     * wait until it is durable.
+     *
+     * @throws IOException if the batch containing the entry could not be written.
+     */
+
+    public void write (File file, long offset, byte[] data) throws IOException
+    {
+        WriteRequest request = new WriteRequest(file, offset, data);
+
+        _queue.add(request);
+
+        /*
+         * If the writer has been (or is being) terminated it may already
+         * have drained the queue for the last time, so make sure the entry
+         * is not left behind.
+         */
+
+        if (_terminated)
+            drain();
+
+        request.await();
+    }
+
+    /**
+     * Write every queued entry and stop the writer thread. Any later
+     * entries are written by the calling thread.
+     */
+
+    public final void terminate ()
+    {
+        _terminated = true;
+
+        _queue.add(_stop);
+
+        try
+        {
+            join();
+        }
+        catch (final InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of batches written so far.
+     */
+
+    public long getNumberOfBatches ()
+    {
+        return _batches;
+    }
+
+    /**
+     * @return the number of entries written so far.
+     */
+
+    public long getNumberOfEntries ()
+    {
+        return _entries;
+    }
+
+    public void run ()
+    {
+        List<WriteRequest> batch = new ArrayList<WriteRequest>(_maxBatchSize);
+        boolean interrupted = false;
+
+        while (!_terminated)
+        {
+            try
+            {
+                batch.add(_queue.take());
+
+                _queue.drainTo(batch, _maxBatchSize - batch.size());
+
+                if (_maxBatchDelay > 0)
+                {
+                    long deadline = System.nanoTime() + _maxBatchDelay;
+
+                    while (!_terminated && (batch.size() < _maxBatchSize))
+                    {
+                        WriteRequest next = _queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+                        if (next == null)
+                            break;
+
+                        batch.add(next);
+
+                        _queue.drainTo(batch, _maxBatchSize - batch.size());
+                    }
+                }
+            }
+            catch (final InterruptedException ex)
+            {
+                // treat it as a request to stop, but flush first so no caller is left waiting
+                _terminated = true;
+                interrupted = true;
+            }
+
+            batch.removeIf(r -> r == _stop);
+
+            if (!batch.isEmpty())
+            {
+                flush(batch);
+
+                batch.clear();
+            }
+        }
+
+        drain();
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void drain ()
+    {
+        List<WriteRequest> batch = new ArrayList<WriteRequest>();
+
+        _queue.drainTo(batch);
+
+        batch.removeIf(r -> r == _stop);
+
+        if (!batch.isEmpty())
+            flush(batch);
+    }
+
+    /*
+     * Entries for the same log are sorted by offset and contiguous
+     * entries (the common case, since space is allocated sequentially)
+     * are merged so that each log sees a single sequential write
+     * followed by a single force.
+     */
+
+    private void flush (List<WriteRequest> batch)
+    {
+        // the writer and callers writing after termination may both get here
+        _flushLock.lock();
+
+        try
+        {
+            doFlush(batch);
+        }
+        finally
+        {
+            _flushLock.unlock();
+        }
+    }
+
+    private void doFlush (List<WriteRequest> batch)
+    {
+        Map<File, List<WriteRequest>> logs = new LinkedHashMap<File, List<WriteRequest>>();
+
+        for (WriteRequest request : batch)
+            logs.computeIfAbsent(request.file, f -> new ArrayList<WriteRequest>()).add(request);
+
+        for (Map.Entry<File, List<WriteRequest>> log : logs.entrySet())
+        {
+            List<WriteRequest> requests = log.getValue();
+            IOException failure = null;
+
+            requests.sort(Comparator.comparingLong(r -> r.offset));
+
+            try (RandomAccessFile ofile = new RandomAccessFile(log.getKey(), FILE_MODE))
+            {
+                FileChannel channel = ofile.getChannel();
+
+                _lock.lock();
+
+                try
+                {
+                    int start = 0;
+
+                    while (start < requests.size())
+                    {
+                        int end = start + 1;
+                        long next = requests.get(start).offset + requests.get(start).data.length;
+
+                        while ((end < requests.size()) && (requests.get(end).offset == next))
+                        {
+                            next += requests.get(end).data.length;
+                            end++;
+                        }
+
+                        writeRun(channel, requests.subList(start, end), (int) (next - requests.get(start).offset));
+
+                        start = end;
+                    }
+                }
+                finally
+                {
+                    _lock.unlock();
+                }
+
+                if (_sync)
+                    channel.force(false);
+            }
+            catch (final IOException ex)
+            {
+                tsLogger.i18NLogger.warn_objectstore_LogStore_group_commit_failed(log.getKey().getPath(), ex);
+
+                failure = ex;
+            }
+
+            for (WriteRequest request : requests)
+                request.complete(failure);
+        }
+
+        _batches++;
+        _entries += batch.size();
+    }
+
+    private void writeRun (FileChannel channel, List<WriteRequest> run, int size) throws IOException
+    {
+        ByteBuffer buff;
+
+        if (run.size() == 1)
+        {
+            buff = ByteBuffer.wrap(run.get(0).data);
+        }
+        else
+        {
+            buff = ByteBuffer.allocate(size);
+
+            for (WriteRequest request : run)
+                buff.put(request.data);
+
+            buff.flip();
+        }
+
+        long position = run.get(0).offset;
+
+        while (buff.hasRemaining())
+            position += channel.write(buff, position);
+    }
+
+    private static final String FILE_MODE = "rw";
+
+    private final LinkedBlockingQueue<WriteRequest> _queue = new LinkedBlockingQueue<WriteRequest>();
+    private final Lock _lock;
+    private final boolean _sync;
+    private final int _maxBatchSize;
+    private final long _maxBatchDelay;
+    private final Lock _flushLock = new ReentrantLock();
+    private final WriteRequest _stop = new WriteRequest(null, 0, null);
+
+    private volatile boolean _terminated;
+
+    private volatile long _batches;
+    private volatile long _entries;
+}
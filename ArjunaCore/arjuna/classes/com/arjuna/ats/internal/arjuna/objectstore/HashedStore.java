@@ -9,6 +9,8 @@ package com.arjuna.ats.internal.arjuna.objectstore;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
 import com.arjuna.ats.arjuna.common.Uid;
@@ -17,6 +19,8 @@ import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
 import com.arjuna.ats.arjuna.objectstore.StateType;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
+import com.arjuna.ats.arjuna.state.ByteBufferOutput;
 import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
 import com.arjuna.ats.internal.arjuna.common.UidHelper;
@@ -59,7 +63,7 @@ public class HashedStore extends ShadowNoFileLockStore
          */
 
         String directory = locateStore(getStoreName());
-        OutputObjectState store = new OutputObjectState();
+        ByteBufferOutput store = new ByteBufferOutput();
 
         /* Does typename start with a '/' if so skip over */
 
@@ -150,6 +154,33 @@ public class HashedStore extends ShadowNoFileLockStore
         return true;
     }
 
+    /**
+     * Enumerate the Uids of a type one hash directory at a time.
+     */
+
+    @Override
+    public UidCursor openUidCursor (String tName, int match) throws ObjectStoreException
+    {
+        if (tsLogger.logger.isTraceEnabled()) {
+            tsLogger.logger.trace("HashedStore.openUidCursor(" + tName + ", " + match + ")");
+        }
+
+        File f = new File(typeDirectory(locateStore(getStoreName()), tName));
+        String[] entry = f.list();
+        List<File> directories = new ArrayList<>();
+
+        if (entry != null)
+        {
+            for (String name : entry)
+            {
+                if ((name.length() > 1 && Character.isDigit(name.charAt(1))) || name.startsWith(HASH_SEPARATOR))
+                    directories.add(new File(f, name));
+            }
+        }
+
+        return new DirectoryUidCursor(tName, match, directories.iterator());
+    }
+
     public HashedStore (ObjectStoreEnvironmentBean objectStoreEnvironmentBean) throws ObjectStoreException
     {
         super(objectStoreEnvironmentBean);
@@ -18,6 +18,9 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
 import com.arjuna.ats.arjuna.common.Uid;
@@ -25,6 +28,8 @@ import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
 import com.arjuna.ats.arjuna.objectstore.StateType;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
+import com.arjuna.ats.arjuna.state.ByteBufferOutput;
 import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
 import com.arjuna.ats.arjuna.utils.FileLock;
@@ -88,6 +93,11 @@ import com.arjuna.ats.internal.arjuna.objectstore.LogInstance.TransactionData;
  * By default we synchronously add the removal marker to the log, i.e., when remove_committed
  * returns, the marker entry has been appended to the log.
  *
+ * By default each entry is written with its own synchronous disk write. If group commit is
+ * enabled then entries are instead handed to a GroupCommitLogWriter which appends all of the
+ * entries that are waiting in one sequential write and syncs them together, so the cost of
+ * the sync is shared between concurrently committing transactions.
+ *
  * NOTE: there is a race where we terminate the log instance and yet transactions may
  * still be using it. This happens with other object store implementations too. However, in
  * this case we could end up with a log that should be deleted because all of the entries
@@ -288,10 +298,16 @@ class LogPurger extends Thread
 
     public void addRemovedState(final Uid u, final String tn, final int state)
     {
-        synchronized (_entries)
+        _entriesLock.lock();
+
+        try
         {
             _entries.put(u, new LogElement(tn, u, state));
         }
+        finally
+        {
+            _entriesLock.unlock();
+        }
     }
 
     public void purge()
@@ -307,7 +323,9 @@ class LogPurger extends Thread
 
     public void writeRemovalEntries()
     {
-        synchronized (_entries)
+        _entriesLock.lock();
+
+        try
         {
             if (!_entries.isEmpty())
             {
@@ -331,6 +349,10 @@ class LogPurger extends Thread
                 _entries.clear();
             }
         }
+        finally
+        {
+            _entriesLock.unlock();
+        }
     }
 
     /**
@@ -340,10 +362,16 @@ class LogPurger extends Thread
 
     public void trigger ()
     {
-        synchronized (_lock)
+        _lock.lock();
+
+        try
         {
             if (_status == Status.PASSIVE)
-                _lock.notify();
+                _wakeup.signal();
+        }
+        finally
+        {
+            _lock.unlock();
         }
     }
 
@@ -355,11 +383,17 @@ class LogPurger extends Thread
 
             try
             {
-                synchronized (_lock)
+                _lock.lock();
+
+                try
                 {
                     _status = Status.PASSIVE;
 
-                    _lock.wait(_purgeTime);
+                    _wakeup.await(_purgeTime, TimeUnit.MILLISECONDS);
+                }
+                finally
+                {
+                    _lock.unlock();
                 }
             }
             catch (final Exception ex)
@@ -393,7 +427,15 @@ class LogPurger extends Thread
     private long _purgeTime;
     private LogStore _objStore;
     private Status _status;
-    private Object _lock = new Object();
+
+    /*
+     * Locks rather than monitors, since application threads add removed
+     * states while the purger may be writing to the log.
+     */
+
+    private final ReentrantLock _entriesLock = new ReentrantLock();
+    private final ReentrantLock _lock = new ReentrantLock();
+    private final Condition _wakeup = _lock.newCondition();
 }
 
 class PurgeShutdownHook extends Thread
@@ -559,6 +601,18 @@ public class LogStore extends FileSystemStore
         return super.allObjUids(tName, state, match);
     }
 
+    /**
+     * The Uids of a type are found by reading each of the logs, which is done
+     * by {@link #allObjUids(String, InputObjectState, int)}, so this does not
+     * stream the log directory as the other file system stores do.
+     */
+
+    @Override
+    public UidCursor openUidCursor (String tName, int match) throws ObjectStoreException
+    {
+        return UidCursor.fromAllObjUids(this, tName, match);
+    }
+
     /**
      * This is a recovery-only method and should not be called during normal
      * execution. As such we need to load in all of the logs we can find that
@@ -585,7 +639,7 @@ public class LogStore extends FileSystemStore
            */
 
         InputObjectState logs = new InputObjectState();
-        OutputObjectState objUids = new OutputObjectState();
+        ByteBufferOutput objUids = new ByteBufferOutput();
 
         /*
            * We never call this method except during recovery. As such we shouldn't
@@ -672,6 +726,51 @@ public class LogStore extends FileSystemStore
         Runtime.getRuntime().addShutdownHook(new PurgeShutdownHook(_purger));
 
         _purger.start();
+
+        if (objectStoreEnvironmentBean.isGroupCommit())
+        {
+            _writer = new GroupCommitLogWriter(_lock, doSync,
+                    objectStoreEnvironmentBean.getGroupCommitMaxBatchSize(),
+                    objectStoreEnvironmentBean.getGroupCommitMaxBatchDelay());
+            _writer.setDaemon(true);
+
+            _writer.start();
+        }
+        else
+            _writer = null;
+    }
+
+    /**
+     * Write any queued log entries and stop the group commit writer. Any
+     * later entries are written by the committing thread.
+     */
+
+    public void stop ()
+    {
+        if (_writer != null)
+            _writer.terminate();
+
+        super.stop();
+    }
+
+    /**
+     * @return the number of group commit batches written so far, or 0 if
+     * group commit is disabled.
+     */
+
+    public long getNumberOfGroupCommitBatches ()
+    {
+        return (_writer == null) ? 0 : _writer.getNumberOfBatches();
+    }
+
+    /**
+     * @return the number of log entries written by group commit so far, or
+     * 0 if group commit is disabled.
+     */
+
+    public long getNumberOfGroupCommitEntries ()
+    {
+        return (_writer == null) ? 0 : _writer.getNumberOfEntries();
     }
 
     /**
@@ -776,13 +875,32 @@ public class LogStore extends FileSystemStore
                     buff.putInt(uidString.length);
                     buff.put(uidString);
                     buff.putInt(imageSize);
-                    buff.put(state.buffer());
+                    buff.put(state.asByteBuffer());
 
-                    synchronized (_lock)
+                    if (_writer != null)
                     {
-                        ofile.seek(theLogEntry.offset);
+                        /*
+                         * Let the group commit writer append the entry together with
+                         * those of any other committing transactions. We return once
+                         * the batch containing it has been synced.
+                         */
 
-                        ofile.write(buff.array());
+                        _writer.write(fd, theLogEntry.offset, buff.array());
+                    }
+                    else
+                    {
+                        _lock.lock();
+
+                        try
+                        {
+                            ofile.seek(theLogEntry.offset);
+
+                            ofile.write(buff.array());
+                        }
+                        finally
+                        {
+                            _lock.unlock();
+                        }
                     }
                 }
                 catch (SyncFailedException e)
@@ -998,7 +1116,9 @@ public class LogStore extends FileSystemStore
 
     boolean truncateLogs (boolean force) throws ObjectStoreException
     {
-        synchronized (_logNames)
+        _logNamesLock.lock();
+
+        try
         {
             Iterator<LogInstance> iter = _logNames.iterator();
 
@@ -1028,6 +1148,10 @@ public class LogStore extends FileSystemStore
                     iter.remove();
             }
         }
+        finally
+        {
+            _logNamesLock.unlock();
+        }
 
         return true;
     }
@@ -1040,7 +1164,9 @@ public class LogStore extends FileSystemStore
     {
         boolean delete = false;
 
-        synchronized (_lock)
+        _lock.lock();
+
+        try
         {
             File fd = new File(genPathName(log.getName(), log.getTypeName(), StateStatus.OS_COMMITTED));
 
@@ -1160,6 +1286,10 @@ public class LogStore extends FileSystemStore
                 throw new ObjectStoreException(ex.toString(), ex);
             }
         }
+        finally
+        {
+            _lock.unlock();
+        }
 
         return delete;
     }
@@ -1170,7 +1300,9 @@ public class LogStore extends FileSystemStore
            * Make sure no new entries can be created while we scan.
            */
 
-        synchronized (_lock)
+        _lock.lock();
+
+        try
         {
             try
             {
@@ -1320,6 +1452,10 @@ public class LogStore extends FileSystemStore
                 throw new ObjectStoreException(ex.toString(), ex);
             }
         }
+        finally
+        {
+            _lock.unlock();
+        }
     }
 
     private final boolean redzoneProtected(final byte[] buff)
@@ -1389,7 +1525,9 @@ public class LogStore extends FileSystemStore
     private final TransactionData getLogName (Uid txid, String tName, long size)
             throws ObjectStoreException
     {
-        synchronized (_logNames)
+        _logNamesLock.lock();
+
+        try
         {
             Iterator<LogInstance> iter = _logNames.iterator();
             LogInstance entry = null;
@@ -1459,13 +1597,19 @@ public class LogStore extends FileSystemStore
 
             return entry.addTxId(txid, size);
         }
+        finally
+        {
+            _logNamesLock.unlock();
+        }
     }
 
     private final void removeFromLog(Uid txid)
     {
         if (_synchronousRemoval)
         {
-            synchronized (_logNames)
+            _logNamesLock.lock();
+
+            try
             {
                 Iterator<LogInstance> iter = _logNames.iterator();
                 LogInstance entry = null;
@@ -1481,10 +1625,20 @@ public class LogStore extends FileSystemStore
                     }
                 }
             }
+            finally
+            {
+                _logNamesLock.unlock();
+            }
         }
     }
 
-    private static Object _lock = new Object();
+    /*
+     * Locks rather than monitors, since both are held across file I/O and
+     * a virtual thread must not pin its carrier while waiting for them.
+     */
+
+    private static final ReentrantLock _lock = new ReentrantLock();
+    private static final ReentrantLock _logNamesLock = new ReentrantLock();
 
     private static ArrayList<LogInstance> _logNames = new ArrayList<LogInstance>();
 
@@ -1492,6 +1646,7 @@ public class LogStore extends FileSystemStore
     private final long _purgeTime;
 
     private final LogPurger _purger;
+    private final GroupCommitLogWriter _writer;
     private final boolean _synchronousRemoval;
 
     private static final byte[] _redzone = { 0x2, 0x4, 0x6, 0x8 };
@@ -14,6 +14,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.SyncFailedException;
+import java.nio.channels.FileChannel;
 
 import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
 import com.arjuna.ats.arjuna.common.Uid;
@@ -565,7 +566,11 @@ public class ShadowingStore extends FileSystemStore
                 {
                     ofile = new FileOutputStream(fd);
 
-                    ofile.write(state.buffer(), 0, imageSize);
+                    java.nio.ByteBuffer image = state.asByteBuffer();
+                    FileChannel channel = ofile.getChannel();
+
+                    while (image.hasRemaining())
+                        channel.write(image);
 
                     if (synchronousWrites())
                     {
@@ -18,6 +18,7 @@ import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
 import com.arjuna.ats.arjuna.objectstore.ObjectStore;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.state.ByteBufferOutput;
 import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
 import com.arjuna.ats.internal.arjuna.common.UidHelper;
@@ -53,7 +54,7 @@ public class VolatileStore extends ObjectStore
         if (stateTypes == null)
             throw new ObjectStoreException("Operation not supported by this implementation");
 
-        OutputObjectState store = new OutputObjectState();
+        ByteBufferOutput store = new ByteBufferOutput();
 
         for (Map.Entry<Uid, String> entry : stateTypes.entrySet())
             if (entry.getValue().equals(s))
@@ -80,7 +81,7 @@ public class VolatileStore extends ObjectStore
             throw new ObjectStoreException("Operation not supported by this implementation");
 
         Set<String> types = new HashSet<>(stateTypes.values());
-        OutputObjectState store = new OutputObjectState();
+        ByteBufferOutput store = new ByteBufferOutput();
 
         for (String type : types)
             packString(store, type);
@@ -332,7 +333,7 @@ public class VolatileStore extends ObjectStore
         }
     }
 
-    private void packUid(OutputObjectState store, Uid uid) throws ObjectStoreException {
+    private void packUid(ByteBufferOutput store, Uid uid) throws ObjectStoreException {
         try {
             UidHelper.packInto(uid, store);
         } catch (IOException e) {
@@ -340,7 +341,7 @@ public class VolatileStore extends ObjectStore
         }
     }
 
-    private void packString(OutputObjectState store, String s) throws ObjectStoreException {
+    private void packString(ByteBufferOutput store, String s) throws ObjectStoreException {
         try {
             store.packString(s);
         } catch (IOException e) {
@@ -0,0 +1,228 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.internal.arjuna.objectstore;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One of the flusher threads of a WriteBehindStore. Producers add the states
+ * they have changed to a lock-free queue; at every checkpoint the flusher
+ * writes out everything that was queued when the checkpoint began.
+ *
+ * The lock is only taken by producers which have to wait: callers of sync,
+ * and writers which find the queue over its bound and so ask for an early
+ * checkpoint.
+ */
+
+class WriteBehindFlusher extends Thread
+{
+    /**
+     * @param store the store whose states are written.
+     * @param index the shard this flusher looks after.
+     * @param checkpointPeriod the time, in milliseconds, between checkpoints.
+     * @param maxEntries the number of queued states beyond which writers wait.
+     */
+
+    public WriteBehindFlusher (WriteBehindStore store, int index, int checkpointPeriod, int maxEntries)
+    {
+        super("WriteBehindFlusher-" + index);
+
+        _store = store;
+        _checkpointPeriod = TimeUnit.MILLISECONDS.toNanos(Math.max(1, checkpointPeriod));
+        _maxEntries = Math.max(1, maxEntries);
+
+        setDaemon(true);
+    }
+
+    public final void add (WriteBehindStore.Entry entry)
+    {
+        _queue.offer(entry);
+        _depth.incrementAndGet();
+    }
+
+    /**
+     * @return the number of states waiting for the next checkpoint.
+     */
+
+    public final int getQueueDepth ()
+    {
+        return _depth.get();
+    }
+
+    /**
+     * Called by writers once their entry is queued, so that a flusher which
+     * has fallen behind holds them up rather than letting the queue grow
+     * without bound.
+     */
+
+    public final void awaitCapacity ()
+    {
+        if (_depth.get() > _maxEntries)
+            checkpoint();
+    }
+
+    /**
+     * Request a checkpoint and wait for it to complete.
+     */
+
+    public final void checkpoint ()
+    {
+        _lock.lock();
+
+        try
+        {
+            long ticket = ++_requested;
+
+            _checkpointRequested.signal();
+
+            while ((_completed < ticket) && isAlive())
+            {
+                try
+                {
+                    _checkpointCompleted.await(_checkpointPeriod, TimeUnit.NANOSECONDS);
+                }
+                catch (final InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+
+                    return;
+                }
+            }
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Write whatever is left and stop.
+     */
+
+    public final void terminate ()
+    {
+        _lock.lock();
+
+        try
+        {
+            _terminated = true;
+
+            _checkpointRequested.signal();
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+
+        try
+        {
+            join();
+        }
+        catch (final InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void run ()
+    {
+        boolean terminated = false;
+
+        while (!terminated)
+        {
+            long target;
+
+            _lock.lock();
+
+            try
+            {
+                long deadline = System.nanoTime() + _checkpointPeriod;
+                long remaining;
+
+                while (!_terminated && (_requested == _completed)
+                        && ((remaining = deadline - System.nanoTime()) > 0))
+                {
+                    try
+                    {
+                        _checkpointRequested.awaitNanos(remaining);
+                    }
+                    catch (final InterruptedException ex)
+                    {
+                        // checkpoint now
+                        break;
+                    }
+                }
+
+                target = _requested;
+                terminated = _terminated;
+            }
+            finally
+            {
+                _lock.unlock();
+            }
+
+            /*
+             * Only the entries queued before the checkpoint began are
+             * covered, so a steady stream of writes cannot keep it going
+             * forever. Those queued since will be in the next one, unless
+             * this is the last.
+             */
+
+            int count = terminated ? Integer.MAX_VALUE : _depth.get();
+
+            if (_depth.get() > 0)
+            {
+                long start = System.nanoTime();
+
+                for (int i = 0; i < count; i++)
+                {
+                    WriteBehindStore.Entry entry = _queue.poll();
+
+                    if (entry == null)
+                        break;
+
+                    _depth.decrementAndGet();
+
+                    _store.flushQueued(entry);
+                }
+
+                _store.recordFlush(System.nanoTime() - start);
+            }
+
+            _lock.lock();
+
+            try
+            {
+                _completed = target;
+
+                _checkpointCompleted.signalAll();
+            }
+            finally
+            {
+                _lock.unlock();
+            }
+        }
+    }
+
+    private final WriteBehindStore _store;
+    private final long _checkpointPeriod;
+    private final int _maxEntries;
+
+    private final ConcurrentLinkedQueue<WriteBehindStore.Entry> _queue = new ConcurrentLinkedQueue<WriteBehindStore.Entry>();
+    private final AtomicInteger _depth = new AtomicInteger();
+
+    private final ReentrantLock _lock = new ReentrantLock();
+    private final Condition _checkpointRequested = _lock.newCondition();
+    private final Condition _checkpointCompleted = _lock.newCondition();
+
+    private long _requested;
+    private long _completed;
+    private boolean _terminated;
+}
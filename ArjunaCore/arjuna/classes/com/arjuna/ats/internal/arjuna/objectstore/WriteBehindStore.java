@@ -0,0 +1,689 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.internal.arjuna.objectstore;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.coordinator.LatencySnapshot;
+import com.arjuna.ats.arjuna.coordinator.internal.LatencyHistogram;
+import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
+import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.objectstore.StateType;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+
+/**
+ * A write-behind object store. Writes, removes and commits update an in-memory
+ * view of each state and return straight away; the view is written to the
+ * underlying HashedStore by a set of flusher threads at each durability
+ * checkpoint. States are sharded across the flushers by Uid and each flusher
+ * has its own lock-free queue, so committing threads never wait for each
+ * other or for the disk unless a flusher falls too far behind.
+ *
+ * Operations on the same state collapse while they wait: a write replaces any
+ * earlier write and a remove cancels a write that has not reached the disk yet,
+ * so short-lived states which are removed before the next checkpoint are never
+ * written at all. Reads are served from the view, falling back to the disk.
+ *
+ * As with the CacheStore, a state is only durable once a checkpoint containing
+ * it has completed, either at the end of the checkpoint period or when sync is
+ * called.
+ */
+
+public class WriteBehindStore extends HashedStore
+{
+    /**
+     * The outcome of the operations made on one of the two files of a state
+     * since it was last written. A null slot means the disk is up to date.
+     */
+
+    static final class Slot
+    {
+        static final int WRITE = 0;
+        static final int REMOVE = 1;
+        static final int COMMIT = 2;
+
+        Slot (int operation, OutputObjectState state)
+        {
+            this.operation = operation;
+            this.state = state;
+        }
+
+        final int operation;
+        final OutputObjectState state;
+    }
+
+    /**
+     * The view of one state. The pending slots hold the operations made since
+     * the state was last flushed, the flushing slots those being written now.
+     * Both are guarded by the entry's monitor, which is never held across I/O.
+     */
+
+    static final class Entry
+    {
+        Entry (String key, Uid objUid, String tName, WriteBehindFlusher flusher)
+        {
+            this.key = key;
+            this.objUid = new Uid(objUid);
+            this.tName = tName;
+            this.flusher = flusher;
+        }
+
+        final String key;
+        final Uid objUid;
+        final String tName;
+        final WriteBehindFlusher flusher;
+
+        final Slot[] pending = new Slot[2];
+        final Slot[] flushing = new Slot[2];
+
+        boolean queued;
+        boolean retired;
+
+        final ReentrantLock flushLock = new ReentrantLock();
+    }
+
+    public WriteBehindStore (ObjectStoreEnvironmentBean objectStoreEnvironmentBean) throws ObjectStoreException
+    {
+        super(objectStoreEnvironmentBean);
+
+        super.syncWrites = objectStoreEnvironmentBean.isWriteBehindStoreSync();
+
+        _flushers = new WriteBehindFlusher[objectStoreEnvironmentBean.getWriteBehindStoreFlushers()];
+
+        for (int i = 0; i < _flushers.length; i++)
+        {
+            _flushers[i] = new WriteBehindFlusher(this, i,
+                    objectStoreEnvironmentBean.getWriteBehindStoreCheckpointPeriod(),
+                    objectStoreEnvironmentBean.getWriteBehindStoreMaxEntries());
+            _flushers[i].start();
+        }
+
+        _shutdownHook = new Thread("WriteBehindStoreShutdownThread")
+        {
+            public void run ()
+            {
+                checkpoint();
+            }
+        };
+
+        Runtime.getRuntime().addShutdownHook(_shutdownHook);
+    }
+
+    /**
+     * Write every pending state to disk and stop the flushers. Any later
+     * operations go straight to disk.
+     */
+
+    public void stop ()
+    {
+        _stopped = true;
+
+        for (WriteBehindFlusher flusher : _flushers)
+            flusher.terminate();
+
+        try
+        {
+            Runtime.getRuntime().removeShutdownHook(_shutdownHook);
+        }
+        catch (final IllegalStateException ex)
+        {
+            // already shutting down
+        }
+
+        super.stop();
+    }
+
+    /**
+     * Force a checkpoint, returning once every state written before the call
+     * is on disk.
+     */
+
+    public void sync () throws java.io.SyncFailedException, ObjectStoreException
+    {
+        checkpoint();
+    }
+
+    /**
+     * @return the number of states waiting to be written.
+     */
+
+    public int getQueueDepth ()
+    {
+        int depth = 0;
+
+        for (WriteBehindFlusher flusher : _flushers)
+            depth += flusher.getQueueDepth();
+
+        return depth;
+    }
+
+    /**
+     * @return the distribution of the time taken by checkpoints which had
+     * something to write.
+     */
+
+    public LatencySnapshot getFlushLatency ()
+    {
+        return _flushLatency.snapshot("flush");
+    }
+
+    /**
+     * @return the number of operations which have been applied to the disk.
+     */
+
+    public long getNumberOfFlushedOperations ()
+    {
+        return _flushed.sum();
+    }
+
+    /**
+     * @return the number of operations which were overwritten or cancelled
+     * before they reached the disk.
+     */
+
+    public long getNumberOfCollapsedOperations ()
+    {
+        return _collapsed.sum();
+    }
+
+    public int currentState (Uid objUid, String tName) throws ObjectStoreException
+    {
+        Entry entry = existingEntry(objUid, tName);
+
+        if (entry != null)
+        {
+            synchronized (entry)
+            {
+                if (!entry.retired)
+                    return currentState(entry);
+            }
+        }
+
+        return super.currentState(objUid, tName);
+    }
+
+    public boolean commit_state (Uid objUid, String tName) throws ObjectStoreException
+    {
+        if (isDirect(tName))
+            return super.commit_state(objUid, tName);
+
+        for (;;)
+        {
+            Entry entry = entryFor(objUid, tName);
+            boolean hidden = false;
+
+            synchronized (entry)
+            {
+                if (entry.retired)
+                    continue;
+
+                int state = currentState(entry);
+
+                if (state != StateStatus.OS_UNCOMMITTED)
+                {
+                    // hidden states are committed on disk, anything else has nothing to commit
+
+                    if (state != StateStatus.OS_UNCOMMITTED_HIDDEN)
+                        return true;
+
+                    hidden = true;
+                }
+                else
+                {
+                    Slot shadow = effective(entry, SHADOW);
+
+                    if ((shadow != null) && (shadow.operation == Slot.WRITE))
+                        setPending(entry, ORIGINAL, shadow);
+                    else
+                        setPending(entry, ORIGINAL, COMMITTED);
+
+                    removePending(entry, SHADOW);
+                }
+            }
+
+            if (hidden)
+                return flushAndRun(entry, () -> super.commit_state(objUid, tName));
+
+            entry.flusher.awaitCapacity();
+
+            return true;
+        }
+    }
+
+    public boolean hide_state (Uid objUid, String tName) throws ObjectStoreException
+    {
+        return flushAndRun(existingEntry(objUid, tName), () -> super.hide_state(objUid, tName));
+    }
+
+    public boolean reveal_state (Uid objUid, String tName) throws ObjectStoreException
+    {
+        return flushAndRun(existingEntry(objUid, tName), () -> super.reveal_state(objUid, tName));
+    }
+
+    /*
+     * Enumerations only look at the disk, so they start with a checkpoint.
+     */
+
+    public boolean allObjUids (String tName, InputObjectState state, int match) throws ObjectStoreException
+    {
+        checkpoint();
+
+        return direct(() -> super.allObjUids(tName, state, match));
+    }
+
+    public UidCursor openUidCursor (String tName, int match) throws ObjectStoreException
+    {
+        checkpoint();
+
+        return super.openUidCursor(tName, match);
+    }
+
+    public boolean allTypes (InputObjectState foundTypes) throws ObjectStoreException
+    {
+        checkpoint();
+
+        return super.allTypes(foundTypes);
+    }
+
+    protected boolean write_state (Uid objUid, String tName, OutputObjectState state, int ft)
+            throws ObjectStoreException
+    {
+        int index = slotFor(ft);
+
+        if ((index < 0) || isDirect(tName))
+            return flushAndRun(existingEntry(objUid, tName), () -> super.write_state(objUid, tName, state, ft));
+
+        for (;;)
+        {
+            Entry entry = entryFor(objUid, tName);
+
+            synchronized (entry)
+            {
+                if (entry.retired)
+                    continue;
+
+                setPending(entry, index, new Slot(Slot.WRITE, state));
+            }
+
+            entry.flusher.awaitCapacity();
+
+            return true;
+        }
+    }
+
+    protected boolean remove_state (Uid objUid, String name, int ft) throws ObjectStoreException
+    {
+        int index = slotFor(ft);
+
+        if ((index < 0) || isDirect(name))
+            return flushAndRun(existingEntry(objUid, name), () -> super.remove_state(objUid, name, ft));
+
+        for (;;)
+        {
+            Entry entry = entryFor(objUid, name);
+
+            synchronized (entry)
+            {
+                if (entry.retired)
+                    continue;
+
+                int state = currentState(entry);
+
+                if ((state != StateStatus.OS_COMMITTED) && (state != StateStatus.OS_UNCOMMITTED))
+                    return false;
+
+                Slot slot = effective(entry, index);
+
+                if ((slot == null) ? !onDisk(entry, index) : (slot.operation == Slot.REMOVE))
+                    return false;
+
+                removePending(entry, index);
+            }
+
+            entry.flusher.awaitCapacity();
+
+            return true;
+        }
+    }
+
+    protected InputObjectState read_state (Uid objUid, String tName, int ft) throws ObjectStoreException
+    {
+        int index = slotFor(ft);
+        Entry entry = existingEntry(objUid, tName);
+
+        if ((entry != null) && (index >= 0))
+        {
+            synchronized (entry)
+            {
+                if (!entry.retired)
+                {
+                    int state = currentState(entry);
+
+                    if (((state == StateStatus.OS_COMMITTED) && (index == ORIGINAL))
+                            || ((state == StateStatus.OS_UNCOMMITTED) && (index == SHADOW)))
+                    {
+                        Slot slot = effective(entry, index);
+
+                        if ((slot != null) && (slot.operation == Slot.WRITE))
+                            return new InputObjectState(slot.state);
+                    }
+                    else
+                    {
+                        return null;
+                    }
+                }
+            }
+        }
+
+        return flushAndRun(entry, () -> super.read_state(objUid, tName, ft));
+    }
+
+    /*
+     * Called by the flushers, and by callers which need the disk to be up to
+     * date, to write the pending operations of a state.
+     */
+
+    final void flush (Entry entry)
+    {
+        entry.flushLock.lock();
+
+        try
+        {
+            Slot[] work = new Slot[2];
+
+            synchronized (entry)
+            {
+                for (int i = 0; i < work.length; i++)
+                {
+                    work[i] = entry.pending[i];
+                    entry.flushing[i] = work[i];
+                    entry.pending[i] = null;
+                }
+            }
+
+            // the original first, since a commit renames the shadow over it
+
+            apply(entry, ORIGINAL, work[ORIGINAL]);
+            apply(entry, SHADOW, work[SHADOW]);
+
+            synchronized (entry)
+            {
+                entry.flushing[ORIGINAL] = null;
+                entry.flushing[SHADOW] = null;
+
+                if (!entry.queued && (entry.pending[ORIGINAL] == null) && (entry.pending[SHADOW] == null))
+                {
+                    entry.retired = true;
+
+                    _entries.remove(entry.key, entry);
+                }
+            }
+        }
+        finally
+        {
+            entry.flushLock.unlock();
+        }
+    }
+
+    /*
+     * Called by a flusher for each entry it takes off its queue.
+     */
+
+    final void flushQueued (Entry entry)
+    {
+        synchronized (entry)
+        {
+            entry.queued = false;
+        }
+
+        flush(entry);
+    }
+
+    final void recordFlush (long nanos)
+    {
+        _flushLatency.record(nanos);
+    }
+
+    private void apply (Entry entry, int index, Slot slot)
+    {
+        if (slot == null)
+            return;
+
+        int ft = (index == SHADOW) ? StateType.OS_SHADOW : StateType.OS_ORIGINAL;
+
+        try
+        {
+            switch (slot.operation)
+            {
+            case Slot.WRITE:
+                if (!direct(() -> super.write_state(entry.objUid, entry.tName, slot.state, ft)))
+                    tsLogger.i18NLogger.warn_objectstore_CacheStore_3(entry.objUid, entry.tName,
+                            slot.state.toString(), Integer.toString(ft));
+                break;
+            case Slot.REMOVE:
+                if (exists(genPathName(entry.objUid, entry.tName, ft))
+                        && !direct(() -> super.remove_state(entry.objUid, entry.tName, ft)))
+                    tsLogger.i18NLogger.warn_objectstore_CacheStore_2(entry.objUid, entry.tName,
+                            Integer.toString(ft));
+                break;
+            case Slot.COMMIT:
+                if (!direct(() -> super.commit_state(entry.objUid, entry.tName)))
+                    tsLogger.i18NLogger.warn_objectstore_CacheStore_1(entry.objUid, entry.tName);
+                break;
+            default:
+                break;
+            }
+        }
+        catch (final ObjectStoreException ex)
+        {
+            tsLogger.i18NLogger.warn_could_not_handle_objectstore(ex);
+        }
+        catch (final Exception ex)
+        {
+            tsLogger.i18NLogger.warn_could_not_handle_objectstore_generic(ex);
+        }
+
+        _flushed.increment();
+    }
+
+    /*
+     * The same search as ShadowingStore.currentState, using the view where it
+     * has something to say and the disk where it does not. Must be called
+     * with the entry's monitor held, which stops the flusher from changing any
+     * file the view does not cover.
+     */
+
+    private int currentState (Entry entry) throws ObjectStoreException
+    {
+        Slot shadow = effective(entry, SHADOW);
+
+        if ((shadow != null) && (shadow.operation == Slot.WRITE))
+            return StateStatus.OS_UNCOMMITTED;
+
+        String path = genPathName(entry.objUid, entry.tName, StateType.OS_SHADOW);
+
+        if ((shadow == null) && exists(path))
+            return StateStatus.OS_UNCOMMITTED;
+
+        if (exists(path + HIDDINGCHAR))
+            return StateStatus.OS_UNCOMMITTED_HIDDEN;
+
+        Slot original = effective(entry, ORIGINAL);
+
+        if ((original != null) && (original.operation != Slot.REMOVE))
+            return StateStatus.OS_COMMITTED;
+
+        path = genPathName(entry.objUid, entry.tName, StateType.OS_ORIGINAL);
+
+        if ((original == null) && exists(path))
+            return StateStatus.OS_COMMITTED;
+
+        if (exists(path + HIDDINGCHAR))
+            return StateStatus.OS_COMMITTED_HIDDEN;
+
+        return StateStatus.OS_UNKNOWN;
+    }
+
+    private Slot effective (Entry entry, int index)
+    {
+        return (entry.pending[index] != null) ? entry.pending[index] : entry.flushing[index];
+    }
+
+    private boolean onDisk (Entry entry, int index) throws ObjectStoreException
+    {
+        int ft = (index == SHADOW) ? StateType.OS_SHADOW : StateType.OS_ORIGINAL;
+
+        return exists(genPathName(entry.objUid, entry.tName, ft));
+    }
+
+    private void setPending (Entry entry, int index, Slot slot)
+    {
+        if (entry.pending[index] != null)
+            _collapsed.increment();
+
+        entry.pending[index] = slot;
+
+        if (!entry.queued)
+        {
+            entry.queued = true;
+            entry.flusher.add(entry);
+        }
+    }
+
+    /*
+     * If nothing is on disk, or on its way there, the pending write is simply
+     * dropped and the state never touches the disk.
+     */
+
+    private void removePending (Entry entry, int index) throws ObjectStoreException
+    {
+        if ((entry.flushing[index] == null) && !onDisk(entry, index))
+        {
+            if (entry.pending[index] != null)
+            {
+                entry.pending[index] = null;
+
+                _collapsed.increment();
+            }
+        }
+        else
+        {
+            setPending(entry, index, REMOVED);
+        }
+    }
+
+    private <T> T flushAndRun (Entry entry, StoreOperation<T> operation) throws ObjectStoreException
+    {
+        if (entry == null)
+            return direct(operation);
+
+        entry.flushLock.lock();
+
+        try
+        {
+            flush(entry);
+
+            return direct(operation);
+        }
+        finally
+        {
+            entry.flushLock.unlock();
+        }
+    }
+
+    /*
+     * While running an operation against the disk the inherited code calls
+     * currentState, which must then see the disk rather than the view.
+     */
+
+    private <T> T direct (StoreOperation<T> operation) throws ObjectStoreException
+    {
+        Boolean previous = _direct.get();
+
+        _direct.set(Boolean.TRUE);
+
+        try
+        {
+            return operation.run();
+        }
+        finally
+        {
+            if (previous == null)
+                _direct.remove();
+        }
+    }
+
+    private boolean isDirect (String tName)
+    {
+        return (tName == null) || _stopped || (_direct.get() != null);
+    }
+
+    private Entry existingEntry (Uid objUid, String tName)
+    {
+        if (isDirect(tName))
+            return null;
+
+        return _entries.get(keyFor(objUid, tName));
+    }
+
+    private Entry entryFor (Uid objUid, String tName)
+    {
+        return _entries.computeIfAbsent(keyFor(objUid, tName),
+                k -> new Entry(k, objUid, tName, _flushers[Math.floorMod(objUid.hashCode(), _flushers.length)]));
+    }
+
+    private void checkpoint ()
+    {
+        for (WriteBehindFlusher flusher : _flushers)
+            flusher.checkpoint();
+    }
+
+    private static String keyFor (Uid objUid, String tName)
+    {
+        return tName + '/' + objUid.fileStringForm();
+    }
+
+    private static int slotFor (int ft)
+    {
+        switch (ft)
+        {
+        case StateType.OS_SHADOW:
+            return SHADOW;
+        case StateType.OS_ORIGINAL:
+            return ORIGINAL;
+        default:
+            return -1;
+        }
+    }
+
+    private interface StoreOperation<T>
+    {
+        T run () throws ObjectStoreException;
+    }
+
+    static final int SHADOW = 0;
+    static final int ORIGINAL = 1;
+
+    private static final Slot REMOVED = new Slot(Slot.REMOVE, null);
+    private static final Slot COMMITTED = new Slot(Slot.COMMIT, null);
+
+    private final ConcurrentHashMap<String, Entry> _entries = new ConcurrentHashMap<String, Entry>();
+    private final ThreadLocal<Boolean> _direct = new ThreadLocal<Boolean>();
+    private final WriteBehindFlusher[] _flushers;
+    private final Thread _shutdownHook;
+    private final LatencyHistogram _flushLatency = new LatencyHistogram();
+    private final LongAdder _flushed = new LongAdder();
+    private final LongAdder _collapsed = new LongAdder();
+
+    private volatile boolean _stopped;
+}
@@ -7,14 +7,19 @@ package com.arjuna.ats.internal.arjuna.objectstore.hornetq;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.activemq.artemis.core.journal.IOCompletion;
 import org.apache.activemq.artemis.core.journal.Journal;
 import org.apache.activemq.artemis.core.journal.JournalLoadInformation;
 import org.apache.activemq.artemis.core.journal.PreparedTransactionInfo;
@@ -28,6 +33,7 @@ import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
 import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.ats.arjuna.state.ByteBufferInput;
 import com.arjuna.ats.arjuna.state.InputBuffer;
 import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputBuffer;
@@ -44,7 +50,7 @@ public class HornetqJournalStore
 {
     private final Journal journal;
 
-    private final ConcurrentMap<String,ConcurrentMap<Uid, RecordInfo>> content = new ConcurrentHashMap<String, ConcurrentMap<Uid, RecordInfo>>();
+    private final ConcurrentMap<String,ConcurrentMap<Uid, JournalRecord>> content = new ConcurrentHashMap<String, ConcurrentMap<Uid, JournalRecord>>();
 
     private final boolean syncWrites;
     private final boolean syncDeletes;
@@ -54,6 +60,22 @@ public class HornetqJournalStore
 
     private static final byte RECORD_TYPE = 0x00;
 
+    /*
+     * A record as held in the journal, plus the object state unpacked from it
+     * the first time it is read.
+     */
+    private static final class JournalRecord {
+        JournalRecord(long id, byte[] data) {
+            this.id = id;
+            this.data = data;
+        }
+
+        final long id;
+        final byte[] data;
+
+        volatile byte[] state;
+    }
+
     public void stop() throws Exception {
         journal.stop();
     }
@@ -81,7 +103,7 @@ public class HornetqJournalStore
             InputBuffer inputBuffer = new InputBuffer(record.data);
             Uid uid = UidHelper.unpackFrom(inputBuffer);
             String typeName = inputBuffer.unpackString();
-            getContentForType(typeName).put(uid, record);
+            getContentForType(typeName).put(uid, new JournalRecord(record.id, record.data));
             // don't unpack the rest yet, we may never need it. read_committed does it on demand.
         }
     }
@@ -138,7 +160,7 @@ public class HornetqJournalStore
     public boolean remove_committed(Uid uid, String typeName) throws ObjectStoreException
     {
         try {
-            RecordInfo record = getContentForType(typeName).remove(uid);
+            JournalRecord record = getContentForType(typeName).remove(uid);
             long id = (record != null ? record.id : getId(uid, typeName));
 
             if (!syncDeletes) {
@@ -171,15 +193,11 @@ public class HornetqJournalStore
      */
     public boolean write_committed(Uid uid, String typeName, OutputObjectState txData) throws ObjectStoreException
     {
-        RecordInfo previousRecord = null;
+        JournalRecord previousRecord = null;
         try {
-            OutputBuffer outputBuffer = new OutputBuffer();
-            UidHelper.packInto(uid, outputBuffer);
-            outputBuffer.packString(typeName);
-            outputBuffer.packBytes(txData.buffer());
-            byte[] data = outputBuffer.buffer();
+            byte[] data = pack(uid, typeName, txData);
 
-            RecordInfo record = new RecordInfo(getId(uid, typeName), RECORD_TYPE, data, false, true, (short)0);
+            JournalRecord record = new JournalRecord(getId(uid, typeName), data);
             previousRecord = getContentForType(typeName).putIfAbsent(uid, record);
 
             if(previousRecord != null) {
@@ -215,21 +233,122 @@ public class HornetqJournalStore
      */
     public InputObjectState read_committed(Uid uid, String typeName) throws ObjectStoreException
     {
-        RecordInfo record = getContentForType(typeName).get(uid);
+        JournalRecord record = getContentForType(typeName).get(uid);
         if(record == null) {
             return null;
         }
 
-        // this repeated unpacking is a little inefficient - subclass RecordInfo to hold unpacked form too?
-        // not too much of an issue as log reads are done for recovery only.
+        // unpack on first read only. Each caller still gets its own copy of the state.
+        byte[] state = record.state;
+
+        if(state == null) {
+            try {
+                ByteBufferInput inputBuffer = new ByteBufferInput(record.data);
+                UidHelper.unpackFrom(inputBuffer);
+                inputBuffer.unpackString();
+                state = inputBuffer.unpackBytes();
+                record.state = state;
+            } catch(Exception e) {
+                throw new ObjectStoreException(e);
+            }
+        }
+
+        return new InputObjectState(uid, typeName, state);
+    }
+
+    /**
+     * Remove the object's committed state without blocking while the journal syncs.
+     * If syncDeletes is not set there is no sync to wait for, so the stage is already complete.
+     *
+     * The stage is completed by a journal thread, so dependent actions should not block.
+     *
+     * @param uid  The object to work on.
+     * @param typeName The type of the object to work on.
+     * @return a stage which completes once the delete record is durable.
+     */
+    public CompletionStage<Boolean> remove_committed_async(Uid uid, String typeName)
+    {
+        CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+
+        if (!syncDeletes) {
+            try {
+                result.complete(remove_committed(uid, typeName));
+            } catch (ObjectStoreException e) {
+                result.completeExceptionally(e);
+            }
+
+            return result;
+        }
+
         try {
-            InputBuffer inputBuffer = new InputBuffer(record.data);
-            UidHelper.unpackFrom(inputBuffer);
-            inputBuffer.unpackString();
-            return new InputObjectState(uid, typeName, inputBuffer.unpackBytes());
+            JournalRecord record = getContentForType(typeName).remove(uid);
+            long id = (record != null ? record.id : getId(uid, typeName));
+
+            journal.appendDeleteRecord(id, true, completion(result, null));
+        } catch (IllegalStateException e) {
+            tsLogger.i18NLogger.warn_hornetqobjectstore_remove_state_exception(e);
+
+            result.complete(false);
         } catch(Exception e) {
-            throw new ObjectStoreException(e);
+            result.completeExceptionally(new ObjectStoreException(e));
         }
+
+        return result;
+    }
+
+    /**
+     * Write a new copy of the object's committed state without blocking while the journal syncs.
+     * If syncWrites is not set there is no sync to wait for, so the stage is already complete.
+     * As with write_committed, the state can be read back as soon as this returns.
+     *
+     * The stage is completed by a journal thread, so dependent actions should not block.
+     *
+     * @param uid    The object to work on.
+     * @param typeName   The type of the object to work on.
+     * @param txData The state to write.
+     * @return a stage which completes once the record is durable.
+     */
+    public CompletionStage<Boolean> write_committed_async(Uid uid, String typeName, OutputObjectState txData)
+    {
+        CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+
+        if (!syncWrites) {
+            try {
+                result.complete(write_committed(uid, typeName, txData));
+            } catch (ObjectStoreException e) {
+                result.completeExceptionally(e);
+            }
+
+            return result;
+        }
+
+        ConcurrentMap<Uid, JournalRecord> records = getContentForType(typeName);
+        JournalRecord previousRecord = null;
+        JournalRecord record = null;
+        try {
+            byte[] data = pack(uid, typeName, txData);
+
+            record = new JournalRecord(getId(uid, typeName), data);
+            previousRecord = records.putIfAbsent(uid, record);
+
+            if(previousRecord != null) {
+                records.replace(uid, record);
+
+                journal.appendUpdateRecord(previousRecord.id, RECORD_TYPE, data, true, completion(result, null));
+            } else {
+                final JournalRecord added = record;
+
+                journal.appendAddRecord(record.id, RECORD_TYPE, data, true, completion(result, () -> records.remove(uid, added)));
+            }
+        } catch(Exception e) {
+            if (previousRecord == null && record != null) {
+                records.remove(uid, record);
+            }
+
+            result.completeExceptionally(new ObjectStoreException(e));
+        }
+
+        return result;
     }
 
     public boolean contains(Uid uid, String typeName) {
@@ -253,13 +372,26 @@ public class HornetqJournalStore
         return keySet.toArray(new Uid[keySet.size()]);
     }
 
+    /**
+     * @return a weakly consistent iterator over the Uids of the given type,
+     * which does not copy them as {@link #getUidsForType(String)} does.
+     */
+    public Iterator<Uid> getUidIteratorForType(String typeName) {
+        ConcurrentMap<Uid, JournalRecord> result = content.get(typeName);
+
+        if(result == null) {
+            return Collections.emptyIterator();
+        }
+        return result.keySet().iterator();
+    }
+
     /////////////////////////////////
 
-    private ConcurrentMap<Uid, RecordInfo> getContentForType(String typeName) {
-        ConcurrentMap<Uid, RecordInfo> result = content.get(typeName);
+    private ConcurrentMap<Uid, JournalRecord> getContentForType(String typeName) {
+        ConcurrentMap<Uid, JournalRecord> result = content.get(typeName);
 
         if(result == null) {
-            ConcurrentHashMap<Uid, RecordInfo> newMap = new ConcurrentHashMap<Uid, RecordInfo>();
+            ConcurrentHashMap<Uid, JournalRecord> newMap = new ConcurrentHashMap<Uid, JournalRecord>();
             result = content.putIfAbsent(typeName, newMap);
 
             if(result == null) {
@@ -270,11 +402,42 @@ public class HornetqJournalStore
     }
 
     private long getId(Uid uid, String typeName) {
-        RecordInfo record = getContentForType(typeName).get(uid);
+        JournalRecord record = getContentForType(typeName).get(uid);
         if(record != null) {
             return record.id;
         } else {
             return maxID.incrementAndGet();
         }
     }
-}
\ No newline at end of file
+
+    private static byte[] pack(Uid uid, String typeName, OutputObjectState txData) throws IOException {
+        OutputBuffer outputBuffer = new OutputBuffer();
+        UidHelper.packInto(uid, outputBuffer);
+        outputBuffer.packString(typeName);
+        outputBuffer.packBytes(txData.buffer());
+        return outputBuffer.buffer();
+    }
+
+    // completes the stage from the journal's callback. onError undoes any change to the content map.
+    private static IOCompletion completion(final CompletableFuture<Boolean> result, final Runnable onError) {
+        return new IOCompletion() {
+            @Override
+            public void storeLineUp() {
+            }
+
+            @Override
+            public void done() {
+                result.complete(true);
+            }
+
+            @Override
+            public void onError(int errorCode, String errorMessage) {
+                if (onError != null) {
+                    onError.run();
+                }
+
+                result.completeExceptionally(new ObjectStoreException(tsLogger.i18NLogger.get_journal_io_failed(errorCode, errorMessage)));
+            }
+        };
+    }
+}
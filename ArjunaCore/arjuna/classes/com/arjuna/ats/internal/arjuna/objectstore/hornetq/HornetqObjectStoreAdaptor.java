@@ -7,14 +7,18 @@ package com.arjuna.ats.internal.arjuna.objectstore.hornetq;
 
 import java.io.IOException;
 import java.io.SyncFailedException;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 
 import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
 import com.arjuna.ats.arjuna.objectstore.ObjectStoreAPI;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
+import com.arjuna.ats.arjuna.state.ByteBufferOutput;
 import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
 import com.arjuna.ats.internal.arjuna.common.UidHelper;
@@ -177,6 +181,25 @@ public class HornetqObjectStoreAdaptor implements ObjectStoreAPI
         return store.remove_committed(u, typeName);
     }
 
+    /**
+     * Remove the object's committed state without blocking while the journal syncs.
+     *
+     * @param u  The object to work on.
+     * @param typeName The type of the object to work on.
+     * @return a stage which completes once the removal is durable.
+     */
+    @Override
+    public CompletionStage<Boolean> remove_committed_async(Uid u, String typeName)
+    {
+        if(tsLogger.logger.isTraceEnabled()) {
+            tsLogger.logger.trace("JournalStore.remove_committed_async("+u+", "+typeName+")");
+        }
+
+        typeName = ensureTypenamePrefix(typeName);
+
+        return store.remove_committed_async(u, typeName);
+    }
+
     /**
      * Hide the object's state in the object store. Used by crash
      * recovery.
@@ -279,6 +302,26 @@ public class HornetqObjectStoreAdaptor implements ObjectStoreAPI
         return store.write_committed(u, typeName, buff);
     }
 
+    /**
+     * Write a new copy of the object's committed state without blocking while the journal syncs.
+     *
+     * @param u    The object to work on.
+     * @param typeName   The type of the object to work on.
+     * @param buff The state to write.
+     * @return a stage which completes once the write is durable.
+     */
+    @Override
+    public CompletionStage<Boolean> write_committed_async(Uid u, String typeName, OutputObjectState buff)
+    {
+        if(tsLogger.logger.isTraceEnabled()) {
+            tsLogger.logger.trace("JournalStore.write_committed_async("+u+", "+typeName+")");
+        }
+
+        typeName = ensureTypenamePrefix(typeName);
+
+        return store.write_committed_async(u, typeName, buff);
+    }
+
     @Override
     public boolean allObjUids(String typeName, InputObjectState foundInstances) throws ObjectStoreException
     {
@@ -313,7 +356,7 @@ public class HornetqObjectStoreAdaptor implements ObjectStoreAPI
 
         Uid[] uids = store.getUidsForType(typeName); // may contain trailing null elements
 
-        OutputObjectState buffer = new OutputObjectState();
+        ByteBufferOutput buffer = new ByteBufferOutput();
 
         try
         {
@@ -339,6 +382,28 @@ public class HornetqObjectStoreAdaptor implements ObjectStoreAPI
     }
 
 
+    /**
+     * Obtain a cursor over the Uids for a specified type, which reads them
+     * directly from the in-memory index of the journal.
+     *
+     * @param typeName    The type to scan for.
+     * @param matchState    The file type to look for (e.g., committed, shadowed). [StateStatus]
+     * @return a cursor over the matching Uids.
+     */
+    @Override
+    public UidCursor openUidCursor(String typeName, int matchState) throws ObjectStoreException
+    {
+        if(tsLogger.logger.isTraceEnabled()) {
+            tsLogger.logger.trace("JournalStore.openUidCursor("+typeName+", "+matchState+")");
+        }
+
+        if (matchState != StateStatus.OS_UNKNOWN && matchState != StateStatus.OS_COMMITTED) {
+            return UidCursor.fromIterator(Collections.<Uid>emptyIterator());
+        }
+
+        return UidCursor.fromIterator(store.getUidIteratorForType(ensureTypenamePrefix(typeName)));
+    }
+
     /**
      * Obtain all types of objects stored in the object store.
      *
@@ -361,7 +426,7 @@ public class HornetqObjectStoreAdaptor implements ObjectStoreAPI
         if (knownTypes == null || knownTypes.length == 0)
             return true;
 
-        OutputObjectState buffer = new OutputObjectState();
+        ByteBufferOutput buffer = new ByteBufferOutput();
 
         try
         {
@@ -0,0 +1,463 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.internal.arjuna.objectstore.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
+import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.ats.arjuna.objectstore.jdbc.JDBCAccess;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+
+/**
+ * Batching support for the JDBC store. Rather than each committing thread
+ * using its own connection and database transaction for every write and
+ * remove, operations are queued and a single writer thread executes
+ * everything that is waiting as one JDBC batch per statement and commits the
+ * lot in a single database transaction. Each caller is released once the
+ * transaction containing its operation has committed.
+ *
+ * Writes use the driver's upsert statement where one is available, otherwise
+ * an UPDATE batch followed by an INSERT batch for the rows which did not
+ * exist. If a batch fails it is rolled back and every operation in it is
+ * retried on its own, so one bad state cannot fail its neighbours.
+ */
+
+class JDBCBatchWriter extends Thread {
+
+	class Request {
+		Request(Uid objUid, String typeName, OutputObjectState state,
+				int stateType) {
+			this.objUid = objUid;
+			this.typeName = typeName;
+			this.uidString = objUid.stringForm();
+			this.state = state;
+			this.stateType = stateType;
+		}
+
+		void complete(boolean result) {
+			done.complete(result);
+		}
+
+		/*
+		 * The operation cannot be withdrawn once queued, so even if the caller
+		 * is interrupted we wait for the outcome. join() does not respond to
+		 * interrupts, so the caller's interrupt status is left as it was.
+		 */
+
+		boolean await() {
+			return done.join();
+		}
+
+		String key() {
+			return typeName + "/" + uidString;
+		}
+
+		/*
+		 * Runs on the writer thread, so the driver executes the operation
+		 * directly rather than queueing it again.
+		 */
+
+		boolean executeIndividually() {
+			try {
+				if (state != null)
+					return driver.write_state(objUid, typeName, state, stateType);
+				else
+					return driver.remove_state(objUid, typeName, stateType);
+			} catch (ObjectStoreException e) {
+				return false;
+			}
+		}
+
+		final Uid objUid;
+		final String typeName;
+		final String uidString;
+		final OutputObjectState state;
+		final int stateType;
+
+		// only touched by the writer thread until the request completes
+		boolean executed;
+
+		private final CompletableFuture<Boolean> done = new CompletableFuture<Boolean>();
+	}
+
+	/**
+	 * @param driver the driver whose operations are being batched.
+	 * @param jdbcAccess the source of connections to the store.
+	 * @param tableName the table holding the object states.
+	 * @param maxBatchSize the maximum number of operations executed in one batch.
+	 * @param maxBatchDelay the maximum time, in microseconds, to wait for a batch to fill.
+	 */
+
+	public JDBCBatchWriter(JDBCImple_driver driver, JDBCAccess jdbcAccess,
+			String tableName, int maxBatchSize, long maxBatchDelay) {
+		super("JDBC Store Writer");
+
+		this.driver = driver;
+		this.jdbcAccess = jdbcAccess;
+		this.tableName = tableName;
+		this.upsertStatement = driver.getUpsertStatement();
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.maxBatchDelay = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxBatchDelay));
+	}
+
+	/**
+	 * Queue a write of the state and wait until the batch containing it has
+	 * committed.
+	 *
+	 * @param typeName the type name, without any leading '/'.
+	 * @return true if the state was written, false otherwise.
+	 */
+
+	public boolean write(Uid objUid, String typeName, OutputObjectState state,
+			int stateType) {
+		return submit(new Request(objUid, typeName, state, stateType));
+	}
+
+	/**
+	 * Queue the removal of a state and wait until the batch containing it has
+	 * committed.
+	 *
+	 * @param typeName the type name, without any leading '/'.
+	 * @return true if a state was removed, false otherwise.
+	 */
+
+	public boolean remove(Uid objUid, String typeName, int stateType) {
+		return submit(new Request(objUid, typeName, null, stateType));
+	}
+
+	/**
+	 * Queue the removal of a state without waiting for it, so that a caller
+	 * with several removals to make can have them all go into one batch.
+	 *
+	 * @param typeName the type name, without any leading '/'.
+	 * @return completes with true once the batch containing the removal has
+	 * committed, or with false if no state was removed.
+	 */
+
+	public CompletionStage<Boolean> removeAsync(Uid objUid, String typeName, int stateType) {
+		return enqueue(new Request(objUid, typeName, null, stateType)).done;
+	}
+
+	/**
+	 * @return the number of database transactions committed so far.
+	 */
+
+	public long getNumberOfBatches() {
+		return batches;
+	}
+
+	/**
+	 * @return the number of operations executed so far.
+	 */
+
+	public long getNumberOfOperations() {
+		return operations;
+	}
+
+	/**
+	 * Execute every queued operation and stop the writer thread. Any later
+	 * operations are executed by the calling thread.
+	 */
+
+	public final void terminate() {
+		terminated = true;
+
+		queue.add(stop);
+
+		try {
+			join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return true once the writer has been asked to stop.
+	 */
+
+	public boolean isTerminated() {
+		return terminated;
+	}
+
+	public void run() {
+		List<Request> batch = new ArrayList<Request>(maxBatchSize);
+		boolean interrupted = false;
+
+		while (!terminated) {
+			try {
+				batch.add(queue.take());
+
+				queue.drainTo(batch, maxBatchSize - batch.size());
+
+				if (maxBatchDelay > 0) {
+					long deadline = System.nanoTime() + maxBatchDelay;
+
+					while (!terminated && (batch.size() < maxBatchSize)) {
+						Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+						if (next == null)
+							break;
+
+						batch.add(next);
+
+						queue.drainTo(batch, maxBatchSize - batch.size());
+					}
+				}
+			} catch (InterruptedException ex) {
+				// treat it as a request to stop, but flush first so no caller is left waiting
+				terminated = true;
+				interrupted = true;
+			}
+
+			batch.removeIf(r -> r == stop);
+
+			if (!batch.isEmpty()) {
+				flush(batch);
+
+				batch.clear();
+			}
+		}
+
+		drain();
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	private boolean submit(Request request) {
+		return enqueue(request).await();
+	}
+
+	private Request enqueue(Request request) {
+		queue.add(request);
+
+		/*
+		 * If the writer has been (or is being) terminated it may already have
+		 * drained the queue for the last time, so make sure the operation is
+		 * not left behind.
+		 */
+
+		if (terminated)
+			drain();
+
+		return request;
+	}
+
+	private void drain() {
+		List<Request> batch = new ArrayList<Request>();
+
+		queue.drainTo(batch);
+
+		batch.removeIf(r -> r == stop);
+
+		if (!batch.isEmpty())
+			flush(batch);
+	}
+
+	/*
+	 * The statements of a batch are executed by kind rather than in arrival
+	 * order, so a batch is cut short where a record appears for a second time
+	 * and the remainder goes into a transaction of its own. This keeps the
+	 * operations on any one record in the order they were made.
+	 */
+
+	private void flush(List<Request> batch) {
+		// the writer and callers submitting after termination may both get here
+		flushLock.lock();
+
+		try {
+			doFlush(batch);
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void doFlush(List<Request> batch) {
+		int start = 0;
+
+		while (start < batch.size()) {
+			Set<String> keys = new HashSet<String>();
+			int end = start;
+
+			while ((end < batch.size()) && keys.add(batch.get(end).key()))
+				end++;
+
+			execute(batch.subList(start, end));
+
+			start = end;
+		}
+	}
+
+	private void execute(List<Request> requests) {
+		List<Request> writes = new ArrayList<Request>();
+		List<Request> removes = new ArrayList<Request>();
+		boolean committed = false;
+
+		for (Request request : requests) {
+			if (request.state != null)
+				writes.add(request);
+			else
+				removes.add(request);
+		}
+
+		try (Connection connection = jdbcAccess.getConnection()) {
+			try {
+				executeRemoves(connection, removes);
+				executeWrites(connection, writes);
+
+				connection.commit();
+
+				committed = true;
+			} catch (SQLException e) {
+				tsLogger.i18NLogger.warn_objectstore_JDBCImple_batch_failed(requests.size(), e);
+
+				try {
+					connection.rollback();
+				} catch (SQLException e1) {
+					// Ignore
+				}
+			}
+		} catch (SQLException e) {
+			tsLogger.i18NLogger.warn_objectstore_JDBCImple_batch_failed(requests.size(), e);
+		}
+
+		for (int i = 0; i < requests.size(); i++) {
+			Request request = requests.get(i);
+
+			request.complete(committed ? request.executed : request.executeIndividually());
+		}
+
+		batches++;
+		operations += requests.size();
+	}
+
+	private void executeRemoves(Connection connection, List<Request> removes) throws SQLException {
+		if (removes.isEmpty())
+			return;
+
+		try (PreparedStatement pstmt = connection.prepareStatement("DELETE FROM "
+				+ tableName
+				+ " WHERE TypeName = ? AND UidString = ? AND StateType = ?")) {
+			for (Request request : removes) {
+				pstmt.setString(1, request.typeName);
+				pstmt.setString(2, request.uidString);
+				pstmt.setInt(3, request.stateType);
+				pstmt.addBatch();
+			}
+
+			int[] counts = pstmt.executeBatch();
+
+			for (int i = 0; i < removes.size(); i++)
+				removes.get(i).executed = (counts[i] > 0)
+						|| (counts[i] == Statement.SUCCESS_NO_INFO);
+		}
+	}
+
+	private void executeWrites(Connection connection, List<Request> writes) throws SQLException {
+		if (writes.isEmpty())
+			return;
+
+		List<Request> inserts = writes;
+
+		if (upsertStatement == null) {
+			inserts = new ArrayList<Request>();
+
+			try (PreparedStatement pstmt = connection.prepareStatement("UPDATE "
+					+ tableName + " SET ObjectState = ?"
+					+ " WHERE TypeName=? AND UidString=? AND StateType=?")) {
+				for (Request request : writes) {
+					bindUpdate(pstmt, request);
+					pstmt.addBatch();
+				}
+
+				int[] counts = pstmt.executeBatch();
+
+				for (int i = 0; i < writes.size(); i++) {
+					Request request = writes.get(i);
+					int count = counts[i];
+
+					// the driver could not tell us so we have to ask again
+					if (count == Statement.SUCCESS_NO_INFO) {
+						bindUpdate(pstmt, request);
+						count = pstmt.executeUpdate();
+					}
+
+					if (count > 0)
+						request.executed = true;
+					else
+						inserts.add(request);
+				}
+			}
+
+			if (inserts.isEmpty())
+				return;
+		}
+
+		String sql = (upsertStatement != null) ? upsertStatement
+				: "INSERT INTO " + tableName
+						+ " (TypeName,UidString,StateType,Hidden,ObjectState) VALUES (?,?,?,0,?)";
+
+		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+			for (Request request : inserts) {
+				pstmt.setString(1, request.typeName);
+				pstmt.setString(2, request.uidString);
+				pstmt.setInt(3, request.stateType);
+				pstmt.setBytes(4, request.state.buffer());
+				pstmt.addBatch();
+			}
+
+			int[] counts = pstmt.executeBatch();
+
+			for (int i = 0; i < inserts.size(); i++) {
+				Request request = inserts.get(i);
+
+				if (counts[i] != 0) {
+					request.executed = true;
+				} else {
+					tsLogger.i18NLogger.warn_objectstore_JDBCImple_nothingtoinsert(request.objUid.toString());
+				}
+			}
+		}
+	}
+
+	private void bindUpdate(PreparedStatement pstmt, Request request)
+			throws SQLException {
+		pstmt.setBytes(1, request.state.buffer());
+		pstmt.setString(2, request.typeName);
+		pstmt.setString(3, request.uidString);
+		pstmt.setInt(4, request.stateType);
+	}
+
+	private final LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<Request>();
+	private final JDBCImple_driver driver;
+	private final JDBCAccess jdbcAccess;
+	private final String tableName;
+	private final String upsertStatement;
+	private final int maxBatchSize;
+	private final long maxBatchDelay;
+	private final Lock flushLock = new ReentrantLock();
+	private final Request stop = new Request(Uid.nullUid(), null, null, 0);
+
+	private volatile boolean terminated;
+
+	private volatile long batches;
+	private volatile long operations;
+}
@@ -13,6 +13,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import javax.naming.NamingException;
 
@@ -23,6 +28,7 @@ import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
 import com.arjuna.ats.arjuna.objectstore.ObjectStore;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
 import com.arjuna.ats.arjuna.objectstore.jdbc.JDBCAccess;
 import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
@@ -38,6 +44,10 @@ public abstract class JDBCImple_driver {
 	// protected Connection connection;
 	protected String tableName;
 	private JDBCAccess jdbcAccess;
+	private volatile JDBCBatchWriter batchWriter;
+	private boolean batchWrites;
+	private int batchMaxSize;
+	private long batchMaxDelay;
 
 	public boolean commit_state(Uid objUid, String typeName)
 			throws ObjectStoreException {
@@ -384,6 +394,102 @@ public abstract class JDBCImple_driver {
 		}
 	}
 
+	/**
+	 * openUidCursor - Given a type name, return a cursor which reads the uids
+	 * of objects of that type a page at a time. Each page is a separate query
+	 * which continues from the last uid returned, so no connection or result
+	 * set is held open between pages.
+	 */
+	public UidCursor openUidCursor(String typeName, int match) {
+		// Taken this requirement from ObjStoreBrowser
+		if (typeName.startsWith("/"))
+			typeName = typeName.substring(1);
+
+		final String type = typeName;
+
+		return new UidCursor() {
+			@Override
+			public List<Uid> next(int maxUids) throws ObjectStoreException {
+				if (finished)
+					return Collections.emptyList();
+
+				List<Uid> page = new ArrayList<>(Math.min(maxUids, 1024));
+
+				try {
+					Connection connection = jdbcAccess.getConnection();
+					PreparedStatement pstmt = null;
+					ResultSet rs = null;
+
+					try {
+						pstmt = connection.prepareStatement(getUidPageQuery(lastUid != null));
+						pstmt.setMaxRows(maxUids);
+						pstmt.setFetchSize(maxUids);
+						pstmt.setString(1, type);
+
+						if (lastUid != null)
+							pstmt.setString(2, lastUid);
+
+						rs = pstmt.executeQuery();
+
+						while (rs.next()) {
+							lastUid = rs.getString(1);
+							page.add(new Uid(lastUid));
+						}
+
+						connection.commit();
+					} finally {
+						if (rs != null) {
+							try {
+								rs.close();
+							} catch (SQLException e) {
+								// Ignore
+							}
+						}
+						if (pstmt != null) {
+							try {
+								pstmt.close();
+							} catch (SQLException e) {
+								// Ignore
+							}
+						}
+						try {
+							connection.close();
+						} catch (SQLException e) {
+							// Ignore
+						}
+					}
+				} catch (SQLException e) {
+					throw new ObjectStoreException(tsLogger.i18NLogger.get_objectstore_JDBCImple_cursor(type), e);
+				}
+
+				if (page.size() < maxUids)
+					finished = true;
+
+				return page;
+			}
+
+			@Override
+			public void close() {
+				finished = true;
+			}
+
+			private String lastUid;
+			private boolean finished;
+		};
+	}
+
+	/**
+	 * The query used by {@link #openUidCursor(String, int)}. The first
+	 * parameter is the type name and the second, if <code>after</code> is
+	 * true, the last uid of the previous page. The size of the page is
+	 * limited with {@link Statement#setMaxRows(int)}, which drivers apply on
+	 * the server, but a database may override this to add its own limit.
+	 */
+	protected String getUidPageQuery(boolean after) {
+		return "SELECT DISTINCT UidString FROM " + tableName + " WHERE TypeName = ?"
+				+ (after ? " AND UidString > ?" : "") + " ORDER BY UidString";
+	}
+
 	public boolean allTypes(InputObjectState foundTypes)
 			throws ObjectStoreException {
 
@@ -460,6 +566,11 @@ public abstract class JDBCImple_driver {
 			if ((stateType == StateStatus.OS_COMMITTED)
 					|| (stateType == StateStatus.OS_UNCOMMITTED)) {
 
+				JDBCBatchWriter writer = getBatchWriter();
+
+				if (writer != null)
+					return writer.remove(objUid, typeName, stateType);
+
 			    Connection connection = null;
 		        PreparedStatement pstmt = null;
 				try {
@@ -509,6 +620,34 @@ public abstract class JDBCImple_driver {
 		return result;
 	}
 
+	/**
+	 * As remove_state, but when batching is enabled the removal is only
+	 * queued, so that several removals can share one database transaction.
+	 */
+	public CompletionStage<Boolean> remove_state_async(Uid objUid,
+			String typeName, int stateType) {
+		JDBCBatchWriter writer = getBatchWriter();
+
+		if ((writer != null) && (typeName != null)
+				&& ((stateType == StateStatus.OS_COMMITTED)
+						|| (stateType == StateStatus.OS_UNCOMMITTED))) {
+			if (typeName.startsWith("/"))
+				typeName = typeName.substring(1);
+
+			return writer.removeAsync(objUid, typeName, stateType);
+		}
+
+		CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+
+		try {
+			result.complete(remove_state(objUid, typeName, stateType));
+		} catch (ObjectStoreException e) {
+			result.completeExceptionally(e);
+		}
+
+		return result;
+	}
+
 	public InputObjectState read_state(Uid objUid, String typeName,
 			int stateType) throws ObjectStoreException {
 		InputObjectState result = null;
@@ -593,6 +732,11 @@ public abstract class JDBCImple_driver {
 			tsLogger.i18NLogger.warn_objectstore_JDBCImple_over_max_image_size(
 					imageSize, getMaxStateSize());
 		} else if (imageSize > 0) {
+			JDBCBatchWriter writer = getBatchWriter();
+
+			if (writer != null)
+				return writer.write(objUid, typeName, state, stateType);
+
 			byte[] b = state.buffer();
 			ResultSet rs = null;
 
@@ -741,6 +885,56 @@ public abstract class JDBCImple_driver {
 		}
 
 		this.tableName = tableName;
+
+		if (jdbcStoreEnvironmentBean.getJdbcBatchWrites()) {
+			batchWrites = true;
+			batchMaxSize = jdbcStoreEnvironmentBean.getJdbcBatchMaxSize();
+			batchMaxDelay = jdbcStoreEnvironmentBean.getJdbcBatchMaxDelay();
+
+			start();
+		}
+	}
+
+	/**
+	 * Start a batch writer if batching is enabled and the previous one has
+	 * been stopped.
+	 */
+
+	public synchronized void start() {
+		if (batchWrites && ((batchWriter == null) || batchWriter.isTerminated())) {
+			JDBCBatchWriter writer = new JDBCBatchWriter(this, jdbcAccess, tableName,
+					batchMaxSize, batchMaxDelay);
+
+			writer.setDaemon(true);
+			writer.start();
+
+			batchWriter = writer;
+		}
+	}
+
+	/**
+	 * Execute any queued operations and stop the batch writer. Any later
+	 * operations go straight to the database until the next start().
+	 */
+
+	public synchronized void stop() {
+		if (batchWriter != null)
+			batchWriter.terminate();
+	}
+
+	/*
+	 * Writes and removes are handed to the batch writer, if there is a running
+	 * one, unless it is a batch writer retrying an operation.
+	 */
+
+	private JDBCBatchWriter getBatchWriter() {
+		JDBCBatchWriter writer = batchWriter;
+
+		if ((writer == null) || writer.isTerminated()
+				|| (Thread.currentThread() instanceof JDBCBatchWriter))
+			return null;
+
+		return writer;
 	}
 
 	/**
@@ -762,6 +956,18 @@ public abstract class JDBCImple_driver {
 		return "bytea";
 	}
 
+	/**
+	 * Can be overridden by implementation-specific code to provide a single
+	 * statement which inserts a state or replaces the ObjectState of an
+	 * existing one, for use when writes are batched. The parameters are
+	 * TypeName, UidString, StateType and ObjectState, in that order. If null
+	 * is returned batched writes use an UPDATE followed by an INSERT for the
+	 * states which did not already exist.
+	 */
+	protected String getUpsertStatement() {
+		return null;
+	}
+
 	protected abstract void checkCreateTableError(SQLException ex)
 			throws SQLException;
 
@@ -13,6 +13,7 @@ import java.sql.DatabaseMetaData;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.CompletionStage;
 
 import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
 import com.arjuna.ats.arjuna.common.Uid;
@@ -20,6 +21,7 @@ import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
 import com.arjuna.ats.arjuna.objectstore.ObjectStoreAPI;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
 import com.arjuna.ats.arjuna.objectstore.jdbc.JDBCAccess;
 import com.arjuna.ats.arjuna.state.InputBuffer;
 import com.arjuna.ats.arjuna.state.InputObjectState;
@@ -48,10 +50,12 @@ public class JDBCStore implements ObjectStoreAPI {
 
     @Override
     public void start() {
+        _theImple.start();
     }
 
     @Override
     public void stop() {
+        _theImple.stop();
     }
 
     /**
@@ -129,6 +133,11 @@ public class JDBCStore implements ObjectStoreAPI {
         return _theImple.remove_state(storeUid, tName, StateStatus.OS_COMMITTED);
     }
 
+    @Override
+    public CompletionStage<Boolean> remove_committed_async(Uid storeUid, String tName) {
+        return _theImple.remove_state_async(storeUid, tName, StateStatus.OS_COMMITTED);
+    }
+
     public boolean remove_uncommitted(Uid storeUid, String tName) throws ObjectStoreException {
         return _theImple.remove_state(storeUid, tName, StateStatus.OS_UNCOMMITTED);
     }
@@ -145,6 +154,11 @@ public class JDBCStore implements ObjectStoreAPI {
         return _theImple.allObjUids(tName, state, match);
     }
 
+    @Override
+    public UidCursor openUidCursor(String tName, int match) throws ObjectStoreException {
+        return _theImple.openUidCursor(tName, match);
+    }
+
     public boolean allTypes(InputObjectState foundTypes) throws ObjectStoreException {
         return _theImple.allTypes(foundTypes);
     }
@@ -11,4 +11,13 @@ package com.arjuna.ats.internal.arjuna.objectstore.jdbc.drivers;
  * Plus edb-jdbc17.jar JDBC Driver and earlier.
  */
 public class postgres_driver extends postgresql_driver {
+
+	/*
+	 * These releases predate ON CONFLICT, so batched writes fall back to an
+	 * UPDATE followed by an INSERT.
+	 */
+	@Override
+	protected String getUpsertStatement() {
+		return null;
+	}
 }
\ No newline at end of file
@@ -16,6 +16,13 @@ import com.arjuna.ats.internal.arjuna.objectstore.jdbc.JDBCImple_driver;
  */
 public class postgresql_driver extends JDBCImple_driver {
 
+	@Override
+	protected String getUpsertStatement() {
+		return "INSERT INTO " + tableName
+				+ " (TypeName,UidString,StateType,Hidden,ObjectState) VALUES (?,?,?,0,?)"
+				+ " ON CONFLICT (UidString, TypeName, StateType) DO UPDATE SET ObjectState = EXCLUDED.ObjectState";
+	}
+
 	@Override
 	protected void checkCreateTableError(SQLException ex) throws SQLException {
 		if (!ex.getSQLState().equals("42P07")) {
@@ -16,6 +16,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -194,6 +195,20 @@ public class SlotStore {
         return types.toArray(new String[0]);
     }
 
+    /**
+     * Iterate over the keys in the store having the same typename and (matching or unknown) state as the provided key.
+     * The iterator is weakly consistent and does not copy the keys as {@link #getMatchingKeys(SlotStoreKey)} does.
+     *
+     * @param templateKey a template key to match in the search. Uid part is ignored, typename and state are used in matching
+     * @return an iterator, possibly empty, over the matching keys.
+     */
+    public Iterator<SlotStoreKey> getMatchingKeyIterator(SlotStoreKey templateKey) {
+
+        return slotIdIndex.keySet().stream()
+                .filter(candidateKey -> matches(templateKey, candidateKey))
+                .iterator();
+    }
+
     /**
      * Return all keys in the store having the same typename and (matching or unknown) state as the provided key.
      *
@@ -205,13 +220,17 @@ public class SlotStore {
         List<SlotStoreKey> matchingKeys = new ArrayList<>();
 
         for (SlotStoreKey candidateKey : slotIdIndex.keySet()) {
-            if (candidateKey.getTypeName().equalsIgnoreCase(templateKey.getTypeName()) &&
-                    // OS_UNKNOWN in the template acts as a wildcard.
-                    (templateKey.getStateStatus() == StateStatus.OS_UNKNOWN || candidateKey.getStateStatus() == templateKey.getStateStatus())) {
+            if (matches(templateKey, candidateKey)) {
                 matchingKeys.add(candidateKey);
             }
         }
 
         return matchingKeys.toArray(new SlotStoreKey[0]);
     }
+
+    private static boolean matches(SlotStoreKey templateKey, SlotStoreKey candidateKey) {
+        return candidateKey.getTypeName().equalsIgnoreCase(templateKey.getTypeName()) &&
+                // OS_UNKNOWN in the template acts as a wildcard.
+                (templateKey.getStateStatus() == StateStatus.OS_UNKNOWN || candidateKey.getStateStatus() == templateKey.getStateStatus());
+    }
 }
\ No newline at end of file
@@ -10,6 +10,8 @@ import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
 import com.arjuna.ats.arjuna.objectstore.ObjectStoreAPI;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
+import com.arjuna.ats.arjuna.state.ByteBufferOutput;
 import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
 import com.arjuna.ats.internal.arjuna.common.UidHelper;
@@ -18,6 +20,7 @@ import com.arjuna.common.internal.util.propertyservice.BeanPopulator;
 import java.io.IOException;
 import java.io.SyncFailedException;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -60,7 +63,7 @@ public class SlotStoreAdaptor implements ObjectStoreAPI {
 
         SlotStoreKey[] matchingKeys = store.getMatchingKeys(key);
 
-        OutputObjectState buffer = new OutputObjectState();
+        ByteBufferOutput buffer = new ByteBufferOutput();
 
         try {
             for (SlotStoreKey matchingKey : matchingKeys) {
@@ -76,6 +79,35 @@ public class SlotStoreAdaptor implements ObjectStoreAPI {
         return true;
     }
 
+    /**
+     * Obtain a cursor over the Uids for a specified type, which reads them
+     * directly from the in-memory index of the slots.
+     *
+     * @param typeName   The type to scan for.
+     * @param matchState The file type to look for (e.g., committed, shadowed). [StateStatus]
+     * @return a cursor over the matching Uids.
+     */
+    @Override
+    public UidCursor openUidCursor(String typeName, int matchState) throws ObjectStoreException {
+        if (tsLogger.logger.isTraceEnabled()) {
+            tsLogger.logger.trace("SlotStore.openUidCursor(" + typeName + ", " + matchState + ")");
+        }
+
+        Iterator<SlotStoreKey> keys = store.getMatchingKeyIterator(new SlotStoreKey(Uid.nullUid(), typeName, matchState));
+
+        return UidCursor.fromIterator(new Iterator<Uid>() {
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public Uid next() {
+                return keys.next().getUid();
+            }
+        });
+    }
+
     /**
      * Obtain all of the Uids for a specified type, regardless of their state.
      *
@@ -113,7 +145,7 @@ public class SlotStoreAdaptor implements ObjectStoreAPI {
             return true;
         }
 
-        OutputObjectState buffer = new OutputObjectState();
+        ByteBufferOutput buffer = new ByteBufferOutput();
 
         try {
             for (String typeName : knownTypes) {
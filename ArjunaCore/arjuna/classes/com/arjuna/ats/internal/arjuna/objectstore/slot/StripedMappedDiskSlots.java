@@ -0,0 +1,254 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.arjuna.ats.internal.arjuna.objectstore.slot;
+
+import com.arjuna.ats.arjuna.logging.tsLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped implementation of the SlotStore backend in which all slots share a single file
+ * but are otherwise independent.
+ * <p>
+ * Each slot is accessed through its own view of the mapping and is guarded by its own monitor,
+ * so operations on different slots never contend. Synchronous writes are made durable by
+ * group flushing: the first writer to need a sync forces the dirty ranges of every slot written
+ * since the last flush, and any other writers whose data was covered by that flush return without
+ * forcing again. Where the JDK supports it (13+) only the dirty ranges are forced, otherwise
+ * the affected regions of the mapping are forced in full.
+ */
+public class StripedMappedDiskSlots implements BackingSlots {
+
+    private static final MethodHandle FORCE_RANGE = findForceRange();
+
+    private SlotStoreEnvironmentBean config;
+    private int slotSize;
+    private int slotsPerRegion;
+
+    private FileChannel fileChannel;
+    private MappedByteBuffer[] regions;
+    private ByteBuffer[] slots;
+
+    /*
+     * Group flush bookkeeping. A writer records its slot as dirty before taking a ticket,
+     * so a flush which drains the dirty queue after reading writeSequence is guaranteed
+     * to cover every ticket up to the value it read.
+     */
+    private final Queue<Integer> dirtySlots = new ConcurrentLinkedQueue<>();
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final AtomicLong flushedSequence = new AtomicLong();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Override
+    public synchronized void init(SlotStoreEnvironmentBean config) throws IOException {
+        if (this.config != null) {
+            throw new IllegalStateException("already initialized");
+        }
+
+        this.config = config;
+        slotSize = config.getBytesPerSlot()+(2*Integer.BYTES); // overhead for size+checksum fields
+        slotsPerRegion = Math.max(1, Math.min(config.getNumberOfSlots(), Integer.MAX_VALUE / slotSize));
+
+        File storeDir = new File(config.getStoreDir());
+        if (!storeDir.exists() && !storeDir.mkdirs()) {
+            throw new IOException(tsLogger.i18NLogger.get_dir_create_failed(storeDir.getCanonicalPath()));
+        }
+
+        File file = new File(storeDir, "slotstore.dat");
+
+        fileChannel = (FileChannel) Files
+                .newByteChannel(file.toPath(), EnumSet.of(
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE));
+
+        int numberOfRegions = (config.getNumberOfSlots() + slotsPerRegion - 1) / slotsPerRegion;
+        regions = new MappedByteBuffer[numberOfRegions];
+        slots = new ByteBuffer[config.getNumberOfSlots()];
+
+        for (int r = 0; r < regions.length; r++) {
+            int firstSlot = r * slotsPerRegion;
+            int slotsInRegion = Math.min(slotsPerRegion, config.getNumberOfSlots() - firstSlot);
+
+            regions[r] = fileChannel.map(FileChannel.MapMode.READ_WRITE, (long) firstSlot * slotSize, (long) slotsInRegion * slotSize);
+
+            for (int i = 0; i < slotsInRegion; i++) {
+                ByteBuffer view = regions[r].duplicate();
+                view.position(i * slotSize);
+                view.limit((i + 1) * slotSize);
+                slots[firstSlot + i] = view.slice();
+            }
+        }
+    }
+
+    @Override
+    public void write(int slot, byte[] data, boolean sync) throws IOException {
+        ByteBuffer byteBuffer = slots[slot];
+        synchronized (byteBuffer) {
+
+            byteBuffer.clear();
+            byteBuffer.putInt(data.length);
+            byteBuffer.put(data);
+            byteBuffer.putInt(checksum(data));
+        }
+
+        if (sync) {
+            dirtySlots.add(slot);
+            awaitFlush(writeSequence.incrementAndGet());
+        }
+    }
+
+    @Override
+    public byte[] read(int slot) throws IOException {
+        ByteBuffer byteBuffer = slots[slot];
+        synchronized (byteBuffer) {
+
+            byteBuffer.clear();
+
+            try {
+                int dataLength = byteBuffer.getInt();
+                if (dataLength < 0 || dataLength > byteBuffer.remaining() - Integer.BYTES) {
+                    return null;
+                }
+                byte[] data = new byte[dataLength];
+                byteBuffer.get(data);
+                int expectedChecksum = byteBuffer.getInt();
+                if (expectedChecksum == checksum(data)) {
+                    return data;
+                } else {
+                    return null;
+                }
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void clear(int slot, boolean sync) throws IOException {
+        write(slot, new byte[0], sync);
+    }
+
+    /*
+     * Wait until the write holding the given ticket is durable, flushing on behalf of
+     * every pending writer if nobody else has done so already.
+     */
+    private void awaitFlush(long ticket) throws IOException {
+        if (flushedSequence.get() >= ticket) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            if (flushedSequence.get() >= ticket) {
+                return;
+            }
+
+            long target = writeSequence.get();
+
+            int[] dirty = new int[dirtySlots.size() + 16];
+            int count = 0;
+            Integer slot;
+            while ((slot = dirtySlots.poll()) != null) {
+                if (count == dirty.length) {
+                    dirty = Arrays.copyOf(dirty, count * 2);
+                }
+                dirty[count++] = slot;
+            }
+
+            boolean forced = false;
+            try {
+                force(dirty, count);
+                forced = true;
+            } finally {
+                if (!forced) {
+                    // put the slots back so the next flush retries them rather than reporting them durable
+                    for (int i = 0; i < count; i++) {
+                        dirtySlots.add(dirty[i]);
+                    }
+                }
+            }
+
+            flushedSequence.set(target);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /*
+     * Force the given slots, coalescing adjacent slots within a region into a single range.
+     */
+    private void force(int[] dirty, int count) throws IOException {
+        Arrays.sort(dirty, 0, count);
+
+        int i = 0;
+        while (i < count) {
+            int region = dirty[i] / slotsPerRegion;
+            int first = dirty[i];
+            int last = first;
+
+            i++;
+            while (i < count && dirty[i] / slotsPerRegion == region && dirty[i] <= last + 1) {
+                last = dirty[i];
+                i++;
+            }
+
+            if (FORCE_RANGE != null) {
+                int offset = (first - region * slotsPerRegion) * slotSize;
+                forceRange(regions[region], offset, (last - first + 1) * slotSize);
+            } else {
+                regions[region].force();
+
+                // the whole region is now durable, so skip any remaining slots in it
+                while (i < count && dirty[i] / slotsPerRegion == region) {
+                    i++;
+                }
+            }
+        }
+    }
+
+    private void forceRange(MappedByteBuffer region, int offset, int length) throws IOException {
+        try {
+            FORCE_RANGE.invoke(region, offset, length);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IOException(t);
+        }
+    }
+
+    private static MethodHandle findForceRange() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(MappedByteBuffer.class, "force",
+                    MethodType.methodType(MappedByteBuffer.class, int.class, int.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null; // JDK < 13
+        }
+    }
+
+    private int checksum(byte[] data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, 0, data.length);
+        int checksum = (int) crc32.getValue();
+        return checksum;
+    }
+}
@@ -15,14 +15,13 @@ import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.coordinator.ActionStatus;
 import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.ats.arjuna.objectstore.ObjectStoreIterator;
 import com.arjuna.ats.arjuna.objectstore.RecoveryStore;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
 import com.arjuna.ats.arjuna.objectstore.StoreManager;
 import com.arjuna.ats.arjuna.recovery.RecoverAtomicAction;
 import com.arjuna.ats.arjuna.recovery.RecoveryModule;
 import com.arjuna.ats.arjuna.recovery.TransactionStatusConnectionManager;
-import com.arjuna.ats.arjuna.state.InputObjectState;
-import com.arjuna.ats.internal.arjuna.common.UidHelper;
 
 
 /**
@@ -51,29 +50,17 @@ public class AtomicActionRecoveryModule implements RecoveryModule
     */
    public void periodicWorkFirstPass()
    {
-      // Transaction type
-      boolean AtomicActions = false ;
-
-      // uids per transaction type
-      InputObjectState aa_uids = new InputObjectState() ;
-
-      try
-      {
-	  if (tsLogger.logger.isDebugEnabled()) {
+      if (tsLogger.logger.isDebugEnabled()) {
           tsLogger.logger.debug("AtomicActionRecoveryModule first pass");
       }
 
-	  AtomicActions = _recoveryStore.allObjUids( _transactionType, aa_uids );
-
+      try
+      {
+         _transactionUidVector = processTransactions( new ObjectStoreIterator( _recoveryStore, _transactionType ) ) ;
       }
       catch ( ObjectStoreException ex ) {
           tsLogger.i18NLogger.warn_recovery_AtomicActionRecoveryModule_1(ex);
       }
-
-      if ( AtomicActions )
-      {
-         _transactionUidVector = processTransactions( aa_uids ) ;
-      }
    }
 
    public void periodicWorkSecondPass()
@@ -169,7 +156,7 @@ public class AtomicActionRecoveryModule implements RecoveryModule
       return inFlight ;
    }
 
-   private Vector processTransactions( InputObjectState uids )
+   private Vector processTransactions( ObjectStoreIterator uids )
    {
       Vector uidVector = new Vector() ;
 
@@ -186,7 +173,7 @@ public class AtomicActionRecoveryModule implements RecoveryModule
       {
          try
          {
-             theUid = UidHelper.unpackFrom(uids);
+            theUid = uids.iterate();
 
             if (theUid.equals( Uid.nullUid() ))
             {
@@ -194,18 +181,17 @@ public class AtomicActionRecoveryModule implements RecoveryModule
             }
             else
             {
-               Uid newUid = new Uid( theUid ) ;
-
 	       if (tsLogger.logger.isDebugEnabled()) {
-               tsLogger.logger.debug("found transaction " + newUid);
+               tsLogger.logger.debug("found transaction " + theUid);
            }
 
-               uidVector.addElement( newUid ) ;
+               uidVector.addElement( theUid ) ;
             }
          }
          catch ( Exception ex )
          {
             moreUids = false;
+            uids.close();
          }
       }
       return uidVector ;
@@ -11,12 +11,12 @@ import java.util.Hashtable;
 import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.ats.arjuna.objectstore.ObjectStoreIterator;
 import com.arjuna.ats.arjuna.objectstore.RecoveryStore;
 import com.arjuna.ats.arjuna.objectstore.StoreManager;
 import com.arjuna.ats.arjuna.recovery.ExpiryScanner;
 import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
-import com.arjuna.ats.internal.arjuna.common.UidHelper;
 
 /**
  * This class is a plug-in module for the recovery manager. This class is
@@ -48,11 +48,11 @@ public class ExpiredTransactionScanner implements ExpiryScanner
 
 		try
 		{
-			InputObjectState uids = new InputObjectState();
+			// walk the log a page at a time
 
-			// take a snapshot of the log
+			ObjectStoreIterator uids = new ObjectStoreIterator(_recoveryStore, _typeName);
 
-			if (_recoveryStore.allObjUids(_typeName, uids))
+			try
 			{
 				Uid theUid = null;
 
@@ -61,13 +61,13 @@ public class ExpiredTransactionScanner implements ExpiryScanner
 				while (!endOfUids)
 				{
 					// extract a uid
-				        theUid = UidHelper.unpackFrom(uids);
+				        theUid = uids.iterate();
 
 					if (theUid.equals(Uid.nullUid()))
 						endOfUids = true;
 					else
 					{
-						Uid newUid = new Uid(theUid);
+						Uid newUid = theUid;
 
 						if (initialScan)
 							_scanM.put(newUid, newUid);
@@ -106,6 +106,10 @@ public class ExpiredTransactionScanner implements ExpiryScanner
 					_scanN = null;
 				}
 			}
+			finally
+			{
+				uids.close();
+			}
 		}
 		catch (Exception e)
 		{
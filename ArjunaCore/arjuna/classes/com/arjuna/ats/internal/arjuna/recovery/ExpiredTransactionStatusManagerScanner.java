@@ -13,11 +13,10 @@ import java.util.Date;
 import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.common.recoveryPropertyManager;
 import com.arjuna.ats.arjuna.logging.tsLogger;
+import com.arjuna.ats.arjuna.objectstore.ObjectStoreIterator;
 import com.arjuna.ats.arjuna.objectstore.RecoveryStore;
 import com.arjuna.ats.arjuna.objectstore.StoreManager;
 import com.arjuna.ats.arjuna.recovery.ExpiryScanner;
-import com.arjuna.ats.arjuna.state.InputObjectState;
-import com.arjuna.ats.internal.arjuna.common.UidHelper;
 
 /**
  * This class is a plug-in module for the recovery manager.  This
@@ -51,10 +50,10 @@ public class ExpiredTransactionStatusManagerScanner implements ExpiryScanner
 
       try
       {
-         InputObjectState uids = new InputObjectState() ;
+         // find the uids of all the transaction status manager items, a page at a time
+         ObjectStoreIterator uids = new ObjectStoreIterator(_recoveryStore, _itemTypeName) ;
 
-         // find the uids of all the transaction status manager items
-         if ( _recoveryStore.allObjUids(_itemTypeName, uids) )
+         try
          {
             Uid theUid = null;
 
@@ -64,13 +63,13 @@ public class ExpiredTransactionStatusManagerScanner implements ExpiryScanner
             {
                // extract a uid
                 
-                theUid = UidHelper.unpackFrom(uids);
+                theUid = uids.iterate();
 
                if (theUid.equals(Uid.nullUid()))
                   endOfUids = true ;
                else
                {
-                  Uid newUid = new Uid(theUid) ;
+                  Uid newUid = theUid ;
 
                   TransactionStatusManagerItem 
                      tsmItem = TransactionStatusManagerItem.recreate( newUid ) ;
@@ -111,6 +110,10 @@ public class ExpiredTransactionStatusManagerScanner implements ExpiryScanner
                }
             }
          }
+         finally
+         {
+            uids.close() ;
+         }
       }
       catch ( Exception e )
 	  {
@@ -0,0 +1,259 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.atomicaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.AtomicAction;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.common.arjPropertyManager;
+import com.arjuna.ats.arjuna.coordinator.ActionStatus;
+import com.arjuna.ats.arjuna.coordinator.RecordType;
+import com.arjuna.ats.arjuna.coordinator.TwoPhaseOutcome;
+import com.hp.mwtests.ts.arjuna.resources.BasicRecord;
+
+public class ParallelTwoPhaseTest extends AtomicActionTestBase
+{
+    private static final long DELAY = 200;
+
+    // NOTE: The following bean properties can only be set once (because TxControl takes a static copy of them)
+    @BeforeClass
+    public static void init() {
+        arjPropertyManager.getCoordinatorEnvironmentBean().setAsyncPrepare(true);
+        arjPropertyManager.getCoordinatorEnvironmentBean().setParallelPhase2(true);
+        arjPropertyManager.getCoordinatorEnvironmentBean().setMaxTwoPhaseCommitThreads(4);
+    }
+
+    @Test
+    @Override
+    public void testCommit() throws Exception {
+        super.testCommit();
+    }
+
+    @Test
+    @Override
+    public void testAbort() throws Exception {
+        super.testAbort();
+    }
+
+    @Test
+    @Override
+    public void testPrepareWithLRRSuccess() {
+        super.testPrepareWithLRRSuccess();
+    }
+
+    @Test
+    @Override
+    public void testPrepareWithLRRFailOn2PCAwareResourcePrepare() {
+        super.testPrepareWithLRRFailOn2PCAwareResourcePrepare();
+    }
+
+    @Test
+    @Override
+    public void testPrepareWithLRRFailOn2PCAwareResourceCommit() {
+        super.testPrepareWithLRRFailOn2PCAwareResourceCommit();
+    }
+
+    @Test
+    public void testLatency() {
+        SlowRecord[] records = new SlowRecord[4];
+        AtomicAction A = new AtomicAction();
+
+        A.begin();
+
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new SlowRecord(DELAY, TwoPhaseOutcome.PREPARE_OK);
+            A.add(records[i]);
+        }
+
+        long start = System.currentTimeMillis();
+
+        assertEquals(ActionStatus.COMMITTED, A.commit());
+
+        long elapsed = System.currentTimeMillis() - start;
+
+        for (SlowRecord record : records) {
+            assertEquals(1, record.prepared.get());
+            assertEquals(1, record.committed.get());
+        }
+
+        // each phase should take as long as the slowest participant rather than all of them
+        assertTrue("commit took " + elapsed + "ms", elapsed < records.length * DELAY);
+    }
+
+    @Test
+    public void testPrepareShortCircuit() {
+        AtomicAction A = new AtomicAction();
+        SlowRecord failed = new SlowRecord(DELAY / 4, TwoPhaseOutcome.PREPARE_NOTOK);
+        SlowRecord[] slow = {
+                new SlowRecord(DELAY, TwoPhaseOutcome.PREPARE_OK),
+                new SlowRecord(DELAY, TwoPhaseOutcome.PREPARE_OK),
+                new SlowRecord(DELAY, TwoPhaseOutcome.PREPARE_OK)
+        };
+        SlowRecord[] queued = {
+                new SlowRecord(0, TwoPhaseOutcome.PREPARE_OK),
+                new SlowRecord(0, TwoPhaseOutcome.PREPARE_OK)
+        };
+        SlowRecord last = new SlowRecord(DELAY, TwoPhaseOutcome.PREPARE_OK);
+
+        A.begin();
+
+        A.add(failed);
+
+        for (SlowRecord record : slow)
+            A.add(record);
+
+        for (SlowRecord record : queued)
+            A.add(record);
+
+        A.add(last);
+
+        assertEquals(ActionStatus.ABORTED, A.commit());
+
+        /*
+         * The first four records occupy every thread in the pool, so the queued
+         * ones only start once the failed prepare has returned and are then
+         * rolled back without being asked to prepare. The failure is delayed
+         * a little so that the other three have started by the time it occurs.
+         */
+
+        for (SlowRecord record : queued) {
+            assertEquals(0, record.prepared.get());
+            assertEquals(1, record.aborted.get());
+        }
+
+        for (SlowRecord record : slow) {
+            assertEquals(1, record.prepared.get());
+            assertEquals(1, record.aborted.get());
+        }
+
+        assertEquals(0, last.committed.get() + failed.committed.get());
+    }
+
+    @Test
+    public void testCommitInOrderPerObject() {
+        AtomicAction A = new AtomicAction();
+        Uid object = new Uid();
+        AtomicLong firstFinished = new AtomicLong();
+        AtomicLong secondStarted = new AtomicLong();
+        SlowRecord first = new SlowRecord(DELAY, TwoPhaseOutcome.PREPARE_OK) {
+            public Uid order() { return object; }
+
+            public int topLevelCommit() {
+                int outcome = super.topLevelCommit();
+                firstFinished.set(System.nanoTime());
+                return outcome;
+            }
+        };
+        SlowRecord second = new SlowRecord(0, TwoPhaseOutcome.PREPARE_OK) {
+            public Uid order() { return object; }
+
+            public int typeIs() { return RecordType.USER_DEF_FIRST1; }
+
+            public int topLevelCommit() {
+                secondStarted.set(System.nanoTime());
+                return super.topLevelCommit();
+            }
+        };
+
+        A.begin();
+
+        A.add(second);
+        A.add(first);
+        A.add(new SlowRecord(DELAY, TwoPhaseOutcome.PREPARE_OK));
+
+        assertEquals(ActionStatus.COMMITTED, A.commit());
+
+        // records for the same object are committed in intentions list order, one after the other
+        assertEquals(1, first.committed.get());
+        assertEquals(1, second.committed.get());
+        assertTrue(secondStarted.get() - firstFinished.get() >= 0);
+    }
+
+    @Test
+    public void testErrorDuringPhase2() {
+        AtomicAction A = new AtomicAction();
+        SlowRecord failing = new SlowRecord(0, TwoPhaseOutcome.PREPARE_OK) {
+            public int topLevelCommit() {
+                super.topLevelCommit();
+                throw new Error("thrown by participant");
+            }
+        };
+        SlowRecord[] others = {
+                new SlowRecord(0, TwoPhaseOutcome.PREPARE_OK),
+                new SlowRecord(0, TwoPhaseOutcome.PREPARE_OK)
+        };
+
+        A.begin();
+
+        A.add(others[0]);
+        A.add(failing);
+        A.add(others[1]);
+
+        // the error is an outcome of the participant rather than of the action
+        A.commit();
+
+        assertEquals(1, failing.committed.get());
+
+        for (SlowRecord record : others)
+            assertEquals(1, record.committed.get());
+    }
+
+    private static class SlowRecord extends BasicRecord
+    {
+        final AtomicInteger prepared = new AtomicInteger();
+        final AtomicInteger committed = new AtomicInteger();
+        final AtomicInteger aborted = new AtomicInteger();
+
+        private final long delay;
+        private final int vote;
+
+        SlowRecord(long delay, int vote)
+        {
+            this.delay = delay;
+            this.vote = vote;
+        }
+
+        public int topLevelPrepare()
+        {
+            prepared.incrementAndGet();
+            pause();
+
+            return vote;
+        }
+
+        public int topLevelCommit()
+        {
+            committed.incrementAndGet();
+            pause();
+
+            return TwoPhaseOutcome.FINISH_OK;
+        }
+
+        public int topLevelAbort()
+        {
+            aborted.incrementAndGet();
+
+            return TwoPhaseOutcome.FINISH_OK;
+        }
+
+        private void pause()
+        {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
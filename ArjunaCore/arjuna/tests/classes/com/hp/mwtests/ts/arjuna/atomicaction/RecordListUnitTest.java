@@ -10,10 +10,18 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.coordinator.AbstractRecord;
 import com.arjuna.ats.arjuna.coordinator.RecordList;
+import com.arjuna.ats.arjuna.coordinator.RecordType;
+import com.arjuna.ats.arjuna.coordinator.TwoPhaseOutcome;
 import com.arjuna.ats.internal.arjuna.abstractrecords.ActivationRecord;
 import com.arjuna.ats.internal.arjuna.abstractrecords.DisposeRecord;
 
@@ -50,4 +58,161 @@ public class RecordListUnitTest
         
         assertTrue(rl.remove(dr));
     }
+
+    /*
+     * Records which only act on those for the same object are inserted
+     * using the index, the others by searching from the head; either way
+     * the lists should end up the same.
+     */
+
+    @Test
+    public void testIndexedInsert () throws Exception
+    {
+        Random random = new Random(1);
+        List<Uid> uids = new ArrayList<Uid>();
+
+        for (int i = 0; i < 200; i++)
+            uids.add(new Uid());
+
+        // Uids from other nodes, which lessThan does not always order
+        for (int i = 0; i < 20; i++)
+            uids.add(new Uid(new long[] { random.nextInt(4), random.nextInt(4) }, i, 0, i));
+
+        uids.add(Uid.lastResourceUid());
+
+        Collections.shuffle(uids, random);
+
+        RecordList indexed = new RecordList();
+        RecordList searched = new RecordList();
+
+        for (int i = 0; i < 5000; i++)
+        {
+            Uid order = (i % 10 == 0) ? new Uid() : uids.get(random.nextInt(uids.size()));
+            int type = RecordType.USER_DEF_FIRST0 + random.nextInt(3);
+
+            assertEquals(searched.insert(new OrderedRecord(order, type, i, false)),
+                    indexed.insert(new OrderedRecord(order, type, i, true)));
+
+            if (i % 7 == 0)
+                assertEquals(id(searched.getFront()), id(indexed.getFront()));
+            else if (i % 11 == 0)
+                assertEquals(id(searched.getRear()), id(indexed.getRear()));
+
+            if (i % 500 == 0)
+                assertEquals(ids(searched), ids(indexed));
+        }
+
+        assertEquals(ids(searched), ids(indexed));
+        assertTrue(indexed.size() > 100);
+    }
+
+    private static List<Integer> ids (RecordList list)
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+
+        for (AbstractRecord rec = list.peekFront(); rec != null; rec = list.peekNext(rec))
+            ids.add(id(rec));
+
+        assertEquals(list.size(), ids.size());
+
+        return ids;
+    }
+
+    private static int id (AbstractRecord rec)
+    {
+        return ((OrderedRecord) rec).id;
+    }
+
+    private static class OrderedRecord extends AbstractRecord
+    {
+        OrderedRecord (Uid order, int type, int id, boolean scoped)
+        {
+            super(order);
+
+            this.type = type;
+            this.id = id;
+            this.scoped = scoped;
+        }
+
+        public boolean isOrderScoped ()
+        {
+            return scoped;
+        }
+
+        public boolean shouldAdd (AbstractRecord a)
+        {
+            return order().equals(a.order()) && (id % 5 == 0);
+        }
+
+        public boolean shouldAlter (AbstractRecord a)
+        {
+            return false;
+        }
+
+        public boolean shouldMerge (AbstractRecord a)
+        {
+            return order().equals(a.order()) && (a.typeIs() != typeIs()) && (id % 3 == 1);
+        }
+
+        public boolean shouldReplace (AbstractRecord a)
+        {
+            return order().equals(a.order()) && (a.typeIs() == typeIs()) && (id % 3 == 0);
+        }
+
+        public void merge (AbstractRecord a)
+        {
+        }
+
+        public void alter (AbstractRecord a)
+        {
+        }
+
+        public int typeIs ()
+        {
+            return type;
+        }
+
+        public Object value ()
+        {
+            return null;
+        }
+
+        public void setValue (Object o)
+        {
+        }
+
+        public int nestedAbort ()
+        {
+            return TwoPhaseOutcome.FINISH_OK;
+        }
+
+        public int nestedCommit ()
+        {
+            return TwoPhaseOutcome.FINISH_OK;
+        }
+
+        public int nestedPrepare ()
+        {
+            return TwoPhaseOutcome.PREPARE_OK;
+        }
+
+        public int topLevelAbort ()
+        {
+            return TwoPhaseOutcome.FINISH_OK;
+        }
+
+        public int topLevelCommit ()
+        {
+            return TwoPhaseOutcome.FINISH_OK;
+        }
+
+        public int topLevelPrepare ()
+        {
+            return TwoPhaseOutcome.PREPARE_OK;
+        }
+
+        private final int type;
+        private final int id;
+        private final boolean scoped;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.atomicaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.AtomicAction;
+import com.arjuna.ats.arjuna.common.arjPropertyManager;
+import com.arjuna.ats.arjuna.coordinator.ActionStatus;
+import com.arjuna.ats.arjuna.coordinator.LatencySnapshot;
+import com.arjuna.ats.arjuna.coordinator.TxStats;
+import com.arjuna.ats.arjuna.coordinator.internal.LatencyHistogram;
+import com.hp.mwtests.ts.arjuna.resources.BasicRecord;
+import com.hp.mwtests.ts.arjuna.resources.SyncRecord;
+
+public class TxStatsLatencyUnitTest
+{
+    @Test
+    public void testHistogram() throws Exception
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long i = 1; i <= 1000; i++)
+            histogram.record(i * 1000);
+
+        LatencySnapshot snapshot = histogram.snapshot("test");
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1000000, snapshot.getMax());
+        assertEquals(500500, snapshot.getMean());
+        assertWithin(500000, snapshot.getValueAtPercentile(50));
+        assertWithin(990000, snapshot.getValueAtPercentile(99));
+        assertEquals(1000000, snapshot.getValueAtPercentile(100));
+
+        long total = 0;
+
+        for (Map.Entry<Long, Long> bucket : snapshot.getBuckets().entrySet())
+            total += bucket.getValue();
+
+        assertEquals(1000, total);
+    }
+
+    @Test
+    public void testBuckets() throws Exception
+    {
+        long[] values = { 0, 1, 31, 32, 33, 63, 64, 65, 1000, 1 << 20, Long.MAX_VALUE };
+
+        for (long value : values) {
+            int index = LatencyHistogram.indexFor(value);
+
+            assertTrue(index < LatencyHistogram.BUCKETS);
+            assertTrue(LatencyHistogram.highestValueIn(index) >= value);
+
+            if (index > 0)
+                assertTrue(LatencyHistogram.highestValueIn(index - 1) < value);
+        }
+    }
+
+    @Test
+    public void testTransactionLatencies() throws Exception
+    {
+        arjPropertyManager.getCoordinatorEnvironmentBean().setEnableStatistics(true);
+
+        TxStats stats = TxStats.getInstance();
+        long transactions = stats.getLatencySnapshot("transaction").getCount();
+        long prepares = stats.getLatencySnapshot("prepare").getCount();
+        long synchronizations = stats.getLatencySnapshot("beforeCompletion").getCount();
+        LatencySnapshot participant = stats.getLatencySnapshot("prepare:BasicRecord");
+        long participantPrepares = (participant == null) ? 0 : participant.getCount();
+
+        for (int i = 0; i < 10; i++) {
+            AtomicAction A = new AtomicAction();
+
+            A.begin();
+
+            A.add(new BasicRecord());
+            A.add(new BasicRecord());
+            A.addSynchronization(new SyncRecord());
+
+            assertEquals(ActionStatus.COMMITTED, A.commit());
+        }
+
+        assertEquals(transactions + 10, stats.getLatencySnapshot("transaction").getCount());
+        assertEquals(prepares + 10, stats.getLatencySnapshot("prepare").getCount());
+        assertEquals(synchronizations + 10, stats.getLatencySnapshot("beforeCompletion").getCount());
+        assertTrue(stats.getLatencySnapshot("afterCompletion").getCount() >= 10);
+        assertTrue(stats.getLatencySnapshot("logWrite").getCount() >= 10);
+        assertEquals(participantPrepares + 20, stats.getLatencySnapshot("prepare:BasicRecord").getCount());
+        assertTrue(stats.getLatencySnapshot("commit:BasicRecord").getCount() >= 20);
+
+        LatencySnapshot transaction = stats.getLatencySnapshot("transaction");
+
+        assertTrue(transaction.getValueAtPercentile(99) <= transaction.getMax());
+        assertTrue(transaction.getMax() > 0);
+
+        assertNull(stats.getLatencySnapshot("prepare:NoSuchRecord"));
+        assertNull(stats.getLatencySnapshot("nonsense"));
+
+        boolean found = false;
+
+        for (String line : stats.getLatencySummary()) {
+            if (line.startsWith("prepare:BasicRecord:"))
+                found = true;
+        }
+
+        assertTrue(found);
+        assertNotNull(stats.getLatencySnapshots());
+    }
+
+    private static void assertWithin(long expected, long actual)
+    {
+        assertTrue("expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected * 0.04);
+    }
+}
@@ -0,0 +1,324 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.objectstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
+import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.common.UidHelper;
+import com.arjuna.ats.internal.arjuna.objectstore.DeferredRemovalStore;
+import com.arjuna.ats.internal.arjuna.objectstore.ShadowNoFileLockStore;
+
+public class DeferredRemovalStoreTest
+{
+    private static final String TYPE = "/StateManager/BasicAction/TwoPhaseCoordinator/AtomicAction/DeferredRemovalStoreTest";
+
+    /*
+     * Holds up the background thread on the removal of one state, so that
+     * those queued behind it stay pending until the test lets it go. Once
+     * deferAsync is set, other asynchronous removals are only recorded, for
+     * the test to complete.
+     */
+
+    private static class BlockingStore extends ShadowNoFileLockStore
+    {
+        BlockingStore (ObjectStoreEnvironmentBean bean) throws ObjectStoreException
+        {
+            super(bean);
+        }
+
+        public boolean remove_committed (Uid storeUid, String tName) throws ObjectStoreException
+        {
+            if (storeUid.equals(blocker))
+            {
+                blocked.countDown();
+
+                try
+                {
+                    release.await();
+                }
+                catch (final InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return super.remove_committed(storeUid, tName);
+        }
+
+        public CompletionStage<Boolean> remove_committed_async (Uid storeUid, String tName)
+        {
+            if (!deferAsync || storeUid.equals(blocker))
+                return super.remove_committed_async(storeUid, tName);
+
+            CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+
+            issued.put(storeUid, result);
+
+            return result;
+        }
+
+        final Map<Uid, CompletableFuture<Boolean>> issued = new ConcurrentHashMap<Uid, CompletableFuture<Boolean>>();
+        volatile boolean deferAsync;
+
+        final Uid blocker = new Uid();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+    }
+
+    @Before
+    public void setUp () throws Exception
+    {
+        ObjectStoreEnvironmentBean bean = new ObjectStoreEnvironmentBean();
+
+        bean.setSynchronousRemoval(false);
+        bean.setAsyncRemovalMaxBacklog(100);
+
+        disk = new BlockingStore(bean);
+        store = new DeferredRemovalStore(disk, bean);
+
+        store.start();
+    }
+
+    @After
+    public void tearDown () throws Exception
+    {
+        disk.release.countDown();
+
+        store.stop();
+    }
+
+    @Test
+    public void testPendingRemovalsAreHidden () throws Exception
+    {
+        Uid uid = new Uid();
+        Uid kept = new Uid();
+
+        assertTrue(store.write_committed(disk.blocker, TYPE, state("blocker")));
+        assertTrue(store.write_committed(uid, TYPE, state("removed")));
+        assertTrue(store.write_committed(kept, TYPE, state("kept")));
+
+        assertTrue(store.remove_committed(disk.blocker, TYPE));
+
+        disk.blocked.await();
+
+        assertTrue(store.remove_committed(uid, TYPE));
+        assertTrue(store.remove_committed(uid, TYPE.substring(1)));
+
+        assertEquals(1, store.getNumberOfCoalescedRemovals());
+        assertEquals(2, store.getPendingRemovals());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names = server.queryNames(new ObjectName("jboss.jta:type=ObjectStore,name=DeferredRemovals,*"), null);
+
+        assertEquals(1, names.size());
+        assertEquals(2, server.getAttribute(names.iterator().next(), "PendingRemovals"));
+
+        // still on disk, but gone as far as readers and recovery are concerned
+        assertEquals(StateStatus.OS_COMMITTED, disk.currentState(uid, TYPE));
+        assertNull(store.read_committed(uid, TYPE));
+        assertNotNull(store.read_committed(kept, TYPE));
+
+        Set<Uid> found = allObjUids();
+
+        assertFalse(found.contains(uid));
+        assertFalse(found.contains(disk.blocker));
+        assertTrue(found.contains(kept));
+
+        UidCursor cursor = store.openUidCursor(TYPE, StateStatus.OS_UNKNOWN);
+        Set<Uid> paged = new HashSet<Uid>();
+        List<Uid> page;
+
+        while (!(page = cursor.next(1)).isEmpty())
+            paged.addAll(page);
+
+        cursor.close();
+
+        assertEquals(found, paged);
+
+        disk.release.countDown();
+
+        store.sync();
+
+        assertEquals(0, store.getPendingRemovals());
+        assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(uid, TYPE));
+        assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(disk.blocker, TYPE));
+        assertEquals(StateStatus.OS_COMMITTED, disk.currentState(kept, TYPE));
+
+        assertTrue(store.remove_committed(kept, TYPE));
+
+        store.sync();
+
+        assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(kept, TYPE));
+        assertEquals(3, store.getNumberOfRemovals());
+    }
+
+    @Test
+    public void testWriteAfterRemove () throws Exception
+    {
+        Uid uid = new Uid();
+
+        assertTrue(store.write_committed(disk.blocker, TYPE, state("blocker")));
+        assertTrue(store.remove_committed(disk.blocker, TYPE));
+
+        disk.blocked.await();
+
+        assertTrue(store.write_committed(uid, TYPE, state("first")));
+        assertTrue(store.remove_committed(uid, TYPE));
+
+        // the removal is applied before the new state is written, not after
+        assertTrue(store.write_committed(uid, TYPE, state("second")));
+        assertEquals(1, store.getPendingRemovals());
+
+        disk.release.countDown();
+
+        store.sync();
+
+        assertEquals("second", store.read_committed(uid, TYPE).unpackString());
+        assertEquals("second", disk.read_committed(uid, TYPE).unpackString());
+
+        assertTrue(store.remove_committed(uid, TYPE));
+    }
+
+    @Test
+    public void testBacklogLimit () throws Exception
+    {
+        assertTrue(store.write_committed(disk.blocker, TYPE, state("blocker")));
+        assertTrue(store.remove_committed(disk.blocker, TYPE));
+
+        disk.blocked.await();
+
+        Uid[] uids = new Uid[150];
+
+        for (int i = 0; i < uids.length; i++)
+        {
+            uids[i] = new Uid();
+
+            assertTrue(store.write_committed(uids[i], TYPE, state("value")));
+            assertTrue(store.remove_committed(uids[i], TYPE));
+        }
+
+        // once the backlog was full the callers removed their own states
+        assertEquals(100, store.getPendingRemovals());
+        assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(uids[uids.length - 1], TYPE));
+
+        disk.release.countDown();
+
+        store.sync();
+
+        assertEquals(0, store.getPendingRemovals());
+
+        for (Uid uid : uids)
+            assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(uid, TYPE));
+    }
+
+    @Test
+    public void testBatchIsHandedToStoreTogether () throws Exception
+    {
+        assertTrue(store.write_committed(disk.blocker, TYPE, state("blocker")));
+        assertTrue(store.remove_committed(disk.blocker, TYPE));
+
+        disk.blocked.await();
+        disk.deferAsync = true;
+
+        Uid[] uids = new Uid[5];
+
+        for (int i = 0; i < uids.length; i++)
+        {
+            uids[i] = new Uid();
+
+            assertTrue(store.write_committed(uids[i], TYPE, state("value")));
+            assertTrue(store.remove_committed(uids[i], TYPE));
+        }
+
+        disk.release.countDown();
+
+        // every removal in the batch reaches the store before any of them completes
+        for (int i = 0; (disk.issued.size() < uids.length) && (i < 500); i++)
+            Thread.sleep(10);
+
+        assertEquals(uids.length, disk.issued.size());
+        assertEquals(uids.length, store.getPendingRemovals());
+
+        for (Map.Entry<Uid, CompletableFuture<Boolean>> removal : disk.issued.entrySet())
+            removal.getValue().complete(disk.remove_committed(removal.getKey(), TYPE));
+
+        store.sync();
+
+        assertEquals(0, store.getPendingRemovals());
+
+        for (Uid uid : uids)
+            assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(uid, TYPE));
+    }
+
+    @Test
+    public void testRemovalsAreImmediateUntilStarted () throws Exception
+    {
+        store.stop();
+
+        Uid uid = new Uid();
+
+        assertTrue(store.write_committed(uid, TYPE, state("value")));
+        assertTrue(store.remove_committed(uid, TYPE));
+
+        assertEquals(0, store.getPendingRemovals());
+        assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(uid, TYPE));
+        assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(
+                new ObjectName("jboss.jta:type=ObjectStore,name=DeferredRemovals,*"), null).isEmpty());
+    }
+
+    private Set<Uid> allObjUids () throws Exception
+    {
+        InputObjectState uids = new InputObjectState();
+        Set<Uid> found = new HashSet<Uid>();
+
+        assertTrue(store.allObjUids(TYPE, uids));
+
+        for (Uid u = UidHelper.unpackFrom(uids); u.notEquals(Uid.nullUid()); u = UidHelper.unpackFrom(uids))
+            found.add(u);
+
+        return found;
+    }
+
+    private static OutputObjectState state (String value) throws Exception
+    {
+        OutputObjectState state = new OutputObjectState();
+
+        state.packString(value);
+
+        return state;
+    }
+
+    private BlockingStore disk;
+    private DeferredRemovalStore store;
+}
@@ -0,0 +1,161 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.objectstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.objectstore.ObjectStoreAPI;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.objectstore.jdbc.JDBCStore;
+import com.arjuna.common.internal.util.propertyservice.BeanPopulator;
+
+public class JDBCStoreBatchTest {
+	private static final int THREADS = 8;
+	private static final int ITERATIONS = 50;
+
+	private boolean resetPropertiesFile;
+
+	@Before
+	public void before() {
+		if (System.getProperty("com.arjuna.ats.arjuna.common.propertiesFile") == null) {
+			System.setProperty("com.arjuna.ats.arjuna.common.propertiesFile",
+					"h2jbossts-properties.xml");
+			resetPropertiesFile = true;
+		}
+	}
+
+	@After
+	public void after() {
+		if (resetPropertiesFile) {
+			System.clearProperty("com.arjuna.ats.arjuna.common.propertiesFile");
+		}
+	}
+
+	@Test
+	public void testBatchedWrites() throws Exception {
+		ObjectStoreEnvironmentBean jdbcStoreEnvironmentBean = BeanPopulator
+				.getDefaultInstance(ObjectStoreEnvironmentBean.class);
+
+		jdbcStoreEnvironmentBean.setJdbcBatchWrites(true);
+		jdbcStoreEnvironmentBean.setJdbcBatchMaxSize(16);
+		jdbcStoreEnvironmentBean.setJdbcBatchMaxDelay(100);
+
+		final ObjectStoreAPI api = new JDBCStore(jdbcStoreEnvironmentBean);
+
+		Uid uid = new Uid();
+
+		assertTrue(api.write_committed(uid, "typeName", state("first")));
+		assertTrue(api.write_committed(uid, "typeName", state("second")));
+		assertEquals("second", api.read_committed(uid, "typeName").unpackString());
+
+		assertFalse(api.remove_uncommitted(uid, "typeName"));
+		assertTrue(api.remove_committed(uid, "typeName"));
+		assertFalse(api.remove_committed(uid, "typeName"));
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+		try {
+			for (int i = 0; i < THREADS; i++) {
+				results.add(executor.submit(() -> {
+					for (int j = 0; j < ITERATIONS; j++) {
+						Uid u = new Uid();
+						String value = u.stringForm();
+
+						if (!api.write_uncommitted(u, "/typeName", state(value)))
+							return false;
+
+						if (!api.commit_state(u, "typeName"))
+							return false;
+
+						InputObjectState read = api.read_committed(u, "typeName");
+
+						if ((read == null) || !value.equals(read.unpackString()))
+							return false;
+
+						if (!api.remove_committed(u, "typeName"))
+							return false;
+
+						if (api.read_committed(u, "typeName") != null)
+							return false;
+					}
+
+					return true;
+				}));
+			}
+
+			for (Future<Boolean> result : results)
+				assertTrue(result.get());
+		} finally {
+			executor.shutdown();
+		}
+
+		assertNull(api.read_committed(uid, "typeName"));
+
+		api.stop();
+	}
+
+	@Test
+	public void testAsyncRemoves() throws Exception {
+		ObjectStoreEnvironmentBean jdbcStoreEnvironmentBean = BeanPopulator
+				.getDefaultInstance(ObjectStoreEnvironmentBean.class);
+
+		jdbcStoreEnvironmentBean.setJdbcBatchWrites(true);
+		jdbcStoreEnvironmentBean.setJdbcBatchMaxSize(16);
+		jdbcStoreEnvironmentBean.setJdbcBatchMaxDelay(100);
+
+		ObjectStoreAPI api = new JDBCStore(jdbcStoreEnvironmentBean);
+		List<Uid> uids = new ArrayList<Uid>();
+		List<CompletionStage<Boolean>> removals = new ArrayList<CompletionStage<Boolean>>();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			Uid uid = new Uid();
+
+			assertTrue(api.write_committed(uid, "typeName", state(uid.stringForm())));
+
+			uids.add(uid);
+		}
+
+		// queued without waiting, so they can share database transactions
+		for (Uid uid : uids)
+			removals.add(api.remove_committed_async(uid, "/typeName"));
+
+		for (CompletionStage<Boolean> removal : removals)
+			assertTrue(removal.toCompletableFuture().get());
+
+		for (Uid uid : uids)
+			assertNull(api.read_committed(uid, "typeName"));
+
+		assertFalse(api.remove_committed_async(uids.get(0), "typeName").toCompletableFuture().get());
+
+		api.stop();
+	}
+
+	private static OutputObjectState state(String value) throws Exception {
+		OutputObjectState state = new OutputObjectState();
+
+		state.packString(value);
+
+		return state;
+	}
+}
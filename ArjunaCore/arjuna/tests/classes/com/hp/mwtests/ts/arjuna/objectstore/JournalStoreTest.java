@@ -8,6 +8,7 @@ package com.hp.mwtests.ts.arjuna.objectstore;
 import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
 import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
+import com.arjuna.ats.arjuna.objectstore.RecoveryStore;
 import com.arjuna.ats.arjuna.objectstore.StoreManager;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
 import com.arjuna.ats.internal.arjuna.objectstore.hornetq.HornetqJournalEnvironmentBean;
@@ -19,6 +20,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class JournalStoreTest {
@@ -76,4 +78,28 @@ public class JournalStoreTest {
         // add a record to the object store
         assertTrue(StoreManager.getRecoveryStore().write_committed(new Uid(), typeName, new OutputObjectState()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAsync() throws Exception {
+        RecoveryStore store = StoreManager.getRecoveryStore();
+        Uid uid = new Uid();
+        OutputObjectState state = new OutputObjectState();
+
+        state.packString("first");
+
+        assertTrue(store.write_committed_async(uid, typeName, state).toCompletableFuture().get());
+
+        // the unpacked state is kept, but each reader gets its own position in it
+        assertEquals("first", store.read_committed(uid, typeName).unpackString());
+        assertEquals("first", store.read_committed(uid, typeName).unpackString());
+
+        state = new OutputObjectState();
+        state.packString("second");
+
+        assertTrue(store.write_committed_async(uid, typeName, state).toCompletableFuture().get());
+        assertEquals("second", store.read_committed(uid, typeName).unpackString());
+
+        assertTrue(store.remove_committed_async(uid, typeName).toCompletableFuture().get());
+        assertNull(store.read_committed(uid, typeName));
+    }
+}
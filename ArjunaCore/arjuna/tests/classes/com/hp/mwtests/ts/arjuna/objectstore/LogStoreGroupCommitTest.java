@@ -0,0 +1,128 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.objectstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
+import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.common.UidHelper;
+import com.arjuna.ats.internal.arjuna.objectstore.LogStore;
+
+public class LogStoreGroupCommitTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test() throws Exception
+    {
+        ObjectStoreEnvironmentBean config = new ObjectStoreEnvironmentBean();
+
+        config.setObjectStoreDir(folder.newFolder().getPath());
+        config.setGroupCommit(true);
+        config.setGroupCommitMaxBatchSize(16);
+        config.setGroupCommitMaxBatchDelay(100);
+
+        final LogStore recoveryStore = new LogStore(config);
+        final int numberOfThreads = 10;
+        final int numberOfTransactions = 100;
+        final Uid[][] ids = new Uid[numberOfThreads][numberOfTransactions];
+        final String type = "/StateManager/BasicAction/TwoPhaseCoordinator/AtomicAction/GroupCommitTest";
+        final CountDownLatch done = new CountDownLatch(numberOfThreads);
+        final AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < numberOfThreads; i++) {
+            final Uid[] threadIds = ids[i];
+
+            new Thread(() -> {
+                try {
+                    for (int j = 0; j < numberOfTransactions; j++) {
+                        OutputObjectState dummyState = new OutputObjectState();
+
+                        dummyState.packInt(j);
+                        threadIds[j] = new Uid();
+
+                        if (!recoveryStore.write_committed(threadIds[j], type, dummyState))
+                            failures.incrementAndGet();
+                    }
+                }
+                catch (final Exception ex) {
+                    ex.printStackTrace();
+
+                    failures.incrementAndGet();
+                }
+                finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        done.await();
+
+        assertEquals(0, failures.get());
+
+        // every entry went through the writer and concurrent entries shared a force
+        assertEquals(numberOfThreads * numberOfTransactions, recoveryStore.getNumberOfGroupCommitEntries());
+        assertTrue(recoveryStore.getNumberOfGroupCommitBatches() < recoveryStore.getNumberOfGroupCommitEntries());
+
+        InputObjectState ios = new InputObjectState();
+        Set<Uid> found = new HashSet<Uid>();
+
+        assertTrue(recoveryStore.allObjUids(type, ios, StateStatus.OS_UNKNOWN));
+
+        Uid id = UidHelper.unpackFrom(ios);
+
+        while (id.notEquals(Uid.nullUid())) {
+            found.add(id);
+
+            id = UidHelper.unpackFrom(ios);
+        }
+
+        assertEquals(numberOfThreads * numberOfTransactions, found.size());
+
+        for (int i = 0; i < numberOfThreads; i++) {
+            for (int j = 0; j < numberOfTransactions; j++) {
+                assertTrue(found.contains(ids[i][j]));
+            }
+        }
+
+        InputObjectState state = recoveryStore.read_committed(ids[3][42], type);
+
+        assertNotNull(state);
+        assertEquals(42, state.unpackInt());
+
+        recoveryStore.stop();
+
+        long batches = recoveryStore.getNumberOfGroupCommitBatches();
+        Uid after = new Uid();
+        OutputObjectState dummyState = new OutputObjectState();
+
+        dummyState.packInt(1);
+
+        // the writer thread has gone so the caller writes the entry itself
+        assertTrue(recoveryStore.write_committed(after, type, dummyState));
+        assertEquals(batches + 1, recoveryStore.getNumberOfGroupCommitBatches());
+        assertNotNull(recoveryStore.read_committed(after, type));
+
+        // stopping again is harmless
+        recoveryStore.stop();
+    }
+}
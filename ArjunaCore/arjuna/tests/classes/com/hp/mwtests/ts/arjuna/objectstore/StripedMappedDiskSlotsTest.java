@@ -0,0 +1,130 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.objectstore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.SlotStore;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.SlotStoreEnvironmentBean;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.SlotStoreKey;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.StripedMappedDiskSlots;
+
+public class StripedMappedDiskSlotsTest
+{
+    private static final String TYPE = "/StateManager/BasicAction/TwoPhaseCoordinator/AtomicAction";
+
+    @Test
+    public void testReadWriteClear() throws Exception
+    {
+        StripedMappedDiskSlots slots = new StripedMappedDiskSlots();
+        slots.init(newConfig(8));
+
+        byte[] data = { 1, 2, 3, 4, 5 };
+
+        slots.write(3, data, true);
+        assertArrayEquals(data, slots.read(3));
+        assertEquals(0, slots.read(2).length);
+
+        slots.clear(3, true);
+        assertEquals(0, slots.read(3).length);
+    }
+
+    @Test
+    public void testRecovery() throws Exception
+    {
+        SlotStoreEnvironmentBean config = newConfig(16);
+        SlotStore slotStore = new SlotStore(config);
+
+        Uid uid = new Uid();
+        OutputObjectState state = new OutputObjectState();
+        state.packInt(42);
+
+        assertTrue(slotStore.write(new SlotStoreKey(uid, TYPE, StateStatus.OS_COMMITTED), state));
+
+        // a second instance on the same directory should rebuild its index from the file
+        config.setBackingSlots(new StripedMappedDiskSlots());
+        SlotStore recovered = new SlotStore(config);
+
+        SlotStoreKey key = new SlotStoreKey(uid, TYPE, StateStatus.OS_COMMITTED);
+        assertTrue(recovered.contains(key));
+
+        InputObjectState inputObjectState = recovered.read(key);
+        assertNotNull(inputObjectState);
+        assertEquals(42, inputObjectState.unpackInt());
+
+        assertTrue(recovered.remove(key));
+        assertFalse(recovered.contains(key));
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception
+    {
+        final int numberOfThreads = 16;
+        final int iterations = 200;
+        final StripedMappedDiskSlots slots = new StripedMappedDiskSlots();
+        slots.init(newConfig(numberOfThreads));
+
+        final CountDownLatch done = new CountDownLatch(numberOfThreads);
+        final AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < numberOfThreads; i++) {
+            final int slot = i;
+
+            new Thread(() -> {
+                try {
+                    for (int j = 0; j < iterations; j++) {
+                        byte[] data = new byte[] { (byte) slot, (byte) j };
+
+                        slots.write(slot, data, true);
+
+                        byte[] read = slots.read(slot);
+
+                        if (read == null || read[0] != (byte) slot || read[1] != (byte) j)
+                            failures.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        done.await();
+
+        assertEquals(0, failures.get());
+    }
+
+    private SlotStoreEnvironmentBean newConfig(int numberOfSlots) throws Exception
+    {
+        File dir = Files.createTempDirectory("slotstore").toFile();
+        dir.deleteOnExit();
+
+        SlotStoreEnvironmentBean config = new SlotStoreEnvironmentBean();
+        config.setStoreDir(dir.getAbsolutePath());
+        config.setNumberOfSlots(numberOfSlots);
+        config.setBytesPerSlot(1024);
+        config.setBackingSlots(new StripedMappedDiskSlots());
+
+        return config;
+    }
+}
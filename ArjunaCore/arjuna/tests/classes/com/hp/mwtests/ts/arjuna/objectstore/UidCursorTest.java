@@ -0,0 +1,173 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.objectstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.objectstore.ObjectStoreAPI;
+import com.arjuna.ats.arjuna.objectstore.ObjectStoreIterator;
+import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.objectstore.UidCursor;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.objectstore.HashedStore;
+import com.arjuna.ats.internal.arjuna.objectstore.LogStore;
+import com.arjuna.ats.internal.arjuna.objectstore.ShadowNoFileLockStore;
+import com.arjuna.ats.internal.arjuna.objectstore.hornetq.HornetqJournalEnvironmentBean;
+import com.arjuna.ats.internal.arjuna.objectstore.hornetq.HornetqObjectStoreAdaptor;
+import com.arjuna.ats.internal.arjuna.objectstore.jdbc.JDBCStore;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.SlotStore;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.SlotStoreAdaptor;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.SlotStoreEnvironmentBean;
+
+public class UidCursorTest
+{
+    private static final String TYPE = "/StateManager/BasicAction/TwoPhaseCoordinator/AtomicAction/UidCursorTest";
+    private static final String OTHER_TYPE = "/StateManager/BasicAction/TwoPhaseCoordinator/AtomicAction/UidCursorTestOther";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testShadowNoFileLockStore() throws Exception
+    {
+        ObjectStoreEnvironmentBean config = new ObjectStoreEnvironmentBean();
+
+        config.setObjectStoreDir(folder.newFolder().getPath());
+
+        check(new ShadowNoFileLockStore(config));
+    }
+
+    @Test
+    public void testHashedStore() throws Exception
+    {
+        ObjectStoreEnvironmentBean config = new ObjectStoreEnvironmentBean();
+
+        config.setObjectStoreDir(folder.newFolder().getPath());
+        config.setHashedDirectories(5);
+
+        check(new HashedStore(config));
+    }
+
+    @Test
+    public void testLogStore() throws Exception
+    {
+        ObjectStoreEnvironmentBean config = new ObjectStoreEnvironmentBean();
+
+        config.setObjectStoreDir(folder.newFolder().getPath());
+
+        check(new LogStore(config));
+    }
+
+    @Test
+    public void testJournalStore() throws Exception
+    {
+        HornetqJournalEnvironmentBean config = new HornetqJournalEnvironmentBean();
+
+        config.setStoreDir(folder.newFolder().getPath());
+
+        check(new HornetqObjectStoreAdaptor(config));
+    }
+
+    @Test
+    public void testSlotStore() throws Exception
+    {
+        SlotStoreEnvironmentBean config = new SlotStoreEnvironmentBean();
+
+        config.setStoreDir(folder.newFolder().getPath());
+
+        check(new SlotStoreAdaptor(new SlotStore(config)));
+    }
+
+    @Test
+    public void testJDBCStore() throws Exception
+    {
+        ObjectStoreEnvironmentBean config = new ObjectStoreEnvironmentBean();
+        File dir = folder.newFolder();
+
+        config.setJdbcAccess("com.arjuna.ats.internal.arjuna.objectstore.jdbc.accessors.DynamicDataSourceJDBCAccess"
+                + ";ClassName=org.h2.jdbcx.JdbcDataSource;URL=jdbc:h2:" + new File(dir, "h2").getPath() + ";User=sa;Password=sa");
+        config.setTablePrefix("UidCursorTest");
+        config.setDropTable(true);
+
+        check(new JDBCStore(config));
+    }
+
+    private void check(ObjectStoreAPI store) throws Exception
+    {
+        Set<Uid> written = new HashSet<>();
+
+        store.start();
+
+        try
+        {
+            OutputObjectState state = new OutputObjectState();
+
+            state.packString("UidCursorTest");
+
+            for (int i = 0; i < 25; i++)
+            {
+                Uid u = new Uid();
+
+                assertTrue(store.write_committed(u, TYPE, state));
+                written.add(u);
+            }
+
+            for (int i = 0; i < 3; i++)
+                assertTrue(store.write_committed(new Uid(), OTHER_TYPE, state));
+
+            // page through the cursor
+
+            Set<Uid> found = new HashSet<>();
+
+            try (UidCursor cursor = store.openUidCursor(TYPE, StateStatus.OS_UNKNOWN))
+            {
+                List<Uid> page;
+
+                while (!(page = cursor.next(7)).isEmpty())
+                {
+                    assertTrue(page.size() <= 7);
+
+                    for (Uid u : page)
+                        assertTrue("duplicate " + u, found.add(u));
+                }
+            }
+
+            assertEquals(written, found);
+
+            // and through the iterator, removing the entries as they are returned
+
+            ObjectStoreIterator iter = new ObjectStoreIterator(store, TYPE);
+            Uid u;
+
+            found.clear();
+
+            while ((u = iter.iterate()).notEquals(Uid.nullUid()))
+            {
+                found.add(u);
+                store.remove_committed(u, TYPE);
+            }
+
+            assertEquals(Uid.nullUid(), iter.iterate());
+            assertEquals(written, found);
+        }
+        finally
+        {
+            store.stop();
+        }
+    }
+}
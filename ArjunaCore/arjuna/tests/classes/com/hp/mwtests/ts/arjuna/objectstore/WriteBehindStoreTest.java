@@ -0,0 +1,216 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.objectstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.objectstore.StateStatus;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.objectstore.WriteBehindStore;
+
+public class WriteBehindStoreTest
+{
+    private static final String TYPE = "/StateManager/WriteBehindStoreTest";
+
+    @Before
+    public void setUp () throws Exception
+    {
+        ObjectStoreEnvironmentBean bean = new ObjectStoreEnvironmentBean();
+
+        // nothing is written unless the test asks for a checkpoint
+        bean.setWriteBehindStoreCheckpointPeriod(Integer.MAX_VALUE);
+        bean.setWriteBehindStoreFlushers(4);
+
+        store = new WriteBehindStore(bean);
+
+        // a second instance has nothing pending, so it sees what is on disk
+        disk = new WriteBehindStore(bean);
+    }
+
+    @After
+    public void tearDown () throws Exception
+    {
+        store.stop();
+        disk.stop();
+    }
+
+    @Test
+    public void testWriteBehind () throws Exception
+    {
+        Uid uid = new Uid();
+
+        assertTrue(store.write_committed(uid, TYPE, state("first")));
+        assertTrue(store.write_committed(uid, TYPE, state("second")));
+
+        assertEquals("second", store.read_committed(uid, TYPE).unpackString());
+        assertEquals(StateStatus.OS_COMMITTED, store.currentState(uid, TYPE));
+        assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(uid, TYPE));
+        assertEquals(1, store.getQueueDepth());
+
+        store.sync();
+
+        assertEquals(0, store.getQueueDepth());
+        assertEquals("second", disk.read_committed(uid, TYPE).unpackString());
+        assertEquals("second", store.read_committed(uid, TYPE).unpackString());
+        assertTrue(store.getNumberOfCollapsedOperations() >= 1);
+        assertTrue(store.getFlushLatency().getCount() >= 1);
+
+        assertTrue(store.remove_committed(uid, TYPE));
+        assertNull(store.read_committed(uid, TYPE));
+        assertFalse(store.remove_committed(uid, TYPE));
+
+        store.sync();
+
+        assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(uid, TYPE));
+    }
+
+    @Test
+    public void testShortLived () throws Exception
+    {
+        long flushed = store.getNumberOfFlushedOperations();
+        Uid uid = new Uid();
+
+        assertTrue(store.write_uncommitted(uid, TYPE, state("value")));
+        assertEquals(StateStatus.OS_UNCOMMITTED, store.currentState(uid, TYPE));
+        assertNull(store.read_committed(uid, TYPE));
+
+        assertTrue(store.commit_state(uid, TYPE));
+        assertEquals(StateStatus.OS_COMMITTED, store.currentState(uid, TYPE));
+        assertEquals("value", store.read_committed(uid, TYPE).unpackString());
+
+        assertTrue(store.remove_committed(uid, TYPE));
+        assertEquals(StateStatus.OS_UNKNOWN, store.currentState(uid, TYPE));
+
+        store.sync();
+
+        assertEquals(flushed, store.getNumberOfFlushedOperations());
+        assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(uid, TYPE));
+    }
+
+    @Test
+    public void testCommitOnDisk () throws Exception
+    {
+        Uid uid = new Uid();
+
+        assertTrue(store.write_committed(uid, TYPE, state("old")));
+        assertTrue(store.write_uncommitted(uid, TYPE, state("new")));
+
+        store.sync();
+
+        assertEquals(StateStatus.OS_UNCOMMITTED, disk.currentState(uid, TYPE));
+
+        assertTrue(store.commit_state(uid, TYPE));
+        assertEquals(StateStatus.OS_COMMITTED, store.currentState(uid, TYPE));
+        assertEquals(StateStatus.OS_UNCOMMITTED, disk.currentState(uid, TYPE));
+
+        store.sync();
+
+        assertEquals(StateStatus.OS_COMMITTED, disk.currentState(uid, TYPE));
+        assertEquals("new", store.read_committed(uid, TYPE).unpackString());
+        assertEquals("new", disk.read_committed(uid, TYPE).unpackString());
+
+        assertTrue(store.remove_committed(uid, TYPE));
+
+        store.sync();
+
+        assertEquals(StateStatus.OS_UNKNOWN, disk.currentState(uid, TYPE));
+    }
+
+    @Test
+    public void testConcurrentWriters () throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Uid>> results = new ArrayList<Future<Uid>>();
+
+        try
+        {
+            for (int i = 0; i < 8; i++)
+            {
+                results.add(executor.submit(() -> {
+                    Uid kept = new Uid();
+
+                    for (int j = 0; j < 100; j++)
+                    {
+                        Uid uid = new Uid();
+
+                        if (!store.write_committed(uid, TYPE, state(uid.stringForm())))
+                            return null;
+
+                        InputObjectState read = store.read_committed(uid, TYPE);
+
+                        if ((read == null) || !uid.stringForm().equals(read.unpackString()))
+                            return null;
+
+                        if (!store.remove_committed(uid, TYPE))
+                            return null;
+
+                        if (!store.write_committed(kept, TYPE, state(Integer.toString(j))))
+                            return null;
+                    }
+
+                    return kept;
+                }));
+            }
+
+            store.sync();
+
+            for (Future<Uid> result : results)
+            {
+                Uid kept = result.get();
+
+                assertNotNull(kept);
+                assertEquals("99", store.read_committed(kept, TYPE).unpackString());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        store.sync();
+
+        for (Future<Uid> result : results)
+        {
+            Uid kept = result.get();
+
+            assertEquals("99", disk.read_committed(kept, TYPE).unpackString());
+            assertTrue(store.remove_committed(kept, TYPE));
+        }
+
+        store.sync();
+
+        assertEquals(0, store.getQueueDepth());
+    }
+
+    private static OutputObjectState state (String value) throws Exception
+    {
+        OutputObjectState state = new OutputObjectState();
+
+        state.packString(value);
+
+        return state;
+    }
+
+    private WriteBehindStore store;
+    private WriteBehindStore disk;
+}
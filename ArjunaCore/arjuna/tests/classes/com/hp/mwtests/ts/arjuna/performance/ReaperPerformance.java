@@ -0,0 +1,115 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.performance;
+
+import io.narayana.perf.Measurement;
+import io.narayana.perf.WorkerWorkload;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.coordinator.ActionStatus;
+import com.arjuna.ats.arjuna.coordinator.Reapable;
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElement;
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElementManager;
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElementQueue;
+import com.arjuna.ats.internal.arjuna.coordinator.TimingWheelReaperElementManager;
+
+/**
+ * Compares insert/remove churn on the reaper element queues with a large number
+ * of long running transactions resident, simulating the reaper periodically
+ * looking at the head of the queue while short transactions come and go.
+ */
+public class ReaperPerformance
+{
+    private static final int RESIDENT = 50000;
+
+    @Test
+    public void testSortedList()
+    {
+        measure("sorted list", new ReaperElementManager());
+    }
+
+    @Test
+    public void testTimingWheel()
+    {
+        measure("timing wheel", new TimingWheelReaperElementManager());
+    }
+
+    private void measure(String name, final ReaperElementQueue queue)
+    {
+        int threadCount = 10;
+        int batchSize = 1000;
+        int numberOfCalls = threadCount * batchSize * 10;
+
+        for (int i = 0; i < RESIDENT; i++) {
+            queue.add(new ReaperElement(new DummyReapable(), 3600 + (i % 600)));
+        }
+        queue.getFirst();
+
+        WorkerWorkload<Void> worker = new WorkerWorkload<Void>() {
+            @Override
+            public Void doWork(Void context, int batchSize, Measurement<Void> config) {
+                for (int i = 0; i < batchSize; i++) {
+                    ReaperElement reaperElement = new ReaperElement(new DummyReapable(), 60 + (i % 60));
+
+                    queue.add(reaperElement);
+
+                    // the reaper wakes up periodically and migrates pending elements
+                    if (i % 10 == 0) {
+                        queue.getFirst();
+                    }
+
+                    queue.remove(reaperElement);
+                }
+
+                return context;
+            }
+
+            @Override
+            public void finishWork(Measurement<Void> measurement) {
+            }
+        };
+
+        Measurement measurement = new Measurement.Builder(getClass().getName() + "_" + name)
+                .maxTestTime(0L).numberOfCalls(numberOfCalls)
+                .numberOfThreads(threadCount).batchSize(batchSize)
+                .numberOfWarmupCalls(batchSize).build().measure(worker);
+
+        Assert.assertEquals(0, measurement.getNumberOfErrors());
+        Assert.assertFalse(measurement.getInfo(), measurement.shouldFail());
+        Assert.assertEquals(RESIDENT, queue.size());
+
+        System.out.printf("%s: %d insert/remove pairs with %d resident elements in %d ms (throughput %.0f/s)%n",
+                name, numberOfCalls, RESIDENT, measurement.getTotalMillis(),
+                numberOfCalls / (measurement.getTotalMillis() / 1000.0));
+    }
+
+    private static class DummyReapable implements Reapable
+    {
+        private final Uid uid = new Uid();
+
+        public boolean running()
+        {
+            return true;
+        }
+
+        public boolean preventCommit()
+        {
+            return false;
+        }
+
+        public int cancel()
+        {
+            return ActionStatus.ABORTED;
+        }
+
+        public Uid get_uid()
+        {
+            return uid;
+        }
+    }
+}
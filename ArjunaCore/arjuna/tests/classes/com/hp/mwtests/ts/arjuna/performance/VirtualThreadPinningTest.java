@@ -0,0 +1,176 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.arjuna.ats.arjuna.AtomicAction;
+import com.arjuna.ats.arjuna.coordinator.ActionStatus;
+import com.arjuna.ats.arjuna.coordinator.TwoPhaseCommitThreadPool;
+import com.hp.mwtests.ts.arjuna.resources.BasicRecord;
+
+/**
+ * Runs transactions concurrently, each on its own virtual
+ * thread, in a separate JVM with -Djdk.tracePinnedThreads and fails if any
+ * of them blocked while pinned to its carrier thread. The participants are
+ * also driven on virtual threads and park briefly in each phase, as one
+ * waiting on a remote resource manager would, so any monitor held by the
+ * coordinator around them is reported. Every transaction also writes its log
+ * to the file system store.
+ *
+ * The test is skipped unless the forked JVM supports virtual threads. By
+ * default that is the JVM running the test, but a different one can be given
+ * with -Dpinning.java=/path/to/bin/java.
+ *
+ * By default only a few hundred transactions are run, which is enough to
+ * reach every blocking point in the coordinator. For a stress run, raise the
+ * number with -Dpinning.transactions, e.g. -Dpinning.transactions=100000.
+ */
+
+public class VirtualThreadPinningTest
+{
+    private static final String UNSUPPORTED = "UNSUPPORTED";
+    private static final String COMMITTED = "COMMITTED ";
+    private static final int DEFAULT_TRANSACTIONS = 500;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNoPinning() throws Exception
+    {
+        int transactions = Integer.getInteger("pinning.transactions", DEFAULT_TRANSACTIONS);
+        String java = System.getProperty("pinning.java",
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        File output = folder.newFile("pinning.out");
+
+        List<String> command = new ArrayList<>();
+
+        command.add(java);
+        command.add("-Djdk.tracePinnedThreads=full");
+        command.add("-DObjectStoreEnvironmentBean.objectStoreDir=" + folder.newFolder().getPath());
+        command.add("-DObjectStoreEnvironmentBean.objectStoreSync=false");
+        command.add("-DCoordinatorEnvironmentBean.twoPhaseCommitExecutor=" + TwoPhaseCommitThreadPool.VIRTUAL);
+        command.add("-DCoordinatorEnvironmentBean.asyncPrepare=true");
+        command.add("-DCoordinatorEnvironmentBean.parallelPhase2=true");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(VirtualThreadPinningTest.class.getName());
+        command.add(Integer.toString(transactions));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(output).start();
+
+        assertTrue("the forked JVM did not finish", process.waitFor(10, TimeUnit.MINUTES));
+
+        List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+
+        assumeFalse("virtual threads are not supported by " + java, lines.contains(UNSUPPORTED));
+
+        StringBuilder pinned = new StringBuilder();
+
+        for (String line : lines)
+        {
+            // the stack traces printed by -Djdk.tracePinnedThreads pass through onPinned and mark held monitors
+            if (line.contains("onPinned") || line.contains("<== monitors"))
+                pinned.append(line).append(System.lineSeparator());
+        }
+
+        assertEquals("virtual threads were pinned:" + System.lineSeparator() + pinned, 0, pinned.length());
+        assertEquals(String.join(System.lineSeparator(), lines), 0, process.exitValue());
+        assertTrue(lines.contains(COMMITTED + transactions));
+    }
+
+    /**
+     * Entry point of the forked JVM.
+     */
+
+    public static void main(String[] args) throws Exception
+    {
+        int transactions = Integer.parseInt(args[0]);
+        ExecutorService executor;
+
+        try
+        {
+            // the build targets a JDK without virtual threads so look the factory up reflectively
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (NoSuchMethodException e)
+        {
+            System.out.println(UNSUPPORTED);
+
+            return;
+        }
+
+        AtomicInteger committed = new AtomicInteger();
+
+        for (int i = 0; i < transactions; i++)
+        {
+            executor.execute(() -> {
+                AtomicAction A = new AtomicAction();
+
+                A.begin();
+
+                A.add(new ParkingRecord());
+                A.add(new ParkingRecord());
+
+                if (A.commit() == ActionStatus.COMMITTED)
+                    committed.incrementAndGet();
+            });
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+
+        System.out.println(COMMITTED + committed.get());
+        System.out.flush();
+
+        // the transaction system leaves non-daemon threads running
+        System.exit(0);
+    }
+
+    private static class ParkingRecord extends BasicRecord
+    {
+        public int topLevelPrepare()
+        {
+            park();
+
+            return super.topLevelPrepare();
+        }
+
+        public int topLevelCommit()
+        {
+            park();
+
+            return super.topLevelCommit();
+        }
+
+        private void park()
+        {
+            // a virtual thread unmounts while sleeping, which is reported if it is pinned
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.reaper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.common.arjPropertyManager;
+import com.arjuna.ats.arjuna.coordinator.Reapable;
+import com.arjuna.ats.arjuna.coordinator.TransactionReaper;
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElement;
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElementManager;
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElementQueue;
+import com.arjuna.ats.internal.arjuna.coordinator.TimingWheelReaperElementManager;
+
+/**
+ * Exercises the timing wheel reaper element manager, checking it orders elements
+ * in the same way as the original sorted list implementation.
+ */
+public class TimingWheelReaperTest
+{
+    @Test
+    public void testOrdering()
+    {
+        checkOrdering(new ReaperElementManager());
+        checkOrdering(new TimingWheelReaperElementManager());
+    }
+
+    @Test
+    public void testLongTimeouts()
+    {
+        // timeouts spread across level 0, level 1 and the overflow set
+        ReaperElementQueue queue = new TimingWheelReaperElementManager(1);
+        List<ReaperElement> elements = new ArrayList<ReaperElement>();
+
+        for (int delay : new int[] { 3600000, 5, 600, 2000, 1500000, 70000 }) {
+            ReaperElement reaperElement = new ReaperElement(new DummyReapable(), 10000);
+            queue.add(reaperElement);
+            queue.reorder(reaperElement, delay);
+            elements.add(reaperElement);
+        }
+
+        assertSame(elements.get(1), queue.getFirst());
+        queue.remove(elements.get(1));
+        assertSame(elements.get(2), queue.getFirst());
+        queue.remove(elements.get(2));
+        assertSame(elements.get(3), queue.getFirst());
+        queue.remove(elements.get(3));
+        assertSame(elements.get(5), queue.getFirst());
+        queue.remove(elements.get(5));
+        assertSame(elements.get(4), queue.getFirst());
+        queue.remove(elements.get(4));
+        assertSame(elements.get(0), queue.getFirst());
+        queue.remove(elements.get(0));
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.getFirst());
+    }
+
+    @Test
+    public void testExpiry() throws Exception
+    {
+        ReaperElementQueue queue = new TimingWheelReaperElementManager(1);
+        ReaperElement first = new ReaperElement(new DummyReapable(), 1);
+        ReaperElement second = new ReaperElement(new DummyReapable(), 1);
+
+        queue.add(first);
+        queue.add(second);
+        queue.reorder(first, 50);
+        queue.reorder(second, 1200);
+
+        Thread.sleep(100);
+
+        // the first element has been moved into the due set, the second is still in the wheel
+        ReaperElement head = queue.getFirst();
+        assertSame(first, head);
+        assertTrue(head.getNextCheckAbsoluteMillis() <= System.currentTimeMillis());
+
+        queue.remove(first);
+        assertSame(second, queue.getFirst());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testRemoveBeforeMigration()
+    {
+        ReaperElementQueue queue = new TimingWheelReaperElementManager();
+        ReaperElement reaperElement = new ReaperElement(new DummyReapable(), 60);
+
+        queue.add(reaperElement);
+        queue.remove(reaperElement);
+
+        assertNull(queue.getFirst());
+        assertTrue(queue.isEmpty());
+
+        // added again before the stale pending entry has been skipped
+        queue.add(reaperElement);
+        queue.remove(reaperElement);
+        queue.add(reaperElement);
+
+        assertSame(reaperElement, queue.getFirst());
+        assertEquals(1, queue.size());
+
+        queue.remove(reaperElement);
+        assertNull(queue.getFirst());
+    }
+
+    @Test
+    public void testFirstOfManyInOneBucket()
+    {
+        // a level 1 bucket covers 1024 ticks, so these all share one
+        ReaperElementQueue queue = new TimingWheelReaperElementManager(10);
+        List<ReaperElement> elements = new ArrayList<ReaperElement>();
+
+        for (int i = 0; i < 200; i++) {
+            ReaperElement reaperElement = new ReaperElement(new DummyReapable(), 100);
+            queue.add(reaperElement);
+            queue.reorder(reaperElement, 30000 + ((i * 37) % 200) * 10);
+            elements.add(reaperElement);
+        }
+
+        elements.sort(null);
+
+        for (ReaperElement reaperElement : elements) {
+            assertSame(reaperElement, queue.getFirst());
+            queue.remove(reaperElement);
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testReaper() throws Exception
+    {
+        arjPropertyManager.getCoordinatorEnvironmentBean().setTxReaperMode(TransactionReaper.TIMING_WHEEL);
+
+        TransactionReaper reaper = TransactionReaper.transactionReaper();
+        DummyReapable timesOut = new DummyReapable();
+        DummyReapable completes = new DummyReapable();
+
+        reaper.insert(timesOut, 1);
+        reaper.insert(completes, 1);
+        assertEquals(2, reaper.numberOfTransactions());
+
+        reaper.remove(completes);
+
+        Thread.sleep(1500);
+
+        assertTrue(timesOut.cancelled);
+        assertFalse(completes.cancelled);
+        assertEquals(0, reaper.numberOfTransactions());
+
+        TransactionReaper.terminate(false);
+    }
+
+    private void checkOrdering(ReaperElementQueue queue)
+    {
+        ReaperElement first = new ReaperElement(new DummyReapable(), 10);
+        ReaperElement second = new ReaperElement(new DummyReapable(), 20);
+        ReaperElement third = new ReaperElement(new DummyReapable(), 30);
+
+        assertTrue(queue.isEmpty());
+
+        queue.add(third);
+        queue.add(first);
+        queue.add(second);
+
+        assertEquals(3, queue.size());
+        assertSame(first, queue.getFirst());
+
+        // push the first element to the back
+        long next = queue.reorder(first, 40000);
+        assertEquals(second.getNextCheckAbsoluteMillis(), next);
+        assertSame(second, queue.getFirst());
+
+        queue.remove(second);
+        assertSame(third, queue.getFirst());
+        assertEquals(2, queue.size());
+
+        queue.remove(third);
+        assertSame(first, queue.getFirst());
+
+        queue.setAllTimeoutsToZero();
+        assertEquals(0, queue.getFirst().getNextCheckAbsoluteMillis());
+    }
+
+    private static class DummyReapable implements Reapable
+    {
+        private final Uid uid = new Uid();
+        volatile boolean cancelled;
+
+        public boolean running()
+        {
+            return true;
+        }
+
+        public boolean preventCommit()
+        {
+            return false;
+        }
+
+        public int cancel()
+        {
+            cancelled = true;
+            return com.arjuna.ats.arjuna.coordinator.ActionStatus.ABORTED;
+        }
+
+        public Uid get_uid()
+        {
+            return uid;
+        }
+    }
+}
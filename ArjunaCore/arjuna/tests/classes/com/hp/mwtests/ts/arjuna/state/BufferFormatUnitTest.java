@@ -0,0 +1,318 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.arjuna.state;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.state.ByteBufferInput;
+import com.arjuna.ats.arjuna.state.ByteBufferOutput;
+import com.arjuna.ats.arjuna.state.InputBuffer;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputBuffer;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.common.UidHelper;
+
+/**
+ * Check that the ByteBuffer variants used by the object stores produce and
+ * read exactly the format of OutputBuffer and InputBuffer, so states can be
+ * passed between them and existing logs remain readable.
+ */
+public class BufferFormatUnitTest
+{
+    @Test
+    public void testFormat() throws Exception
+    {
+        OutputBuffer obuff = new OutputBuffer(4);
+
+        obuff.packBoolean(true);
+        obuff.packByte((byte) -3);
+        obuff.packChar('z');
+        obuff.packShort((short) -2);
+        obuff.packInt(Integer.MIN_VALUE);
+        obuff.packLong(0x0102030405060708L);
+        obuff.packFloat(Float.NaN);
+        obuff.packDouble(-1.5);
+        obuff.packString("héllo");
+        obuff.packString(null);
+        obuff.packString("");
+        obuff.packBytes(new byte[] { 1, 2, 3, 4, 5 });
+        obuff.packBytes(new byte[0]);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(expected);
+
+        output.writeBytes("#BE");
+        output.writeBoolean(true);
+        output.writeByte(16);
+        output.writeByte(32);
+        output.writeByte(64);
+        output.writeByte(0);
+        output.write(new byte[] { 0, 0, 0 });
+        output.writeBoolean(true);
+        output.writeInt(-3);
+        output.writeInt('z');
+        output.writeInt(-2);
+        output.writeInt(Integer.MIN_VALUE);
+        output.writeLong(0x0102030405060708L);
+        output.writeFloat(Float.NaN);
+        output.writeDouble(-1.5);
+        byte[] str = "héllo".getBytes(StandardCharsets.UTF_8);
+        output.writeInt(str.length + 1);
+        output.write(str);
+        output.writeByte(0);
+        output.write(new byte[(4 - (str.length + 1) % 4) % 4]);
+        output.writeInt(0);
+        output.writeInt(1);
+        output.writeByte(0);
+        output.write(new byte[3]);
+        output.writeInt(5);
+        output.write(new byte[] { 1, 2, 3, 4, 5, 0, 0, 0 });
+        output.writeInt(0);
+        output.flush();
+
+        assertArrayEquals(expected.toByteArray(), obuff.buffer());
+        assertEquals(expected.size(), obuff.length());
+
+        ByteBuffer view = obuff.asByteBuffer();
+
+        assertTrue(view.isReadOnly());
+        assertEquals(obuff.length(), view.remaining());
+        assertEquals(ByteBuffer.wrap(obuff.buffer()), view);
+    }
+
+    @Test
+    public void testByteBufferOutputMatchesOutputBuffer() throws Exception
+    {
+        OutputBuffer obuff = new OutputBuffer();
+        ByteBufferOutput bbuff = new ByteBufferOutput(4);
+
+        packAll(obuff);
+        packAll(bbuff);
+
+        assertArrayEquals(obuff.buffer(), bbuff.buffer());
+        assertEquals(obuff.length(), bbuff.length());
+
+        ByteBuffer view = bbuff.asByteBuffer();
+
+        assertTrue(view.isReadOnly());
+        assertEquals(bbuff.length(), view.remaining());
+        assertEquals(obuff.asByteBuffer(), view);
+
+        // both start again from just the header
+
+        obuff.reset();
+        bbuff.reset();
+
+        assertArrayEquals(obuff.buffer(), bbuff.buffer());
+    }
+
+    @Test
+    public void testUnpackEitherWay() throws Exception
+    {
+        OutputBuffer obuff = new OutputBuffer();
+        ByteBufferOutput bbuff = new ByteBufferOutput();
+
+        packAll(obuff);
+        packAll(bbuff);
+
+        checkAll(new ByteBufferInput(obuff.buffer()));
+        checkAll(new ByteBufferInput(obuff.asByteBuffer()));
+        checkAll(new InputBuffer(bbuff.buffer()));
+
+        InputObjectState state = new InputObjectState(new Uid(), "Type", bbuff.buffer());
+
+        checkAll(state);
+    }
+
+    @Test
+    public void testUidList() throws Exception
+    {
+        Uid[] uids = { new Uid(), new Uid(), Uid.nullUid() };
+        OutputObjectState ostate = new OutputObjectState();
+        ByteBufferOutput bbuff = new ByteBufferOutput();
+
+        for (Uid uid : uids)
+        {
+            UidHelper.packInto(uid, ostate);
+            UidHelper.packInto(uid, bbuff);
+        }
+
+        assertArrayEquals(ostate.buffer(), bbuff.buffer());
+
+        InputObjectState istate = new InputObjectState();
+
+        istate.setBuffer(bbuff.buffer());
+
+        ByteBufferInput bin = new ByteBufferInput(ostate.buffer());
+
+        for (Uid uid : uids)
+        {
+            assertEquals(uid, UidHelper.unpackFrom(istate));
+            assertEquals(uid, UidHelper.unpackFrom(bin));
+        }
+    }
+
+    @Test
+    public void testNestedView() throws Exception
+    {
+        OutputObjectState inner = new OutputObjectState(new Uid(), "Inner");
+
+        for (int i = 0; i < 100; i++)
+            inner.packInt(i);
+
+        OutputObjectState outer = new OutputObjectState(new Uid(), "Outer");
+
+        outer.packString("before");
+        inner.packInto(outer);
+        outer.packString("after");
+
+        // reach the nested state in place, without copying the outer buffer
+
+        ByteBufferInput in = new ByteBufferInput(outer.asByteBuffer());
+
+        assertEquals(outer.length(), in.length());
+        assertEquals("before", in.unpackString());
+        assertEquals("Inner", in.unpackString());
+        assertEquals(inner.stateUid(), UidHelper.unpackFrom(in));
+
+        ByteBuffer nested = in.unpackBuffer();
+
+        assertTrue(nested.isReadOnly());
+        assertEquals(ByteBuffer.wrap(inner.buffer()), nested);
+        assertEquals("after", in.unpackString());
+
+        ByteBufferInput nestedIn = new ByteBufferInput(nested);
+
+        for (int i = 0; i < 100; i++)
+            assertEquals(i, nestedIn.unpackInt());
+
+        nestedIn.reread();
+
+        assertEquals(0, nestedIn.unpackInt());
+    }
+
+    @Test
+    public void testTruncated() throws Exception
+    {
+        ByteBufferOutput bbuff = new ByteBufferOutput();
+
+        bbuff.packString("truncated");
+        bbuff.packLong(1);
+
+        byte[] data = bbuff.buffer();
+
+        ByteBufferInput in = new ByteBufferInput(Arrays.copyOf(data, data.length - 4));
+
+        assertEquals("truncated", in.unpackString());
+
+        try {
+            in.unpackLong();
+            fail();
+        } catch (EOFException e) {
+        }
+
+        in = new ByteBufferInput(Arrays.copyOf(data, 16));
+
+        try {
+            in.unpackString();
+            fail();
+        } catch (EOFException e) {
+        }
+    }
+
+    private static void packAll(OutputBuffer buff) throws IOException
+    {
+        buff.packBoolean(true);
+        buff.packByte((byte) -3);
+        buff.packChar('z');
+        buff.packShort((short) -2);
+        buff.packInt(Integer.MIN_VALUE);
+        buff.packLong(0x0102030405060708L);
+        buff.packFloat(Float.NaN);
+        buff.packDouble(-1.5);
+        buff.packString("héllo");
+        buff.packString(null);
+        buff.packString("");
+        buff.packBytes(new byte[] { 1, 2, 3, 4, 5 });
+        buff.packBytes(new byte[0]);
+        buff.packBoolean(false);
+    }
+
+    private static void packAll(ByteBufferOutput buff) throws IOException
+    {
+        buff.packBoolean(true);
+        buff.packByte((byte) -3);
+        buff.packChar('z');
+        buff.packShort((short) -2);
+        buff.packInt(Integer.MIN_VALUE);
+        buff.packLong(0x0102030405060708L);
+        buff.packFloat(Float.NaN);
+        buff.packDouble(-1.5);
+        buff.packString("héllo");
+        buff.packString(null);
+        buff.packString("");
+        buff.packBytes(new byte[] { 1, 2, 3, 4, 5 });
+        buff.packBytes(new byte[0]);
+        buff.packBoolean(false);
+    }
+
+    private static void checkAll(InputBuffer buff) throws IOException
+    {
+        assertTrue(buff.unpackBoolean());
+        assertEquals((byte) -3, buff.unpackByte());
+        assertEquals('z', buff.unpackChar());
+        assertEquals((short) -2, buff.unpackShort());
+        assertEquals(Integer.MIN_VALUE, buff.unpackInt());
+        assertEquals(0x0102030405060708L, buff.unpackLong());
+        assertTrue(Float.isNaN(buff.unpackFloat()));
+        assertTrue(buff.unpackDouble() == -1.5);
+        assertEquals("héllo", buff.unpackString());
+        assertNull(buff.unpackString());
+        assertEquals("", buff.unpackString());
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, buff.unpackBytes());
+        assertEquals(0, buff.unpackBytes().length);
+        assertTrue(!buff.unpackBoolean());
+    }
+
+    private static void checkAll(ByteBufferInput buff) throws IOException
+    {
+        assertTrue(buff.unpackBoolean());
+        assertEquals((byte) -3, buff.unpackByte());
+        assertEquals('z', buff.unpackChar());
+        assertEquals((short) -2, buff.unpackShort());
+        assertEquals(Integer.MIN_VALUE, buff.unpackInt());
+        assertEquals(0x0102030405060708L, buff.unpackLong());
+        assertTrue(Float.isNaN(buff.unpackFloat()));
+        assertTrue(buff.unpackDouble() == -1.5);
+        assertEquals("héllo", buff.unpackString());
+        assertNull(buff.unpackString());
+        assertEquals("", buff.unpackString());
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, buff.unpackBytes());
+        assertEquals(0, buff.unpackBytes().length);
+        assertTrue(!buff.unpackBoolean());
+
+        try {
+            buff.unpackInt();
+            fail();
+        } catch (EOFException e) {
+        }
+    }
+}
@@ -14,11 +14,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.junit.Test;
 
 import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.exceptions.FatalError;
+import com.arjuna.ats.arjuna.utils.Utility;
 
 public class UidUnitTest
 {
@@ -134,4 +137,56 @@ public class UidUnitTest
         assertTrue(maxUid.greaterThan(minUid));
         assertTrue(maxUid.greaterThan(uid));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBinaryForm () throws Exception
+    {
+        Uid u = new Uid();
+        byte[] key = new byte[Uid.UID_SIZE + 3];
+
+        u.writeTo(key, 3);
+
+        assertTrue(Arrays.equals(u.getBytes(), Arrays.copyOfRange(key, 3, key.length)));
+        assertTrue(u.equals(Uid.readFrom(key, 3)));
+        assertTrue(u.equals(new Uid(u.getBytes())));
+
+        ByteBuffer buffer = ByteBuffer.allocate(Uid.UID_SIZE);
+
+        Uid.minUid().writeTo(buffer);
+        buffer.flip();
+
+        assertTrue(Uid.minUid().equals(Uid.readFrom(buffer)));
+        assertTrue(Uid.maxUid().equals(new Uid(Uid.maxUid().getBytes())));
+
+        try
+        {
+            Uid.readFrom(key, 4);
+
+            fail();
+        }
+        catch (final IllegalArgumentException ex)
+        {
+        }
+    }
+
+    @Test
+    public void testStringForms () throws Exception
+    {
+        Uid u = new Uid();
+        String[] parts = u.stringForm().split(":");
+
+        assertEquals(5, parts.length);
+        assertEquals(Utility.longToHexString(Utility.hostInetAddr()[0]), parts[0]);
+        assertEquals(Utility.intToHexString(Utility.getpid()), parts[2]);
+        assertEquals(u.stringForm().replace(':', '_'), u.fileStringForm());
+        assertTrue(u.equals(new Uid(u.stringForm())));
+        assertTrue(u.equals(new Uid(u.fileStringForm())));
+
+        Uid copy = new Uid(u.getBytes());
+
+        assertEquals(u.stringForm(), copy.stringForm());
+        assertEquals(u.fileStringForm(), copy.fileStringForm());
+        assertEquals("-8000000000000000_-8000000000000000_-80000000_-80000000_-80000000",
+                Uid.minUid().fileStringForm());
+    }
+}
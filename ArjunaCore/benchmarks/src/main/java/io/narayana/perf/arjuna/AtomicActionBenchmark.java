@@ -0,0 +1,84 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arjuna.ats.arjuna.AtomicAction;
+import com.arjuna.ats.arjuna.coordinator.ActionStatus;
+
+/**
+ * Begin and complete a top level AtomicAction with a varying number of participants. With no
+ * participants nothing is written, with one the one phase optimisation is used and with more
+ * the intentions list is written to the default object store (ShadowNoFileLockStore).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AtomicActionBenchmark {
+    @Param({"0", "1", "2", "8"})
+    public int participants;
+
+    private Path storeDir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        storeDir = BenchmarkSupport.useTemporaryObjectStore();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.delete(storeDir);
+    }
+
+    @Benchmark
+    public int beginCommit() {
+        AtomicAction action = begin();
+        int status = action.commit();
+
+        if (status != ActionStatus.COMMITTED) {
+            throw new IllegalStateException("Commit failed: " + ActionStatus.stringForm(status));
+        }
+
+        return status;
+    }
+
+    @Benchmark
+    public int beginAbort() {
+        return begin().abort();
+    }
+
+    private AtomicAction begin() {
+        AtomicAction action = new AtomicAction();
+
+        action.begin();
+
+        for (int i = 0; i < participants; i++) {
+            action.add(new BenchmarkRecord());
+        }
+
+        return action;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.coordinator.AbstractRecord;
+import com.arjuna.ats.arjuna.coordinator.RecordType;
+import com.arjuna.ats.arjuna.coordinator.TwoPhaseOutcome;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+
+/**
+ * A participant which votes to commit and does no work of its own, so that a benchmark
+ * measures only the cost of the coordinator (including writing its log when there is
+ * more than one participant).
+ */
+public class BenchmarkRecord extends AbstractRecord {
+    public BenchmarkRecord() {
+        this(new Uid());
+    }
+
+    public BenchmarkRecord(Uid order) {
+        super(order);
+    }
+
+    @Override
+    public int typeIs() {
+        return RecordType.USER_DEF_FIRST0;
+    }
+
+    @Override
+    public Object value() {
+        return null;
+    }
+
+    @Override
+    public void setValue(Object o) {
+    }
+
+    @Override
+    public int nestedAbort() {
+        return TwoPhaseOutcome.FINISH_OK;
+    }
+
+    @Override
+    public int nestedCommit() {
+        return TwoPhaseOutcome.FINISH_OK;
+    }
+
+    @Override
+    public int nestedPrepare() {
+        return TwoPhaseOutcome.PREPARE_OK;
+    }
+
+    @Override
+    public int topLevelAbort() {
+        return TwoPhaseOutcome.FINISH_OK;
+    }
+
+    @Override
+    public int topLevelCommit() {
+        return TwoPhaseOutcome.FINISH_OK;
+    }
+
+    @Override
+    public int topLevelPrepare() {
+        return TwoPhaseOutcome.PREPARE_OK;
+    }
+
+    @Override
+    public boolean doSave() {
+        return true;
+    }
+
+    @Override
+    public boolean save_state(OutputObjectState os, int ot) {
+        return true;
+    }
+
+    @Override
+    public boolean restore_state(InputObjectState os, int ot) {
+        return true;
+    }
+
+    @Override
+    public String type() {
+        return "/StateManager/AbstractRecord/BenchmarkRecord";
+    }
+
+    @Override
+    public void merge(AbstractRecord a) {
+    }
+
+    @Override
+    public void alter(AbstractRecord a) {
+    }
+
+    @Override
+    public boolean shouldAdd(AbstractRecord a) {
+        return false;
+    }
+
+    @Override
+    public boolean shouldAlter(AbstractRecord a) {
+        return false;
+    }
+
+    @Override
+    public boolean shouldMerge(AbstractRecord a) {
+        return false;
+    }
+
+    @Override
+    public boolean shouldReplace(AbstractRecord a) {
+        return false;
+    }
+
+    @Override
+    public boolean isOrderScoped() {
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import io.narayana.perf.RegressionChecker;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line options and always writes the results as
+ * JSON (to jmh-result.json unless -rff is given). If the performanceprofilestore.dir system
+ * property is set the results are then compared against the metrics stored there by
+ * {@link RegressionChecker}, and the run fails if there was a regression and
+ * io.narayana.perf.failonregression is true.
+ *
+ * For example: java -Dperformanceprofilestore.dir=... -jar target/benchmarks.jar ObjectStoreBenchmark
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        String resultFile = cmd.getResult().orElse("jmh-result.json");
+        Options options = new OptionsBuilder()
+                .parent(cmd)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build();
+
+        new Runner(options).run();
+
+        if (System.getProperty(RegressionChecker.BASE_DIRECTORY_PROPERTY) != null) {
+            RegressionChecker checker = new RegressionChecker();
+            StringBuilder info = new StringBuilder();
+            boolean passed = checker.checkJMHResults(resultFile, info);
+
+            System.out.print(info);
+
+            if (!passed && checker.isFailOnRegression()) {
+                System.exit(1);
+            }
+        }
+    }
+}
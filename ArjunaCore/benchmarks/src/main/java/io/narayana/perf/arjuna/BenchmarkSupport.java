@@ -0,0 +1,55 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import com.arjuna.ats.arjuna.common.arjPropertyManager;
+
+/**
+ * Helpers shared by the benchmarks. Each JMH fork is a new JVM so the default configuration
+ * can be changed before the transaction system is first used.
+ */
+final class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    static Path createStoreDirectory(String prefix) throws IOException {
+        String parent = System.getProperty("benchmark.store.dir");
+
+        if (parent != null) {
+            return Files.createTempDirectory(Files.createDirectories(new File(parent).toPath()), prefix);
+        }
+
+        return Files.createTempDirectory(prefix);
+    }
+
+    /**
+     * Point the default object store at a new, empty, directory
+     */
+    static Path useTemporaryObjectStore() throws IOException {
+        Path dir = createStoreDirectory("ObjectStore");
+
+        arjPropertyManager.getObjectStoreEnvironmentBean().setObjectStoreDir(dir.toString());
+
+        return dir;
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
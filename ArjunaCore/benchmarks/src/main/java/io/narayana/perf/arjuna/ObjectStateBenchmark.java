@@ -0,0 +1,84 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.common.UidHelper;
+
+/**
+ * Pack and unpack the kind of state that records save into a transaction log: a Uid, a type
+ * name, a few primitives and an opaque payload of the given size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectStateBenchmark {
+    private static final String TYPE = "/StateManager/AbstractRecord/BenchmarkRecord";
+
+    @Param({"64", "1024", "16384"})
+    public int payloadSize;
+
+    private Uid uid;
+    private byte[] payload;
+    private InputObjectState packed;
+
+    @Setup
+    public void setup() throws IOException {
+        uid = new Uid();
+        payload = new byte[payloadSize];
+
+        ThreadLocalRandom.current().nextBytes(payload);
+
+        packed = new InputObjectState(pack());
+    }
+
+    @Benchmark
+    public OutputObjectState pack() throws IOException {
+        OutputObjectState os = new OutputObjectState();
+
+        UidHelper.packInto(uid, os);
+        os.packString(TYPE);
+        os.packInt(payloadSize);
+        os.packLong(System.identityHashCode(os));
+        os.packBoolean(true);
+        os.packBytes(payload);
+
+        return os;
+    }
+
+    @Benchmark
+    public byte[] unpack() throws IOException {
+        InputObjectState is = new InputObjectState(packed);
+        UidHelper.unpackFrom(is);
+        is.unpackString();
+        is.unpackInt();
+        is.unpackLong();
+        is.unpackBoolean();
+
+        return is.unpackBytes();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arjuna.ats.arjuna.common.ObjectStoreEnvironmentBean;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.objectstore.ObjectStoreAPI;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.objectstore.LogStore;
+import com.arjuna.ats.internal.arjuna.objectstore.ShadowNoFileLockStore;
+import com.arjuna.ats.internal.arjuna.objectstore.hornetq.HornetqJournalEnvironmentBean;
+import com.arjuna.ats.internal.arjuna.objectstore.hornetq.HornetqObjectStoreAdaptor;
+import com.arjuna.ats.internal.arjuna.objectstore.jdbc.JDBCStore;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.SlotStore;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.SlotStoreAdaptor;
+import com.arjuna.ats.internal.arjuna.objectstore.slot.SlotStoreEnvironmentBean;
+
+/**
+ * Write and remove a transaction log, and read one back, using each of the object store
+ * implementations in their default (synchronous) configuration. The JDBCStore runs against an
+ * embedded H2 database in the same directory as the other stores.
+ *
+ * Set -Dbenchmark.store.dir to choose the file system the stores are created on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ObjectStoreBenchmark {
+    private static final String TYPE = "/StateManager/BasicAction/TwoPhaseCoordinator/AtomicAction/Benchmark";
+
+    @Param({"ShadowNoFileLockStore", "LogStore", "HornetqJournalStore", "SlotStore", "JDBCStore"})
+    public String store;
+
+    @Param({"512"})
+    public int stateSize;
+
+    private Path storeDir;
+    private ObjectStoreAPI objectStore;
+    private OutputObjectState state;
+    private Uid readUid;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        byte[] payload = new byte[stateSize];
+
+        ThreadLocalRandom.current().nextBytes(payload);
+
+        storeDir = BenchmarkSupport.createStoreDirectory(store);
+        objectStore = createStore(store, storeDir);
+        objectStore.start();
+
+        state = new OutputObjectState();
+        state.packBytes(payload);
+
+        readUid = new Uid();
+
+        if (!objectStore.write_committed(readUid, TYPE, state)) {
+            throw new IllegalStateException(store + ": write_committed failed during setup");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        objectStore.remove_committed(readUid, TYPE);
+        objectStore.stop();
+
+        BenchmarkSupport.delete(storeDir);
+    }
+
+    @Benchmark
+    public boolean writeRemove() throws Exception {
+        Uid uid = new Uid();
+
+        if (!objectStore.write_committed(uid, TYPE, state)) {
+            throw new IllegalStateException(store + ": write_committed failed");
+        }
+
+        return objectStore.remove_committed(uid, TYPE);
+    }
+
+    @Benchmark
+    public InputObjectState read() throws Exception {
+        return objectStore.read_committed(readUid, TYPE);
+    }
+
+    private static ObjectStoreAPI createStore(String store, Path dir) throws Exception {
+        switch (store) {
+            case "ShadowNoFileLockStore": {
+                ObjectStoreEnvironmentBean config = new ObjectStoreEnvironmentBean();
+
+                config.setObjectStoreDir(dir.toString());
+
+                return new ShadowNoFileLockStore(config);
+            }
+            case "LogStore": {
+                ObjectStoreEnvironmentBean config = new ObjectStoreEnvironmentBean();
+
+                config.setObjectStoreDir(dir.toString());
+
+                return new LogStore(config);
+            }
+            case "HornetqJournalStore": {
+                HornetqJournalEnvironmentBean config = new HornetqJournalEnvironmentBean();
+
+                config.setStoreDir(dir.toString());
+
+                return new HornetqObjectStoreAdaptor(config);
+            }
+            case "SlotStore": {
+                SlotStoreEnvironmentBean config = new SlotStoreEnvironmentBean();
+
+                config.setStoreDir(dir.toString());
+                config.setBackingSlotsClassName(System.getProperty("benchmark.slots",
+                        "com.arjuna.ats.internal.arjuna.objectstore.slot.DiskSlots"));
+
+                return new SlotStoreAdaptor(new SlotStore(config));
+            }
+            case "JDBCStore": {
+                ObjectStoreEnvironmentBean config = new ObjectStoreEnvironmentBean();
+
+                config.setJdbcAccess("com.arjuna.ats.internal.arjuna.objectstore.jdbc.accessors.DynamicDataSourceJDBCAccess"
+                        + ";ClassName=org.h2.jdbcx.JdbcDataSource;URL=jdbc:h2:" + dir.resolve("h2") + ";User=sa;Password=sa");
+                config.setTablePrefix("Benchmark");
+                config.setDropTable(true);
+
+                return new JDBCStore(config);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown store " + store);
+        }
+    }
+}
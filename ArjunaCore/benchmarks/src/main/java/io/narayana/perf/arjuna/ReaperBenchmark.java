@@ -0,0 +1,112 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.common.arjPropertyManager;
+import com.arjuna.ats.arjuna.coordinator.ActionStatus;
+import com.arjuna.ats.arjuna.coordinator.Reapable;
+import com.arjuna.ats.arjuna.coordinator.TransactionReaper;
+
+/**
+ * Insert a transaction into the reaper and remove it again, which happens for every transaction
+ * that has a timeout, while the reaper already holds a number of resident transactions. The
+ * timeouts are long enough that nothing is ever reaped during a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class ReaperBenchmark {
+    private static final int TIMEOUT = 3600;
+
+    @Param({"DYNAMIC", "TIMING_WHEEL"})
+    public String mode;
+
+    @Param({"0", "10000"})
+    public int resident;
+
+    private TransactionReaper reaper;
+    private Reapable[] residents;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        arjPropertyManager.getCoordinatorEnvironmentBean().setTxReaperMode(mode);
+
+        reaper = TransactionReaper.transactionReaper();
+        residents = new Reapable[resident];
+
+        for (int i = 0; i < resident; i++) {
+            residents[i] = new BenchmarkReapable();
+            // spread the residents out so that they do not all share one deadline
+            reaper.insert(residents[i], TIMEOUT + (i % 600));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (Reapable r : residents) {
+            reaper.remove(r);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Transaction {
+        final Reapable reapable = new BenchmarkReapable();
+    }
+
+    @Benchmark
+    public Reapable insertRemove(Transaction tx) {
+        reaper.insert(tx.reapable, TIMEOUT);
+        reaper.remove(tx.reapable);
+
+        return tx.reapable;
+    }
+
+    static class BenchmarkReapable implements Reapable {
+        private final Uid uid = new Uid();
+
+        @Override
+        public boolean running() {
+            return true;
+        }
+
+        @Override
+        public boolean preventCommit() {
+            return true;
+        }
+
+        @Override
+        public int cancel() {
+            return ActionStatus.ABORTED;
+        }
+
+        @Override
+        public Uid get_uid() {
+            return uid;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElement;
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElementManager;
+import com.arjuna.ats.internal.arjuna.coordinator.ReaperElementQueue;
+import com.arjuna.ats.internal.arjuna.coordinator.TimingWheelReaperElementManager;
+
+/**
+ * Churn the reaper's element queue directly while it holds a number of resident elements with
+ * typical timeouts of a minute or more. Each operation adds an element, looks up the first element
+ * as the reaper does each time it wakes, which migrates the new element into the queue, and then
+ * removes it again as happens when the transaction completes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(1)
+public class ReaperElementQueueBenchmark {
+    private static final int TIMEOUT = 60;
+
+    @Param({"SORTED", "TIMING_WHEEL"})
+    public String queue;
+
+    @Param({"0", "10000", "100000"})
+    public int resident;
+
+    private ReaperElementQueue elements;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        elements = "SORTED".equals(queue) ? new ReaperElementManager() : new TimingWheelReaperElementManager();
+
+        for (int i = 0; i < resident; i++) {
+            // spread the residents over ten minutes so that they fill many buckets
+            elements.add(new ReaperElement(new ReaperBenchmark.BenchmarkReapable(), TIMEOUT + (i % 600)));
+        }
+
+        elements.getFirst();
+    }
+
+    @State(Scope.Thread)
+    public static class Transaction {
+        final ReaperElement element = new ReaperElement(new ReaperBenchmark.BenchmarkReapable(), TIMEOUT);
+    }
+
+    @Benchmark
+    public ReaperElement addGetFirstRemove(Transaction tx) {
+        elements.add(tx.element);
+
+        ReaperElement first = elements.getFirst();
+
+        elements.remove(tx.element);
+
+        return first;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.coordinator.RecordList;
+
+/**
+ * The cost of building the intentions list of a transaction with a varying number of
+ * participants, one record per object. Participants are usually created during the transaction
+ * and so arrive in ascending Uid order; shuffled is a transaction which touches objects created
+ * earlier in no particular order. insertTwice then offers an equal record for every object, as
+ * when each is used a second time, which leaves the list as it was.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordListBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int records;
+
+    @Param({"ascending", "shuffled"})
+    public String order;
+
+    private BenchmarkRecord[] participants;
+    private BenchmarkRecord[] again;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Uid> uids = new ArrayList<>(records);
+
+        for (int i = 0; i < records; i++) {
+            uids.add(new Uid());
+        }
+
+        if ("shuffled".equals(order)) {
+            Collections.shuffle(uids, new Random(1));
+        }
+
+        participants = new BenchmarkRecord[records];
+        again = new BenchmarkRecord[records];
+
+        for (int i = 0; i < records; i++) {
+            participants[i] = new BenchmarkRecord(uids.get(i));
+            again[i] = new BenchmarkRecord(uids.get(i));
+        }
+    }
+
+    @Benchmark
+    public int insert() {
+        RecordList list = new RecordList();
+
+        for (BenchmarkRecord participant : participants) {
+            list.insert(participant);
+        }
+
+        return list.size();
+    }
+
+    @Benchmark
+    public int insertTwice() {
+        RecordList list = new RecordList();
+
+        for (BenchmarkRecord participant : participants) {
+            list.insert(participant);
+        }
+
+        for (BenchmarkRecord participant : again) {
+            list.insert(participant);
+        }
+
+        return list.size();
+    }
+}
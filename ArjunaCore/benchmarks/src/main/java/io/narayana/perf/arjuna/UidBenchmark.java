@@ -0,0 +1,68 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf.arjuna;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arjuna.ats.arjuna.common.Uid;
+
+/**
+ * The cost of creating Uids and converting them to and from their string and byte forms, all of
+ * which happen several times for every transaction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UidBenchmark {
+    private final Uid uid = new Uid();
+    private final String stringForm = uid.stringForm();
+    private final byte[] byteForm = uid.getBytes();
+
+    @Benchmark
+    public Uid create() {
+        return new Uid();
+    }
+
+    @Benchmark
+    public String toStringForm() {
+        return new Uid(uid).stringForm();
+    }
+
+    @Benchmark
+    public Uid fromStringForm() {
+        return new Uid(stringForm);
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return new Uid(uid).getBytes();
+    }
+
+    @Benchmark
+    public Uid fromBytes() {
+        return new Uid(byteForm);
+    }
+
+    @Benchmark
+    public int hashAndCompare() {
+        Uid copy = new Uid(uid);
+
+        return copy.equals(uid) ? copy.hashCode() : 0;
+    }
+}
@@ -7,19 +7,19 @@
 
 package com.arjuna.ats.internal.txoj;
 
-import java.util.Calendar;
-import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
-import com.arjuna.ats.txoj.LockManager;
+import com.arjuna.ats.internal.txoj.lockstore.LockTable;
 
 /**
  * An instance of this class is used to determine what to do in the event of a
- * lock conflict for a given object. If the timeout and retry values are >=0
- * then we use them to sleep the thread which tried to get the lock. If the
- * retry value is -100 (LockManager.waitTotalTimeout) then the thread will block
- * for up to the total timeout and be signaled either when the timeout occurs,
- * or when the lock is actually released.
+ * lock conflict for a given object. The thread which tried to get the lock is
+ * blocked for up to the timeout and is signaled either when the timeout occurs,
+ * or when a lock is actually released. If the timeout and retry values are >=0
+ * then the attempt is retried up to retry times. If the retry value is -100
+ * (LockManager.waitTotalTimeout) then the thread keeps trying for up to the
+ * total timeout.
  */
 
 public class LockConflictManager
@@ -31,64 +31,65 @@ public class LockConflictManager
     }
 
     /**
-     * Wait for the specified timeout (in milliseconds) and retry. We may either sleep the thread,
-     * or block it on a mutex. Returns the time taken to wait.
+     * Wait for the specified timeout (in milliseconds) and retry. The thread
+     * blocks until either the timeout expires or it is signalled that a lock
+     * has been released. Returns the time taken to wait.
      */
 
     /*
      * Sometimes we must sleep when holding the LockManager mutex. In those situations
      * we really want to release the mutex, sleep, and then re-acquire it
-     * so that other threads can make progress.
+     * so that other threads can make progress, in particular so that the thread
+     * which holds the conflicting lock can release it and wake us up.
+     *
+     * The mutex is released inside the monitor so that a signal sent by a thread
+     * which acquires it in the meantime cannot be missed.
      *
      * This routine *must* only be called after having acquired the mutex!
      */
     
     public int wait (int retry, int waitTime)
     {
-        /*
-         * Release the mutex on the LockManager instance.
-         */
-        
-        boolean lock = false;
-        
-        if (_instance.isHeldByCurrentThread())
-        {
-            _instance.unlock();
-            lock = true;
-        }
-            
-        Date d1 = Calendar.getInstance().getTime();
-        
-        if (retry == LockManager.waitTotalTimeout)
+        long start = System.nanoTime();
+        boolean lock;
+
+        synchronized (_lock)
         {
+            lock = release();
+
             try
             {
-                Thread.sleep(waitTime);
+                _lock.wait(waitTime);
             }
-            catch (final Throwable ex)
+            catch (InterruptedException e)
             {
             }
         }
-        else
-        {
-            synchronized (_lock)
-            {
-                try
-                {
-                    _lock.wait(waitTime);
-                }
-                catch (InterruptedException e)
-                {
-                }
-            }
-        }
 
-        Date d2 = Calendar.getInstance().getTime();
-        
         if (lock)
             _instance.lock();
 
-        return (int) (d2.getTime() - d1.getTime());
+        return (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Wait for up to the specified timeout (in milliseconds) for a lock to be
+     * released on an object whose locks are held in the in-VM lock table.
+     * Returns immediately if a lock has been released since releaseCount was
+     * read from the entry. Returns the time taken to wait.
+     */
+
+    public int wait (LockTable.Entry entry, long releaseCount, int waitTime)
+    {
+        long start = System.nanoTime();
+        boolean lock = release();
+
+        entry.awaitRelease(releaseCount, waitTime);
+
+        if (lock)
+            _instance.lock();
+
+        return (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
     }
 
     /**
@@ -103,6 +104,23 @@ public class LockConflictManager
         }
     }
 
+    /*
+     * Release the mutex on the LockManager instance, but only if this thread
+     * is not relying on it further up the stack.
+     */
+
+    private boolean release ()
+    {
+        if (_instance.isHeldByCurrentThread() && (_instance.getHoldCount() == 1))
+        {
+            _instance.unlock();
+
+            return true;
+        }
+
+        return false;
+    }
+
     private Object _lock;
     private ReentrantLock _instance;
 }
\ No newline at end of file
@@ -272,6 +272,11 @@ public class LockRecord extends AbstractRecord
 	
 	return false;
     }
+
+    public boolean isOrderScoped ()
+    {
+	return true;
+    }
     
     public LockRecord ()
     {
@@ -0,0 +1,305 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+
+package com.arjuna.ats.internal.txoj.lockstore;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.arjuna.ats.arjuna.ObjectType;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.common.UidHelper;
+import com.arjuna.ats.internal.txoj.LockList;
+import com.arjuna.ats.txoj.Lock;
+import com.arjuna.ats.txoj.exceptions.LockStoreException;
+import com.arjuna.ats.txoj.lockstore.LockStore;
+import com.arjuna.ats.txoj.logging.txojLogger;
+
+/**
+ * An in process lock store which keeps the locks of each object as live Lock
+ * instances rather than as packed state. All LockManager instances in the JVM
+ * which represent the same object share one entry in the table, so setting or
+ * releasing a lock does not need to copy the lock list in and out of the store.
+ * Threads which find a conflicting lock wait on the entry and are woken as soon
+ * as a lock on the object is released.
+ *
+ * The LockManager uses the table directly when this class is configured as the
+ * lock store type. The LockStore operations are still supported but they pack
+ * and unpack the lock list in the same format as the other lock stores.
+ */
+
+public class LockTable extends LockStore
+{
+    public LockTable ()
+    {
+        if (txojLogger.logger.isTraceEnabled()) {
+            txojLogger.logger.trace("LockTable.LockTable()");
+        }
+    }
+
+    /**
+     * Obtain exclusive access to the locks held on the given object, creating
+     * the entry if there is none. The caller must pass the entry to
+     * {@link #unlock} when it has finished with it.
+     */
+
+    public Entry lock (Uid u, String tName)
+    {
+        ConcurrentHashMap<Uid, Entry> segment = segments.computeIfAbsent(tName, k -> new ConcurrentHashMap<Uid, Entry>());
+
+        for (;;)
+        {
+            Entry entry = segment.computeIfAbsent(u, k -> new Entry(segment, k));
+
+            entry._mutex.lock();
+
+            /*
+             * The entry may have been dropped from the table between finding
+             * and locking it, in which case try again with a new one.
+             */
+
+            if (!entry._retired)
+                return entry;
+
+            entry._mutex.unlock();
+        }
+    }
+
+    /**
+     * Give up exclusive access to the entry. If the set of locks may have
+     * changed in a way which allows another lock to be granted, e.g., because a
+     * lock has been released, then any threads waiting for the object are
+     * woken. An entry which holds no locks is dropped from the table.
+     */
+
+    public void unlock (Entry entry, boolean released)
+    {
+        boolean retired = false;
+
+        try
+        {
+            if (entry._locks.entryCount() == 0)
+            {
+                entry._retired = retired = true;
+                entry._segment.remove(entry._uid, entry);
+            }
+        }
+        finally
+        {
+            entry._mutex.unlock();
+        }
+
+        if (released || retired)
+            entry.signal();
+    }
+
+    public InputObjectState read_state (Uid u, String tName)
+            throws LockStoreException
+    {
+        if (txojLogger.logger.isTraceEnabled()) {
+            txojLogger.logger.trace("LockTable.read_state(" + u + ", " + tName + ")");
+        }
+
+        Entry entry = lock(u, tName);
+
+        try
+        {
+            int count = entry._locks.entryCount();
+
+            if (count == 0)
+                return null;
+
+            OutputObjectState os = new OutputObjectState(u, tName);
+            LockList copy = new LockList();
+            Lock current;
+
+            os.packInt(count);
+
+            /*
+             * The list is intrusive so we have to take the locks off it to walk
+             * it and then put them back in the same order.
+             */
+
+            while ((current = entry._locks.pop()) != null)
+            {
+                UidHelper.packInto(current.get_uid(), os);
+
+                if (!current.save_state(os, ObjectType.ANDPERSISTENT))
+                    throw new LockStoreException("LockTable.read_state could not save " + current);
+
+                copy.push(current);
+            }
+
+            while ((current = copy.pop()) != null)
+                entry._locks.push(current);
+
+            return new InputObjectState(os);
+        }
+        catch (final IOException ex)
+        {
+            throw new LockStoreException(ex.toString());
+        }
+        finally
+        {
+            unlock(entry, false);
+        }
+    }
+
+    public boolean remove_state (Uid u, String tName)
+    {
+        if (txojLogger.logger.isTraceEnabled()) {
+            txojLogger.logger.trace("LockTable.remove_state(" + u + ", " + tName + ")");
+        }
+
+        Entry entry = lock(u, tName);
+
+        entry._locks = new LockList();
+
+        unlock(entry, true);
+
+        return true;
+    }
+
+    public boolean write_committed (Uid u, String tName, OutputObjectState state)
+    {
+        if (txojLogger.logger.isTraceEnabled()) {
+            txojLogger.logger.trace("LockTable.write_committed(" + u + ", " + tName + ", "
+                    + state + ")");
+        }
+
+        LockList locks = new LockList();
+
+        try
+        {
+            InputObjectState S = new InputObjectState(state);
+            int count = S.unpackInt();
+
+            for (int i = 0; i < count; i++)
+            {
+                Lock current = new Lock(UidHelper.unpackFrom(S));
+
+                if (!current.restore_state(S, ObjectType.ANDPERSISTENT))
+                    return false;
+
+                locks.push(current);
+            }
+        }
+        catch (final IOException ex)
+        {
+            return false;
+        }
+
+        Entry entry = lock(u, tName);
+
+        entry._locks = locks;
+
+        unlock(entry, true);
+
+        return true;
+    }
+
+    /**
+     * The locks held on a single object.
+     */
+
+    public static final class Entry
+    {
+        /**
+         * @return the live list of locks. Only valid while the entry is locked.
+         */
+
+        public LockList getLocks ()
+        {
+            return _locks;
+        }
+
+        /**
+         * Replace the list of locks. Only valid while the entry is locked.
+         */
+
+        public void setLocks (LockList locks)
+        {
+            _locks = locks;
+        }
+
+        /**
+         * @return a value which changes each time a lock is released. Pass it
+         * to {@link #awaitRelease} to wait for the next release.
+         */
+
+        public long getReleaseCount ()
+        {
+            return _releases;
+        }
+
+        /**
+         * Wait for up to waitTime milliseconds for a lock to be released. If
+         * one has been released since releaseCount was obtained then the call
+         * returns immediately. If the thread is interrupted the call returns
+         * early with the interrupt status set.
+         */
+
+        public void awaitRelease (long releaseCount, int waitTime)
+        {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(waitTime);
+
+            _releaseLock.lock();
+
+            try
+            {
+                while ((_releases == releaseCount) && (remaining > 0))
+                    remaining = _released.awaitNanos(remaining);
+            }
+            catch (final InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                _releaseLock.unlock();
+            }
+        }
+
+        private void signal ()
+        {
+            _releaseLock.lock();
+
+            try
+            {
+                _releases++;
+
+                _released.signalAll();
+            }
+            finally
+            {
+                _releaseLock.unlock();
+            }
+        }
+
+        private Entry (ConcurrentHashMap<Uid, Entry> segment, Uid u)
+        {
+            _segment = segment;
+            _uid = u;
+        }
+
+        private final ConcurrentHashMap<Uid, Entry> _segment;
+        private final Uid _uid;
+        private final ReentrantLock _mutex = new ReentrantLock();
+        private final ReentrantLock _releaseLock = new ReentrantLock();
+        private final Condition _released = _releaseLock.newCondition();
+        private LockList _locks = new LockList();
+        private boolean _retired;
+        private volatile long _releases;
+    }
+
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<Uid, Entry>> segments = new ConcurrentHashMap<String, ConcurrentHashMap<Uid, Entry>>();
+}
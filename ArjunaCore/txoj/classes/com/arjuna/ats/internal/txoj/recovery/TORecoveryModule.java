@@ -14,11 +14,11 @@ import java.util.Hashtable;
 import com.arjuna.ats.arjuna.common.Uid;
 import com.arjuna.ats.arjuna.exceptions.ObjectStoreException;
 import com.arjuna.ats.arjuna.objectstore.ObjectStoreAPI;
+import com.arjuna.ats.arjuna.objectstore.ObjectStoreIterator;
 import com.arjuna.ats.arjuna.objectstore.StateStatus;
 import com.arjuna.ats.arjuna.objectstore.StoreManager;
 import com.arjuna.ats.arjuna.recovery.RecoveryModule;
 import com.arjuna.ats.arjuna.state.InputObjectState;
-import com.arjuna.ats.internal.arjuna.common.UidHelper;
 import com.arjuna.ats.txoj.logging.txojLogger;
 
 /**
@@ -80,44 +80,45 @@ public class TORecoveryModule implements RecoveryModule
                             endOfList = true;
                         else
                         {
-                            InputObjectState uids = new InputObjectState();
-
                             // find the uids of anything with an uncommitted
-                            // entry in the object store
-                            if (_objectStore.allObjUids(theName, uids,
-                                    StateStatus.OS_UNCOMMITTED))
+                            // entry in the object store, a page at a time
+                            ObjectStoreIterator uids = new ObjectStoreIterator(_objectStore,
+                                    theName, StateStatus.OS_UNCOMMITTED);
+
+                            Uid theUid = null;
+
+                            try
                             {
-                                Uid theUid = null;
+                                boolean endOfUids = false;
 
-                                try
+                                while (!endOfUids)
                                 {
-                                    boolean endOfUids = false;
+                                    // extract a uid
+                                    theUid = uids.iterate();
 
-                                    while (!endOfUids)
+                                    if (theUid.equals(Uid.nullUid()))
+                                        endOfUids = true;
+                                    else
                                     {
-                                        // extract a uid
-                                        theUid = UidHelper.unpackFrom(uids);
-
-                                        if (theUid.equals(Uid.nullUid()))
-                                            endOfUids = true;
-                                        else
-                                        {
-                                            String newTypeString = new String(
-                                                    theName);
-                                            Uid newUid = new Uid(theUid);
-                                            
-                                            _uncommittedTOTable.put(newUid,newTypeString);
-                                            
-                                            if (txojLogger.logger.isDebugEnabled()) {
-                                                txojLogger.logger.debug("TO currently uncommitted "+newUid+" is a "+newTypeString);
-                                            }
+                                        String newTypeString = new String(
+                                                theName);
+                                        Uid newUid = theUid;
+                                        
+                                        _uncommittedTOTable.put(newUid,newTypeString);
+                                        
+                                        if (txojLogger.logger.isDebugEnabled()) {
+                                            txojLogger.logger.debug("TO currently uncommitted "+newUid+" is a "+newTypeString);
                                         }
                                     }
                                 }
-                                catch (Exception e)
-                                {
-                                    // end of uids!
-                                }
+                            }
+                            catch (Exception e)
+                            {
+                                // end of uids!
+                            }
+                            finally
+                            {
+                                uids.close();
                             }
                         }
                     }
@@ -34,6 +34,7 @@ import com.arjuna.ats.internal.txoj.abstractrecords.CadaverLockRecord;
 import com.arjuna.ats.internal.txoj.abstractrecords.LockRecord;
 import com.arjuna.ats.internal.txoj.lockstore.BasicLockStore;
 import com.arjuna.ats.internal.txoj.lockstore.BasicPersistentLockStore;
+import com.arjuna.ats.internal.txoj.lockstore.LockTable;
 import com.arjuna.ats.txoj.common.txojPropertyManager;
 import com.arjuna.ats.txoj.exceptions.LockStoreException;
 import com.arjuna.ats.txoj.lockstore.LockStore;
@@ -373,6 +374,9 @@ public class LockManager extends StateManager
             while ((conflict == ConflictType.CONFLICT)
                     && ((retry >= 0) || ((retry == LockManager.waitTotalTimeout) && (sleepTime > 0))))
             {
+                LockTable.Entry waitEntry = null;
+                long waitReleaseCount = 0;
+
                 synchronized (locksHeldLockObject)
                 {
                     conflict = ConflictType.CONFLICT;
@@ -380,6 +384,9 @@ public class LockManager extends StateManager
                     if (loadState())
                     {
                         conflict = lockConflict(toSet);
+
+                        waitEntry = lockTableEntry;
+                        waitReleaseCount = lockTableReleaseCount;
                     }
                     else
                     {
@@ -495,7 +502,25 @@ public class LockManager extends StateManager
                     {
                         if (sleepTime > 0)
                         {
-                            sleepTime -= conflictManager.wait(retry, sleepTime);
+                            /*
+                             * With the lock table we can wait for a release of
+                             * a lock on the object by any LockManager instance.
+                             */
+
+                            if (waitEntry != null)
+                            {
+                                sleepTime -= conflictManager.wait(waitEntry, waitReleaseCount, sleepTime);
+
+                                /*
+                                 * An interrupted thread would not wait again, so give up
+                                 * rather than retry without waiting.
+                                 */
+
+                                if (Thread.currentThread().isInterrupted())
+                                    retry = 0;
+                            }
+                            else
+                                sleepTime -= conflictManager.wait(retry, sleepTime);
                         }
                         else
                             retry = 0;
@@ -606,7 +631,7 @@ public class LockManager extends StateManager
         stateLoaded = false;
         hasBeenLocked = false;
         objectLocked = false;
-        conflictManager = new LockConflictManager(mutex);
+        conflictManager = new LockConflictManager(getMutex());
     }
     
     /*
@@ -640,7 +665,7 @@ public class LockManager extends StateManager
         stateLoaded = false;
         hasBeenLocked = false;
         objectLocked = false;
-        conflictManager = new LockConflictManager(mutex);
+        conflictManager = new LockConflictManager(getMutex());
     }
     
     /**
@@ -904,7 +929,17 @@ public class LockManager extends StateManager
              * cached lock list. Otherwise, do nothing.
              */
 
-            if (super.objectModel != ObjectModel.SINGLE)
+            if (lockStore instanceof LockTable)
+            {
+                /*
+                 * The list belongs to the lock table so leave it alone.
+                 */
+
+                stateLoaded = false;
+
+                unlockTableEntry(false);
+            }
+            else if (super.objectModel != ObjectModel.SINGLE)
             {
                 /* clear out the existing list */
 
@@ -970,6 +1005,8 @@ public class LockManager extends StateManager
 
                         if (lockStoreType.equals(BasicLockStore.class.getName())) {
                             lockStore = new BasicLockStore();
+                        } else if (lockStoreType.equals(LockTable.class.getName())) {
+                            lockStore = new LockTable();
                         } else {
                             ObjectStoreEnvironmentBean objectStoreEnvironmentBean =
                                     BeanPopulator.getDefaultInstance(ObjectStoreEnvironmentBean.class);
@@ -1042,6 +1079,23 @@ public class LockManager extends StateManager
                 return false; /* init failed */
             }
 
+            if (lockStore instanceof LockTable)
+            {
+                /*
+                 * Work directly on the live list of locks shared by every
+                 * instance of this object, rather than on a copy.
+                 */
+
+                lockTableEntry = ((LockTable) lockStore).lock(get_uid(), type());
+                lockTableReleaseCount = lockTableEntry.getReleaseCount();
+                lockTableLockCount = lockTableEntry.getLocks().entryCount();
+                locksHeld = lockTableEntry.getLocks();
+                objectLocked = true;
+                stateLoaded = true;
+
+                return true;
+            }
+
             if ((mutex == null) || (!mutex.tryLock()))
             {
                 return false;
@@ -1213,6 +1267,22 @@ public class LockManager extends StateManager
 
             return true;
         }
+        else if (lockStore instanceof LockTable)
+        {
+            /*
+             * Nothing to write back. If the list did not grow then a lock may
+             * have been released or propagated so wake up any waiters.
+             */
+
+            if (lockTableEntry != null)
+                lockTableEntry.setLocks(locksHeld);
+
+            stateLoaded = false;
+
+            unlockTableEntry(locksHeld.entryCount() <= lockTableLockCount);
+
+            return true;
+        }
         else
         {
             boolean unloadOk = false;
@@ -1303,6 +1373,19 @@ public class LockManager extends StateManager
         }
     }
 
+    private void unlockTableEntry (boolean released)
+    {
+        if (lockTableEntry != null)
+        {
+            LockTable.Entry entry = lockTableEntry;
+
+            lockTableEntry = null;
+            objectLocked = false;
+
+            ((LockTable) lockStore).unlock(entry, released);
+        }
+    }
+
     protected String lockStoreType = txojPropertyManager.getTxojEnvironmentBean().getLockStoreType();
 
     protected String systemKey; /* used in accessing system resources */
@@ -1328,6 +1411,12 @@ public class LockManager extends StateManager
     
     protected LockConflictManager conflictManager;
 
+    private LockTable.Entry lockTableEntry; /* lock table entry while state loaded */
+
+    private long lockTableReleaseCount;
+
+    private int lockTableLockCount;
+
     protected static final int DOZE_TIME = 1000000;
 
     protected static final boolean nestedLocking = txojPropertyManager.getTxojEnvironmentBean().isAllowNestedLocking();
@@ -55,6 +55,10 @@ public class TxojEnvironmentBean implements TxojEnvironmentBeanMBean
     /**
      * Returns the name of the lock store implementation.
      *
+     * Set this to com.arjuna.ats.internal.txoj.lockstore.LockTable to share live
+     * lock lists between all instances of an object in the same JVM, rather than
+     * packing them into the lock store on every lock request.
+     *
      * Default: null
      * Equivalent deprecated property: com.arjuna.ats.txoj.lockstore.lockStoreType
      *
@@ -0,0 +1,193 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package com.hp.mwtests.ts.txoj.concurrencycontrol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.arjuna.ats.arjuna.AtomicAction;
+import com.arjuna.ats.arjuna.ObjectModel;
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.internal.txoj.lockstore.BasicLockStore;
+import com.arjuna.ats.internal.txoj.lockstore.LockTable;
+import com.arjuna.ats.txoj.Lock;
+import com.arjuna.ats.txoj.LockManager;
+import com.arjuna.ats.txoj.LockMode;
+import com.arjuna.ats.txoj.LockResult;
+import com.arjuna.ats.txoj.common.txojPropertyManager;
+import com.hp.mwtests.ts.txoj.common.resources.AtomicObjectLockStore;
+
+public class LockTableUnitTest
+{
+    @Before
+    public void setUp ()
+    {
+        txojPropertyManager.getTxojEnvironmentBean().setLockStoreType(LockTable.class.getName());
+    }
+
+    @After
+    public void tearDown ()
+    {
+        txojPropertyManager.getTxojEnvironmentBean().setLockStoreType(BasicLockStore.class.getName());
+    }
+
+    @Test
+    public void testShared () throws Throwable
+    {
+        AtomicObjectLockStore obj1 = new AtomicObjectLockStore(ObjectModel.MULTIPLE);
+        AtomicObjectLockStore obj2 = new AtomicObjectLockStore(obj1.get_uid(), ObjectModel.MULTIPLE);
+        AtomicAction A = new AtomicAction();
+
+        assertTrue(obj1.getLockStore() instanceof LockTable);
+
+        A.begin();
+
+        obj1.set(1234);
+
+        /*
+         * The write lock is held in the table so the other instance must
+         * see it from outside of the action.
+         */
+
+        AtomicAction.suspend();
+
+        assertEquals(LockResult.REFUSED, obj2.setlock(new Lock(LockMode.READ), 0));
+
+        AtomicAction.resume(A);
+
+        A.commit();
+
+        assertEquals(1234, obj2.get());
+    }
+
+    @Test
+    public void testWaiterIsWoken () throws Throwable
+    {
+        final AtomicObjectLockStore obj1 = new AtomicObjectLockStore(ObjectModel.MULTIPLE);
+        final AtomicObjectLockStore obj2 = new AtomicObjectLockStore(obj1.get_uid(), ObjectModel.MULTIPLE);
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final AtomicInteger result = new AtomicInteger(-1);
+        final AtomicLong granted = new AtomicLong();
+        AtomicAction A = new AtomicAction();
+
+        A.begin();
+
+        obj1.set(1);
+
+        Thread t = new Thread() {
+            public void run ()
+            {
+                AtomicAction B = new AtomicAction();
+
+                B.begin();
+
+                waiting.countDown();
+
+                // wait for up to a minute in total, rather than retrying
+
+                result.set(obj2.setlock(new Lock(LockMode.WRITE), LockManager.waitTotalTimeout, 60000));
+                granted.set(System.nanoTime());
+
+                B.commit();
+            }
+        };
+
+        t.start();
+
+        assertTrue(waiting.await(10, TimeUnit.SECONDS));
+
+        Thread.sleep(200);
+
+        assertTrue(t.isAlive());
+
+        long released = System.nanoTime();
+
+        A.commit();
+
+        t.join(30000);
+
+        assertFalse(t.isAlive());
+        assertEquals(LockResult.GRANTED, result.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(granted.get() - released) < 10000);
+    }
+
+    @Test
+    public void testInterruptedWait () throws Throwable
+    {
+        LockTable table = new LockTable();
+        Uid u = new Uid();
+        String type = "LockTableUnitTest";
+        LockTable.Entry entry = table.lock(u, type);
+
+        entry.getLocks().push(new Lock(LockMode.WRITE));
+
+        long releaseCount = entry.getReleaseCount();
+
+        table.unlock(entry, false);
+
+        long start = System.nanoTime();
+
+        Thread.currentThread().interrupt();
+
+        try
+        {
+            entry.awaitRelease(releaseCount, 60000);
+
+            // the wait is abandoned but the interrupt is not lost
+
+            assertTrue(Thread.currentThread().isInterrupted());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 10000);
+        }
+        finally
+        {
+            Thread.interrupted();
+        }
+
+        assertTrue(table.remove_state(u, type));
+    }
+
+    @Test
+    public void testLockStoreOperations () throws Throwable
+    {
+        LockTable table = new LockTable();
+        Uid u = new Uid();
+        String type = "LockTableUnitTest";
+        Lock lock = new Lock(LockMode.WRITE);
+
+        assertNull(table.read_state(u, type));
+
+        LockTable.Entry entry = table.lock(u, type);
+
+        entry.getLocks().push(lock);
+
+        table.unlock(entry, false);
+
+        InputObjectState state = table.read_state(u, type);
+
+        assertEquals(1, state.unpackInt());
+
+        assertTrue(table.remove_state(u, type));
+        assertNull(table.read_state(u, type));
+
+        entry = table.lock(u, type);
+
+        assertEquals(0, entry.getLocks().entryCount());
+
+        table.unlock(entry, false);
+    }
+}
@@ -6,11 +6,17 @@
 
 package com.arjuna.ats.jta.cdi;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jakarta.enterprise.event.Observes;
 import jakarta.enterprise.inject.spi.AfterBeanDiscovery;
+import jakarta.enterprise.inject.spi.AnnotatedMethod;
 import jakarta.enterprise.inject.spi.AnnotatedType;
 import jakarta.enterprise.inject.spi.Bean;
 import jakarta.enterprise.inject.spi.BeanManager;
@@ -20,6 +26,7 @@ import jakarta.enterprise.inject.spi.ProcessManagedBean;
 import jakarta.transaction.TransactionManager;
 import jakarta.transaction.TransactionScoped;
 import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.transaction.Transactional;
 
 import com.arjuna.ats.jta.cdi.transactional.TransactionalInterceptorMandatory;
 import com.arjuna.ats.jta.cdi.transactional.TransactionalInterceptorNever;
@@ -39,10 +46,28 @@ public class TransactionExtension implements Extension {
 
     private final Map<Bean<?>, AnnotatedType<?>> beanToAnnotatedTypeMapping = new HashMap<>();
 
+    // only written while beans are discovered, so the interceptors look up without locking
+    private final Map<Bean<?>, BeanTransactions> beanTransactions = new ConcurrentHashMap<>();
+
     public Map<Bean<?>, AnnotatedType<?>> getBeanToAnnotatedTypeMapping() {
         return beanToAnnotatedTypeMapping;
     }
 
+    /**
+     * Returns the effective {@link Transactional} of a method of a managed bean, as resolved when the
+     * bean was discovered: the annotation on the method, or on one of its stereotypes, followed by the
+     * one on the bean class or its stereotypes.
+     *
+     * @param bean the intercepted bean
+     * @param method the intercepted method
+     * @return the metadata, or null if the bean was not seen by this extension or has no {@link Transactional}
+     */
+    public TransactionalMetadata getTransactional(Bean<?> bean, Method method) {
+        BeanTransactions transactions = beanTransactions.get(bean);
+
+        return (transactions == null) ? null : transactions.get(method);
+    }
+
     public void register(@Observes BeforeBeanDiscovery bbd, BeanManager bm) {
 
         bbd.addScope(TransactionScoped.class, true, true);
@@ -60,13 +85,21 @@ public class TransactionExtension implements Extension {
     }
 
     /**
-     * Gathering information about managed bean to obtain mapping bean to annotated type.
-     * This is needed later when handling Stereotypes in TransactionalInterceptorBase.
+     * Gathering information about managed bean to obtain mapping bean to annotated type, and resolving
+     * the {@link Transactional} of each of its methods so that TransactionalInterceptorBase does not
+     * have to search the annotated type and stereotypes on every call.
      *
      * @param pmb the {@link ProcessManagedBean} event being observed
+     * @param bm the bean manager, used to expand stereotypes
      */
-    public void processManagedBean(@Observes ProcessManagedBean<?> pmb) {
+    public void processManagedBean(@Observes ProcessManagedBean<?> pmb, BeanManager bm) {
         beanToAnnotatedTypeMapping.put(pmb.getBean(), pmb.getAnnotatedBeanClass());
+
+        BeanTransactions transactions = BeanTransactions.resolve(pmb.getBean(), pmb.getAnnotatedBeanClass(), bm);
+
+        if (transactions != null) {
+            beanTransactions.put(pmb.getBean(), transactions);
+        }
     }
 
     public void afterBeanDiscovery(@Observes AfterBeanDiscovery event, BeanManager manager) {
@@ -80,4 +113,80 @@ public class TransactionExtension implements Extension {
         }));
     }
 
+    /**
+     * The {@link Transactional} of the methods of one bean. Only methods with their own annotation,
+     * directly or through a stereotype, are held; the others take the one resolved for the bean.
+     */
+    private static final class BeanTransactions {
+
+        private final Map<Method, TransactionalMetadata> methods;
+
+        private final TransactionalMetadata type;
+
+        private BeanTransactions(Map<Method, TransactionalMetadata> methods, TransactionalMetadata type) {
+            this.methods = methods;
+            this.type = type;
+        }
+
+        TransactionalMetadata get(Method method) {
+            TransactionalMetadata metadata = methods.get(method);
+
+            return (metadata == null) ? type : metadata;
+        }
+
+        static BeanTransactions resolve(Bean<?> bean, AnnotatedType<?> annotatedType, BeanManager bm) {
+            // stereotype recursive search, covering ones added by an extension too
+            Transactional onType = getTransactionalAnnotationRecursive(bm, annotatedType.getAnnotations());
+
+            if (onType == null) {
+                // stereotypes already merged to one chunk by BeanAttributes.getStereotypes()
+                for (Class<? extends Annotation> stereotype : bean.getStereotypes()) {
+                    onType = stereotype.getAnnotation(Transactional.class);
+
+                    if (onType != null) {
+                        break;
+                    }
+                }
+            }
+
+            Map<Method, TransactionalMetadata> methods = new HashMap<>();
+
+            for (AnnotatedMethod<?> annotatedMethod : annotatedType.getMethods()) {
+                // check existence of the stereotype on method
+                Transactional onMethod = getTransactionalAnnotationRecursive(bm, annotatedMethod.getAnnotations());
+
+                if (onMethod != null) {
+                    methods.put(annotatedMethod.getJavaMember(), new TransactionalMetadata(onMethod));
+                }
+            }
+
+            if (onType == null && methods.isEmpty()) {
+                return null;
+            }
+
+            return new BeanTransactions(methods, (onType == null) ? null : new TransactionalMetadata(onType));
+        }
+
+        private static Transactional getTransactionalAnnotationRecursive(BeanManager bm, Annotation... annotationsOnMember) {
+            if (annotationsOnMember == null) return null;
+            Set<Class<? extends Annotation>> stereotypeAnnotations = new HashSet<>();
+
+            for (Annotation annotation : annotationsOnMember) {
+                if (annotation.annotationType().equals(Transactional.class)) {
+                    return (Transactional) annotation;
+                }
+                if (bm.isStereotype(annotation.annotationType())) {
+                    stereotypeAnnotations.add(annotation.annotationType());
+                }
+            }
+            for (Class<? extends Annotation> stereotypeAnnotation : stereotypeAnnotations) {
+                return getTransactionalAnnotationRecursive(bm, bm.getStereotypeDefinition(stereotypeAnnotation));
+            }
+            return null;
+        }
+
+        private static Transactional getTransactionalAnnotationRecursive(BeanManager bm, Set<Annotation> annotationsOnMember) {
+            return getTransactionalAnnotationRecursive(bm, annotationsOnMember.toArray(new Annotation[0]));
+        }
+    }
 }
\ No newline at end of file
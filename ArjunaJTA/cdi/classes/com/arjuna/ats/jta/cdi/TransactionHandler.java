@@ -25,23 +25,20 @@ public final class TransactionHandler {
     public static void handleExceptionNoThrow(Transactional transactional, Throwable t, Transaction tx)
             throws IllegalStateException, SystemException {
 
-        for (Class<?> dontRollbackOnClass : transactional.dontRollbackOn()) {
-            if (dontRollbackOnClass.isAssignableFrom(t.getClass())) {
-                return;
-            }
+        if (TransactionalMetadata.isRollbackOn(transactional, t.getClass())) {
+            tx.setRollbackOnly();
         }
+    }
 
-        for (Class<?> rollbackOnClass : transactional.rollbackOn()) {
-            if (rollbackOnClass.isAssignableFrom(t.getClass())) {
-                tx.setRollbackOnly();
-                return;
-            }
-        }
+    /**
+     * As {@link #handleExceptionNoThrow(Transactional, Throwable, Transaction)}, but using the
+     * outcome remembered for the class of the exception if there is one.
+     */
+    public static void handleExceptionNoThrow(TransactionalMetadata transactional, Throwable t, Transaction tx)
+            throws IllegalStateException, SystemException {
 
-        // RuntimeException and Error are un-checked exceptions and rollback is expected
-        if (t instanceof RuntimeException || t instanceof Error) {
+        if (transactional.isRollbackOn(t.getClass())) {
             tx.setRollbackOnly();
-            return;
         }
     }
 
@@ -0,0 +1,70 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+package com.arjuna.ats.jta.cdi;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * The effective {@link Transactional} of an intercepted method, resolved once rather than on every
+ * call. Whether an exception marks the transaction for rollback depends only on its class, so the
+ * outcome of matching it against {@link Transactional#rollbackOn()} and
+ * {@link Transactional#dontRollbackOn()} is remembered for each class seen.
+ */
+public final class TransactionalMetadata {
+
+    private final Transactional transactional;
+
+    private final ConcurrentMap<Class<?>, Boolean> rollbackOn = new ConcurrentHashMap<>();
+
+    public TransactionalMetadata(Transactional transactional) {
+        this.transactional = transactional;
+    }
+
+    public Transactional getTransactional() {
+        return transactional;
+    }
+
+    /**
+     * @param exceptionClass the class of the exception thrown by the intercepted method
+     * @return {@code true} if the exception should mark the transaction for rollback
+     */
+    public boolean isRollbackOn(Class<? extends Throwable> exceptionClass) {
+        Boolean rollback = rollbackOn.get(exceptionClass);
+
+        if (rollback == null) {
+            rollback = isRollbackOn(transactional, exceptionClass);
+            rollbackOn.putIfAbsent(exceptionClass, rollback);
+        }
+
+        return rollback;
+    }
+
+    /**
+     * An exception named by {@link Transactional#dontRollbackOn()} never marks the transaction for
+     * rollback, one named by {@link Transactional#rollbackOn()} always does, and otherwise only
+     * unchecked exceptions do.
+     */
+    static boolean isRollbackOn(Transactional transactional, Class<? extends Throwable> exceptionClass) {
+        for (Class<?> dontRollbackOnClass : transactional.dontRollbackOn()) {
+            if (dontRollbackOnClass.isAssignableFrom(exceptionClass)) {
+                return false;
+            }
+        }
+
+        for (Class<?> rollbackOnClass : transactional.rollbackOn()) {
+            if (rollbackOnClass.isAssignableFrom(exceptionClass)) {
+                return true;
+            }
+        }
+
+        // RuntimeException and Error are un-checked exceptions and rollback is expected
+        return RuntimeException.class.isAssignableFrom(exceptionClass) || Error.class.isAssignableFrom(exceptionClass);
+    }
+}
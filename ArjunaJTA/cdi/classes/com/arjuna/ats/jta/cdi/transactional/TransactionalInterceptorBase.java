@@ -12,13 +12,12 @@ import com.arjuna.ats.jta.cdi.TransactionExtension;
 import com.arjuna.ats.jta.cdi.async.ContextPropagationAsyncHandler;
 import com.arjuna.ats.jta.cdi.RunnableWithException;
 import com.arjuna.ats.jta.cdi.TransactionHandler;
+import com.arjuna.ats.jta.cdi.TransactionalMetadata;
 import com.arjuna.ats.jta.common.jtaPropertyManager;
 import com.arjuna.ats.jta.logging.jtaLogger;
 import org.jboss.tm.usertx.UserTransactionOperationsProvider;
 
 import jakarta.enterprise.inject.Intercepted;
-import jakarta.enterprise.inject.spi.AnnotatedMethod;
-import jakarta.enterprise.inject.spi.AnnotatedType;
 import jakarta.enterprise.inject.spi.Bean;
 import jakarta.inject.Inject;
 import jakarta.interceptor.InvocationContext;
@@ -27,9 +26,11 @@ import jakarta.transaction.TransactionManager;
 import jakarta.transaction.Transactional;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.security.PrivilegedAction;
-import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.security.AccessController.doPrivileged;
@@ -46,9 +47,6 @@ public abstract class TransactionalInterceptorBase implements Serializable {
     // to distinguish Weld implementation where WeldInvocationContext defines context data key
     private static final String WELD_INTERCEPTOR_BINDINGS_KEY = "org.jboss.weld.interceptor.bindings";
 
-    @Inject
-    transient jakarta.enterprise.inject.spi.BeanManager beanManager;
-
     @Inject
     private TransactionExtension extension;
 
@@ -83,86 +81,73 @@ public abstract class TransactionalInterceptorBase implements Serializable {
      * <p>
      * Looking for the {@link Transactional} annotation first on the method, second on the class.
      * <p>
-     * Method handles CDI types to cover cases where extensions are used.
-     * In case of EE container uses reflection.
+     * For CDI beans the annotation, including any given by stereotypes or added by extensions, is resolved
+     * by {@link TransactionExtension} when the bean is discovered. Weld interceptor bindings cover intercepted
+     * instances which are not managed beans, such as those created by an InterceptionFactory.
+     * In case of EE container uses reflection, once per class and method.
      *
      * @param ic  invocation context of the interceptor
-     * @return instance of {@link Transactional} annotation or null
+     * @return the {@link Transactional} annotation and the rollback rules derived from it
      */
-    private Transactional getTransactional(InvocationContext ic) {
-        // when the CDI implementation is Weld then using the Weld API for accessing the annotated type
-        // when Weld does not provide the annotation we switch to more complicated processing
-        if (interceptedBean != null && ic.getContextData().get(WELD_INTERCEPTOR_BINDINGS_KEY) != null) {
-            Set<Annotation> annotationBindings = (Set<Annotation>) ic.getContextData().get(WELD_INTERCEPTOR_BINDINGS_KEY);
-            for (Annotation annotation : annotationBindings) {
-                if (annotation.annotationType() == Transactional.class) {
-                    return (Transactional) annotation;
-                }
-            }
-        }
+    private TransactionalMetadata getTransactionalMetadata(InvocationContext ic) {
         if (interceptedBean != null) { // not-null for CDI
-            // getting annotated type and method corresponding of the intercepted bean and method
-            AnnotatedType<?> currentAnnotatedType = extension.getBeanToAnnotatedTypeMapping().get(interceptedBean);
-            if (currentAnnotatedType == null) {
-                throw new IllegalStateException(jtaLogger.i18NLogger.get_not_supported_non_weld_interception(interceptedBean.getName()));
-            }
-            AnnotatedMethod<?> currentAnnotatedMethod = null;
-            for (AnnotatedMethod<?> methodInSearch: currentAnnotatedType.getMethods()) {
-                if (methodInSearch.getJavaMember().equals(ic.getMethod())) {
-                    currentAnnotatedMethod = methodInSearch;
-                    break;
+            TransactionalMetadata metadata = extension.getTransactional(interceptedBean, ic.getMethod());
+            if (metadata != null) return metadata;
+
+            // when the CDI implementation is Weld then using the Weld API for accessing the annotated type
+            if (ic.getContextData().get(WELD_INTERCEPTOR_BINDINGS_KEY) != null) {
+                Set<Annotation> annotationBindings = (Set<Annotation>) ic.getContextData().get(WELD_INTERCEPTOR_BINDINGS_KEY);
+                for (Annotation annotation : annotationBindings) {
+                    if (annotation.annotationType() == Transactional.class) {
+                        return new TransactionalMetadata((Transactional) annotation);
+                    }
                 }
             }
-
-            // check existence of the stereotype on method
-            assert currentAnnotatedMethod != null;
-            Transactional transactionalMethod = getTransactionalAnnotationRecursive(currentAnnotatedMethod.getAnnotations());
-            if (transactionalMethod != null) return transactionalMethod;
-            // stereotype recursive search, covering ones added by an extension too
-            Transactional transactionalExtension = getTransactionalAnnotationRecursive(currentAnnotatedType.getAnnotations());
-            if (transactionalExtension != null) return transactionalExtension;
-            // stereotypes already merged to one chunk by BeanAttributes.getStereotypes()
-            for (Class<? extends Annotation> stereotype: interceptedBean.getStereotypes()) {
-                Transactional transactionalAnn = stereotype.getAnnotation(Transactional.class);
-                if (transactionalAnn != null) return transactionalAnn;
+            if (!extension.getBeanToAnnotatedTypeMapping().containsKey(interceptedBean)) {
+                throw new IllegalStateException(jtaLogger.i18NLogger.get_not_supported_non_weld_interception(interceptedBean.getName()));
             }
         } else { // null for EE components
-            Transactional transactional = ic.getMethod().getAnnotation(Transactional.class);
-            if (transactional != null) {
-                return transactional;
-            }
-
-            Class<?> targetClass = ic.getTarget().getClass();
-            transactional = targetClass.getAnnotation(Transactional.class);
-            if (transactional != null) {
-                return transactional;
-            }
+            TransactionalMetadata metadata = EE_COMPONENTS.get(ic.getTarget().getClass()).get(ic.getMethod());
+            if (metadata != null) return metadata;
         }
 
         throw new RuntimeException(jtaLogger.i18NLogger.get_expected_transactional_annotation());
     }
 
-    private Transactional getTransactionalAnnotationRecursive(Annotation... annotationsOnMember) {
-        if (annotationsOnMember == null) return null;
-        Set<Class<? extends Annotation>> stereotypeAnnotations = new HashSet<>();
+    private Transactional getTransactional(InvocationContext ic) {
+        return getTransactionalMetadata(ic).getTransactional();
+    }
 
-        for (Annotation annotation: annotationsOnMember) {
-            if (annotation.annotationType().equals(Transactional.class)) {
-                return (Transactional) annotation;
-            }
-            if (beanManager.isStereotype(annotation.annotationType())) {
-                stereotypeAnnotations.add(annotation.annotationType());
-            }
+    /*
+     * The Transactional of the methods of an EE component class, found by reflection the first time each is
+     * called. Held against the class so that it goes when the class does.
+     */
+    private static final ClassValue<ComponentTransactions> EE_COMPONENTS = new ClassValue<ComponentTransactions>() {
+        @Override
+        protected ComponentTransactions computeValue(Class<?> targetClass) {
+            return new ComponentTransactions(targetClass);
         }
-        for (Class<? extends Annotation> stereotypeAnnotation: stereotypeAnnotations) {
-            return getTransactionalAnnotationRecursive(beanManager.getStereotypeDefinition(stereotypeAnnotation));
+    };
+
+    private static final class ComponentTransactions {
+        private static final TransactionalMetadata NONE = new TransactionalMetadata(null);
+
+        private final TransactionalMetadata onClass;
+
+        private final Map<Method, TransactionalMetadata> methods = new ConcurrentHashMap<>();
+
+        ComponentTransactions(Class<?> targetClass) {
+            Transactional transactional = targetClass.getAnnotation(Transactional.class);
+            onClass = (transactional == null) ? NONE : new TransactionalMetadata(transactional);
         }
-        return null;
-    }
 
-    private Transactional getTransactionalAnnotationRecursive(Set<Annotation> annotationsOnMember) {
-        return getTransactionalAnnotationRecursive(
-            annotationsOnMember.toArray(new Annotation[0]));
+        TransactionalMetadata get(Method method) {
+            TransactionalMetadata metadata = methods.computeIfAbsent(method, m -> {
+                Transactional transactional = m.getAnnotation(Transactional.class);
+                return (transactional == null) ? onClass : new TransactionalMetadata(transactional);
+            });
+            return (metadata == NONE) ? null : metadata;
+        }
     }
 
     protected Object invokeInOurTx(InvocationContext ic, TransactionManager tm) throws Exception {
@@ -220,7 +205,7 @@ public abstract class TransactionalInterceptorBase implements Serializable {
      * If so then this method rethrows the {@link Throwable} passed as the parameter 't'.
      */
     protected void handleException(InvocationContext ic, Throwable t, Transaction tx) throws Exception {
-        TransactionHandler.handleExceptionNoThrow(getTransactional(ic), t, tx);
+        TransactionHandler.handleExceptionNoThrow(getTransactionalMetadata(ic), t, tx);
         SneakyThrow.sneakyThrow(t);
     }
 
@@ -0,0 +1,106 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+package com.hp.mwtests.ts.jta.cdi.transactional;
+
+import java.lang.annotation.Annotation;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.arjuna.ats.jta.cdi.TransactionalMetadata;
+
+/**
+ * Checks the rollback rules which {@link TransactionalMetadata} derives from a {@link Transactional},
+ * and that they are only worked out once for each exception class.
+ */
+public class TransactionalMetadataTest {
+
+    @Test
+    public void uncheckedExceptionsRollbackByDefault() {
+        TransactionalMetadata metadata = new TransactionalMetadata(new CountingTransactional(new Class[0], new Class[0]));
+
+        Assert.assertTrue(metadata.isRollbackOn(TestRuntimeException.class));
+        Assert.assertTrue(metadata.isRollbackOn(AssertionError.class));
+        Assert.assertFalse(metadata.isRollbackOn(TestException.class));
+        Assert.assertFalse(metadata.isRollbackOn(Exception.class));
+    }
+
+    @Test
+    public void rollbackOnAndDontRollbackOn() {
+        TransactionalMetadata metadata = new TransactionalMetadata(new CountingTransactional(
+            new Class[] {Exception.class}, new Class[] {TestException.class, TestRuntimeException.class}));
+
+        // rollbackOn covers subclasses
+        Assert.assertTrue(metadata.isRollbackOn(Exception.class));
+        Assert.assertTrue(metadata.isRollbackOn(InterruptedException.class));
+
+        // dontRollbackOn wins over rollbackOn, and over the default for unchecked exceptions
+        Assert.assertFalse(metadata.isRollbackOn(TestException.class));
+        Assert.assertFalse(metadata.isRollbackOn(TestRuntimeException.class));
+        Assert.assertTrue(metadata.isRollbackOn(IllegalStateException.class));
+    }
+
+    @Test
+    public void outcomeIsCachedPerExceptionClass() {
+        CountingTransactional transactional = new CountingTransactional(new Class[] {TestException.class}, new Class[0]);
+        TransactionalMetadata metadata = new TransactionalMetadata(transactional);
+
+        Assert.assertSame(transactional, metadata.getTransactional());
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(metadata.isRollbackOn(TestException.class));
+        }
+
+        Assert.assertEquals("the rules should be consulted once for the class", 1, transactional.lookups.get());
+
+        Assert.assertFalse(metadata.isRollbackOn(Exception.class));
+        Assert.assertFalse(metadata.isRollbackOn(Exception.class));
+
+        Assert.assertEquals("the rules should be consulted once more for a new class", 2, transactional.lookups.get());
+    }
+
+    /**
+     * A {@link Transactional} which counts how many times its rollback rules are read.
+     */
+    private static final class CountingTransactional implements Transactional {
+
+        private final Class[] rollbackOn;
+
+        private final Class[] dontRollbackOn;
+
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        CountingTransactional(Class[] rollbackOn, Class[] dontRollbackOn) {
+            this.rollbackOn = rollbackOn;
+            this.dontRollbackOn = dontRollbackOn;
+        }
+
+        @Override
+        public TxType value() {
+            return TxType.REQUIRED;
+        }
+
+        @Override
+        public Class[] rollbackOn() {
+            return rollbackOn;
+        }
+
+        @Override
+        public Class[] dontRollbackOn() {
+            lookups.incrementAndGet();
+            return dontRollbackOn;
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Transactional.class;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+package com.hp.mwtests.ts.jta.cdi.transactional.stereotype.extension;
+
+import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
+
+import com.hp.mwtests.ts.jta.cdi.transactional.stereotype.TestException;
+import com.hp.mwtests.ts.jta.cdi.transactional.stereotype.TransactionalNeverStereotype;
+
+/**
+ * A bean whose methods take their {@link Transactional} from the class, from their own annotation
+ * and from a stereotype on the method.
+ */
+@Transactional(value = TxType.REQUIRES_NEW, rollbackOn = TestException.class)
+public class TransactionalResolutionBean {
+
+    public void onType() {
+    }
+
+    @Transactional(value = TxType.SUPPORTS)
+    public void onMethod() {
+    }
+
+    @TransactionalNeverStereotype
+    public void stereotypeOnMethod() {
+    }
+}
@@ -0,0 +1,117 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+package com.hp.mwtests.ts.jta.cdi.transactional.stereotype.extension;
+
+import java.lang.reflect.Method;
+
+import jakarta.enterprise.inject.spi.Bean;
+import jakarta.enterprise.inject.spi.BeanManager;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Transactional.TxType;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.arjuna.ats.jta.cdi.TransactionExtension;
+import com.arjuna.ats.jta.cdi.TransactionalMetadata;
+import com.hp.mwtests.ts.jta.cdi.transactional.stereotype.StereotypeBean;
+import com.hp.mwtests.ts.jta.cdi.transactional.stereotype.StereotypeTransitiveBean;
+import com.hp.mwtests.ts.jta.cdi.transactional.stereotype.TestException;
+import com.hp.mwtests.ts.jta.cdi.transactional.stereotype.TransactionalNeverStereotype;
+import com.hp.mwtests.ts.jta.cdi.transactional.stereotype.TransactionalRequiredStereotype;
+import com.hp.mwtests.ts.jta.cdi.transactional.stereotype.TransitiveToNeverNoTransactional;
+import com.hp.mwtests.ts.jta.cdi.transactional.stereotype.TransitiveToRequiredNoTransactional;
+
+/**
+ * Checks the {@link jakarta.transaction.Transactional} which {@link TransactionExtension} resolves for
+ * each method of a managed bean when the bean is discovered.
+ */
+@RunWith(Arquillian.class)
+public class TransactionalResolutionTest {
+
+    @Inject
+    TransactionExtension extension;
+
+    @Inject
+    BeanManager beanManager;
+
+    @Inject
+    TransactionalTestServiceInterceptorFactory.TestService testService;
+
+    @Deployment
+    public static WebArchive createTestArchive() {
+        return ShrinkWrap.create(WebArchive.class, "transactional-resolution-test.war")
+            .addClasses(TransactionalResolutionTest.class, TransactionalResolutionBean.class, NoAnnotationBean.class,
+                TransactionalTestServiceInterceptorFactory.class, TransactionalLiteral.class,
+                StereotypeBean.class, StereotypeTransitiveBean.class, TestException.class,
+                TransactionalNeverStereotype.class, TransactionalRequiredStereotype.class,
+                TransitiveToNeverNoTransactional.class, TransitiveToRequiredNoTransactional.class)
+            .addAsWebInfResource(new StringAsset("<beans bean-discovery-mode=\"all\"></beans>"), "beans.xml");
+    }
+
+    @Test
+    public void methodTakesPrecedenceOverType() throws Exception {
+        Assert.assertEquals(TxType.REQUIRES_NEW, resolve(TransactionalResolutionBean.class, "onType").getTransactional().value());
+        Assert.assertEquals(TxType.SUPPORTS, resolve(TransactionalResolutionBean.class, "onMethod").getTransactional().value());
+        Assert.assertEquals(TxType.NEVER, resolve(TransactionalResolutionBean.class, "stereotypeOnMethod").getTransactional().value());
+    }
+
+    @Test
+    public void methodTakesPrecedenceOverStereotypeOnType() throws Exception {
+        Assert.assertEquals(TxType.REQUIRED, resolve(StereotypeBean.class, "stereotypeRequiredAtBean").getTransactional().value());
+        Assert.assertEquals(TxType.NEVER, resolve(StereotypeBean.class, "transactionalAtMethod").getTransactional().value());
+        Assert.assertEquals(TxType.REQUIRED, resolve(StereotypeTransitiveBean.class, "process").getTransactional().value());
+    }
+
+    @Test
+    public void rollbackRulesComeFromTheResolvedAnnotation() throws Exception {
+        TransactionalMetadata onType = resolve(TransactionalResolutionBean.class, "onType");
+        TransactionalMetadata onMethod = resolve(TransactionalResolutionBean.class, "onMethod");
+
+        // resolved once, so every call sees the same metadata and its cached outcomes
+        Assert.assertSame(onType, resolve(TransactionalResolutionBean.class, "onType"));
+
+        Assert.assertTrue(onType.isRollbackOn(TestException.class));
+        Assert.assertTrue(onType.isRollbackOn(TestException.class));
+
+        // the annotation on the method replaces the one on the type, rollbackOn included
+        Assert.assertFalse(onMethod.isRollbackOn(TestException.class));
+        Assert.assertTrue(onMethod.isRollbackOn(IllegalStateException.class));
+    }
+
+    @Test
+    public void beansWithoutTransactionalResolveToNothing() throws Exception {
+        Assert.assertNull(resolve(NoAnnotationBean.class, "process"));
+    }
+
+    @Test
+    public void beansNotSeenAtDeploymentFallBackToInterceptorBindings() throws Exception {
+        Bean<?> producer = beanManager.resolve(beanManager.getBeans(TransactionalTestServiceInterceptorFactory.TestService.class));
+        Method method = TransactionalTestServiceInterceptorFactory.TestService.class.getMethod("doTransactional");
+
+        // the instance is created by an InterceptionFactory, so is not a managed bean
+        Assert.assertNull(extension.getTransactional(producer, method));
+
+        // yet the interceptor still finds REQUIRED from the binding
+        Assert.assertEquals(Status.STATUS_ACTIVE, testService.doTransactional());
+    }
+
+    private TransactionalMetadata resolve(Class<?> beanClass, String methodName) throws NoSuchMethodException {
+        Bean<?> bean = beanManager.resolve(beanManager.getBeans(beanClass));
+
+        Assert.assertNotNull("Expecting a bean for " + beanClass, bean);
+
+        return extension.getTransactional(bean, beanClass.getMethod(methodName));
+    }
+}
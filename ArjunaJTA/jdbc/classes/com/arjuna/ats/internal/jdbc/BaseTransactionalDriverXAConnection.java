@@ -54,12 +54,14 @@ public abstract class BaseTransactionalDriverXAConnection implements ConnectionC
     public final boolean setTransaction(jakarta.transaction.Transaction tx) {
         if (tx == null) {
             _theTransaction = null;
+            ConnectionManager.dissociated(_theArjunaConnection);
             return true;
         }
 
         synchronized (this) {
             if (_theTransaction == null) {
                 _theTransaction = tx;
+                ConnectionManager.associated(_theArjunaConnection, tx);
 
                 return true;
             }
@@ -116,6 +118,7 @@ public abstract class BaseTransactionalDriverXAConnection implements ConnectionC
     public final void reset() {
         _theXAResource = null;
         _theTransaction = null;
+        ConnectionManager.dissociated(_theArjunaConnection);
     }
 
     public final void closeCloseCurrentConnection() throws SQLException {
@@ -42,6 +42,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A transactional JDBC connection. This wraps the real connection and
@@ -320,6 +321,39 @@ public class ConnectionImple implements Connection
         return useCount.get() > 0;
     }
 
+    /*
+     * Check the underlying connection of an idle pooled connection before the
+     * ConnectionManager hands it out again. Unlike isValid this does not
+     * enlist the connection, and one which has not been opened yet has
+     * nothing to check.
+     */
+    boolean isValidPooled(int timeout) throws SQLException {
+        _pooledLock.lock();
+        try {
+            return _theConnection == null || (!_theConnection.isClosed() && _theConnection.isValid(timeout));
+        } finally {
+            _pooledLock.unlock();
+        }
+    }
+
+    /*
+     * Close the underlying connection of an idle pooled connection which the
+     * ConnectionManager has dropped from the pool.
+     */
+    void closePooled() throws SQLException {
+        _pooledLock.lock();
+        try {
+            if (_transactionalDriverXAConnectionConnection != null) {
+                if (_theConnection != null && !_theConnection.isClosed()) {
+                    _theConnection.close();
+                }
+                _transactionalDriverXAConnectionConnection.closeCloseCurrentConnection();
+            }
+        } finally {
+            _pooledLock.unlock();
+        }
+    }
+
     void closeImpl() throws SQLException {
         jdbcLogger.logger.trace("Connection closeImpl: " + this);
         boolean release = false;
@@ -1074,4 +1108,11 @@ public class ConnectionImple implements Connection
 
 
     private AtomicInteger useCount = new AtomicInteger(0);
+
+    /*
+     * Held while the ConnectionManager checks or closes an idle pooled
+     * connection. The monitor would pin a virtual thread for the whole
+     * round trip to the database.
+     */
+    private final ReentrantLock _pooledLock = new ReentrantLock();
 }
\ No newline at end of file
@@ -8,20 +8,46 @@
 package com.arjuna.ats.internal.jdbc;
 
 import com.arjuna.ats.jdbc.TransactionalDriver;
+import com.arjuna.ats.jdbc.logging.jdbcLogger;
 
 import jakarta.transaction.Transaction;
 import jakarta.transaction.TransactionManager;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Objects;
 import java.util.Properties;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /*
  * Only ever create a single instance of a given connection, based upon the
  * user/password/url/dynamic_class options. If the connection we have cached
  * has been closed, then create a new one.
+ *
+ * Pooled connections are found without taking a lock: the one already
+ * enlisted with the caller's transaction through an index keyed by the
+ * transaction and the connection options, and otherwise an idle one with
+ * the same options, most recently used first. An idle connection which has
+ * been idle for longer than VALIDATION_IDLE_TIME is checked with
+ * Connection.isValid before it is handed out, and one which fails the check
+ * is closed and dropped. The pool holds at most maxConnections; when it is
+ * full the least recently used idle connection for other options is closed
+ * to make room, and only if there is none does the caller wait for one to be
+ * released.
+ *
+ * Each pooled connection has an idle flag. Only the release which sets it
+ * puts the connection in an idle deque, and only whoever clears it again
+ * may hand the connection out or drop it, so a connection released twice is
+ * not pooled twice. A deque entry for a connection which is no longer idle
+ * is skipped.
  */
 public class ConnectionManager {
 
@@ -37,6 +63,8 @@ public class ConnectionManager {
         String poolConnections = info.getProperty(TransactionalDriver.poolConnections, "true");
         Object xaDataSource = info.get(TransactionalDriver.XADataSource);
         int maxConnections = Integer.valueOf(info.getProperty(TransactionalDriver.maxConnections, "10"));
+        int validationTimeout = Integer.valueOf(info.getProperty(TransactionalDriver.validationTimeout, "5"));
+        long validationIdleTime = Long.valueOf(info.getProperty(TransactionalDriver.validationIdleTime, "10000"));
 
         if (dbUrl == null) {
             dbUrl = "";
@@ -44,120 +72,516 @@ public class ConnectionManager {
 
         boolean poolingEnabled = "true".equalsIgnoreCase(poolConnections);
 
-        ConnectionImple conn = null;
-
-        synchronized (_connections) {
-            if (poolingEnabled) {
-                Iterator<ConnectionImple> iterator = _connections.iterator();
-                while (iterator.hasNext()) {
-                    ConnectionImple c = iterator.next();
-                    ConnectionControl connControl = c.connectionControl();
-                    TransactionManager tm = com.arjuna.ats.jta.TransactionManager.transactionManager();
-                    Transaction tx1, tx2 = null;
-
-                    tx1 = connControl.transaction();
-                    try {
-                        tx2 = tm.getTransaction();
-                    } catch (jakarta.transaction.SystemException se) {
-                        /* Ignore: tx2 is null already */
-                    }
+        if (!poolingEnabled) {
+            // ConnectionImple does not actually implement Connection, but its
+            // concrete child classes do. See ConnectionImple javadoc.
+            return new ConnectionImple(dbUrl, info);
+        }
+
+        ConnectionKey key = new ConnectionKey(dbUrl, user, passwd, dynamic, xaDataSource);
+        Transaction tx = currentTransaction();
+
+        if (tx != null) {
+            ConnectionImple conn = findEnlisted(new EnlistmentKey(tx, key), tx);
+
+            if (conn != null) {
+                _enlistedReuses.increment();
+
+                return conn;
+            }
+        }
+
+        for (;;) {
+            long releases = _releases.get();
+            ConnectionImple conn = takeIdle(key, validationTimeout, TimeUnit.MILLISECONDS.toNanos(validationIdleTime));
+
+            if (conn != null) {
+                _idleReuses.increment();
+
+                return conn;
+            }
+
+            if (reserve(maxConnections)) {
+                break;
+            }
+
+            if (!evictIdle()) {
+                awaitRelease(releases);
+            }
+        }
+
+        ConnectionImple conn;
+
+        try {
+            conn = new ConnectionImple(dbUrl, info);
+        } catch (SQLException | RuntimeException ex) {
+            unreserve();
+
+            throw ex;
+        }
+
+        _connections.put(conn, new PooledConnection(key));
+        _created.increment();
+
+        return conn;
+    }
+
+    public static void remove(ConnectionImple conn) {
+        PooledConnection pooled = _connections.remove(conn);
+
+        if (pooled != null) {
+            dissociated(conn, pooled);
+
+            if (leaveIdle(pooled)) {
+                removeIdle(conn, pooled);
+            }
+
+            unreserve();
+        }
+    }
+
+    public static void release(ConnectionImple conn) {
+        PooledConnection pooled = _connections.get(conn);
+
+        if (pooled != null && pooled.idle.compareAndSet(false, true)) {
+            pooled.idleSince = System.nanoTime();
+
+            _idleCount.incrementAndGet();
+            _idle.computeIfAbsent(pooled.key, k -> new ConcurrentLinkedDeque<>()).offerFirst(conn);
+        }
+
+        signalRelease();
+    }
+
+    /**
+     * @return the number of connections in the pool, whether in use or idle.
+     */
+    public static int getPooledConnections() {
+        return _size.get();
+    }
+
+    /**
+     * @return the number of pooled connections which nobody is using.
+     */
+    public static int getIdleConnections() {
+        return _idleCount.get();
+    }
+
+    /**
+     * @return the number of pooled connections opened.
+     */
+    public static long getNumberOfConnectionsCreated() {
+        return _created.sum();
+    }
+
+    /**
+     * @return the number of times the connection already enlisted with the
+     * caller's transaction was handed out again.
+     */
+    public static long getNumberOfEnlistedReuses() {
+        return _enlistedReuses.sum();
+    }
 
-                    /* Check transaction and database connection. */
-                    if ((tx1 != null && tx1.equals(tx2))
-                            && isSameConnection(dbUrl, user, passwd, dynamic, xaDataSource, connControl))
-                    {
-                        try {
-                            /*
-                             * Should not overload the meaning of closed. Change!
-                             */
-
-                            if (!c.isClosed()) {
-                                // ConnectionImple does not actually implement Connection, but its
-                                // concrete child classes do. See ConnectionImple javadoc.
-                                conn = c;
-                                conn.incrementUseCount();
-                                break;
-                            }
-                        } catch (Exception ex) {
-                            ex.printStackTrace();
-                            SQLException sqlException = new SQLException(ex.getMessage());
-                            sqlException.initCause(ex);
-                            throw sqlException;
-                        }
-                    } else {
-                        // no longer being used by a transaction, so let's discard. JBTM-764
-                        //
-                        // TODO
-                        //
-                        //                    if (tx1 == null)
-                        //                        iterator.remove();
+    /**
+     * @return the number of times an idle connection was handed out.
+     */
+    public static long getNumberOfIdleReuses() {
+        return _idleReuses.sum();
+    }
+
+    /**
+     * @return the number of idle connections dropped from the pool, either
+     * because they were found closed or failed validation, or to make room
+     * for others.
+     */
+    public static long getNumberOfEvictions() {
+        return _evictions.sum();
+    }
+
+    /**
+     * @return the number of times a caller waited because the pool was full.
+     */
+    public static long getNumberOfWaits() {
+        return _waits.sum();
+    }
+
+    /*
+     * Called by the connection's ConnectionControl when it becomes associated
+     * with a transaction.
+     */
+    static void associated(ConnectionImple conn, Transaction tx) {
+        PooledConnection pooled = (conn == null) ? null : _connections.get(conn);
+
+        if (pooled != null) {
+            EnlistmentKey enlistment = new EnlistmentKey(tx, pooled.key);
+            EnlistmentKey previous = pooled.enlistment;
+
+            pooled.enlistment = enlistment;
+
+            if (previous != null && !previous.equals(enlistment)) {
+                _enlisted.remove(previous, conn);
+            }
+
+            _enlisted.put(enlistment, conn);
+        }
+    }
+
+    /*
+     * Called by the connection's ConnectionControl when it is no longer
+     * associated with a transaction.
+     */
+    static void dissociated(ConnectionImple conn) {
+        PooledConnection pooled = (conn == null) ? null : _connections.get(conn);
+
+        if (pooled != null) {
+            dissociated(conn, pooled);
+        }
+    }
+
+    private static void dissociated(ConnectionImple conn, PooledConnection pooled) {
+        EnlistmentKey enlistment = pooled.enlistment;
+
+        if (enlistment != null) {
+            pooled.enlistment = null;
+
+            _enlisted.remove(enlistment, conn);
+        }
+    }
+
+    private static Transaction currentTransaction() {
+        TransactionManager tm = com.arjuna.ats.jta.TransactionManager.transactionManager();
+
+        try {
+            return tm.getTransaction();
+        } catch (jakarta.transaction.SystemException se) {
+            return null;
+        }
+    }
+
+    /*
+     * The connection enlisted with the transaction, provided it is still
+     * associated with it and open. The use count is taken while the
+     * connection is locked, so that it cannot be released in between.
+     */
+    private static ConnectionImple findEnlisted(EnlistmentKey enlistment, Transaction tx) throws SQLException {
+        ConnectionImple conn = _enlisted.get(enlistment);
+
+        if (conn == null) {
+            return null;
+        }
+
+        /*
+         * Should not overload the meaning of closed. Change!
+         */
+
+        if (!conn.isClosed()) {
+            synchronized (conn) {
+                if (tx.equals(conn.connectionControl().transaction())) {
+                    conn.incrementUseCount();
+
+                    // it may have been released, but is in use again
+                    PooledConnection pooled = _connections.get(conn);
+
+                    if (leaveIdle(pooled)) {
+                        removeIdle(conn, pooled);
                     }
+
+                    return conn;
                 }
+            }
+        }
 
-                while (conn == null) {
-                    if (conn == null) {
-                        for (ConnectionImple con : _connections) {
-                            if (!con.inUse() && isSameConnection(dbUrl, user, passwd, dynamic, xaDataSource, con.connectionControl())) {
-                                conn = con;
-                                conn.incrementUseCount();
-                                break;
-                            }
-                        }
-                    }
-                    if (conn == null) {
-                        if (_connections.size() == maxConnections) {
-                            try {
-                                _connections.wait();
-                            } catch (InterruptedException e) {
-                                e.printStackTrace();
-                            }
-                        } else {
-                            break;
-                        }
-                    }
+        _enlisted.remove(enlistment, conn);
+
+        return null;
+    }
+
+    /*
+     * An idle connection with the given options, checked to be still open
+     * and, if it has been idle for a while, still valid.
+     */
+    private static ConnectionImple takeIdle(ConnectionKey key, int validationTimeout, long validationIdleNanos) throws SQLException {
+        ConcurrentLinkedDeque<ConnectionImple> idle = _idle.get(key);
+
+        if (idle == null) {
+            return null;
+        }
+
+        ConnectionImple conn;
+
+        while ((conn = idle.pollFirst()) != null) {
+            if (leaveIdle(_connections.get(conn)) && claim(conn)) {
+                if (isUsable(conn, validationTimeout, validationIdleNanos)) {
+                    return conn;
                 }
+
+                evict(conn);
             }
+        }
+
+        return null;
+    }
+
+    private static boolean isUsable(ConnectionImple conn, int validationTimeout, long validationIdleNanos) throws SQLException {
+        if (conn.isClosed()) {
+            return false;
+        }
 
+        PooledConnection pooled = _connections.get(conn);
 
-            if (conn == null) {
-                conn = new ConnectionImple(dbUrl, info);
-                /*
-                * Will replace any old (closed) connection which had the
-                * same connection information.
-                */
+        if (validationTimeout < 0 || pooled == null || System.nanoTime() - pooled.idleSince < validationIdleNanos) {
+            return true;
+        }
 
-                if (poolingEnabled) {
-                    _connections.add(conn);
+        try {
+            return conn.isValidPooled(validationTimeout);
+        } catch (SQLException ex) {
+            jdbcLogger.logger.debugf(ex, "Pooled connection %s failed validation", conn);
+
+            return false;
+        }
+    }
+
+    /*
+     * Close the least recently used idle connection, whatever its options,
+     * to make room in a full pool. Each deque is in order of use, so it is
+     * the oldest of the connections at their tails.
+     */
+    private static boolean evictIdle() {
+        for (;;) {
+            ConcurrentLinkedDeque<ConnectionImple> oldestIdle = null;
+            ConnectionImple oldest = null;
+            long oldestSince = 0;
+
+            for (ConcurrentLinkedDeque<ConnectionImple> idle : _idle.values()) {
+                ConnectionImple conn = idle.peekLast();
+                PooledConnection pooled = (conn == null) ? null : _connections.get(conn);
+
+                if (pooled != null && (oldest == null || pooled.idleSince - oldestSince < 0)) {
+                    oldestIdle = idle;
+                    oldest = conn;
+                    oldestSince = pooled.idleSince;
                 }
             }
 
-            // ConnectionImple does not actually implement Connection, but its
-            // concrete child classes do. See ConnectionImple javadoc.
-            return conn;
+            if (oldest == null) {
+                return false;
+            }
+
+            if (oldestIdle.removeLastOccurrence(oldest) && leaveIdle(_connections.get(oldest)) && claim(oldest)) {
+                evict(oldest);
+
+                return true;
+            }
         }
     }
 
-    public static void remove(ConnectionImple conn) {
-        synchronized (_connections) {
-            _connections.remove(conn);
+    /*
+     * Take the connection out of the idle state, if nobody else has. The
+     * caller then owns it as far as the pool is concerned.
+     */
+    private static boolean leaveIdle(PooledConnection pooled) {
+        if (pooled != null && pooled.idle.compareAndSet(true, false)) {
+            _idleCount.decrementAndGet();
+
+            return true;
         }
+
+        return false;
     }
 
-    public static void release(ConnectionImple conn) {
-        synchronized (_connections) {
-            _connections.notify();
+    private static void removeIdle(ConnectionImple conn, PooledConnection pooled) {
+        ConcurrentLinkedDeque<ConnectionImple> idle = _idle.get(pooled.key);
+
+        if (idle != null) {
+            idle.removeFirstOccurrence(conn);
+        }
+    }
+
+    private static boolean claim(ConnectionImple conn) {
+        synchronized (conn) {
+            if (conn.inUse() || !_connections.containsKey(conn)) {
+                return false;
+            }
+
+            conn.incrementUseCount();
+
+            return true;
+        }
+    }
+
+    private static void evict(ConnectionImple conn) {
+        remove(conn);
+
+        _evictions.increment();
+
+        try {
+            conn.closePooled();
+        } catch (SQLException ex) {
+            jdbcLogger.i18NLogger.warn_evict_failed(ex);
         }
     }
 
-    private static boolean isSameConnection(String dbUrl, String user, String passwd, String dynamic, Object xaDataSource, ConnectionControl connControl) {
-        return 
-            dbUrl.equals(connControl.url())
-            && user.equals(connControl.user())
-            && passwd.equals(connControl.password())
-            && dynamic.equals(connControl.dynamicClass())
+    private static boolean reserve(int maxConnections) {
+        for (;;) {
+            int size = _size.get();
+
+            if (size >= maxConnections) {
+                return false;
+            }
+
+            if (_size.compareAndSet(size, size + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static void unreserve() {
+        _size.decrementAndGet();
+
+        signalRelease();
+    }
+
+    private static void signalRelease() {
+        _releases.incrementAndGet();
+
+        if (_waiters.get() > 0) {
+            _connectionsLock.lock();
+            try {
+                _connectionReleased.signalAll();
+            } finally {
+                _connectionsLock.unlock();
+            }
+        }
+    }
+
+    /*
+     * Wait unless a connection has been released since the caller last
+     * looked at the pool.
+     */
+    private static void awaitRelease(long releases) {
+        _connectionsLock.lock();
+        try {
+            _waiters.incrementAndGet();
+
+            if (_releases.get() == releases) {
+                _waits.increment();
+
+                _connectionReleased.awaitUninterruptibly();
+            }
+        } finally {
+            _waiters.decrementAndGet();
+
+            _connectionsLock.unlock();
+        }
+    }
+
+    /*
+     * The options which decide whether one connection can stand in for another.
+     */
+    private static final class ConnectionKey {
+        ConnectionKey(String url, String user, String passwd, String dynamic, Object xaDataSource) {
+            this.url = url;
+            this.user = user;
+            this.passwd = passwd;
+            this.dynamic = dynamic;
             // equal ProvidedXADataSourceConnection instances should have the same data source
-            && (xaDataSource == null || xaDataSource.equals(connControl.xaDataSource()));
+            this.xaDataSource = xaDataSource;
+            this.hash = Objects.hash(url, user, passwd, dynamic, xaDataSource);
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof ConnectionKey)) {
+                return false;
+            }
+
+            ConnectionKey other = (ConnectionKey) o;
+
+            return hash == other.hash && url.equals(other.url) && user.equals(other.user)
+                    && passwd.equals(other.passwd) && dynamic.equals(other.dynamic)
+                    && Objects.equals(xaDataSource, other.xaDataSource);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        private final String url;
+        private final String user;
+        private final String passwd;
+        private final String dynamic;
+        private final Object xaDataSource;
+        private final int hash;
+    }
+
+    private static final class EnlistmentKey {
+        EnlistmentKey(Transaction tx, ConnectionKey key) {
+            this.tx = tx;
+            this.key = key;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof EnlistmentKey)) {
+                return false;
+            }
+
+            EnlistmentKey other = (EnlistmentKey) o;
+
+            return key.equals(other.key) && tx.equals(other.tx);
+        }
+
+        public int hashCode() {
+            return 31 * tx.hashCode() + key.hashCode();
+        }
+
+        private final Transaction tx;
+        private final ConnectionKey key;
     }
 
-    private static Set<ConnectionImple> _connections = new HashSet<ConnectionImple>();
-}
\ No newline at end of file
+    private static final class PooledConnection {
+        PooledConnection(ConnectionKey key) {
+            this.key = key;
+        }
+
+        final ConnectionKey key;
+
+        volatile EnlistmentKey enlistment;
+
+        // set by the release which puts the connection in an idle deque
+        final AtomicBoolean idle = new AtomicBoolean();
+
+        // when the connection was last released, set before it is made idle
+        volatile long idleSince;
+    }
+
+    private static final ConcurrentMap<ConnectionImple, PooledConnection> _connections = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<EnlistmentKey, ConnectionImple> _enlisted = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<ConnectionKey, ConcurrentLinkedDeque<ConnectionImple>> _idle = new ConcurrentHashMap<>();
+
+    // pooled connections, counting those being opened
+    private static final AtomicInteger _size = new AtomicInteger();
+    private static final AtomicInteger _idleCount = new AtomicInteger();
+
+    private static final LongAdder _created = new LongAdder();
+    private static final LongAdder _enlistedReuses = new LongAdder();
+    private static final LongAdder _idleReuses = new LongAdder();
+    private static final LongAdder _evictions = new LongAdder();
+    private static final LongAdder _waits = new LongAdder();
+
+    /*
+     * Only taken by callers waiting for a full pool to have room, and to wake
+     * them. It is not a monitor: that would pin virtual threads.
+     */
+    private static final ReentrantLock _connectionsLock = new ReentrantLock();
+    private static final Condition _connectionReleased = _connectionsLock.newCondition();
+    private static final AtomicLong _releases = new AtomicLong();
+    private static final AtomicInteger _waiters = new AtomicInteger();
+}
@@ -42,6 +42,10 @@ public class TransactionalDriver implements java.sql.Driver
     public static final String poolConnections = "POOL_CONNECTIONS";
 	public static final Object XADataSource = "XADATASOURCE";
     public static final String maxConnections = "MAXCONNECTIONS";
+    // seconds Connection.isValid may take to check a pooled connection before it is reused, negative to not check
+    public static final String validationTimeout = "VALIDATION_TIMEOUT";
+    // milliseconds a pooled connection must have been idle before it is checked
+    public static final String validationIdleTime = "VALIDATION_IDLE_TIME";
 
     public TransactionalDriver ()
     {
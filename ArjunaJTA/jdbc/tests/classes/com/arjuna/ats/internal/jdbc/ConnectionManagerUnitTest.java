@@ -13,15 +13,22 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.sql.XAConnection;
 import javax.sql.XADataSource;
 import jakarta.transaction.SystemException;
 import jakarta.transaction.Transaction;
 import jakarta.transaction.TransactionManager;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -38,9 +45,18 @@ public class ConnectionManagerUnitTest {
     @Mock
     private XADataSource xaDataSource;
 
+    @Mock
+    private Transaction otherTransaction;
+
     @Mock
     private XADataSource otherXaDataSource;
 
+    @Mock
+    private XAConnection xaConnection;
+
+    @Mock
+    private Connection physicalConnection;
+
     @Before
     public void before() {
         MockitoAnnotations.initMocks(this);
@@ -82,4 +98,209 @@ public class ConnectionManagerUnitTest {
         assertNotEquals(connection, otherConnection);
     }
 
+    @Test
+    public void shouldReuseReleasedConnectionWithSameDataSource() throws SQLException, SystemException {
+        // Assume that no transaction is running
+        when(transactionManager.getTransaction()).thenReturn(null);
+        jtaPropertyManager.getJTAEnvironmentBean().setTransactionManager(transactionManager);
+
+        Properties properties = new Properties();
+        Properties otherProperties = new Properties();
+        properties.put(TransactionalDriver.XADataSource, xaDataSource);
+        otherProperties.put(TransactionalDriver.XADataSource, otherXaDataSource);
+
+        ConnectionImple connection = (ConnectionImple) ConnectionManager.create(null, properties);
+        long idleReuses = ConnectionManager.getNumberOfIdleReuses();
+
+        connection.close();
+
+        ConnectionImple otherConnection = (ConnectionImple) ConnectionManager.create(null, otherProperties);
+        ConnectionImple sameConnection = (ConnectionImple) ConnectionManager.create(null, properties);
+
+        assertNotEquals(connection, otherConnection);
+        assertEquals(connection, sameConnection);
+        assertEquals(idleReuses + 1, ConnectionManager.getNumberOfIdleReuses());
+
+        otherConnection.close();
+        sameConnection.close();
+    }
+
+    @Test
+    public void shouldFindConnectionEnlistedWithSameTransaction() throws SQLException, SystemException {
+        when(transactionManager.getTransaction()).thenReturn(transaction);
+        jtaPropertyManager.getJTAEnvironmentBean().setTransactionManager(transactionManager);
+
+        Properties properties = new Properties();
+        properties.put(TransactionalDriver.XADataSource, xaDataSource);
+
+        ConnectionImple connection = (ConnectionImple) ConnectionManager.create(null, properties);
+        ((TransactionalDriverXAConnection) connection.connectionControl()).setTransaction(transaction);
+        long enlistedReuses = ConnectionManager.getNumberOfEnlistedReuses();
+
+        assertEquals(connection, ConnectionManager.create(null, properties));
+        assertEquals(enlistedReuses + 1, ConnectionManager.getNumberOfEnlistedReuses());
+
+        // another transaction must not be given the connection while it is in use by the first
+        when(transactionManager.getTransaction()).thenReturn(otherTransaction);
+
+        ConnectionImple otherConnection = (ConnectionImple) ConnectionManager.create(null, properties);
+
+        assertNotEquals(connection, otherConnection);
+        assertEquals(enlistedReuses + 1, ConnectionManager.getNumberOfEnlistedReuses());
+
+        // once the first transaction lets go of it the connection is no longer found through it
+        ((TransactionalDriverXAConnection) connection.connectionControl()).setTransaction(null);
+        when(transactionManager.getTransaction()).thenReturn(transaction);
+
+        ConnectionImple newConnection = (ConnectionImple) ConnectionManager.create(null, properties);
+
+        assertNotEquals(connection, newConnection);
+
+        when(transactionManager.getTransaction()).thenReturn(null);
+        connection.close();
+        connection.close();
+        otherConnection.close();
+        newConnection.close();
+    }
+
+    @Test
+    public void shouldEvictIdleConnectionOfOtherDataSourceWhenFull() throws SQLException, SystemException {
+        when(transactionManager.getTransaction()).thenReturn(null);
+        jtaPropertyManager.getJTAEnvironmentBean().setTransactionManager(transactionManager);
+
+        String maxConnections = oneMoreThanInUse();
+        Properties properties = new Properties();
+        Properties otherProperties = new Properties();
+        properties.put(TransactionalDriver.XADataSource, xaDataSource);
+        properties.setProperty(TransactionalDriver.maxConnections, maxConnections);
+        otherProperties.put(TransactionalDriver.XADataSource, otherXaDataSource);
+        otherProperties.setProperty(TransactionalDriver.maxConnections, maxConnections);
+
+        ConnectionImple connection = (ConnectionImple) ConnectionManager.create(null, properties);
+        int pooled = ConnectionManager.getPooledConnections();
+        long evictions = ConnectionManager.getNumberOfEvictions();
+
+        assertEquals(Integer.parseInt(maxConnections), pooled);
+
+        connection.close();
+
+        ConnectionImple otherConnection = (ConnectionImple) ConnectionManager.create(null, otherProperties);
+
+        assertNotEquals(connection, otherConnection);
+        assertEquals(evictions + 1, ConnectionManager.getNumberOfEvictions());
+        assertEquals(pooled, ConnectionManager.getPooledConnections());
+
+        otherConnection.close();
+
+        // the evicted connection is gone for good
+        ConnectionImple newConnection = (ConnectionImple) ConnectionManager.create(null, properties);
+
+        assertNotEquals(connection, newConnection);
+        assertEquals(pooled, ConnectionManager.getPooledConnections());
+
+        newConnection.close();
+    }
+
+    @Test
+    public void shouldWakeWaiterWhenConnectionIsReleased() throws Exception {
+        when(transactionManager.getTransaction()).thenReturn(null);
+        jtaPropertyManager.getJTAEnvironmentBean().setTransactionManager(transactionManager);
+
+        Properties properties = new Properties();
+        properties.put(TransactionalDriver.XADataSource, xaDataSource);
+        properties.setProperty(TransactionalDriver.maxConnections, oneMoreThanInUse());
+
+        long waits = ConnectionManager.getNumberOfWaits();
+        ConnectionImple connection = (ConnectionImple) ConnectionManager.create(null, properties);
+
+        // the pool is full and has no idle connection to evict, so the waiter has to wait for one to be released
+        CompletableFuture<ConnectionImple> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return (ConnectionImple) ConnectionManager.create(null, properties);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        for (int i = 0; i < 100 && ConnectionManager.getNumberOfWaits() == waits; i++) {
+            Thread.sleep(50);
+        }
+
+        assertFalse(waiter.isDone());
+        assertEquals(waits + 1, ConnectionManager.getNumberOfWaits());
+
+        connection.close();
+
+        assertEquals(connection, waiter.get(10, TimeUnit.SECONDS));
+
+        connection.close();
+    }
+
+    @Test
+    public void shouldEvictIdleConnectionWhichFailsValidation() throws SQLException, SystemException {
+        when(transactionManager.getTransaction()).thenReturn(null);
+        jtaPropertyManager.getJTAEnvironmentBean().setTransactionManager(transactionManager);
+        when(xaDataSource.getXAConnection()).thenReturn(xaConnection);
+        when(xaConnection.getConnection()).thenReturn(physicalConnection);
+        when(physicalConnection.isValid(anyInt())).thenReturn(false);
+
+        Properties properties = new Properties();
+        properties.put(TransactionalDriver.XADataSource, xaDataSource);
+        properties.setProperty(TransactionalDriver.validationIdleTime, "0");
+
+        ConnectionImple connection = (ConnectionImple) ConnectionManager.create(null, properties);
+        connection.getAutoCommit(); // opens the physical connection
+        connection.close();
+
+        long evictions = ConnectionManager.getNumberOfEvictions();
+
+        ConnectionImple newConnection = (ConnectionImple) ConnectionManager.create(null, properties);
+
+        assertNotEquals(connection, newConnection);
+        assertEquals(evictions + 1, ConnectionManager.getNumberOfEvictions());
+        verify(physicalConnection).isValid(anyInt());
+        verify(physicalConnection).close();
+
+        newConnection.close();
+    }
+
+    @Test
+    public void shouldNotPoolConnectionReleasedTwice() throws SQLException, SystemException {
+        when(transactionManager.getTransaction()).thenReturn(null);
+        jtaPropertyManager.getJTAEnvironmentBean().setTransactionManager(transactionManager);
+
+        Properties properties = new Properties();
+        properties.put(TransactionalDriver.XADataSource, xaDataSource);
+
+        ConnectionImple connection = (ConnectionImple) ConnectionManager.create(null, properties);
+
+        connection.close();
+
+        int idle = ConnectionManager.getIdleConnections();
+
+        ConnectionManager.release(connection);
+
+        assertEquals(idle, ConnectionManager.getIdleConnections());
+
+        // only one caller may be given the connection
+        ConnectionImple sameConnection = (ConnectionImple) ConnectionManager.create(null, properties);
+        ConnectionImple otherConnection = (ConnectionImple) ConnectionManager.create(null, properties);
+
+        assertEquals(connection, sameConnection);
+        assertNotEquals(connection, otherConnection);
+        assertEquals(idle - 1, ConnectionManager.getIdleConnections());
+
+        sameConnection.close();
+        otherConnection.close();
+    }
+
+    /*
+     * Other tests leave connections in the static pool. With a limit of one
+     * more than those in use, the first connection a test opens evicts any
+     * left idle, and the pool is then full while the test holds it.
+     */
+    private static String oneMoreThanInUse() {
+        return Integer.toString(ConnectionManager.getPooledConnections() - ConnectionManager.getIdleConnections() + 1);
+    }
+
 }
\ No newline at end of file
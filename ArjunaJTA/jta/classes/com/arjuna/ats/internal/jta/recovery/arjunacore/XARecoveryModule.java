@@ -12,13 +12,25 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -50,6 +62,7 @@ import com.arjuna.ats.jta.utils.XAHelper;
 import com.arjuna.ats.jta.utils.XARecoveryResourceHelper;
 
 import com.arjuna.ats.jta.xa.XATxConverter;
+import com.arjuna.ats.jta.xa.XidImple;
 import org.jboss.tm.XAResourceWrapper;
 
 /**
@@ -80,6 +93,17 @@ public class XARecoveryModule implements ExtendedRecoveryModule
         return Collections.unmodifiableSet(contactedJndiNames);
     }
 
+    /**
+     * The time the most recent recovery scan spent waiting for each resource
+     * manager to return its in-doubt Xids, keyed by the JNDI name of the
+     * resource where it has one.
+     *
+     * @return the scan durations, in milliseconds.
+     */
+    public Map<String, Long> getScanDurations() {
+        return Collections.unmodifiableMap(new HashMap<>(scanDurations));
+    }
+
     @Override
     public boolean isPeriodicWorkSuccessful() {
         return !this.isRecoveryProblems();
@@ -185,6 +209,7 @@ public class XARecoveryModule implements ExtendedRecoveryModule
         }
 
         contactedJndiNames.clear();
+        scanDurations.clear();
 		this.setRecoveryProblems(false);
 
 		_uids = new InputObjectState();
@@ -220,12 +245,17 @@ public class XARecoveryModule implements ExtendedRecoveryModule
 		_resources.addAll(resourceInitiatedRecoveryForRecoveryHelpers());
 
 		List<NameScopedXAResource> resources = new ArrayList<>(_resources);
-		for (NameScopedXAResource xaResource : resources) {
-			try {
-				xaRecoveryFirstPass(xaResource);
-			} catch (Exception ex) {
-				this.setRecoveryProblems(true);
-				jtaLogger.i18NLogger.warn_recovery_getxaresource(ex);
+		if (jtaPropertyManager.getJTAEnvironmentBean().isXaRecoveryParallelScan()) {
+			// resources which did not answer in time are left alone until the next scan
+			resources.removeAll(parallelFirstPass(resources));
+		} else {
+			for (NameScopedXAResource xaResource : resources) {
+				try {
+					xaRecoveryFirstPass(xaResource);
+				} catch (Exception ex) {
+					this.setRecoveryProblems(true);
+					jtaLogger.i18NLogger.warn_recovery_getxaresource(ex);
+				}
 			}
 		}
 
@@ -390,21 +420,31 @@ public class XARecoveryModule implements ExtendedRecoveryModule
     private XAResource getTheKey(NameScopedXid scopedXid, boolean relaxedMatch) {
 		if (_xidScans != null)
 		{
-			Enumeration<NameScopedXAResource> keys = _xidScans.keys();
+			List<NameScopedXAResource> keys = _xidIndex.get(new XidImple(scopedXid.getXid()));
 
-			while (keys.hasMoreElements())
+			if (keys != null)
 			{
-				NameScopedXAResource theKey = keys.nextElement();
+				for (NameScopedXAResource theKey : keys)
+				{
+					RecoveryXids xids = _xidScans.get(theKey);
 
-				RecoveryXids xids = _xidScans.get(theKey);
+					if (_busy.contains(theKey)) {
+						// a parallel scan worker may still be using the resource
+						continue;
+					}
 
-				// JBTM-1255 moved stale check back to bottomUpRecovery
-				if (xids.contains(scopedXid.getXid()) && isReasonableMatch(scopedXid, theKey, relaxedMatch)) {
-					// This Xid is going to be recovered by the AtomicAction
-					// it is possible that the Xid is recovered by both txbridge and XATerminator - the second
-					// would get noxaresource error message
-					xids.remove(scopedXid.getXid());
-					return theKey.getXaResource();
+					// JBTM-1255 moved stale check back to bottomUpRecovery
+					if (xids == null || !xids.contains(scopedXid.getXid())) {
+						// the scan was dropped or the Xid has gone since it was indexed
+						keys.remove(theKey);
+					} else if (isReasonableMatch(scopedXid, theKey, relaxedMatch)) {
+						// This Xid is going to be recovered by the AtomicAction
+						// it is possible that the Xid is recovered by both txbridge and XATerminator - the second
+						// would get noxaresource error message
+						xids.remove(scopedXid.getXid());
+						keys.remove(theKey);
+						return theKey.getXaResource();
+					}
 				}
 			}
 		}
@@ -576,6 +616,12 @@ public class XARecoveryModule implements ExtendedRecoveryModule
 	 * @see XARecoveryModule#getNewXAResource(XAResourceRecord)
 	 */
     private void bottomUpRecovery() {
+		if (jtaPropertyManager.getJTAEnvironmentBean().isXaRecoveryParallelScan()) {
+			List<NameScopedXAResource> resources = new ArrayList<>(_resources);
+			// the scan state of a resource which did not answer the first pass is not up to date
+			resources.removeAll(_unavailable);
+			parallelSecondPass(resources);
+		} else {
 			for (NameScopedXAResource xaResource : _resources) {
 				try {
 					xaRecoverySecondPass(xaResource);
@@ -584,6 +630,7 @@ public class XARecoveryModule implements ExtendedRecoveryModule
 					jtaLogger.i18NLogger.warn_recovery_getxaresource(ex);
 				}
 			}
+		}
 
 
         // JBTM-895 garbage collection is now done when we return XAResources {@see XARecoveryModule#getNewXAResource(XAResourceRecord)}
@@ -592,11 +639,19 @@ public class XARecoveryModule implements ExtendedRecoveryModule
             Set<NameScopedXAResource> keys = new HashSet<>(_xidScans.keySet());
             for(NameScopedXAResource theKey : keys) {
                 RecoveryXids recoveryXids = _xidScans.get(theKey);
-                if(recoveryXids.isStale()) {
+                if(recoveryXids.isStale() && !_busy.contains(theKey)) {
                     _xidScans.remove(theKey);
                 }
             }
         }
+
+        _xidIndex.entrySet().removeIf(entry -> {
+            entry.getValue().removeIf(theKey -> {
+                RecoveryXids recoveryXids = (_xidScans != null) ? _xidScans.get(theKey) : null;
+                return recoveryXids == null || !recoveryXids.contains(entry.getKey());
+            });
+            return entry.getValue().isEmpty();
+        });
     }
 
 	/**
@@ -697,14 +752,207 @@ public class XARecoveryModule implements ExtendedRecoveryModule
     }
 
 
+	/**
+	 * Start the scan of every resource at once, then merge the results in the
+	 * order the resources were found as each scan completes. A resource which
+	 * has not answered within the scan timeout is skipped, as is one whose
+	 * worker from an earlier pass has still not returned, so one slow or hung
+	 * resource manager cannot hold up recovery of the others.
+	 *
+	 * @return the resources which did not answer in time.
+	 */
+	private List<NameScopedXAResource> parallelFirstPass(List<NameScopedXAResource> resources)
+	{
+		List<Future<Xid[]>> scans = new ArrayList<>(resources.size());
+
+		_unavailable.clear();
+
+		for (NameScopedXAResource xaResource : resources) {
+			scans.add(_busy.contains(xaResource) ? null : submitScan(xaResource, () -> xaRecoveryScan(xaResource)));
+		}
+
+		long deadline = scanDeadline();
+
+		for (int i = 0; i < resources.size(); i++) {
+			NameScopedXAResource xaResource = resources.get(i);
+
+			if (scans.get(i) == null) {
+				this.setRecoveryProblems(true);
+				jtaLogger.i18NLogger.warn_recovery_scanbusy(_logName, xaResource.toString());
+
+				_unavailable.add(xaResource);
+
+				continue;
+			}
+
+			try {
+				xaRecoveryScanCompleted(xaResource, awaitScan(scans.get(i), deadline));
+			} catch (ExecutionException ex) {
+				if (ex.getCause() instanceof XAException) {
+					xaRecoveryScanFailed(xaResource, (XAException) ex.getCause());
+				} else {
+					this.setRecoveryProblems(true);
+					jtaLogger.i18NLogger.warn_recovery_getxaresource(ex.getCause());
+				}
+			} catch (TimeoutException ex) {
+				scanTimedOut(xaResource);
+
+				_unavailable.add(xaResource);
+			} catch (Exception ex) {
+				this.setRecoveryProblems(true);
+				jtaLogger.i18NLogger.warn_recovery_getxaresource(ex);
+			}
+		}
+
+		return new ArrayList<>(_unavailable);
+	}
+
+	/**
+	 * Run the second pass of every resource at once. The Xids were already
+	 * merged by the first pass, so what runs concurrently here is the orphan
+	 * detection for each resource: checking the failure list, voting with the
+	 * XAResourceOrphanFilters and rolling back what they reject.
+	 */
+	private void parallelSecondPass(List<NameScopedXAResource> resources)
+	{
+		List<Future<?>> passes = new ArrayList<>(resources.size());
+
+		for (NameScopedXAResource xaResource : resources) {
+			passes.add(_busy.contains(xaResource) ? null : submitScan(xaResource, () -> {
+				xaRecoverySecondPass(xaResource);
+				return null;
+			}));
+		}
+
+		long deadline = scanDeadline();
+
+		for (int i = 0; i < resources.size(); i++) {
+			if (passes.get(i) == null) {
+				this.setRecoveryProblems(true);
+				jtaLogger.i18NLogger.warn_recovery_scanbusy(_logName, resources.get(i).toString());
+
+				continue;
+			}
+
+			try {
+				awaitScan(passes.get(i), deadline);
+			} catch (ExecutionException ex) {
+				this.setRecoveryProblems(true);
+				jtaLogger.i18NLogger.warn_recovery_getxaresource(ex.getCause());
+			} catch (TimeoutException ex) {
+				scanTimedOut(resources.get(i));
+			} catch (Exception ex) {
+				this.setRecoveryProblems(true);
+				jtaLogger.i18NLogger.warn_recovery_getxaresource(ex);
+			}
+		}
+	}
+
+	private long scanDeadline()
+	{
+		int timeout = jtaPropertyManager.getJTAEnvironmentBean().getXaRecoveryScanTimeout();
+
+		return (timeout > 0) ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : Long.MAX_VALUE;
+	}
+
+	private <T> T awaitScan(Future<T> scan, long deadline) throws InterruptedException, ExecutionException, TimeoutException
+	{
+		if (deadline == Long.MAX_VALUE)
+			return scan.get();
+
+		return scan.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/*
+	 * The worker may be stuck in the driver for a while yet, and interrupting
+	 * it would not get it out. Whatever a first pass scan eventually returns is
+	 * ignored. The resource keeps its scan state, and it stays busy until the
+	 * worker returns, so no other scan or top down recovery uses it while the
+	 * worker may still be talking to the driver.
+	 */
+	private void scanTimedOut(NameScopedXAResource xaResource)
+	{
+		this.setRecoveryProblems(true);
+		jtaLogger.i18NLogger.warn_recovery_scantimeout(_logName, xaResource.toString(),
+				jtaPropertyManager.getJTAEnvironmentBean().getXaRecoveryScanTimeout());
+	}
+
+	/*
+	 * A resource has at most one worker at a time, so however many scans a
+	 * hung driver misses it holds up at most one scan thread.
+	 */
+	private <T> Future<T> submitScan(NameScopedXAResource xaResource, Callable<T> scan)
+	{
+		_busy.add(xaResource);
+
+		try {
+			return scanExecutor().submit(() -> {
+				try {
+					return scan.call();
+				} finally {
+					_busy.remove(xaResource);
+				}
+			});
+		} catch (RuntimeException ex) {
+			_busy.remove(xaResource);
+
+			throw ex;
+		}
+	}
+
+	private synchronized ExecutorService scanExecutor()
+	{
+		if (_scanExecutor == null) {
+			int threads = Math.max(1, jtaPropertyManager.getJTAEnvironmentBean().getXaRecoveryScanThreads());
+			// idle threads go away, and scans beyond the limit wait for a thread
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), r -> {
+						Thread thread = new Thread(r, "XARecoveryScan-Thread_" + scanThreadCounter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+
+			executor.allowCoreThreadTimeOut(true);
+
+			_scanExecutor = executor;
+		}
+
+		return _scanExecutor;
+	}
+
+
 	private final void xaRecoveryFirstPass(NameScopedXAResource xares)
+	{
+		Xid[] trans = null;
+
+		try
+		{
+			trans = xaRecoveryScan(xares);
+		}
+		catch (XAException e)
+		{
+			xaRecoveryScanFailed(xares, e);
+
+			return;
+		}
+
+		xaRecoveryScanCompleted(xares, trans);
+	}
+
+	/**
+	 * Ask the resource manager for its in-doubt Xids. This only talks to the
+	 * resource manager, so a parallel scan can run it for several resources at
+	 * once, leaving the results to be merged one at a time by
+	 * {@link #xaRecoveryScanCompleted}.
+	 */
+	private Xid[] xaRecoveryScan(NameScopedXAResource xares) throws XAException
 	{
 		if (jtaLogger.logger.isDebugEnabled()) {
             jtaLogger.logger.debug("xarecovery of " + xares);
         }
 
-		
 			Xid[] trans = null;
+			long start = System.nanoTime();
 
 			try
 			{
@@ -736,8 +984,16 @@ public class XARecoveryModule implements ExtendedRecoveryModule
                     }
                 }
             }
-			catch (XAException e)
+			finally
 			{
+				recordScanDuration(xares, System.nanoTime() - start);
+			}
+
+			return trans;
+	}
+
+	private void xaRecoveryScanFailed(NameScopedXAResource xares, XAException e)
+	{
 				this.setRecoveryProblems(true);
                 jtaLogger.i18NLogger.warn_recovery_xarecovery1(_logName+".xaRecovery", XAHelper.printXAErrorCode(e), e);
 
@@ -751,11 +1007,12 @@ public class XARecoveryModule implements ExtendedRecoveryModule
 
 				if (_xidScans != null)
 					_xidScans.remove(xares);
+	}
 
-				return;
-			}
-
+	private void xaRecoveryScanCompleted(NameScopedXAResource xares, Xid[] trans)
+	{
 			RecoveryXids xidsToRecover = null;
+			NameScopedXAResource theKey = xares;
 
 			if (_xidScans == null)
 				_xidScans = new Hashtable<>();
@@ -770,14 +1027,15 @@ public class XARecoveryModule implements ExtendedRecoveryModule
                     // this is probably redundant now due to updateIfEquivalentRM,
                     // but in some implementations hashcode/equals does not behave itself.
 
-					java.util.Enumeration<RecoveryXids> elements = _xidScans.elements();
+					Enumeration<NameScopedXAResource> keys = _xidScans.keys();
 					boolean found = false;
 
-					while (elements.hasMoreElements())
+					while (keys.hasMoreElements())
 					{
-						xidsToRecover = elements.nextElement();
+						theKey = keys.nextElement();
+						xidsToRecover = _xidScans.get(theKey);
 
-						if (xidsToRecover.isSameRM(xares))
+						if (xidsToRecover != null && xidsToRecover.isSameRM(xares))
 						{
 							found = true;
 
@@ -793,13 +1051,32 @@ public class XARecoveryModule implements ExtendedRecoveryModule
 			if (xidsToRecover == null)
 			{
 				xidsToRecover = new RecoveryXids(xares);
+				theKey = xares;
 
 				_xidScans.put(xares, xidsToRecover);
 			}
 
 			xidsToRecover.nextScan(trans);
+			indexXids(theKey, trans);
             saveContactedJndiName(xares.getJndiName());
 	}
+
+	/**
+	 * Record which scan each Xid was seen in, so that matching a log record to
+	 * a resource is a lookup rather than a search of every scan. Entries may
+	 * outlive the Xids they refer to; they are checked against the scan when
+	 * used and pruned at the end of each second pass.
+	 */
+	private void indexXids(NameScopedXAResource theKey, Xid[] trans)
+	{
+		if (trans != null) {
+			for (Xid xid : trans) {
+				if (xid != null) {
+					_xidIndex.computeIfAbsent(new XidImple(xid), k -> new CopyOnWriteArrayList<>()).addIfAbsent(theKey);
+				}
+			}
+		}
+	}
 	
 	private void xaRecoverySecondPass(NameScopedXAResource xares) {
 
@@ -1033,33 +1310,31 @@ public class XARecoveryModule implements ExtendedRecoveryModule
 
 	private final Uid previousFailure(Xid xid)
 	{
-		if (_failures == null)
+		synchronized (_failuresLock)
 		{
-			return null;
-		}
-
-		Enumeration e = _failures.keys();
+			if (_failures == null)
+			{
+				return null;
+			}
 
-		while (e.hasMoreElements())
-		{
-			Xid theXid = (Xid) e.nextElement();
+			XidImple theXid = new XidImple(xid);
+			List<Uid> failureItem = _failures.get(theXid);
 
-			if (XAHelper.sameXID(xid, theXid))
+			if (failureItem == null)
 			{
-				// remove uid from failure list
-				Vector failureItem = (Vector) _failures.get(theXid);
-				Uid u = (Uid) failureItem.remove(0);
+				// not present in the failures list.
 
-				if (failureItem.isEmpty())
-					_failures.remove(theXid);
-
-				return u;
+				return null;
 			}
-		}
 
-		// not present in the failures list.
+			// remove uid from failure list
+			Uid u = failureItem.remove(0);
 
-		return null;
+			if (failureItem.isEmpty())
+				_failures.remove(theXid);
+
+			return u;
+		}
 	}
 
 	/* methods to manipulate the failure list */
@@ -1070,54 +1345,50 @@ public class XARecoveryModule implements ExtendedRecoveryModule
 
 	private void addFailure(Xid xid, Uid uid)
 	{
-		if (_failures == null)
-			_failures = new Hashtable();
-
-		Vector failureItem = (Vector) _failures.get(xid);
-
-		if (failureItem == null)
+		synchronized (_failuresLock)
 		{
-			failureItem = new Vector();
+			if (_failures == null)
+				_failures = new HashMap<>();
 
-			_failures.put(xid, failureItem);
+			_failures.computeIfAbsent(new XidImple(xid), k -> new ArrayList<>()).add(uid);
 		}
-
-		failureItem.addElement(uid);
 	}
 
 	/* remove record uid from failure list */
 	private void removeFailure(Xid xid, Uid uid)
 	{
-		// find the failure item for this xid
-		Vector failureItem = (Vector) _failures.get(xid);
-
-		if (failureItem == null)
+		synchronized (_failuresLock)
 		{
-			/*
-			 * if (jtaLogger.loggerI18N.isWarnEnabled()) {
-			 * jtaLogger.loggerI18N.warn("com.arjuna.ats.internal.jta.recovery.removefailed",
-			 * new Object[] { _logName, xid}); }
-			 */
-
-			/*
-			 * Already removed via previousFailure.
-			 */
-		}
-		else
-		{
-			// remove this record from the item
-			failureItem.remove(uid);
+			XidImple theXid = new XidImple(xid);
 
-			// if that was the last one, remove the item altogether
-			if (failureItem.isEmpty())
-				_failures.remove(xid);
+			// find the failure item for this xid
+			List<Uid> failureItem = _failures.get(theXid);
+
+			if (failureItem == null)
+			{
+				/*
+				 * Already removed via previousFailure.
+				 */
+			}
+			else
+			{
+				// remove this record from the item
+				failureItem.remove(uid);
+
+				// if that was the last one, remove the item altogether
+				if (failureItem.isEmpty())
+					_failures.remove(theXid);
+			}
 		}
 	}
 
 	private void clearAllFailures()
 	{
-		if (_failures != null)
-			_failures.clear();
+		synchronized (_failuresLock)
+		{
+			if (_failures != null)
+				_failures.clear();
+		}
 	}
 
     /**
@@ -1191,6 +1462,12 @@ public class XARecoveryModule implements ExtendedRecoveryModule
         return ScanStates.values()[scanState.get()];
     }
 
+    private void recordScanDuration(NameScopedXAResource xares, long nanos) {
+        String name = xares.getJndiName();
+
+        scanDurations.put((name != null) ? name : String.valueOf(xares.getXaResource()), TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
     private void saveContactedJndiName(final String jndiName) {
         if (jndiName != null && jndiName.length() > 0) {
             contactedJndiNames.add(jndiName);
@@ -1253,12 +1530,18 @@ public class XARecoveryModule implements ExtendedRecoveryModule
 
     private final List<XAResourceOrphanFilter> _xaResourceOrphanFilters;
 
-    private Hashtable _failures = null;
+    // keyed by XidImple, whose equality and hash cover the format id, gtrid and bqual whatever the Xid implementation
+    private Map<XidImple, List<Uid>> _failures = null;
+
+    // the second pass of a parallel scan uses the failure list from several threads
+    private final Object _failuresLock = new Object();
 
     private Hashtable<XAResourceRecoveryHelper,XAResource[]> recoveryHelpersXAResource = new Hashtable<XAResourceRecoveryHelper,XAResource[]>();
 
 	private Hashtable<NameScopedXAResource,RecoveryXids> _xidScans = null;
 
+	private final Map<XidImple, CopyOnWriteArrayList<NameScopedXAResource>> _xidIndex = new ConcurrentHashMap<>();
+
 	private XARecoveryResourceManager _recoveryManagerClass = null;
 
 	private String _logName = null;
@@ -1267,5 +1550,17 @@ public class XARecoveryModule implements ExtendedRecoveryModule
 
     private Set<String> contactedJndiNames = new HashSet<String>();
 
+    private final Map<String, Long> scanDurations = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger scanThreadCounter = new AtomicInteger();
+
+    private ExecutorService _scanExecutor;
+
+    // resources with a parallel scan worker which has not returned yet, whether or not the scan is still waiting for it
+    private final Set<NameScopedXAResource> _busy = ConcurrentHashMap.newKeySet();
+
+    // resources which were skipped by the first pass of the current parallel scan
+    private final Set<NameScopedXAResource> _unavailable = new HashSet<>();
+
 	private static XARecoveryModule registeredXARecoveryModule;
 }
\ No newline at end of file
@@ -94,6 +94,7 @@ public class CommitMarkableResourceRecord extends AbstractRecord {
 	private BasicAction basicAction;
 	private String productName;
 	private String productVersion;
+	private String statisticsName;
 	private boolean hasCompleted;
 	private static CommitMarkableResourceRecordRecoveryModule commitMarkableResourceRecoveryModule;
 	private static final JTAEnvironmentBean jtaEnvironmentBean = BeanPopulator
@@ -542,6 +543,13 @@ public class CommitMarkableResourceRecord extends AbstractRecord {
 		return "/StateManager/AbstractRecord/CommitMarkableResourceRecord";
 	}
 
+	public String statisticsName() {
+		if (statisticsName == null)
+			statisticsName = "CommitMarkableResourceRecord/" + commitMarkableJndiName;
+
+		return statisticsName;
+	}
+
 	public Object value() {
 		return connectableResource;
 	}
@@ -582,4 +590,8 @@ public class CommitMarkableResourceRecord extends AbstractRecord {
 	public boolean shouldReplace(AbstractRecord a) {
 		return false;
 	}
+
+	public boolean isOrderScoped() {
+		return true;
+	}
 }
\ No newline at end of file
@@ -929,6 +929,7 @@ public class XAResourceRecord extends AbstractRecord implements ExceptionDeferre
 	            _productName = os.unpackString();
 	            _productVersion = os.unpackString();
 	            _jndiName = os.unpackString();
+	            _statisticsName = null;
 
 	            boolean haveXAResource = os.unpackBoolean();
 
@@ -1059,6 +1060,31 @@ public class XAResourceRecord extends AbstractRecord implements ExceptionDeferre
 		return "/StateManager/AbstractRecord/XAResourceRecord";
 	}
 
+	/**
+	 * @return the JNDI name of the resource manager if it is known, otherwise
+	 * its product name or failing that the class of the XAResource.
+	 */
+	public String statisticsName()
+	{
+		String name = _statisticsName;
+
+		if (name == null)
+		{
+			if (_jndiName != null)
+				name = "XAResourceRecord/" + _jndiName;
+			else if (_productName != null)
+				name = "XAResourceRecord/" + _productName;
+			else if (_theXAResource != null)
+				name = "XAResourceRecord/" + _theXAResource.getClass().getName();
+			else
+				name = "XAResourceRecord";
+
+			_statisticsName = name;
+		}
+
+		return name;
+	}
+
 	public boolean doSave()
 	{
 		return true;
@@ -1092,6 +1118,11 @@ public class XAResourceRecord extends AbstractRecord implements ExceptionDeferre
 		return false;
 	}
 
+	public boolean isOrderScoped()
+	{
+		return true;
+	}
+
     /**
      * Returns the resource manager product name.
      * @return the product name
@@ -1108,6 +1139,7 @@ public class XAResourceRecord extends AbstractRecord implements ExceptionDeferre
     public void setProductName(String productName)
     {
         this._productName = productName;
+        this._statisticsName = null;
     }
 
     /**
@@ -1146,6 +1178,7 @@ public class XAResourceRecord extends AbstractRecord implements ExceptionDeferre
     public void setJndiName(String jndiName)
     {
         this._jndiName = jndiName;
+        this._statisticsName = null;
     }
 
     public XAResourceRecord()
@@ -1313,6 +1346,7 @@ public class XAResourceRecord extends AbstractRecord implements ExceptionDeferre
     private String _productName;
     private String _productVersion;
     private String _jndiName;
+    private String _statisticsName;
     private static final XAResourceRecordWrappingPlugin _xaResourceRecordWrappingPlugin =
             jtaPropertyManager.getJTAEnvironmentBean().getXAResourceRecordWrappingPlugin();
 
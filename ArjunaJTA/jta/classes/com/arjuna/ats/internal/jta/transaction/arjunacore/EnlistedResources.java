@@ -0,0 +1,370 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+
+package com.arjuna.ats.internal.jta.transaction.arjunacore;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.XAResource;
+
+import com.arjuna.ats.internal.jta.utils.XAUtils;
+import com.arjuna.ats.internal.jta.xa.TxInfo;
+
+/**
+ * The XAResources enlisted with a TransactionImple. Each is either the first
+ * instance seen for its resource manager, and so drives completion of the
+ * branch, or a duplicate which joined the branch of an earlier one.
+ *
+ * Resources are never removed once enlisted, so the table is append only:
+ * writers take a short lock to add an entry and publish it by bumping the
+ * size, and readers scan the entries published so far without locking. Most
+ * transactions enlist one to three resources, for which a scan is cheaper
+ * than hashing; larger tables also keep a hash index.
+ *
+ * Each entry remembers the branch (the RM identity) it belongs to, so
+ * finding the duplicates of a resource does not need to ask the driver
+ * again.
+ */
+
+final class EnlistedResources
+{
+    /**
+     * @return the TxInfo of the resource, whether it was enlisted first or as
+     * a duplicate, or null if it has not been enlisted.
+     */
+
+    public TxInfo get (XAResource xaRes)
+    {
+        Enlistment entry = find(xaRes);
+
+        return (entry == null) ? null : entry.info;
+    }
+
+    /**
+     * Enlist a resource as the first seen for its resource manager.
+     */
+
+    public void add (XAResource xaRes, TxInfo info)
+    {
+        add(xaRes, info, null);
+    }
+
+    /**
+     * Enlist a resource which joined the branch of an earlier one.
+     *
+     * @param existing the TxInfo of the earlier resource, as returned by findSameRM.
+     */
+
+    public void addDuplicate (XAResource xaRes, TxInfo info, TxInfo existing)
+    {
+        Enlistment branch = null;
+        int size = _size;
+        Enlistment[] entries = _entries;
+
+        for (int i = 0; i < size; i++)
+        {
+            if (entries[i].info == existing)
+            {
+                branch = entries[i].branch;
+
+                break;
+            }
+        }
+
+        add(xaRes, info, (branch == null) ? NO_BRANCH : branch);
+    }
+
+    /**
+     * @return true if no resource has been enlisted as the first for its resource manager.
+     */
+
+    public boolean isEmpty ()
+    {
+        return _primaries == 0;
+    }
+
+    /**
+     * Look for an enlisted resource from the same resource manager as the one
+     * given. Only the first resource of each branch is asked, unless none
+     * match, in which case the duplicates are tried as well in case the
+     * driver's isSameRM is not transitive.
+     *
+     * @return the TxInfo of the resource found, or null if this is a new resource manager.
+     */
+
+    public TxInfo findSameRM (XAResource xaRes) throws XAException
+    {
+        int size = _size;
+        Enlistment[] entries = _entries;
+
+        for (int i = 0; i < size; i++)
+        {
+            if (!entries[i].isDuplicate() && XAUtils.isSameRM(entries[i].resource, xaRes))
+                return entries[i].info;
+        }
+
+        for (int i = 0; i < size; i++)
+        {
+            if (entries[i].isDuplicate() && XAUtils.isSameRM(entries[i].resource, xaRes))
+                return entries[i].info;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the duplicates which joined the branch of the resource, or null
+     * if the resource is not the first of a branch enlisted here.
+     */
+
+    public List<XAResource> duplicatesOf (XAResource xaRes)
+    {
+        Enlistment entry = find(xaRes);
+
+        if ((entry == null) || entry.isDuplicate())
+            return null;
+
+        List<XAResource> duplicates = Collections.emptyList();
+        int size = _size;
+        Enlistment[] entries = _entries;
+
+        for (int i = 0; i < size; i++)
+        {
+            if (entries[i].isDuplicate() && (entries[i].branch == entry))
+            {
+                if (duplicates.isEmpty())
+                    duplicates = new ArrayList<XAResource>(2);
+
+                duplicates.add(entries[i].resource);
+            }
+        }
+
+        return duplicates;
+    }
+
+    /**
+     * @return a read only view of the resources enlisted first for their
+     * resource manager, and their TxInfo.
+     */
+
+    public Map<XAResource, TxInfo> primaries ()
+    {
+        return _primariesView;
+    }
+
+    /**
+     * @return a read only view of the resources which joined the branch of
+     * an earlier one, and their TxInfo.
+     */
+
+    public Map<XAResource, TxInfo> duplicates ()
+    {
+        return _duplicatesView;
+    }
+
+    private void add (XAResource xaRes, TxInfo info, Enlistment branch)
+    {
+        synchronized (this)
+        {
+            Enlistment existing = find(xaRes);
+
+            if (existing != null)
+            {
+                // a resource can only be enlisted once, so just take the new state
+                existing.info = info;
+
+                return;
+            }
+
+            Enlistment entry = new Enlistment(xaRes, info, branch);
+            Enlistment[] entries = _entries;
+            int size = _size;
+
+            if (size == entries.length)
+            {
+                Enlistment[] grown = new Enlistment[size * 2];
+
+                System.arraycopy(entries, 0, grown, 0, size);
+
+                _entries = entries = grown;
+            }
+
+            entries[size] = entry;
+
+            if (_index != null)
+            {
+                _index.put(xaRes, entry);
+            }
+            else if (size + 1 > SCAN_LIMIT)
+            {
+                Map<XAResource, Enlistment> index = new ConcurrentHashMap<XAResource, Enlistment>();
+
+                for (int i = 0; i <= size; i++)
+                    index.put(entries[i].resource, entries[i]);
+
+                _index = index;
+            }
+
+            if (branch == null)
+                _primaries++;
+
+            // publishes the entry and, if it was replaced, the array
+            _size = size + 1;
+        }
+    }
+
+    /*
+     * The size is always read before the array and the index, so whatever
+     * it covers is there to be found.
+     */
+
+    private Enlistment find (XAResource xaRes)
+    {
+        int size = _size;
+        Map<XAResource, Enlistment> index = _index;
+
+        if (index != null)
+            return index.get(xaRes);
+
+        Enlistment[] entries = _entries;
+        int hash = xaRes.hashCode();
+
+        for (int i = 0; i < size; i++)
+        {
+            Enlistment entry = entries[i];
+
+            if ((entry.resource == xaRes) || ((entry.hash == hash) && entry.resource.equals(xaRes)))
+                return entry;
+        }
+
+        return null;
+    }
+
+    private final class View extends AbstractMap<XAResource, TxInfo>
+    {
+        View (boolean duplicates)
+        {
+            _duplicates = duplicates;
+        }
+
+        public TxInfo get (Object key)
+        {
+            if (!(key instanceof XAResource))
+                return null;
+
+            Enlistment entry = find((XAResource) key);
+
+            return ((entry != null) && (entry.isDuplicate() == _duplicates)) ? entry.info : null;
+        }
+
+        public boolean containsKey (Object key)
+        {
+            return get(key) != null;
+        }
+
+        public int size ()
+        {
+            return _duplicates ? _size - _primaries : _primaries;
+        }
+
+        public Set<Map.Entry<XAResource, TxInfo>> entrySet ()
+        {
+            return new AbstractSet<Map.Entry<XAResource, TxInfo>>()
+            {
+                public int size ()
+                {
+                    return View.this.size();
+                }
+
+                public Iterator<Map.Entry<XAResource, TxInfo>> iterator ()
+                {
+                    return new Iterator<Map.Entry<XAResource, TxInfo>>()
+                    {
+                        private final int _limit = _size;
+                        private final Enlistment[] _snapshot = _entries;
+                        private int _next = advance(0);
+
+                        public boolean hasNext ()
+                        {
+                            return _next < _limit;
+                        }
+
+                        public Map.Entry<XAResource, TxInfo> next ()
+                        {
+                            if (_next >= _limit)
+                                throw new NoSuchElementException();
+
+                            Enlistment entry = _snapshot[_next];
+
+                            _next = advance(_next + 1);
+
+                            return new AbstractMap.SimpleImmutableEntry<XAResource, TxInfo>(entry.resource, entry.info);
+                        }
+
+                        private int advance (int from)
+                        {
+                            while ((from < _limit) && (_snapshot[from].isDuplicate() != _duplicates))
+                                from++;
+
+                            return from;
+                        }
+                    };
+                }
+            };
+        }
+
+        private final boolean _duplicates;
+    }
+
+    private static final class Enlistment
+    {
+        Enlistment (XAResource resource, TxInfo info, Enlistment branch)
+        {
+            this.resource = resource;
+            this.hash = (resource == null) ? 0 : resource.hashCode();
+            this.info = info;
+            this.branch = (branch == null) ? this : branch;
+        }
+
+        boolean isDuplicate ()
+        {
+            return branch != this;
+        }
+
+        final XAResource resource;
+        final int hash;
+        final Enlistment branch;
+
+        volatile TxInfo info;
+    }
+
+    /*
+     * Branch of a duplicate whose earlier resource could not be found; it is
+     * then the duplicate of nothing, as if it had been enlisted on its own.
+     */
+    private static final Enlistment NO_BRANCH = new Enlistment(null, null, null);
+
+    private static final int SCAN_LIMIT = 8;
+
+    private volatile Enlistment[] _entries = new Enlistment[2];
+    private volatile int _size;
+    private volatile int _primaries;
+    private volatile Map<XAResource, Enlistment> _index;
+
+    private final Map<XAResource, TxInfo> _primariesView = new View(false);
+    private final Map<XAResource, TxInfo> _duplicatesView = new View(true);
+}
@@ -9,12 +9,10 @@ package com.arjuna.ats.internal.jta.transaction.arjunacore;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import jakarta.transaction.RollbackException;
 import jakarta.transaction.Status;
@@ -78,12 +76,10 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 		_theTransaction.begin(timeout);
 
-		_resources = new Hashtable();
-		_duplicateResources = new Hashtable();
-		_suspendCount = 0;
+		_resources = new EnlistedResources();
 		_xaTransactionTimeoutEnabled = getXATransactionTimeoutEnabled();
 
-        _txLocalResources = Collections.synchronizedMap(new HashMap());
+        _txLocalResources = new ConcurrentHashMap<>();
     }
 
 	/**
@@ -454,20 +450,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 			try
 			{
-				synchronized (this)
-				{
-					info = (TxInfo) _resources.get(xaRes);
-
-					if (info == null)
-					{
-						/*
-						 * Null info means it's not in the main resources list,
-						 * but may be in the duplicates.
-						 */
-
-						info = (TxInfo) _duplicateResources.get(xaRes);
-					}
-				}
+				info = _resources.get(xaRes);
 
 				if (info != null)
 				{
@@ -489,10 +472,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 						info.setState(TxInfo.ASSOCIATED);
 
-						synchronized (this)
-						{
-							_suspendCount--;
-						}
+						_suspendCount.decrementAndGet();
 
 						return true; // already registered resource with this
 						// transaction!
@@ -569,14 +549,11 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 				boolean branchRequired = true;
 
-				synchronized (this)
+				if (_resources.isEmpty())// first ever, so no need for
+				// branch
 				{
-					if (_resources.isEmpty())// first ever, so no need for
-					// branch
-					{
-						// branchRequired = false;
-						branchRequired = true;
-					}
+					// branchRequired = false;
+					branchRequired = true;
 				}
 
 				xid = createXid(branchRequired, theModifier, xaRes);
@@ -636,7 +613,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
                         if(abstractRecord != null) {
                             xaRes.start(xid, xaStartNormal);
                             if(_theTransaction.add(abstractRecord) == AddOutcome.AR_ADDED) {
-                                _resources.put(xaRes, new TxInfo(xid));
+                                _resources.add(xaRes, new TxInfo(xid));
                                 return true; // dive out, no need to set associatedWork = true;
                             } else {
                                 // we called start on the resource, but _theTransaction did not accept it.
@@ -730,7 +707,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 				 * (particularly if we later have to delist).
 				 */
 
-				_duplicateResources.put(xaRes, new TxInfo(xid));
+				_resources.addDuplicate(xaRes, new TxInfo(xid), existingRM);
 
 				return true;
 			}
@@ -819,13 +796,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 		try
 		{
-			synchronized (this)
-			{
-				info = (TxInfo) _resources.get(xaRes);
-
-				if (info == null)
-					info = (TxInfo) _duplicateResources.get(xaRes);
-			}
+			info = _resources.get(xaRes);
 
 			if (info == null)
 			{
@@ -878,10 +849,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 							xaRes.end(info.xid(), XAResource.TMSUSPEND);
 							info.setState(TxInfo.ASSOCIATION_SUSPENDED);
 
-							synchronized (this)
-							{
-								_suspendCount++;
-							}
+							_suspendCount.incrementAndGet();
 						}
 						else
 						{
@@ -904,10 +872,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 						xaRes.end(info.xid(), XAResource.TMSUCCESS);
 						info.setState(TxInfo.NOT_ASSOCIATED);
 
-						synchronized (this)
-						{
-							_suspendCount--;
-						}
+						_suspendCount.decrementAndGet();
 					}
 					else
 					{
@@ -924,10 +889,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 							xaRes.end(info.xid(), XAResource.TMFAIL);
 							info.setState(TxInfo.FAILED);
 
-							synchronized (this)
-							{
-								_suspendCount--;
-							}
+							_suspendCount.decrementAndGet();
 						}
 					}
 				}
@@ -1036,9 +998,10 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 				toThrow = e;
 			}
 		}
-		for (Object resource : _duplicateResources.keySet()) {
-			XAResource dupXar = (XAResource) resource;
-			if (XAUtils.isSameRM(_theXAResource, dupXar)) {
+		// the duplicates which joined this branch are known; fall back to asking the RM for a resource we did not enlist
+		List<XAResource> duplicates = _resources.duplicatesOf(_theXAResource);
+		for (XAResource dupXar : (duplicates != null) ? duplicates : _resources.duplicates().keySet()) {
+			if (duplicates != null || XAUtils.isSameRM(_theXAResource, dupXar)) {
 				try {
 					doEnd(_tranID, dupXar, xaState, txInfoState);
 				} catch (XAException e) {
@@ -1093,12 +1056,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 		if (xaRes != null)
 		{
-			TxInfo info = (TxInfo) _resources.get(xaRes);
-
-			if (info == null)
-			{
-				info = (TxInfo) _duplicateResources.get(xaRes);
-			}
+			TxInfo info = _resources.get(xaRes);
 
 			if (info != null)
 				state = info.getState();
@@ -1111,12 +1069,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 	{
 		if (xaRes != null)
 		{
-			TxInfo info = (TxInfo) _resources.get(xaRes);
-
-			if (info == null)
-			{
-				info = (TxInfo) _duplicateResources.get(xaRes);
-			}
+			TxInfo info = _resources.get(xaRes);
 
 			if (info != null)
 				info.setState(state);
@@ -1164,7 +1117,11 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 	// store a key-value pair in the scope of the transaction.
 	public void putTxLocalResource(Object key, Object value)
 	{
-		_txLocalResources.put(key, value);
+		// a missing value and a null one look the same to getTxLocalResource
+		if (value == null)
+			_txLocalResources.remove(key);
+		else
+			_txLocalResources.put(key, value);
 	}
 
 
@@ -1215,17 +1172,14 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 		if (_theTransaction != null)
 		{
-			_resources = new Hashtable();
-			_duplicateResources = new Hashtable();
-            _txLocalResources = Collections.synchronizedMap(new HashMap());
+			_resources = new EnlistedResources();
+            _txLocalResources = new ConcurrentHashMap<>();
 		}
 		else
 		{
 			_resources = null;
-			_duplicateResources = null;
 		}
 
-		_suspendCount = 0;
 		_xaTransactionTimeoutEnabled = getXATransactionTimeoutEnabled();
 	}
 
@@ -1383,10 +1337,8 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 	{
 		boolean result = true;
 
-		if (_suspendCount > 0)
+		if (_suspendCount.get() > 0)
 		{
-			Enumeration el = _resources.keys();
-
 			/*
 			 * Loop over all registered resources. Those that are in a suspended
 			 * state must have end called on them. If this fails, then we will
@@ -1394,86 +1346,57 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 			 * the list to try to end any other suspended resources.
 			 */
 
-			if (el != null)
-			{
-				try
-				{
-					/*
-					 * Would it gain us much to just loop for _suspendCount?
-					 */
+			if (!endSuspendedRMs(_resources.primaries()))
+				result = false;
 
-					while (el.hasMoreElements())
-					{
-						/*
-						 * Get the XAResource in case we have to call end on it.
-						 */
+			/*
+			 * need to do the same for all duplicated resources
+			 */
 
-						XAResource xaRes = (XAResource) el.nextElement();
-						TxInfo info = (TxInfo) _resources.get(xaRes);
+			if (!endSuspendedRMs(_resources.duplicates()))
+				result = false;
 
-						if (info.getState() == TxInfo.ASSOCIATION_SUSPENDED)
-						{
-							if (XAUtils.mustEndSuspendedRMs(xaRes))
-								xaRes.start(info.xid(), XAResource.TMRESUME);
-
-							xaRes.end(info.xid(), XAResource.TMSUCCESS);
-							info.setState(TxInfo.NOT_ASSOCIATED);
-						}
-					}
-				}
-				catch (XAException ex)
-				{
-                    jtaLogger.i18NLogger.warn_transaction_arjunacore_xaenderror(ex);
+			_suspendCount.set(0);
+		}
 
-					result = false;
-				}
-			}
+		return result;
+	}
 
+	private boolean endSuspendedRMs(Map<XAResource, TxInfo> resources)
+	{
+		try
+		{
 			/*
-			 * need to do the same for all duplicated resources
+			 * Would it gain us much to just loop for _suspendCount?
 			 */
 
-			el = _duplicateResources.keys();
-
-			if (el != null)
+			for (Map.Entry<XAResource, TxInfo> entry : resources.entrySet())
 			{
-				try
-				{
-					/*
-					 * Would it gain us much to just loop for _suspendCount?
-					 */
-
-					while (el.hasMoreElements())
-					{
-						/*
-						 * Get the XAResource in case we have to call end on it.
-						 */
-
-						XAResource xaRes = (XAResource) el.nextElement();
-						TxInfo info = (TxInfo) _duplicateResources.get(xaRes);
+				/*
+				 * Get the XAResource in case we have to call end on it.
+				 */
 
-						if (info.getState() == TxInfo.ASSOCIATION_SUSPENDED)
-						{
-							if (XAUtils.mustEndSuspendedRMs(xaRes))
-								xaRes.start(info.xid(), XAResource.TMRESUME);
+				XAResource xaRes = entry.getKey();
+				TxInfo info = entry.getValue();
 
-							xaRes.end(info.xid(), XAResource.TMSUCCESS);
-							info.setState(TxInfo.NOT_ASSOCIATED);
-						}
-					}
-				}
-				catch (XAException ex)
+				if (info.getState() == TxInfo.ASSOCIATION_SUSPENDED)
 				{
-                    jtaLogger.i18NLogger.warn_transaction_arjunacore_xaenderror(ex);
+					if (XAUtils.mustEndSuspendedRMs(xaRes))
+						xaRes.start(info.xid(), XAResource.TMRESUME);
 
-					result = false;
+					xaRes.end(info.xid(), XAResource.TMSUCCESS);
+					info.setState(TxInfo.NOT_ASSOCIATED);
 				}
 			}
+		}
+		catch (XAException ex)
+		{
+            jtaLogger.i18NLogger.warn_transaction_arjunacore_xaenderror(ex);
 
-			_suspendCount = 0;
+			return false;
 		}
 
-		return result;
+		return true;
 	}
 
 	/*
@@ -1489,41 +1412,9 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 		try
 		{
-			Enumeration el = _resources.keys();
-
-			if (el != null)
-			{
-				while (el.hasMoreElements())
-				{
-					XAResource x = (XAResource) el.nextElement();
-
-					if (XAUtils.isSameRM(x, xaRes))
-					{
-						TxInfo info = (TxInfo) _resources.get(x);
+			TxInfo info = _resources.findSameRM(xaRes);
 
-						if (info.thread() == t)
-							return true;
-					}
-				}
-			}
-
-			el = _duplicateResources.keys();
-
-			if (el != null)
-			{
-				while (el.hasMoreElements())
-				{
-					XAResource x = (XAResource) el.nextElement();
-
-					if (XAUtils.isSameRM(x, xaRes))
-					{
-						TxInfo info = (TxInfo) _resources.get(x);
-
-						if (info.thread() == t)
-							return true;
-					}
-				}
-			}
+			return (info != null) && (info.thread() == t);
 		}
 		catch (Exception e)
 		{
@@ -1531,8 +1422,6 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 			throw new com.arjuna.ats.arjuna.exceptions.FatalError(e.toString(), e);
 		}
-
-		return false;
 	}
 
 	/**
@@ -1544,38 +1433,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 	{
 		try
 		{
-			synchronized (this)
-			{
-				Enumeration el = _resources.keys();
-
-				if (el != null)
-				{
-					while (el.hasMoreElements())
-					{
-						XAResource x = (XAResource) el.nextElement();
-
-						if (XAUtils.isSameRM(x, xaRes))
-						{
-							return (TxInfo) _resources.get(x);
-						}
-					}
-				}
-
-				el = _duplicateResources.keys();
-
-				if (el != null)
-				{
-					while (el.hasMoreElements())
-					{
-						XAResource x = (XAResource) el.nextElement();
-
-						if (XAUtils.isSameRM(x, xaRes))
-						{
-							return (TxInfo) _duplicateResources.get(x);
-						}
-					}
-				}
-			}
+			return _resources.findSameRM(xaRes);
 		}
 		catch (XAException ex)
 		{
@@ -1591,8 +1449,6 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
 			throw new com.arjuna.ats.arjuna.exceptions.FatalError(e.toString(), e);
 		}
-
-		return null;
 	}
 
 	protected Xid createXid(boolean branch, XAModifier theModifier, XAResource xaResource) throws IOException, ObjectStoreException
@@ -1666,7 +1522,7 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
     public Map<XAResource, TxInfo> getResources()
     {
-        return Collections.unmodifiableMap(_resources);
+        return _resources.primaries();
     }
 
     public int getTimeout()
@@ -1688,15 +1544,13 @@ public class TransactionImple implements jakarta.transaction.Transaction,
 
     protected com.arjuna.ats.arjuna.AtomicAction _theTransaction;
 
-	private Hashtable _resources;
-
-	private Hashtable _duplicateResources;
+	private EnlistedResources _resources;
 
-	private int _suspendCount;
+	private final AtomicInteger _suspendCount = new AtomicInteger();
 
 	private final boolean _xaTransactionTimeoutEnabled;
 
-	private Map _txLocalResources;
+	private Map<Object, Object> _txLocalResources;
 
     private Throwable _rollbackOnlyCallerStacktrace;
     
@@ -58,6 +58,9 @@ public class JTAEnvironmentBean implements JTAEnvironmentBeanMBean
 
     private volatile boolean xaRollbackOptimization = false;
     private volatile boolean xaAssumeRecoveryComplete = false;
+    private volatile boolean xaRecoveryParallelScan = false;
+    private volatile int xaRecoveryScanTimeout = 60000;
+    private volatile int xaRecoveryScanThreads = 8;
 
     // com.arjuna.ats.jta.utils.
     @FullPropertyName(name = "com.arjuna.ats.jta.utils.UTJNDIContext")
@@ -635,6 +638,83 @@ public class JTAEnvironmentBean implements JTAEnvironmentBeanMBean
         this.xaAssumeRecoveryComplete = xaAssumeRecoveryComplete;
     }
 
+    /**
+     * Returns true if the XARecoveryModule should scan the resource managers
+     * concurrently rather than one after the other, so that one slow or
+     * unavailable resource manager does not hold up recovery of the others.
+     *
+     * Default: false.
+     *
+     * @return true for concurrent scans, false for sequential scans.
+     */
+    public boolean isXaRecoveryParallelScan()
+    {
+        return xaRecoveryParallelScan;
+    }
+
+    /**
+     * Sets if the XARecoveryModule should scan the resource managers concurrently.
+     * Any XAResourceOrphanFilters in use must then be safe to call from several
+     * threads at once.
+     *
+     * @param xaRecoveryParallelScan true for concurrent scans, false for sequential scans.
+     */
+    public void setXaRecoveryParallelScan(boolean xaRecoveryParallelScan)
+    {
+        this.xaRecoveryParallelScan = xaRecoveryParallelScan;
+    }
+
+    /**
+     * Returns the time, in milliseconds, that a concurrent recovery scan waits
+     * for each resource manager before giving up on it until the next scan.
+     * A value of 0 or less means wait indefinitely.
+     *
+     * Default: 60000.
+     *
+     * @return the per resource manager scan timeout, in milliseconds.
+     */
+    public int getXaRecoveryScanTimeout()
+    {
+        return xaRecoveryScanTimeout;
+    }
+
+    /**
+     * Sets the time, in milliseconds, that a concurrent recovery scan waits for
+     * each resource manager.
+     *
+     * @param xaRecoveryScanTimeout the per resource manager scan timeout, in milliseconds.
+     */
+    public void setXaRecoveryScanTimeout(int xaRecoveryScanTimeout)
+    {
+        this.xaRecoveryScanTimeout = xaRecoveryScanTimeout;
+    }
+
+    /**
+     * Returns the maximum number of threads a concurrent recovery scan uses.
+     * Scans of further resource managers wait for a thread. A resource manager
+     * whose scan has not returned is not scanned again until it does, so a
+     * hung one holds at most one thread.
+     *
+     * Default: 8.
+     *
+     * @return the maximum number of concurrent recovery scan threads.
+     */
+    public int getXaRecoveryScanThreads()
+    {
+        return xaRecoveryScanThreads;
+    }
+
+    /**
+     * Sets the maximum number of threads a concurrent recovery scan uses.
+     * It takes effect when the XARecoveryModule first scans concurrently.
+     *
+     * @param xaRecoveryScanThreads the maximum number of concurrent recovery scan threads.
+     */
+    public void setXaRecoveryScanThreads(int xaRecoveryScanThreads)
+    {
+        this.xaRecoveryScanThreads = xaRecoveryScanThreads;
+    }
+
     /**
      * Returns the JNDI bind name for the implementation of UserTransaction.
      *
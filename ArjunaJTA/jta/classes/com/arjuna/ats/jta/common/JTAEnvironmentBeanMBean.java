@@ -32,6 +32,12 @@ public interface JTAEnvironmentBeanMBean
 
     boolean isXaAssumeRecoveryComplete();
 
+    boolean isXaRecoveryParallelScan();
+
+    int getXaRecoveryScanTimeout();
+
+    int getXaRecoveryScanThreads();
+
     String getUserTransactionJNDIContext();
 
     String getTransactionManagerJNDIContext();
@@ -601,6 +601,14 @@ public interface jtaI18NLogger {
     @Message(id = 16153, value = "Transaction is not allowed for invocation", format = MESSAGE_FORMAT)
     public String get_tx_never();
 
+    @Message(id = 16154, value = "{0} - recovery scan of {1} did not complete within {2} milliseconds, it will be skipped until the scan returns", format = MESSAGE_FORMAT)
+    @LogMessage(level = WARN)
+    public void warn_recovery_scantimeout(String logName, String xaResource, int timeout);
+
+    @Message(id = 16155, value = "{0} - skipping {1}, an earlier recovery scan of it has not returned yet", format = MESSAGE_FORMAT)
+    @LogMessage(level = WARN)
+    public void warn_recovery_scanbusy(String logName, String xaResource);
+
     /*
         Allocate new messages directly above this notice.
           - id: use the next id number in sequence. Don't reuse ids.
@@ -20,12 +20,14 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.transaction.xa.XAException;
 import javax.transaction.xa.XAResource;
@@ -545,6 +547,214 @@ public class XARecoveryModuleUnitTest
         jtaPropertyManager.getJTAEnvironmentBean().setXaRecoveryNodes(xaRecoveryNodes);
     }
 
+    @Test
+    public void testParallelScanSkipsHungResource() throws Exception {
+        boolean parallelScan = jtaPropertyManager.getJTAEnvironmentBean().isXaRecoveryParallelScan();
+        int scanTimeout = jtaPropertyManager.getJTAEnvironmentBean().getXaRecoveryScanTimeout();
+        jtaPropertyManager.getJTAEnvironmentBean().setXaRecoveryParallelScan(true);
+        jtaPropertyManager.getJTAEnvironmentBean().setXaRecoveryScanTimeout(500);
+
+        final CountDownLatch hung = new CountDownLatch(1);
+        final ScanTestXAResource slow = new ScanTestXAResource("slow", hung);
+        final ScanTestXAResource fast = new ScanTestXAResource("fast", null);
+
+        XARecoveryModule xarm = new XARecoveryModule();
+        xarm.addXAResourceRecoveryHelper(new XAResourceRecoveryHelper() {
+            @Override
+            public boolean initialise(String p) throws Exception {
+                return false;
+            }
+
+            @Override
+            public XAResource[] getXAResources() throws Exception {
+                return new XAResource[]{slow, fast};
+            }
+        });
+
+        try {
+            long start = System.nanoTime();
+
+            xarm.periodicWorkFirstPass();
+            xarm.periodicWorkSecondPass();
+
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 10000);
+            assertFalse(xarm.isPeriodicWorkSuccessful());
+            assertTrue(xarm.getContactedJndiNames().contains("fast"));
+            assertFalse(xarm.getContactedJndiNames().contains("slow"));
+            assertTrue(xarm.getScanDurations().containsKey("fast"));
+            assertEquals(1, fast.endScans.get());
+            assertEquals(0, slow.endScans.get());
+        } finally {
+            hung.countDown();
+
+            jtaPropertyManager.getJTAEnvironmentBean().setXaRecoveryParallelScan(parallelScan);
+            jtaPropertyManager.getJTAEnvironmentBean().setXaRecoveryScanTimeout(scanTimeout);
+        }
+
+        // once it answers again the resource is back in the scan
+        xarm.periodicWorkFirstPass();
+        xarm.periodicWorkSecondPass();
+
+        assertTrue(xarm.isPeriodicWorkSuccessful());
+        assertTrue(xarm.getContactedJndiNames().contains("slow"));
+        assertEquals(1, slow.endScans.get());
+    }
+
+    @Test
+    public void testIndexedXidLookup() throws Exception {
+        final int count = 1000;
+        Xid[] logged = new Xid[count];
+        Xid[] scannedA = new Xid[count / 2];
+        Xid[] scannedB = new Xid[count / 2];
+
+        for (int i = 0; i < count; i++) {
+            logged[i] = new XidImple(new Uid());
+
+            // the resource manager returns its own Xid implementation
+            final Xid xid = logged[i];
+            Xid copy = new Xid() {
+                private final int formatId = xid.getFormatId();
+                private final byte[] gtrid = xid.getGlobalTransactionId().clone();
+                private final byte[] bqual = xid.getBranchQualifier().clone();
+
+                @Override
+                public int getFormatId() {
+                    return formatId;
+                }
+
+                @Override
+                public byte[] getGlobalTransactionId() {
+                    return gtrid;
+                }
+
+                @Override
+                public byte[] getBranchQualifier() {
+                    return bqual;
+                }
+            };
+
+            if (i % 2 == 0) {
+                scannedA[i / 2] = copy;
+            } else {
+                scannedB[i / 2] = copy;
+            }
+        }
+
+        final ScanTestXAResource a = new ScanTestXAResource("a", null, scannedA);
+        final ScanTestXAResource b = new ScanTestXAResource("b", null, scannedB);
+
+        XARecoveryModule xarm = new XARecoveryModule();
+        xarm.addXAResourceRecoveryHelper(new XAResourceRecoveryHelper() {
+            @Override
+            public boolean initialise(String p) throws Exception {
+                return false;
+            }
+
+            @Override
+            public XAResource[] getXAResources() throws Exception {
+                return new XAResource[]{a, b};
+            }
+        });
+
+        xarm.periodicWorkFirstPass();
+
+        for (int i = 0; i < count; i++) {
+            assertTrue(xarm.getNewXAResource(new XAResourceRecord(null, null, logged[i], null)) == (i % 2 == 0 ? a : b));
+        }
+
+        xarm.periodicWorkSecondPass();
+    }
+
+    private static class ScanTestXAResource implements XAResourceWrapper {
+        private final String jndiName;
+        private final CountDownLatch hung;
+        private final Xid[] xids;
+        private final AtomicInteger endScans = new AtomicInteger();
+
+        ScanTestXAResource(String jndiName, CountDownLatch hung, Xid... xids) {
+            this.jndiName = jndiName;
+            this.hung = hung;
+            this.xids = xids;
+        }
+
+        @Override
+        public XAResource getResource() {
+            return null;
+        }
+
+        @Override
+        public String getProductName() {
+            return null;
+        }
+
+        @Override
+        public String getProductVersion() {
+            return null;
+        }
+
+        @Override
+        public String getJndiName() {
+            return jndiName;
+        }
+
+        @Override
+        public Xid[] recover(int flag) throws XAException {
+            if (flag == XAResource.TMENDRSCAN) {
+                endScans.incrementAndGet();
+            } else if (hung != null) {
+                // like a driver stuck on a dead connection, deaf to interrupts
+                while (hung.getCount() > 0) {
+                    try {
+                        hung.await();
+                    } catch (InterruptedException e) {
+                        // keep waiting
+                    }
+                }
+            }
+            return xids;
+        }
+
+        @Override
+        public void commit(Xid xid, boolean b) throws XAException {
+        }
+
+        @Override
+        public void end(Xid xid, int i) throws XAException {
+        }
+
+        @Override
+        public void forget(Xid xid) throws XAException {
+        }
+
+        @Override
+        public int getTransactionTimeout() throws XAException {
+            return 0;
+        }
+
+        @Override
+        public boolean isSameRM(XAResource xaResource) throws XAException {
+            return false;
+        }
+
+        @Override
+        public int prepare(Xid xid) throws XAException {
+            return 0;
+        }
+
+        @Override
+        public void rollback(Xid xid) throws XAException {
+        }
+
+        @Override
+        public boolean setTransactionTimeout(int i) throws XAException {
+            return false;
+        }
+
+        @Override
+        public void start(Xid xid, int i) throws XAException {
+        }
+    }
+
     class DummyXAResourceOrphanFilter implements XAResourceOrphanFilter
     {
         public DummyXAResourceOrphanFilter ()
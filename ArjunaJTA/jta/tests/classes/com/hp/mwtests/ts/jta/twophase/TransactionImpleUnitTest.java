@@ -21,6 +21,7 @@ import jakarta.transaction.HeuristicMixedException;
 import jakarta.transaction.RollbackException;
 import jakarta.transaction.Status;
 import jakarta.transaction.SystemException;
+import javax.transaction.xa.XAException;
 import javax.transaction.xa.XAResource;
 import javax.transaction.xa.Xid;
 
@@ -72,6 +73,24 @@ class DummyXAModifier implements XAModifier
     
 }
 
+class SameRMXA extends DummyXA
+{
+    public SameRMXA (int rm)
+    {
+        super(false);
+        
+        _rm = rm;
+    }
+    
+    @Override
+    public boolean isSameRM (XAResource xares) throws XAException
+    {
+        return (xares instanceof SameRMXA) && (((SameRMXA) xares)._rm == _rm);
+    }
+    
+    private final int _rm;
+}
+
 public class TransactionImpleUnitTest
 {
     @Test
@@ -266,6 +285,32 @@ public class TransactionImpleUnitTest
         }
     }
     
+    @Test
+    public void testManyResources () throws Exception
+    {
+        ThreadActionData.purgeActions();
+        
+        TransactionImple tx = new TransactionImple(0);
+        DummyXA[] resources = new DummyXA[20];
+        
+        for (int i = 0; i < resources.length; i++)
+        {
+            resources[i] = new SameRMXA(i % 10);
+            
+            assertTrue(tx.enlistResource(resources[i]));
+        }
+        
+        // the second ten joined the branches of the first ten
+        assertEquals(10, tx.getResources().size());
+        
+        for (int i = 0; i < resources.length; i++)
+            assertTrue(tx.delistResource(resources[i], XAResource.TMSUCCESS));
+        
+        tx.commit();
+        
+        assertEquals(Status.STATUS_COMMITTED, tx.getStatus());
+    }
+    
     @Test
     public void testFailure () throws Exception
     {
@@ -0,0 +1,624 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+package org.jboss.stm.internal.proxy;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.stm.InvalidAnnotationException;
+import org.jboss.stm.annotations.NotState;
+import org.jboss.stm.annotations.RestoreState;
+import org.jboss.stm.annotations.SaveState;
+import org.jboss.stm.annotations.Transactional;
+import org.jboss.stm.internal.RecoverableContainer;
+
+import com.arjuna.ats.arjuna.common.Uid;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+import com.arjuna.ats.internal.arjuna.common.UidHelper;
+
+/**
+ * Packs and unpacks the state of instances of a transactional class. The work of deciding
+ * which fields make up the state, and how each is to be packed, is done once per class
+ * when the marshaller is first needed rather than on every save and restore: each field
+ * is given an accessor bound to a method handle for its getter and setter, and the
+ * {@link SaveState} and {@link RestoreState} methods (if any) are located up front.
+ *
+ * The format of the state is the same as the one the proxies have always written,
+ * i.e., the non-transient fields declared by the class itself, in declaration order, with
+ * primitive arrays packed element by element into the existing array and elements of
+ * arrays of wrapper types preceded by a flag saying whether they are null.
+ */
+
+public final class StateMarshaller
+{
+    /**
+     * @param type the class of the transactional object.
+     * @return the marshaller used by pessimistic proxies, which ignore final fields.
+     */
+
+    public static StateMarshaller pessimistic (Class<?> type)
+    {
+        return PESSIMISTIC.get(type);
+    }
+
+    /**
+     * @param type the class of the transactional object.
+     * @return the marshaller used by optimistic proxies, which include final fields but do not support arrays.
+     */
+
+    public static StateMarshaller optimistic (Class<?> type)
+    {
+        return OPTIMISTIC.get(type);
+    }
+
+    /**
+     * @return the method annotated with {@link SaveState}, or null if there is none.
+     * @throws InvalidAnnotationException if only one of the save and restore methods is defined.
+     */
+
+    public Method saveStateMethod () throws InvalidAnnotationException
+    {
+        if (_invalid != null)
+            throw new InvalidAnnotationException(_invalid);
+
+        return _saveState;
+    }
+
+    /**
+     * @return the method annotated with {@link RestoreState}, or null if there is none.
+     * @throws InvalidAnnotationException if only one of the save and restore methods is defined.
+     */
+
+    public Method restoreStateMethod () throws InvalidAnnotationException
+    {
+        if (_invalid != null)
+            throw new InvalidAnnotationException(_invalid);
+
+        return _restoreState;
+    }
+
+    /**
+     * Pack the state fields of the object.
+     *
+     * @return true if every field was packed, false otherwise.
+     */
+
+    @SuppressWarnings("unchecked")
+    public boolean pack (Object target, OutputObjectState os, RecoverableContainer<?> container)
+    {
+        RecoverableContainer<Object> cont = (RecoverableContainer<Object>) container;
+
+        for (FieldAccessor accessor : _accessors)
+        {
+            try
+            {
+                if (!accessor.pack(target, os, cont))
+                    return false;
+            }
+            catch (final Throwable ex)
+            {
+                ex.printStackTrace();
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Unpack the state fields of the object.
+     *
+     * @return true if every field was unpacked, false otherwise.
+     */
+
+    @SuppressWarnings("unchecked")
+    public boolean unpack (Object target, InputObjectState os, RecoverableContainer<?> container)
+    {
+        RecoverableContainer<Object> cont = (RecoverableContainer<Object>) container;
+
+        for (FieldAccessor accessor : _accessors)
+        {
+            try
+            {
+                if (!accessor.unpack(target, os, cont))
+                    return false;
+            }
+            catch (final Throwable ex)
+            {
+                ex.printStackTrace();
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private StateMarshaller (Class<?> type, boolean optimistic)
+    {
+        List<FieldAccessor> accessors = new ArrayList<FieldAccessor>();
+
+        for (Field afield : type.getDeclaredFields()) // get all fields including private
+        {
+            // ignore if flagged with @NotState
+
+            if (afield.isAnnotationPresent(NotState.class) || THIS_NAME.equals(afield.getName()))
+                continue;
+
+            /*
+             * Stay away from transients. The pessimistic proxy also ignores final values, since
+             * it cannot restore them anyway.
+             */
+
+            if (Modifier.isTransient(afield.getModifiers()))
+                continue;
+
+            if (!optimistic && Modifier.isFinal(afield.getModifiers()))
+                continue;
+
+            accessors.add(accessorFor(afield, !optimistic));
+        }
+
+        _accessors = accessors.toArray(new FieldAccessor[accessors.size()]);
+
+        findSaveRestore(type);
+    }
+
+    private void findSaveRestore (Class<?> toCheck)
+    {
+        Method save = null;
+        Method restore = null;
+
+        for (Method mt : toCheck.getDeclaredMethods())
+        {
+            if (mt.isAnnotationPresent(SaveState.class) && (save == null))
+                save = mt;
+
+            if (mt.isAnnotationPresent(RestoreState.class) && (restore == null))
+                restore = mt;
+        }
+
+        if ((save != null) && (restore != null))
+        {
+            _saveState = save;
+            _restoreState = restore;
+        }
+        else if ((save == null) && (restore == null))
+        {
+            Class<?> superClass = toCheck.getSuperclass();
+
+            if ((superClass != null) && (superClass != Object.class))
+                findSaveRestore(superClass);
+        }
+        else
+            _invalid = "WARNING: both save_state and restore_state are not present!";
+    }
+
+    private static FieldAccessor accessorFor (Field afield, boolean arrays)
+    {
+        Class<?> type = afield.getType();
+        MethodHandle getter;
+        MethodHandle setter;
+
+        try
+        {
+            afield.setAccessible(true);
+
+            getter = getter(afield);
+            setter = setter(afield);
+        }
+        catch (final Throwable ex)
+        {
+            return new UnsupportedAccessor(ex);
+        }
+
+        if (type.isPrimitive())
+            return primitiveAccessor(type, getter, setter);
+
+        if (type.isArray())
+        {
+            if (!arrays)
+                return new UnsupportedAccessor(null);
+
+            FieldAccessor accessor = primitiveArrayAccessor(type, getter);
+
+            if (accessor == null)
+                accessor = objectArrayAccessor(type, getter);
+
+            return (accessor == null) ? new UnsupportedAccessor("Array type "+type+" not supported!") : accessor;
+        }
+
+        final ElementCodec codec = OBJECT_CODECS.get(type);
+
+        if (codec != null)
+        {
+            final MethodHandle get = getter.asType(MethodType.methodType(Object.class, Object.class));
+            final MethodHandle set = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+            return new FieldAccessor((t, os, c) -> codec.pack(os, (Object) get.invokeExact(t)),
+                                     (t, os, c) -> { set.invokeExact(t, codec.unpack(os)); });
+        }
+
+        if (type.isAnnotationPresent(Transactional.class))
+            return transactionalAccessor(getter, setter);
+
+        return new UnsupportedAccessor(null);
+    }
+
+    /*
+     * This only works if this type and the types we're packing share the same container.
+     * So we need a way to specify (or determine) the container for all transactional
+     * instances.
+     */
+
+    private static FieldAccessor transactionalAccessor (MethodHandle getter, MethodHandle setter)
+    {
+        final MethodHandle get = getter.asType(MethodType.methodType(Object.class, Object.class));
+        final MethodHandle set = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+        return new FieldAccessor((t, os, c) -> {
+            Object ptr = (Object) get.invokeExact(t);
+
+            if (ptr == null)
+                os.packBoolean(false);
+            else
+            {
+                os.packBoolean(true);
+                UidHelper.packInto(c.getUidForHandle(ptr), os);
+            }
+        }, (t, os, c) -> {
+            if (!os.unpackBoolean())
+                set.invokeExact(t, (Object) null);
+            else
+            {
+                Uid u = UidHelper.unpackFrom(os);
+
+                set.invokeExact(t, c.getHandle(u));
+            }
+        });
+    }
+
+    private static FieldAccessor primitiveAccessor (Class<?> type, MethodHandle getter, MethodHandle setter)
+    {
+        final MethodHandle get = getter.asType(MethodType.methodType(type, Object.class));
+        final MethodHandle set = setter.asType(MethodType.methodType(void.class, Object.class, type));
+
+        if (type == Boolean.TYPE)
+            return new FieldAccessor((t, os, c) -> os.packBoolean((boolean) get.invokeExact(t)),
+                                     (t, os, c) -> { set.invokeExact(t, os.unpackBoolean()); });
+        else if (type == Byte.TYPE)
+            return new FieldAccessor((t, os, c) -> os.packByte((byte) get.invokeExact(t)),
+                                     (t, os, c) -> { set.invokeExact(t, os.unpackByte()); });
+        else if (type == Short.TYPE)
+            return new FieldAccessor((t, os, c) -> os.packShort((short) get.invokeExact(t)),
+                                     (t, os, c) -> { set.invokeExact(t, os.unpackShort()); });
+        else if (type == Integer.TYPE)
+            return new FieldAccessor((t, os, c) -> os.packInt((int) get.invokeExact(t)),
+                                     (t, os, c) -> { set.invokeExact(t, os.unpackInt()); });
+        else if (type == Long.TYPE)
+            return new FieldAccessor((t, os, c) -> os.packLong((long) get.invokeExact(t)),
+                                     (t, os, c) -> { set.invokeExact(t, os.unpackLong()); });
+        else if (type == Float.TYPE)
+            return new FieldAccessor((t, os, c) -> os.packFloat((float) get.invokeExact(t)),
+                                     (t, os, c) -> { set.invokeExact(t, os.unpackFloat()); });
+        else if (type == Double.TYPE)
+            return new FieldAccessor((t, os, c) -> os.packDouble((double) get.invokeExact(t)),
+                                     (t, os, c) -> { set.invokeExact(t, os.unpackDouble()); });
+        else
+            return new FieldAccessor((t, os, c) -> os.packChar((char) get.invokeExact(t)),
+                                     (t, os, c) -> { set.invokeExact(t, os.unpackChar()); });
+    }
+
+    /*
+     * Primitive arrays are packed without their length and are unpacked into the array
+     * which the field already refers to.
+     */
+
+    private static FieldAccessor primitiveArrayAccessor (Class<?> type, MethodHandle getter)
+    {
+        final MethodHandle get = getter.asType(MethodType.methodType(Object.class, Object.class));
+
+        if (type == int[].class)
+            return new FieldAccessor((t, os, c) -> {
+                for (int v : (int[]) (Object) get.invokeExact(t))
+                    os.packInt(v);
+            }, (t, os, c) -> {
+                int[] objs = (int[]) (Object) get.invokeExact(t);
+
+                for (int i = 0; i < objs.length; i++)
+                    objs[i] = os.unpackInt();
+            });
+        else if (type == boolean[].class)
+            return new FieldAccessor((t, os, c) -> {
+                for (boolean v : (boolean[]) (Object) get.invokeExact(t))
+                    os.packBoolean(v);
+            }, (t, os, c) -> {
+                boolean[] objs = (boolean[]) (Object) get.invokeExact(t);
+
+                for (int i = 0; i < objs.length; i++)
+                    objs[i] = os.unpackBoolean();
+            });
+        else if (type == byte[].class)
+            return new FieldAccessor((t, os, c) -> {
+                for (byte v : (byte[]) (Object) get.invokeExact(t))
+                    os.packByte(v);
+            }, (t, os, c) -> {
+                byte[] objs = (byte[]) (Object) get.invokeExact(t);
+
+                for (int i = 0; i < objs.length; i++)
+                    objs[i] = os.unpackByte();
+            });
+        else if (type == short[].class)
+            return new FieldAccessor((t, os, c) -> {
+                for (short v : (short[]) (Object) get.invokeExact(t))
+                    os.packShort(v);
+            }, (t, os, c) -> {
+                short[] objs = (short[]) (Object) get.invokeExact(t);
+
+                for (int i = 0; i < objs.length; i++)
+                    objs[i] = os.unpackShort();
+            });
+        else if (type == long[].class)
+            return new FieldAccessor((t, os, c) -> {
+                for (long v : (long[]) (Object) get.invokeExact(t))
+                    os.packLong(v);
+            }, (t, os, c) -> {
+                long[] objs = (long[]) (Object) get.invokeExact(t);
+
+                for (int i = 0; i < objs.length; i++)
+                    objs[i] = os.unpackLong();
+            });
+        else if (type == float[].class)
+            return new FieldAccessor((t, os, c) -> {
+                for (float v : (float[]) (Object) get.invokeExact(t))
+                    os.packFloat(v);
+            }, (t, os, c) -> {
+                float[] objs = (float[]) (Object) get.invokeExact(t);
+
+                for (int i = 0; i < objs.length; i++)
+                    objs[i] = os.unpackFloat();
+            });
+        else if (type == double[].class)
+            return new FieldAccessor((t, os, c) -> {
+                for (double v : (double[]) (Object) get.invokeExact(t))
+                    os.packDouble(v);
+            }, (t, os, c) -> {
+                double[] objs = (double[]) (Object) get.invokeExact(t);
+
+                for (int i = 0; i < objs.length; i++)
+                    objs[i] = os.unpackDouble();
+            });
+        else if (type == char[].class)
+            return new FieldAccessor((t, os, c) -> {
+                for (char v : (char[]) (Object) get.invokeExact(t))
+                    os.packChar(v);
+            }, (t, os, c) -> {
+                char[] objs = (char[]) (Object) get.invokeExact(t);
+
+                for (int i = 0; i < objs.length; i++)
+                    objs[i] = os.unpackChar();
+            });
+        else
+            return null;
+    }
+
+    /*
+     * Each element of an array of wrappers (or Strings) is preceded by a flag saying whether it is null.
+     */
+
+    private static FieldAccessor objectArrayAccessor (Class<?> type, MethodHandle getter)
+    {
+        final ElementCodec codec = OBJECT_CODECS.get(type.getComponentType());
+
+        if (codec == null)
+            return null;
+
+        final MethodHandle get = getter.asType(MethodType.methodType(Object[].class, Object.class));
+
+        return new FieldAccessor((t, os, c) -> {
+            for (Object v : (Object[]) get.invokeExact(t))
+            {
+                if (v == null)
+                    os.packBoolean(false);
+                else
+                {
+                    os.packBoolean(true);
+                    codec.pack(os, v);
+                }
+            }
+        }, (t, os, c) -> {
+            Object[] objs = (Object[]) get.invokeExact(t);
+
+            for (int i = 0; i < objs.length; i++)
+                objs[i] = os.unpackBoolean() ? codec.unpack(os) : null;
+        });
+    }
+
+    private static MethodHandle getter (Field afield) throws IllegalAccessException
+    {
+        MethodHandle handle = LOOKUP.unreflectGetter(afield);
+
+        return Modifier.isStatic(afield.getModifiers()) ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+    }
+
+    private static MethodHandle setter (Field afield) throws IllegalAccessException, NoSuchMethodException
+    {
+        MethodHandle handle;
+
+        try
+        {
+            handle = LOOKUP.unreflectSetter(afield);
+        }
+        catch (final IllegalAccessException ex)
+        {
+            // final fields (which only optimistic proxies save) can still be written reflectively
+
+            MethodHandle set = LOOKUP.findVirtual(Field.class, "set", MethodType.methodType(void.class, Object.class, Object.class));
+
+            return set.bindTo(afield).asType(MethodType.methodType(void.class, Object.class, afield.getType()));
+        }
+
+        return Modifier.isStatic(afield.getModifiers()) ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+    }
+
+    private interface Action<S>
+    {
+        void apply (Object target, S os, RecoverableContainer<Object> container) throws Throwable;
+    }
+
+    private interface ElementCodec
+    {
+        void pack (OutputObjectState os, Object value) throws IOException;
+
+        Object unpack (InputObjectState os) throws IOException;
+    }
+
+    private static class FieldAccessor
+    {
+        FieldAccessor (Action<OutputObjectState> pack, Action<InputObjectState> unpack)
+        {
+            _pack = pack;
+            _unpack = unpack;
+        }
+
+        boolean pack (Object target, OutputObjectState os, RecoverableContainer<Object> container) throws Throwable
+        {
+            _pack.apply(target, os, container);
+
+            return true;
+        }
+
+        boolean unpack (Object target, InputObjectState os, RecoverableContainer<Object> container) throws Throwable
+        {
+            _unpack.apply(target, os, container);
+
+            return true;
+        }
+
+        private final Action<OutputObjectState> _pack;
+        private final Action<InputObjectState> _unpack;
+    }
+
+    /*
+     * A field whose type cannot be saved: any attempt to save or restore the state fails.
+     */
+
+    private static class UnsupportedAccessor extends FieldAccessor
+    {
+        UnsupportedAccessor (Object reason)
+        {
+            super(null, null);
+
+            _reason = reason;
+        }
+
+        boolean pack (Object target, OutputObjectState os, RecoverableContainer<Object> container) throws Throwable
+        {
+            return fail();
+        }
+
+        boolean unpack (Object target, InputObjectState os, RecoverableContainer<Object> container) throws Throwable
+        {
+            return fail();
+        }
+
+        private boolean fail () throws Throwable
+        {
+            if (_reason instanceof Throwable)
+                throw (Throwable) _reason;
+
+            if (_reason != null)
+                System.err.println(_reason);
+
+            return false;
+        }
+
+        private final Object _reason;
+    }
+
+    private static ElementCodec codec (final IOAction<OutputObjectState> pack, final IOFunction unpack)
+    {
+        return new ElementCodec()
+        {
+            public void pack (OutputObjectState os, Object value) throws IOException
+            {
+                pack.apply(os, value);
+            }
+
+            public Object unpack (InputObjectState os) throws IOException
+            {
+                return unpack.apply(os);
+            }
+        };
+    }
+
+    private interface IOAction<S>
+    {
+        void apply (S os, Object value) throws IOException;
+    }
+
+    private interface IOFunction
+    {
+        Object apply (InputObjectState os) throws IOException;
+    }
+
+    private static final String THIS_NAME = "this$0";  // stop us trying to pack this!
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /*
+     * Wrapper types and Strings, which can be fields in their own right or array elements.
+     * A null wrapper field cannot be packed (and fails with an NPE as it always has).
+     */
+
+    private static final Map<Class<?>, ElementCodec> OBJECT_CODECS = new HashMap<Class<?>, ElementCodec>();
+
+    static
+    {
+        OBJECT_CODECS.put(Boolean.class, codec((os, v) -> os.packBoolean((Boolean) v), is -> is.unpackBoolean()));
+        OBJECT_CODECS.put(Byte.class, codec((os, v) -> os.packByte((Byte) v), is -> is.unpackByte()));
+        OBJECT_CODECS.put(Short.class, codec((os, v) -> os.packShort((Short) v), is -> is.unpackShort()));
+        OBJECT_CODECS.put(Integer.class, codec((os, v) -> os.packInt((Integer) v), is -> is.unpackInt()));
+        OBJECT_CODECS.put(Long.class, codec((os, v) -> os.packLong((Long) v), is -> is.unpackLong()));
+        OBJECT_CODECS.put(Float.class, codec((os, v) -> os.packFloat((Float) v), is -> is.unpackFloat()));
+        OBJECT_CODECS.put(Double.class, codec((os, v) -> os.packDouble((Double) v), is -> is.unpackDouble()));
+        OBJECT_CODECS.put(Character.class, codec((os, v) -> os.packChar((Character) v), is -> is.unpackChar()));
+        OBJECT_CODECS.put(String.class, codec((os, v) -> os.packString((String) v), is -> is.unpackString()));
+    }
+
+    private static final ClassValue<StateMarshaller> PESSIMISTIC = new ClassValue<StateMarshaller>()
+    {
+        protected StateMarshaller computeValue (Class<?> type)
+        {
+            return new StateMarshaller(type, false);
+        }
+    };
+
+    private static final ClassValue<StateMarshaller> OPTIMISTIC = new ClassValue<StateMarshaller>()
+    {
+        protected StateMarshaller computeValue (Class<?> type)
+        {
+            return new StateMarshaller(type, true);
+        }
+    };
+
+    private final FieldAccessor[] _accessors;
+    private Method _saveState = null;
+    private Method _restoreState = null;
+    private String _invalid = null;
+}
@@ -9,7 +9,7 @@ package org.jboss.stm.internal.reflect;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.arjuna.ats.txoj.logging.txojLogger;
 import org.jboss.stm.LockException;
@@ -60,7 +60,7 @@ public class InvocationHandler<T> implements java.lang.reflect.InvocationHandler
     @SuppressWarnings("unused")
     private static final String SETTER_NAME = "SET";
     
-    class LockInformation
+    static class LockInformation
     {
         public LockInformation (int lockType)
         {
@@ -68,10 +68,17 @@ public class InvocationHandler<T> implements java.lang.reflect.InvocationHandler
         }
         
         public LockInformation (int lockType, int timeout, int retry)
+        {
+            this(lockType, timeout, retry, false, false);
+        }
+        
+        public LockInformation (int lockType, int timeout, int retry, boolean lockFree, boolean transactionFree)
         {
             _lockType = lockType;
             _timeout = timeout;
             _retry = retry;
+            _lockFree = lockFree;
+            _transactionFree = transactionFree;
         }
         
         public String toString ()
@@ -79,9 +86,11 @@ public class InvocationHandler<T> implements java.lang.reflect.InvocationHandler
             return "Lock < "+LockMode.stringForm(_lockType)+", "+_timeout+", "+_retry+" >";
         }
         
-        public int _lockType;
-        public int _timeout;
-        public int _retry;
+        public final int _lockType;
+        public final int _timeout;
+        public final int _retry;
+        public final boolean _lockFree;
+        public final boolean _transactionFree;
     }
     
     /*
@@ -197,7 +206,7 @@ public class InvocationHandler<T> implements java.lang.reflect.InvocationHandler
             action.commit();
         }
         
-        _methods = obj.getClass().getDeclaredMethods();
+        _cachedMethods = METHOD_CACHE.get(obj.getClass());
         
         /*
          * Do we need to create (sub-) transactions when each method
@@ -304,98 +313,33 @@ public class InvocationHandler<T> implements java.lang.reflect.InvocationHandler
                 
                 try
                 {
-                    LockInformation cachedLock = _cachedMethods.get(method);
-        
-                    
                     // todo allow null transaction context - not an issue for now with STM though!
                     
                     if (BasicAction.Current() != null)
                     {
-                        Method theMethod = null;
-        
                         /*
                          * Look for the corresponding method in the original object and
-                         * check the annotations applied there.
-                         * 
-                         * Check to see if we've cached this before.
+                         * check the annotations applied there. This is only done once for
+                         * each method of the class, whichever instance it is invoked on.
                          */
         
-                        int lockType = -1;
-                        boolean lockFree = false;
-                        boolean transactionFree = false;
+                        LockInformation cachedLock = _cachedMethods.get(method);
         
                         if (cachedLock == null)
                         {
-                            for (Method mt : _methods)
-                            {
-                                if (mt.getName().equals(method.getName()))
-                                {
-                                    if (mt.getReturnType().equals(method.getReturnType()))
-                                    {
-                                        if (Arrays.equals(mt.getParameterTypes(), method.getParameterTypes()))
-                                            theMethod = mt;
-                                    }
-                                }
-                            }
-        
-                            /*
-                             * Should we catch common methods, like equals, and call Object... automatically?
-                             */
-        
-                            if (theMethod == null)
-                                throw new LockException("Could not locate method "+method);
-        
-                            /*
-                             * What about other lock types?
-                             */
+                            cachedLock = lockInformation(_theObject.getClass(), method);
                             
-                            if (theMethod.isAnnotationPresent(ReadLock.class))
-                                lockType = LockMode.READ;
-                            else
-                            {
-                                if (theMethod.isAnnotationPresent(WriteLock.class))
-                                    lockType = LockMode.WRITE;
-                                else
-                                {
-                                    if (theMethod.isAnnotationPresent(TransactionFree.class))
-                                        transactionFree = true;
-                                    else
-                                    {
-                                        if (theMethod.isAnnotationPresent(LockFree.class))
-                                            lockFree = true;
-                                    }
-                                }
-                            }
-
-                            // if TransactionFree then suspend any transactions and don't do locking
-
-                            if (!lockFree && !transactionFree)
-                            {
-                                int timeout = LockManager.defaultSleepTime;
-                                int retry = LockManager.defaultRetry;
-            
-                                if (theMethod.isAnnotationPresent(Timeout.class))
-                                    timeout = theMethod.getAnnotation(Timeout.class).period();
-            
-                                if (theMethod.isAnnotationPresent(Retry.class))
-                                    retry = theMethod.getAnnotation(Retry.class).count();
-            
-                                if (lockType == -1) // default to WRITE
-                                    lockType = LockMode.WRITE;    
-
-                                cachedLock = new LockInformation(lockType, timeout, retry);
-                                _cachedMethods.put(method, cachedLock);
-                            }
-                            else
-                            {
-                                if (transactionFree)
-                                    currentTx = AtomicAction.suspend();
-                            }
-                        }          
+                            _cachedMethods.putIfAbsent(method, cachedLock);
+                        }
+                        
+                        // if TransactionFree then suspend any transactions and don't do locking
+                        
+                        if (cachedLock._transactionFree)
+                            currentTx = AtomicAction.suspend();
         
                         // TODO type specific concurrency control (define Lock class in annotation?)
 
-                        if (!lockFree && !transactionFree)
+                        if (!cachedLock._lockFree && !cachedLock._transactionFree)
                         {
                             int result = _txObject.setlock((_optimistic ? new OptimisticLock(cachedLock._lockType) : new Lock(cachedLock._lockType)), cachedLock._retry, cachedLock._timeout);
 
@@ -440,6 +384,75 @@ public class InvocationHandler<T> implements java.lang.reflect.InvocationHandler
         }
     }
     
+    /*
+     * Find the method of the class which corresponds to the one invoked through the proxy
+     * and work out from its annotations how it is to be locked.
+     */
+    
+    private static LockInformation lockInformation (Class<?> type, Method method) throws LockException
+    {
+        Method theMethod = null;
+        
+        for (Method mt : type.getDeclaredMethods())
+        {
+            if (mt.getName().equals(method.getName()))
+            {
+                if (mt.getReturnType().equals(method.getReturnType()))
+                {
+                    if (Arrays.equals(mt.getParameterTypes(), method.getParameterTypes()))
+                        theMethod = mt;
+                }
+            }
+        }
+
+        /*
+         * Should we catch common methods, like equals, and call Object... automatically?
+         */
+
+        if (theMethod == null)
+            throw new LockException("Could not locate method "+method);
+
+        int lockType = -1;
+        boolean lockFree = false;
+        boolean transactionFree = false;
+
+        /*
+         * What about other lock types?
+         */
+        
+        if (theMethod.isAnnotationPresent(ReadLock.class))
+            lockType = LockMode.READ;
+        else
+        {
+            if (theMethod.isAnnotationPresent(WriteLock.class))
+                lockType = LockMode.WRITE;
+            else
+            {
+                if (theMethod.isAnnotationPresent(TransactionFree.class))
+                    transactionFree = true;
+                else
+                {
+                    if (theMethod.isAnnotationPresent(LockFree.class))
+                        lockFree = true;
+                }
+            }
+        }
+
+        int timeout = LockManager.defaultSleepTime;
+        int retry = LockManager.defaultRetry;
+
+        if (theMethod.isAnnotationPresent(Timeout.class))
+            timeout = theMethod.getAnnotation(Timeout.class).period();
+
+        if (theMethod.isAnnotationPresent(Retry.class))
+            retry = theMethod.getAnnotation(Retry.class).count();
+
+        if (lockType == -1) // default to WRITE
+            lockType = LockMode.WRITE;
+
+        return new LockInformation(lockType, timeout, retry, lockFree, transactionFree);
+    }
+    
     /**
      * It might be useful to get the Container for the object at some points.
      * 
@@ -495,11 +508,20 @@ public class InvocationHandler<T> implements java.lang.reflect.InvocationHandler
     private RecoverableContainer<T> _container;  // could be a persistent container, but not an issue for this class
     private T _theObject;
     private LockManager _txObject;
-    private Method[] _methods;
-    private HashMap<Method, InvocationHandler<T>.LockInformation> _cachedMethods = new HashMap<Method, InvocationHandler<T>.LockInformation>();
+    private final ConcurrentHashMap<Method, LockInformation> _cachedMethods;
     private boolean _nestedTransactions = false;  // todo change default?
     private boolean _nestedTopLevel = false;
     private boolean _optimistic = false;
     
     private static StoreManager _storeManager = null;
+    
+    // the lock information for the methods of each transactional class, keyed by the proxy (interface) method
+    
+    private static final ClassValue<ConcurrentHashMap<Method, LockInformation>> METHOD_CACHE = new ClassValue<ConcurrentHashMap<Method, LockInformation>>()
+    {
+        protected ConcurrentHashMap<Method, LockInformation> computeValue (Class<?> type)
+        {
+            return new ConcurrentHashMap<Method, LockInformation>();
+        }
+    };
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+package org.jboss.stm.internal.proxy;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.stm.annotations.NotState;
+
+import com.arjuna.ats.arjuna.ObjectType;
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the cost of saving and restoring the state of a typical transactional object using
+ * the cached StateMarshaller with the per-call reflection which the proxies used previously.
+ *
+ * Run it on its own with -Dtest=StateMarshallerBenchmark. The number of iterations can be
+ * changed with -Dstm.benchmark.iterations.
+ */
+
+public class StateMarshallerBenchmark extends TestCase
+{
+    public static class Account
+    {
+        public int _id = 42;
+        public long _balance = 1000L;
+        public double _rate = 0.05;
+        public boolean _active = true;
+        public Integer _branch = 7;
+        public String _owner = "owner";
+        public String _currency = "EUR";
+        public int[] _history = new int[8];
+        @NotState
+        public int _cache;
+    }
+
+    public void testCompare ()
+    {
+        int iterations = Integer.getInteger("stm.benchmark.iterations", 200000);
+        Account sample = new Account();
+        LockManagerProxy<Account> proxy = new LockManagerProxy<Account>(sample);
+        LegacyReflectiveMarshaller legacy = new LegacyReflectiveMarshaller();
+
+        // both must produce the same state, and warm up
+
+        OutputObjectState a = new OutputObjectState();
+        OutputObjectState b = new OutputObjectState();
+
+        assertTrue(StateMarshaller.pessimistic(Account.class).pack(sample, a, null));
+        assertTrue(legacy.pack(sample, b));
+        assertTrue(Arrays.equals(a.buffer(), b.buffer()));
+
+        for (int i = 0; i < 3; i++)
+        {
+            runLegacy(legacy, sample, iterations / 10);
+            runMarshaller(proxy, iterations / 10);
+        }
+
+        long legacyNanos = runLegacy(legacy, sample, iterations);
+        long marshallerNanos = runMarshaller(proxy, iterations);
+
+        System.out.printf("StateMarshallerBenchmark: %d save/restore pairs, reflective %d ns/op, marshaller %d ns/op (%.1fx)%n",
+                iterations, legacyNanos / iterations, marshallerNanos / iterations,
+                (double) legacyNanos / Math.max(1L, marshallerNanos));
+    }
+
+    private long runMarshaller (LockManagerProxy<Account> proxy, int iterations)
+    {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; i++)
+        {
+            OutputObjectState os = new OutputObjectState();
+
+            assertTrue(proxy.save_state(os, ObjectType.RECOVERABLE));
+            assertTrue(proxy.restore_state(new InputObjectState(os), ObjectType.RECOVERABLE));
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private long runLegacy (LegacyReflectiveMarshaller legacy, Account sample, int iterations)
+    {
+        LockManagerProxy<Account> base = new LockManagerProxy<Account>(new Account());
+        long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; i++)
+        {
+            OutputObjectState os = new OutputObjectState();
+
+            // include the LockManager state so that the comparison is like for like
+
+            assertTrue(base.save_state(os, ObjectType.RECOVERABLE));
+            assertTrue(legacy.pack(sample, os));
+
+            InputObjectState is = new InputObjectState(os);
+
+            assertTrue(base.restore_state(is, ObjectType.RECOVERABLE));
+            assertTrue(legacy.unpack(sample, is));
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /*
+     * The approach the proxies used to take: the fields are found on every call and each is
+     * made accessible, dispatched on its type and read or written through java.lang.reflect.
+     * Only the types used by Account are handled.
+     */
+
+    private static class LegacyReflectiveMarshaller
+    {
+        boolean pack (Object target, OutputObjectState os)
+        {
+            try
+            {
+                for (Field afield : fields(target))
+                {
+                    afield.setAccessible(true);
+
+                    Class<?> type = afield.getType();
+
+                    if (type.equals(int[].class))
+                    {
+                        for (int v : (int[]) afield.get(target))
+                            os.packInt(v);
+                    }
+                    else if (type.equals(Boolean.TYPE))
+                        os.packBoolean(afield.getBoolean(target));
+                    else if (type.equals(Integer.TYPE))
+                        os.packInt(afield.getInt(target));
+                    else if (type.equals(Long.TYPE))
+                        os.packLong(afield.getLong(target));
+                    else if (type.equals(Double.TYPE))
+                        os.packDouble(afield.getDouble(target));
+                    else if (type.equals(Integer.class))
+                        os.packInt((Integer) afield.get(target));
+                    else if (type.equals(String.class))
+                        os.packString((String) afield.get(target));
+                    else
+                        return false;
+
+                    afield.setAccessible(false);
+                }
+            }
+            catch (final Exception ex)
+            {
+                return false;
+            }
+
+            return true;
+        }
+
+        boolean unpack (Object target, InputObjectState os)
+        {
+            try
+            {
+                for (Field afield : fields(target))
+                {
+                    afield.setAccessible(true);
+
+                    Class<?> type = afield.getType();
+
+                    if (type.equals(int[].class))
+                    {
+                        int[] objs = (int[]) afield.get(target);
+
+                        for (int i = 0; i < objs.length; i++)
+                            objs[i] = os.unpackInt();
+                    }
+                    else if (type.equals(Boolean.TYPE))
+                        afield.setBoolean(target, os.unpackBoolean());
+                    else if (type.equals(Integer.TYPE))
+                        afield.setInt(target, os.unpackInt());
+                    else if (type.equals(Long.TYPE))
+                        afield.setLong(target, os.unpackLong());
+                    else if (type.equals(Double.TYPE))
+                        afield.setDouble(target, os.unpackDouble());
+                    else if (type.equals(Integer.class))
+                        afield.set(target, os.unpackInt());
+                    else if (type.equals(String.class))
+                        afield.set(target, os.unpackString());
+                    else
+                        return false;
+
+                    afield.setAccessible(false);
+                }
+            }
+            catch (final Exception ex)
+            {
+                return false;
+            }
+
+            return true;
+        }
+
+        private List<Field> fields (Object target)
+        {
+            List<Field> fields = new ArrayList<Field>();
+
+            for (Field afield : target.getClass().getDeclaredFields())
+            {
+                if (!afield.isAnnotationPresent(NotState.class) && !afield.getName().equals("this$0") &&
+                        !Modifier.isFinal(afield.getModifiers()) && !Modifier.isTransient(afield.getModifiers()))
+                    fields.add(afield);
+            }
+
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+
+package org.jboss.stm.internal.proxy;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.jboss.stm.InvalidAnnotationException;
+import org.jboss.stm.annotations.NotState;
+import org.jboss.stm.annotations.SaveState;
+
+import com.arjuna.ats.arjuna.state.InputObjectState;
+import com.arjuna.ats.arjuna.state.OutputObjectState;
+
+import junit.framework.TestCase;
+
+public class StateMarshallerUnitTest extends TestCase
+{
+    public static class AllTypes
+    {
+        public boolean _boolean = true;
+        public byte _byte = 1;
+        public short _short = 2;
+        public int _int = 3;
+        public long _long = 4L;
+        public float _float = 5.0f;
+        public double _double = 6.0;
+        public char _char = 'x';
+        public Integer _integer = 7;
+        public String _string = "eight";
+        public String _nullString = null;
+        public int[] _ints = { 9, 10 };
+        public Long[] _longs = { 11L, null };
+        public final int _final = 12;
+        public transient int _transient = 13;
+        @NotState
+        public int _notState = 14;
+    }
+
+    public static class Unsupported
+    {
+        public Object _object = new Object();
+    }
+
+    public static class HalfAnnotated
+    {
+        @SaveState
+        public void save (OutputObjectState os)
+        {
+        }
+    }
+
+    public void testFormat () throws IOException
+    {
+        AllTypes sample = new AllTypes();
+        OutputObjectState os = new OutputObjectState();
+
+        assertTrue(StateMarshaller.pessimistic(AllTypes.class).pack(sample, os, null));
+
+        // the layout written by the original reflective implementation
+
+        OutputObjectState expected = new OutputObjectState();
+
+        expected.packBoolean(true);
+        expected.packByte((byte) 1);
+        expected.packShort((short) 2);
+        expected.packInt(3);
+        expected.packLong(4L);
+        expected.packFloat(5.0f);
+        expected.packDouble(6.0);
+        expected.packChar('x');
+        expected.packInt(7);
+        expected.packString("eight");
+        expected.packString(null);
+        expected.packInt(9);
+        expected.packInt(10);
+        expected.packBoolean(true);
+        expected.packLong(11L);
+        expected.packBoolean(false);
+
+        assertEquals(expected.length(), os.length());
+        assertTrue(Arrays.equals(expected.buffer(), os.buffer()));
+    }
+
+    public void testRoundTrip ()
+    {
+        AllTypes sample = new AllTypes();
+        StateMarshaller marshaller = StateMarshaller.pessimistic(AllTypes.class);
+        OutputObjectState os = new OutputObjectState();
+
+        assertTrue(marshaller.pack(sample, os, null));
+
+        int[] ints = sample._ints;
+
+        sample._boolean = false;
+        sample._int = -1;
+        sample._double = -1.0;
+        sample._integer = null;
+        sample._string = "changed";
+        sample._nullString = "changed";
+        sample._ints[0] = -1;
+        sample._longs[0] = null;
+        sample._longs[1] = -1L;
+        sample._transient = -1;
+        sample._notState = -1;
+
+        assertTrue(marshaller.unpack(sample, new InputObjectState(os), null));
+
+        assertTrue(sample._boolean);
+        assertEquals(3, sample._int);
+        assertEquals(6.0, sample._double);
+        assertEquals(Integer.valueOf(7), sample._integer);
+        assertEquals("eight", sample._string);
+        assertNull(sample._nullString);
+        assertSame(ints, sample._ints);
+        assertEquals(9, sample._ints[0]);
+        assertEquals(Long.valueOf(11L), sample._longs[0]);
+        assertNull(sample._longs[1]);
+        assertEquals(-1, sample._transient);
+        assertEquals(-1, sample._notState);
+    }
+
+    public void testMarshallerIsShared ()
+    {
+        assertSame(StateMarshaller.pessimistic(AllTypes.class), StateMarshaller.pessimistic(AllTypes.class));
+        assertNotSame(StateMarshaller.pessimistic(AllTypes.class), StateMarshaller.optimistic(AllTypes.class));
+    }
+
+    public void testOptimistic ()
+    {
+        Unsupported sample = new Unsupported();
+
+        // arrays are not supported by the optimistic proxy
+
+        assertFalse(StateMarshaller.optimistic(AllTypes.class).pack(new AllTypes(), new OutputObjectState(), null));
+        assertFalse(StateMarshaller.optimistic(Unsupported.class).pack(sample, new OutputObjectState(), null));
+    }
+
+    public void testNullWrapper ()
+    {
+        AllTypes sample = new AllTypes();
+
+        sample._integer = null;
+
+        assertFalse(StateMarshaller.pessimistic(AllTypes.class).pack(sample, new OutputObjectState(), null));
+    }
+
+    public void testInvalidAnnotations ()
+    {
+        StateMarshaller marshaller = StateMarshaller.pessimistic(HalfAnnotated.class);
+
+        try
+        {
+            marshaller.saveStateMethod();
+
+            fail();
+        }
+        catch (final InvalidAnnotationException ex)
+        {
+        }
+    }
+}
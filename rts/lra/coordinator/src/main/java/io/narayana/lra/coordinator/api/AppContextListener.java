@@ -6,6 +6,8 @@ package io.narayana.lra.coordinator.api;
 
 import com.arjuna.ats.arjuna.recovery.RecoveryManager;
 import io.narayana.lra.coordinator.internal.Implementations;
+import io.narayana.lra.coordinator.internal.LRATimeoutScheduler;
+import io.narayana.lra.coordinator.internal.ParticipantClientPool;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
@@ -22,5 +24,7 @@ public class AppContextListener implements ServletContextListener {
     @Override
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
         Implementations.uninstall();
+        ParticipantClientPool.shutdown();
+        LRATimeoutScheduler.shutdown();
     }
 }
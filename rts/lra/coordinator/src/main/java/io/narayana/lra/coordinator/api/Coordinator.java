@@ -12,6 +12,7 @@ import io.narayana.lra.LRAData;
 import io.narayana.lra.coordinator.domain.model.LongRunningAction;
 import io.narayana.lra.coordinator.domain.service.LRAService;
 import io.narayana.lra.coordinator.internal.LRARecoveryModule;
+import io.narayana.lra.coordinator.internal.ParticipantClientPool;
 import io.narayana.lra.logging.LRALogger;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -28,8 +29,6 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.WebApplicationException;
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.Application;
 import jakarta.ws.rs.core.Context;
@@ -44,7 +43,6 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.faulttolerance.Bulkhead;
@@ -73,7 +71,6 @@ import static io.narayana.lra.LRAConstants.COMPLETE;
 import static io.narayana.lra.LRAConstants.COORDINATOR_PATH_NAME;
 import static io.narayana.lra.LRAConstants.NARAYANA_LRA_PARTICIPANT_DATA_HEADER_NAME;
 import static io.narayana.lra.LRAConstants.PARENT_LRA_PARAM_NAME;
-import static io.narayana.lra.LRAConstants.PARTICIPANT_TIMEOUT;
 import static io.narayana.lra.LRAConstants.RECOVERY_COORDINATOR_PATH_NAME;
 import static io.narayana.lra.LRAConstants.STATUS;
 import static io.narayana.lra.LRAConstants.STATUS_PARAM_NAME;
@@ -300,17 +297,14 @@ public class Coordinator extends Application {
             String compensatorUrl = String.format("%s/nested/%s", coordinatorUrl, LRAConstants.getLRAUid(lraId));
 
             if (!lraService.hasTransaction(parentId)) {
-                Client client = null;
                 Response response = null;
 
                 try {
-                    client = ClientBuilder.newClient();
-                    response = client.target(parentId)
+                    response = ParticipantClientPool.getInstance().invoke(parentId, target -> target
                         .request()
                         .header(NARAYANA_LRA_API_VERSION_HEADER_NAME, CURRENT_API_VERSION_STRING)
                         .async()
-                        .put(Entity.text(compensatorUrl))
-                        .get(PARTICIPANT_TIMEOUT, TimeUnit.SECONDS);
+                        .put(Entity.text(compensatorUrl)));
 
                     if (response.getStatus() != Response.Status.OK.getStatusCode()) {
                         String errMessage = String.format("The coordinator at %s returned an unexpected response: %d"
@@ -325,8 +319,8 @@ public class Coordinator extends Application {
                             Response.status(INTERNAL_SERVER_ERROR).header(NARAYANA_LRA_API_VERSION_HEADER_NAME, version)
                                     .entity(errorMsg).build());
                 } finally {
-                    if (client != null) {
-                        client.close();
+                    if (response != null) {
+                        response.close();
                     }
                 }
             }
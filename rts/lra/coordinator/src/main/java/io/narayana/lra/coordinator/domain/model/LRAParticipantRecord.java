@@ -16,6 +16,7 @@ import io.narayana.lra.Current;
 import io.narayana.lra.LRAConstants;
 import io.narayana.lra.LRAData;
 import io.narayana.lra.coordinator.domain.service.LRAService;
+import io.narayana.lra.coordinator.internal.ParticipantClientPool;
 import io.narayana.lra.logging.LRALogger;
 import jakarta.ws.rs.core.HttpHeaders;
 import org.eclipse.microprofile.lra.annotation.LRAStatus;
@@ -24,8 +25,6 @@ import org.eclipse.microprofile.lra.annotation.ws.rs.LRA;
 
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.client.AsyncInvoker;
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.client.Invocation;
 import jakarta.ws.rs.client.WebTarget;
@@ -44,12 +43,10 @@ import java.util.Objects;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static io.narayana.lra.LRAConstants.AFTER;
 import static io.narayana.lra.LRAConstants.NARAYANA_LRA_PARTICIPANT_DATA_HEADER_NAME;
-import static io.narayana.lra.LRAConstants.PARTICIPANT_TIMEOUT;
 import static jakarta.ws.rs.core.Response.Status.BAD_REQUEST;
 import static org.eclipse.microprofile.lra.annotation.ws.rs.LRA.LRA_HTTP_CONTEXT_HEADER;
 import static org.eclipse.microprofile.lra.annotation.ws.rs.LRA.LRA_HTTP_PARENT_CONTEXT_HEADER;
@@ -266,7 +263,7 @@ public class LRAParticipantRecord extends AbstractRecord implements Comparable<A
 
     private int tryDoEnd(boolean compensate) {
         URI endPath;
-        Client client = null;
+        Response response = null;
 
         trace_progress("finishing");
 
@@ -325,16 +322,14 @@ public class LRAParticipantRecord extends AbstractRecord implements Comparable<A
 
             try {
                 // ask the participant to complete or compensate
-                client = ClientBuilder.newClient();
-                Response response = client.target(endPath)
+                response = ParticipantClientPool.getInstance().invoke(endPath, target -> target
                         .request()
                         .header(LRA_HTTP_CONTEXT_HEADER, lraId.toASCIIString())
                         .header(LRA_HTTP_PARENT_CONTEXT_HEADER, parentId) // make the context available to participants
                         .header(LRA_HTTP_RECOVERY_HEADER, recoveryURI.toASCIIString())
                         .header(NARAYANA_LRA_PARTICIPANT_DATA_HEADER_NAME, compensatorData)
                         .async()
-                        .put(Entity.text(""))
-                        .get(PARTICIPANT_TIMEOUT, TimeUnit.SECONDS);
+                        .put(Entity.text("")));
 
                 httpStatus = response.getStatus();
 
@@ -365,8 +360,8 @@ public class LRAParticipantRecord extends AbstractRecord implements Comparable<A
             } finally {
                 trace_progress("notified participant");
 
-                if (client != null) {
-                    client.close();
+                if (response != null) {
+                    response.close(); // return the connection to the pool
                 }
             }
         }
@@ -428,27 +423,27 @@ public class LRAParticipantRecord extends AbstractRecord implements Comparable<A
     }
 
     private boolean afterLRARequest(URI target, String payload) {
-        Client client = null;
+        Response response = null;
 
         try {
-            client = ClientBuilder.newClient();
-            Invocation.Builder builder = client.target(target)
-                .request()
-                .header(LRA_HTTP_RECOVERY_HEADER, recoveryURI.toASCIIString())
-                .header(NARAYANA_LRA_PARTICIPANT_DATA_HEADER_NAME, compensatorData);
-
-            if (target.equals(afterURI)) {
-                builder.header(LRA.LRA_HTTP_ENDED_CONTEXT_HEADER, lra.getId().toASCIIString());
-                if (lra.getParentId() != null) {
-                    builder.header(LRA_HTTP_PARENT_CONTEXT_HEADER, lra.getParentId().toASCIIString());
+            response = ParticipantClientPool.getInstance().invoke(target, webTarget -> {
+                Invocation.Builder builder = webTarget
+                    .request()
+                    .header(LRA_HTTP_RECOVERY_HEADER, recoveryURI.toASCIIString())
+                    .header(NARAYANA_LRA_PARTICIPANT_DATA_HEADER_NAME, compensatorData);
+
+                if (target.equals(afterURI)) {
+                    builder.header(LRA.LRA_HTTP_ENDED_CONTEXT_HEADER, lra.getId().toASCIIString());
+                    if (lra.getParentId() != null) {
+                        builder.header(LRA_HTTP_PARENT_CONTEXT_HEADER, lra.getParentId().toASCIIString());
+                    }
+                } else {
+                    builder.header(LRA.LRA_HTTP_CONTEXT_HEADER, lra.getId().toASCIIString());
                 }
-            } else {
-                builder.header(LRA.LRA_HTTP_CONTEXT_HEADER, lra.getId().toASCIIString());
-            }
 
-            Future<Response> responseFuture =  target.equals(forgetURI) ? builder.async().delete()
-                : builder.async().put(Entity.text(payload));
-            Response response = responseFuture.get(PARTICIPANT_TIMEOUT, TimeUnit.SECONDS);
+                return target.equals(forgetURI) ? builder.async().delete()
+                    : builder.async().put(Entity.text(payload));
+            });
 
             if (response.getStatus() == 200) {
                 trace_progress("notified participant");
@@ -458,8 +453,8 @@ public class LRAParticipantRecord extends AbstractRecord implements Comparable<A
             LRALogger.i18nLogger.warn_cannotNotifyAfterLRAURI(target, e);
         } finally {
             trace_progress("finished notifying participant");
-            if (client != null) {
-                client.close();
+            if (response != null) {
+                response.close();
             }
         }
 
@@ -585,21 +580,18 @@ public class LRAParticipantRecord extends AbstractRecord implements Comparable<A
             }
         } else if (statusURI != null) {
             // it is a standard participant - check the status URI
-            Response response;
-            Client client = null;
+            Response response = null;
 
             try {
                 // since this method is called from the recovery thread do not block
-                client = ClientBuilder.newClient();
-                response = client.target(statusURI)//.path(getLRAId(lraId))
+                response = ParticipantClientPool.getInstance().invoke(statusURI, target -> target
                         .request()
                         .header(LRA_HTTP_CONTEXT_HEADER, lraId.toASCIIString())
                         .header(LRA_HTTP_RECOVERY_HEADER, recoveryURI.toASCIIString())
                         .header(LRA_HTTP_PARENT_CONTEXT_HEADER, parentId)
                         .header(NARAYANA_LRA_PARTICIPANT_DATA_HEADER_NAME, compensatorData)
                         .async()
-                        .get()
-                        .get(PARTICIPANT_TIMEOUT, TimeUnit.SECONDS); // if the attempt times out the catch block below will return a heuristic
+                        .get()); // if the attempt times out the catch block below will return a heuristic
 
                 // 200 and 410 are the only valid response code for reporting the participant status
                 if (response.getStatus() == Response.Status.GONE.getStatusCode()) {
@@ -660,8 +652,8 @@ public class LRAParticipantRecord extends AbstractRecord implements Comparable<A
             } finally {
                 trace_progress("retryGetEndStatus");
                 Current.pop();
-                if (client != null) {
-                    client.close();
+                if (response != null) {
+                    response.close();
                 }
             }
         }
@@ -769,20 +761,18 @@ public class LRAParticipantRecord extends AbstractRecord implements Comparable<A
     }
 
     boolean forget() {
-        Client client = null;
+        Response response = null;
 
         if (forgetURI != null) {
             try {
-                client = ClientBuilder.newClient();
-                Response response = client.target(forgetURI)//.path(getLRAId(lraId))
+                response = ParticipantClientPool.getInstance().invoke(forgetURI, target -> target
                     .request()
                     .header(LRA_HTTP_CONTEXT_HEADER, lraId)
                     .header(LRA_HTTP_RECOVERY_HEADER, recoveryURI)
                     .header(LRA_HTTP_PARENT_CONTEXT_HEADER, parentId)
                     .header(NARAYANA_LRA_PARTICIPANT_DATA_HEADER_NAME, compensatorData)
                     .async()
-                    .delete()
-                    .get(PARTICIPANT_TIMEOUT, TimeUnit.SECONDS);
+                    .delete());
 
                 if (response.getStatus() == Response.Status.OK.getStatusCode()) {
                     forgetURI = null; // succeeded so dispose of the endpoint
@@ -800,8 +790,8 @@ public class LRAParticipantRecord extends AbstractRecord implements Comparable<A
             } finally {
                 trace_progress("forget");
                 Current.pop();
-                if (client != null) {
-                    client.close();
+                if (response != null) {
+                    response.close();
                 }
             }
 
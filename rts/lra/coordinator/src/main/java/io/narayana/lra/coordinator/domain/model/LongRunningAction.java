@@ -20,6 +20,7 @@ import com.arjuna.ats.arjuna.state.InputObjectState;
 import com.arjuna.ats.arjuna.state.OutputObjectState;
 
 import io.narayana.lra.coordinator.domain.service.LRAService;
+import io.narayana.lra.coordinator.internal.LRATimeoutScheduler;
 import org.eclipse.microprofile.lra.annotation.LRAStatus;
 
 import jakarta.ws.rs.WebApplicationException;
@@ -40,15 +41,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class LongRunningAction extends BasicAction {
     private static final String LRA_TYPE = "/StateManager/BasicAction/LongRunningAction";
-    private static final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(10);
     private URI id;
     private URI parentId;
     private String clientId;
@@ -56,7 +53,7 @@ public class LongRunningAction extends BasicAction {
     private LRAStatus status;
     private LocalDateTime startTime;
     private LocalDateTime finishTime;
-    private ScheduledFuture<?> scheduledAbort;
+    private LRATimeoutScheduler.Timeout scheduledAbort;
     private final LRAService lraService;
     LRAParentAbstractRecord par;
 
@@ -444,7 +441,7 @@ public class LongRunningAction extends BasicAction {
         }
 
         if (scheduledAbort != null) {
-            scheduledAbort.cancel(false);
+            scheduledAbort.cancel();
             scheduledAbort = null;
         }
 
@@ -950,7 +947,7 @@ public class LongRunningAction extends BasicAction {
 
             if (scheduledAbort != null) {
                 trace_progress("scheduleCancellation: earlier than previous timer");
-                scheduledAbort.cancel(false);
+                scheduledAbort.cancel();
             }
         } else {
             // if timeLimit is negative the abort will be scheduled immediately
@@ -960,7 +957,7 @@ public class LongRunningAction extends BasicAction {
         trace_progress("scheduleCancelation update finishTime");
 
         try {
-            scheduledAbort = scheduler.schedule(runnable, timeLimit, TimeUnit.MILLISECONDS);
+            scheduledAbort = LRATimeoutScheduler.getInstance().schedule(runnable, timeLimit, TimeUnit.MILLISECONDS);
             trace_progress("scheduleCancellation accepted");
         } catch (RejectedExecutionException executionException) {
             // This exception does not need to be handled as the periodic recovery
@@ -95,7 +95,12 @@ public class LRAService {
         return lra.getLRAData();
     }
 
-    public synchronized ReentrantLock lockTransaction(URI lraId) {
+    /*
+     * The lock map is concurrent and computeIfAbsent is atomic so there is no need to hold the service monitor
+     * here, which in the case of lockTransaction would serialise every caller behind whichever thread was blocked
+     * waiting for the lock on a busy LRA.
+     */
+    public ReentrantLock lockTransaction(URI lraId) {
         ReentrantLock lock = locks.computeIfAbsent(lraId, k -> new ReentrantLock());
 
         lock.lock();
@@ -103,7 +108,7 @@ public class LRAService {
         return lock;
     }
 
-    public synchronized ReentrantLock tryLockTransaction(URI lraId) {
+    public ReentrantLock tryLockTransaction(URI lraId) {
         ReentrantLock lock = locks.computeIfAbsent(lraId, k -> new ReentrantLock());
 
         return lock.tryLock() ? lock : null;
@@ -223,7 +228,12 @@ public class LRAService {
         return participants.get(rcvCoordId);
     }
 
-    public synchronized LongRunningAction startLRA(String baseUri, URI parentLRA, String clientId, Long timelimit) {
+    /*
+     * Starting an LRA only touches state that is private to the new LRA, the concurrent maps held by
+     * the service and, when nested, the parent's record list (which BasicAction.add guards) so
+     * LRAs may be started concurrently.
+     */
+    public LongRunningAction startLRA(String baseUri, URI parentLRA, String clientId, Long timelimit) {
         LongRunningAction lra;
         int status;
 
@@ -307,9 +317,9 @@ public class LRAService {
         }
     }
 
-    public synchronized int joinLRA(StringBuilder recoveryUrl, URI lra, long timeLimit,
-                                    String compensatorUrl, String linkHeader, String recoveryUrlBase,
-                                    StringBuilder compensatorData) {
+    public int joinLRA(StringBuilder recoveryUrl, URI lra, long timeLimit,
+                       String compensatorUrl, String linkHeader, String recoveryUrlBase,
+                       StringBuilder compensatorData) {
         if (lra ==  null) {
             lraTrace(null, "Error missing LRA header in join request");
         } else {
@@ -349,6 +359,36 @@ public class LRAService {
 
         LRAParticipantRecord participant;
 
+        /*
+         * Looking up an existing enlistment and adding a new one must be atomic with respect to other joins on
+         * the same LRA, but joins on different LRAs are independent. The monitor of the LRA is used rather than
+         * lockTransaction since a join must not cause a concurrent finishLRA (which uses tryLockTransaction)
+         * to assume that the LRA is already being ended.
+         */
+        synchronized (transaction) {
+            participant = enlist(transaction, lra, timeLimit, compensatorUrl, linkHeader, recoveryUrlBase,
+                    compensatorData);
+        }
+
+        if (participant == null || participant.getRecoveryURI() == null) {
+            // probably already closing or cancelling
+            return Response.Status.PRECONDITION_FAILED.getStatusCode();
+        }
+
+        String recoveryURI = participant.getRecoveryURI().toASCIIString();
+
+        updateRecoveryURI(lra, participant.getParticipantURI(), recoveryURI, false);
+
+        recoveryUrl.append(recoveryURI);
+
+        return Response.Status.OK.getStatusCode();
+    }
+
+    private LRAParticipantRecord enlist(LongRunningAction transaction, URI lra, long timeLimit,
+                                        String compensatorUrl, String linkHeader, String recoveryUrlBase,
+                                        StringBuilder compensatorData) {
+        LRAParticipantRecord participant;
+
         try {
             if (compensatorData != null) {
                 participant = transaction.enlistParticipant(lra,
@@ -366,21 +406,10 @@ public class LRAService {
                         timeLimit, null);
             }
         } catch (UnsupportedEncodingException e) {
-            return Response.Status.PRECONDITION_FAILED.getStatusCode();
-        }
-
-        if (participant == null || participant.getRecoveryURI() == null) {
-            // probably already closing or cancelling
-            return Response.Status.PRECONDITION_FAILED.getStatusCode();
+            return null;
         }
 
-        String recoveryURI = participant.getRecoveryURI().toASCIIString();
-
-        updateRecoveryURI(lra, participant.getParticipantURI(), recoveryURI, false);
-
-        recoveryUrl.append(recoveryURI);
-
-        return Response.Status.OK.getStatusCode();
+        return participant;
     }
 
     public boolean hasTransaction(URI id) {
@@ -0,0 +1,63 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.lra.coordinator.internal;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules each LRA time limit as a separate task on a {@link ScheduledThreadPoolExecutor}. Scheduling and
+ * cancelling are O(log n) in the number of pending time limits.
+ * <p>
+ * The number of threads which run expired time limits is configured using {@value #THREADS} (default 10).
+ */
+public class ExecutorTimeoutScheduler extends LRATimeoutScheduler {
+    private final ScheduledThreadPoolExecutor executor;
+
+    public ExecutorTimeoutScheduler() {
+        executor = new ScheduledThreadPoolExecutor(getConfigValue(THREADS, 10), threadFactory("lra-timeout"));
+
+        // do not leave cancelled time limits in the queue until they would have expired
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        ExecutorTimeout timeout = new ExecutorTimeout(task, delay, unit);
+
+        try {
+            timeout.future = executor.schedule(timeout, delay, unit);
+        } catch (RuntimeException e) {
+            timeout.cancel();
+            throw e;
+        }
+
+        return timeout;
+    }
+
+    @Override
+    protected void stop() {
+        executor.shutdown();
+    }
+
+    private final class ExecutorTimeout extends AbstractTimeout {
+        private volatile ScheduledFuture<?> future;
+
+        ExecutorTimeout(Runnable task, long delay, TimeUnit unit) {
+            super(task, delay, unit);
+        }
+
+        @Override
+        protected void cancelled() {
+            ScheduledFuture<?> f = future;
+
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.lra.coordinator.internal;
+
+import io.narayana.lra.logging.LRALogger;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The scheduler used by the coordinator to cancel LRAs when their time limit is reached. A single scheduler
+ * is shared by every LRA.
+ * <p>
+ * The implementation is chosen using the MicroProfile Config property {@value #SCHEDULER_CLASS}, whose value
+ * is the name of a subclass with a public no-arg constructor. The default is {@link TimingWheelTimeoutScheduler}
+ * and {@link ExecutorTimeoutScheduler} provides the behaviour of earlier releases, which used a
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor}.
+ */
+public abstract class LRATimeoutScheduler implements LRATimeoutSchedulerMBean {
+    public static final String SCHEDULER_CLASS = "lra.coordinator.timeout-scheduler";
+    public static final String THREADS = "lra.coordinator.timeout-scheduler.threads";
+
+    public static final String OBJECT_NAME = "jboss.narayana.lra:type=TimeoutScheduler";
+
+    private static final long MAX_DELAY_NANOS = Long.MAX_VALUE / 4;
+
+    /**
+     * A scheduled LRA time limit
+     */
+    public interface Timeout {
+        /**
+         * Stop the time limit from expiring
+         *
+         * @return false if it has already expired or been cancelled
+         */
+        boolean cancel();
+    }
+
+    private static volatile LRATimeoutScheduler instance;
+
+    private final AtomicInteger pendingTimeouts = new AtomicInteger();
+    private final LongAdder expiredTimeouts = new LongAdder();
+    private final LongAdder cancelledTimeouts = new LongAdder();
+    private final LongAdder totalLatenessNanos = new LongAdder();
+    private final AtomicLong maxLatenessNanos = new AtomicLong();
+
+    public static LRATimeoutScheduler getInstance() {
+        LRATimeoutScheduler scheduler = instance;
+
+        if (scheduler == null) {
+            synchronized (LRATimeoutScheduler.class) {
+                if (instance == null) {
+                    instance = newInstance();
+                    instance.register();
+                }
+
+                scheduler = instance;
+            }
+        }
+
+        return scheduler;
+    }
+
+    /**
+     * Stop the shared scheduler. Time limits which have not yet expired will not fire but LRAs which have
+     * passed their time limit are cancelled when they are next recovered. A subsequent call to
+     * {@link #getInstance()} will create a new scheduler.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.unregister();
+            instance.stop();
+            instance = null;
+        }
+    }
+
+    /**
+     * Run a task once the given delay has elapsed
+     *
+     * @param task the task to run
+     * @param delay how long to wait before running the task
+     * @param unit the unit of the delay
+     * @return a handle which can be used to cancel the task
+     * @throws RejectedExecutionException if the scheduler has been stopped
+     */
+    public abstract Timeout schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * Release the resources held by the scheduler
+     */
+    protected abstract void stop();
+
+    @Override
+    public int getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    @Override
+    public long getExpiredTimeouts() {
+        return expiredTimeouts.sum();
+    }
+
+    @Override
+    public long getCancelledTimeouts() {
+        return cancelledTimeouts.sum();
+    }
+
+    @Override
+    public long getMeanLatenessMillis() {
+        long expired = expiredTimeouts.sum();
+
+        return expired == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatenessNanos.sum() / expired);
+    }
+
+    @Override
+    public long getMaxLatenessMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatenessNanos.get());
+    }
+
+    /**
+     * The state shared by the time limits of all implementations. An implementation arranges for
+     * {@link #run()} to be called once the deadline has passed and drops the time limit when
+     * {@link #cancelled()} is called.
+     */
+    protected abstract class AbstractTimeout implements Timeout, Runnable {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final Runnable task;
+        protected final long deadline;
+
+        protected AbstractTimeout(Runnable task, long delay, TimeUnit unit) {
+            this.task = task;
+            // bound the delay so that the deadline cannot overflow (time limits may be given as Long.MAX_VALUE)
+            this.deadline = System.nanoTime() + Math.min(unit.toNanos(Math.max(0L, delay)), MAX_DELAY_NANOS);
+
+            pendingTimeouts.incrementAndGet();
+        }
+
+        @Override
+        public final boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+
+            pendingTimeouts.decrementAndGet();
+            cancelledTimeouts.increment();
+            cancelled();
+
+            return true;
+        }
+
+        public final boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        @Override
+        public final void run() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+
+            long lateness = Math.max(0L, System.nanoTime() - deadline);
+
+            pendingTimeouts.decrementAndGet();
+            expiredTimeouts.increment();
+            totalLatenessNanos.add(lateness);
+            maxLatenessNanos.accumulateAndGet(lateness, Math::max);
+
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LRALogger.logger.debugf(e, "LRA timeout task failed: %s", e.getMessage());
+            }
+        }
+
+        /**
+         * Called, at most once, when the time limit is cancelled before it expires
+         */
+        protected abstract void cancelled();
+    }
+
+    protected static int getConfigValue(String name, int defaultValue) {
+        try {
+            Config config = ConfigProvider.getConfig();
+
+            return config.getOptionalValue(name, Integer.class).filter(value -> value > 0).orElse(defaultValue);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return defaultValue; // no config available or the value is invalid
+        }
+    }
+
+    protected static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+
+            thread.setDaemon(true);
+
+            return thread;
+        };
+    }
+
+    private static LRATimeoutScheduler newInstance() {
+        Optional<String> className;
+
+        try {
+            className = ConfigProvider.getConfig().getOptionalValue(SCHEDULER_CLASS, String.class);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            className = Optional.empty();
+        }
+
+        if (className.isPresent()) {
+            try {
+                return Class.forName(className.get(), true, LRATimeoutScheduler.class.getClassLoader())
+                        .asSubclass(LRATimeoutScheduler.class)
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                LRALogger.i18nLogger.warn_invalidTimeoutScheduler(className.get(), e);
+            }
+        }
+
+        return new TimingWheelTimeoutScheduler();
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            LRALogger.i18nLogger.warn_cannotRegisterTimeoutSchedulerMBean(OBJECT_NAME, e);
+        }
+    }
+
+    private void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            LRALogger.logger.debugf("Unable to unregister %s: %s", OBJECT_NAME, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.lra.coordinator.internal;
+
+/**
+ * Management view of the scheduler which cancels LRAs when their time limit is reached
+ */
+public interface LRATimeoutSchedulerMBean {
+    /**
+     * @return the number of LRA time limits which have neither expired nor been cancelled
+     */
+    int getPendingTimeouts();
+
+    /**
+     * @return the number of LRA time limits which have expired
+     */
+    long getExpiredTimeouts();
+
+    /**
+     * @return the number of LRA time limits which were cancelled or replaced before they expired
+     */
+    long getCancelledTimeouts();
+
+    /**
+     * @return the mean time, in milliseconds, between an LRA time limit being reached and the LRA being cancelled
+     */
+    long getMeanLatenessMillis();
+
+    /**
+     * @return the longest time, in milliseconds, between an LRA time limit being reached and the LRA being cancelled
+     */
+    long getMaxLatenessMillis();
+}
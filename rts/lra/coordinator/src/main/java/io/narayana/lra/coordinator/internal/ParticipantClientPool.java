@@ -0,0 +1,405 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.lra.coordinator.internal;
+
+import io.narayana.lra.logging.LRALogger;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.narayana.lra.LRAConstants.PARTICIPANT_TIMEOUT;
+
+/**
+ * A single JAX-RS client shared by all of the coordinator's outgoing requests to participants
+ * (and to parent coordinators when nesting), so that connections, and any TLS sessions, are kept
+ * alive and reused rather than being set up for every callback.
+ * <p>
+ * The number of requests in flight to any one participant host is bounded so that a slow participant
+ * cannot tie up every pooled connection. A request which cannot obtain a slot within the participant
+ * timeout fails in the same way as a request which timed out, i.e. it will be retried by recovery.
+ * A request which does not complete within the participant timeout is cancelled before its slot is
+ * given up, so that it no longer holds a connection.
+ * <p>
+ * The pool is configured using MicroProfile Config:
+ * <ul>
+ *     <li>{@value #MAX_CONNECTIONS_PER_HOST} the maximum number of concurrent requests to a single host (default 20)</li>
+ *     <li>{@value #MAX_CONNECTIONS} the maximum number of pooled connections in total (default 200)</li>
+ *     <li>{@value #CONNECTION_TTL} how long, in seconds, an idle connection is kept alive (default 60)</li>
+ * </ul>
+ */
+public final class ParticipantClientPool implements ParticipantClientPoolMBean {
+    public static final String MAX_CONNECTIONS_PER_HOST = "lra.coordinator.participant.client.max-connections-per-host";
+    public static final String MAX_CONNECTIONS = "lra.coordinator.participant.client.max-connections";
+    public static final String CONNECTION_TTL = "lra.coordinator.participant.client.connection-ttl";
+
+    public static final String OBJECT_NAME = "jboss.narayana.lra:type=ParticipantClientPool";
+
+    /**
+     * An asynchronous request to a participant made using the shared client. The pool waits for the
+     * response, up to the participant timeout, and cancels the request if it takes longer.
+     */
+    @FunctionalInterface
+    public interface Request {
+        Future<Response> invoke(WebTarget target) throws Exception;
+    }
+
+    private static ParticipantClientPool instance;
+
+    private final Client client;
+    private final int maxConnectionsPerHost;
+    private final int maxConnections;
+    private final long connectionTTL;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final LongAdder saturatedRequests = new LongAdder();
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder retriedRequests = new LongAdder();
+
+    public static synchronized ParticipantClientPool getInstance() {
+        if (instance == null) {
+            instance = new ParticipantClientPool();
+            instance.register();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Close the shared client. A subsequent call to {@link #getInstance()} will create a new one.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.unregister();
+            instance.client.close();
+            instance = null;
+        }
+    }
+
+    private ParticipantClientPool() {
+        maxConnectionsPerHost = getConfigValue(MAX_CONNECTIONS_PER_HOST, 20);
+        maxConnections = Math.max(maxConnectionsPerHost, getConfigValue(MAX_CONNECTIONS, 200));
+        connectionTTL = getConfigValue(CONNECTION_TTL, 60);
+
+        ClientBuilder builder = ClientBuilder.newBuilder()
+                .connectTimeout(PARTICIPANT_TIMEOUT, TimeUnit.SECONDS)
+                .readTimeout(PARTICIPANT_TIMEOUT, TimeUnit.SECONDS);
+
+        try {
+            configurePool(builder);
+        } catch (LinkageError e) {
+            // not running with RESTEasy so rely on the defaults of the JAX-RS implementation
+        }
+
+        client = builder.build();
+    }
+
+    private void configurePool(ClientBuilder builder) {
+        if (builder instanceof ResteasyClientBuilder) {
+            ((ResteasyClientBuilder) builder)
+                    .connectionPoolSize(maxConnections)
+                    .maxPooledPerRoute(maxConnectionsPerHost)
+                    .connectionTTL(connectionTTL, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Make a request to a participant using the shared client. The caller must close the response
+     * so that the connection is returned to the pool.
+     *
+     * @param uri the participant endpoint
+     * @param request the request to make on the endpoint
+     * @return the response from the participant
+     * @throws Exception if the request could not be made or did not complete within the participant timeout,
+     * in which case it has been cancelled
+     */
+    public Response invoke(URI uri, Request request) throws Exception {
+        Endpoint endpoint = endpoints.computeIfAbsent(endpointKey(uri), key -> new Endpoint(maxConnectionsPerHost));
+
+        if (!endpoint.permits.tryAcquire()) {
+            saturatedRequests.increment();
+            endpoint.saturated.increment();
+
+            if (!endpoint.permits.tryAcquire(PARTICIPANT_TIMEOUT, TimeUnit.SECONDS)) {
+                rejectedRequests.increment();
+                endpoint.failures.increment();
+
+                throw new ProcessingException(
+                        LRALogger.i18nLogger.error_participantEndpointBusy(endpointKey(uri), PARTICIPANT_TIMEOUT));
+            }
+        }
+
+        activeRequests.incrementAndGet();
+
+        long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            Response response;
+
+            try {
+                response = await(request.invoke(client.target(uri)));
+            } catch (Exception e) {
+                if (!isStaleConnection(e)) {
+                    throw e;
+                }
+
+                /*
+                 * The participant closed a pooled connection since it was last used, so the request was
+                 * never seen. Participant callbacks are required to be idempotent (recovery will repeat
+                 * them anyway) so it is safe to make the request once more, which will use a new connection.
+                 */
+                retriedRequests.increment();
+                response = await(request.invoke(client.target(uri)));
+            }
+
+            failed = false;
+
+            return response;
+        } finally {
+            endpoint.record(System.nanoTime() - start, failed);
+
+            activeRequests.decrementAndGet();
+            endpoint.permits.release();
+        }
+    }
+
+    /**
+     * @param endpoint the participant host in the form scheme://host:port
+     * @return the statistics gathered for requests to the given endpoint or null if none have been made
+     */
+    public EndpointStatistics getEndpointStatistics(String endpoint) {
+        Endpoint e = endpoints.get(endpoint);
+
+        return e == null ? null : e.snapshot(maxConnectionsPerHost);
+    }
+
+    @Override
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    @Override
+    public long getSaturatedRequests() {
+        return saturatedRequests.sum();
+    }
+
+    @Override
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    @Override
+    public long getRetriedRequests() {
+        return retriedRequests.sum();
+    }
+
+    @Override
+    public String[] getEndpointStatistics() {
+        Map<String, EndpointStatistics> sorted = new TreeMap<>();
+
+        endpoints.forEach((key, endpoint) -> sorted.put(key, endpoint.snapshot(maxConnectionsPerHost)));
+
+        return sorted.entrySet().stream()
+                .map(entry -> entry.getKey() + " " + entry.getValue())
+                .toArray(String[]::new);
+    }
+
+    /*
+     * Wait for the response to a request, cancelling the request if it does not arrive in time
+     * so that it gives up its connection before the caller gives up its slot.
+     */
+    private static Response await(Future<Response> response) throws Exception {
+        try {
+            return response.get(PARTICIPANT_TIMEOUT, TimeUnit.SECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            response.cancel(true);
+
+            throw e;
+        }
+    }
+
+    /*
+     * Only a pooled connection which the participant had already closed is worth a second attempt:
+     * the server failed to respond without sending anything back, so the request never ran. Other
+     * I/O failures are not retried. A read timeout may mean the participant is still running the
+     * callback, and a refused connection will not be any different on a new one.
+     *
+     * The exception is matched by name so that both the Apache HttpClient 4 and 5 engines are
+     * covered without depending on either.
+     */
+    private static boolean isStaleConnection(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if ("NoHttpResponseException".equals(cause.getClass().getSimpleName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param uri a participant URI
+     * @return the endpoint, in the form scheme://host:port, under which requests to the URI are limited and measured
+     */
+    public static String endpointKey(URI uri) {
+        int port = uri.getPort();
+
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+
+        return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+    }
+
+    private static int getConfigValue(String name, int defaultValue) {
+        try {
+            Config config = ConfigProvider.getConfig();
+
+            return config.getOptionalValue(name, Integer.class).filter(value -> value > 0).orElse(defaultValue);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return defaultValue; // no config available or the value is invalid
+        }
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            LRALogger.i18nLogger.warn_cannotRegisterClientPoolMBean(OBJECT_NAME, e);
+        }
+    }
+
+    private void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            LRALogger.logger.debugf("Unable to unregister %s: %s", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    private static final class Endpoint {
+        final Semaphore permits;
+        final LongAdder requests = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder saturated = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        Endpoint(int maxConnections) {
+            permits = new Semaphore(maxConnections);
+        }
+
+        void record(long nanos, boolean failed) {
+            requests.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+
+            if (failed) {
+                failures.increment();
+            }
+        }
+
+        EndpointStatistics snapshot(int maxConnections) {
+            return new EndpointStatistics(requests.sum(), failures.sum(), saturated.sum(),
+                    maxConnections - permits.availablePermits(), totalNanos.sum(), maxNanos.get());
+        }
+    }
+
+    /**
+     * A point in time view of the requests made to a participant endpoint
+     */
+    public static final class EndpointStatistics {
+        private final long requests;
+        private final long failures;
+        private final long saturated;
+        private final int active;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        EndpointStatistics(long requests, long failures, long saturated, int active, long totalNanos, long maxNanos) {
+            this.requests = requests;
+            this.failures = failures;
+            this.saturated = saturated;
+            this.active = active;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the number of requests which had to wait because the endpoint was at its concurrency limit
+         */
+        public long getSaturated() {
+            return saturated;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public long getMeanLatency(TimeUnit unit) {
+            return requests == 0 ? 0 : unit.convert(totalNanos / requests, TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaxLatency(TimeUnit unit) {
+            return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requests=%d failures=%d saturated=%d active=%d meanLatencyMicros=%d maxLatencyMicros=%d",
+                    requests, failures, saturated, active,
+                    getMeanLatency(TimeUnit.MICROSECONDS), getMaxLatency(TimeUnit.MICROSECONDS));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.lra.coordinator.internal;
+
+/**
+ * Management view of the client pool used for calls to LRA participants
+ */
+public interface ParticipantClientPoolMBean {
+    /**
+     * @return the maximum number of concurrent requests to any one participant host
+     */
+    int getMaxConnectionsPerHost();
+
+    /**
+     * @return the maximum number of pooled connections
+     */
+    int getMaxConnections();
+
+    /**
+     * @return the number of participant requests currently in progress
+     */
+    int getActiveRequests();
+
+    /**
+     * @return the number of requests which had to wait because the participant host was at its concurrency limit
+     */
+    long getSaturatedRequests();
+
+    /**
+     * @return the number of requests which failed because no connection to the participant host became available
+     */
+    long getRejectedRequests();
+
+    /**
+     * @return the number of requests which were repeated because a pooled connection had been closed
+     */
+    long getRetriedRequests();
+
+    /**
+     * @return request counts and latencies for each participant host
+     */
+    String[] getEndpointStatistics();
+}
@@ -0,0 +1,230 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.lra.coordinator.internal;
+
+import io.narayana.lra.logging.LRALogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel for LRA time limits, suited to very large numbers of short lived LRAs.
+ * <p>
+ * Scheduling and cancelling only append to a concurrent queue, so they are O(1) and never contend with
+ * each other or with expiry. A single ticker thread owns the wheel: once per tick it moves newly scheduled
+ * time limits into their buckets, unlinks cancelled ones, and expires the whole bucket for the tick in one
+ * pass, handing the expired time limits to a pool of worker threads (cancelling an LRA calls out to its
+ * participants so it must not hold up the ticker). A time limit therefore fires at most one tick late,
+ * plus however long it waits for a worker.
+ * <p>
+ * The scheduler is configured using MicroProfile Config:
+ * <ul>
+ *     <li>{@value #TICK} the tick length in milliseconds (default 10)</li>
+ *     <li>{@value #THREADS} the number of threads which run expired time limits (default 10)</li>
+ * </ul>
+ */
+public class TimingWheelTimeoutScheduler extends LRATimeoutScheduler {
+    public static final String TICK = "lra.coordinator.timeout-scheduler.tick";
+
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final long tickNanos;
+    private final long startTime;
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    private final Queue<WheelTimeout> additions = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTimeout> cancellations = new ConcurrentLinkedQueue<>();
+    private final ExecutorService workers;
+    private final Thread ticker;
+
+    private volatile boolean running = true;
+
+    // the next tick to be processed, only accessed by the ticker thread
+    private long tick;
+
+    public TimingWheelTimeoutScheduler() {
+        this(getConfigValue(TICK, 10), TimeUnit.MILLISECONDS, getConfigValue(THREADS, 10));
+    }
+
+    public TimingWheelTimeoutScheduler(long tickDuration, TimeUnit unit, int threads) {
+        if (tickDuration <= 0 || threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
+        }
+
+        tickNanos = unit.toNanos(tickDuration);
+        startTime = System.nanoTime();
+        workers = Executors.newFixedThreadPool(threads, threadFactory("lra-timeout"));
+        ticker = threadFactory("lra-timeout-wheel").newThread(this::run);
+        ticker.start();
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new RejectedExecutionException("LRA timeout scheduler has been stopped");
+        }
+
+        WheelTimeout timeout = new WheelTimeout(task, delay, unit);
+
+        additions.add(timeout);
+
+        return timeout;
+    }
+
+    @Override
+    protected void stop() {
+        running = false;
+        ticker.interrupt();
+        workers.shutdown();
+    }
+
+    private void run() {
+        List<WheelTimeout> expired = new ArrayList<>();
+
+        while (running) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long now = System.nanoTime();
+
+            if (now < deadline) {
+                LockSupport.parkNanos(this, deadline - now);
+                continue;
+            }
+
+            transferAdditions();
+            processCancellations();
+
+            wheel[(int) (tick & WHEEL_MASK)].expire(expired);
+            tick++;
+
+            for (WheelTimeout timeout : expired) {
+                try {
+                    workers.execute(timeout);
+                } catch (RejectedExecutionException e) {
+                    // stopped, any LRA which has passed its time limit will be cancelled by recovery
+                    break;
+                }
+            }
+
+            expired.clear();
+        }
+    }
+
+    private void transferAdditions() {
+        WheelTimeout timeout;
+
+        while ((timeout = additions.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            // the tick during which the deadline falls, or the current tick if it has already passed
+            long target = Math.max(tick, (timeout.deadline - startTime) / tickNanos);
+
+            timeout.rounds = (target - tick) / WHEEL_SIZE;
+            wheel[(int) (target & WHEEL_MASK)].add(timeout);
+        }
+    }
+
+    private void processCancellations() {
+        WheelTimeout timeout;
+
+        while ((timeout = cancellations.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private final class WheelTimeout extends AbstractTimeout {
+        // the following are only accessed by the ticker thread
+        long rounds;
+        Bucket bucket;
+        WheelTimeout prev;
+        WheelTimeout next;
+
+        WheelTimeout(Runnable task, long delay, TimeUnit unit) {
+            super(task, delay, unit);
+        }
+
+        @Override
+        protected void cancelled() {
+            if (running) {
+                cancellations.add(this);
+            }
+        }
+    }
+
+    /*
+     * A doubly linked list of time limits so that a cancelled time limit can be unlinked without searching
+     */
+    private static final class Bucket {
+        private WheelTimeout head;
+        private WheelTimeout tail;
+
+        void add(WheelTimeout timeout) {
+            timeout.bucket = this;
+
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(WheelTimeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire(List<WheelTimeout> expired) {
+            WheelTimeout timeout = head;
+
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    expired.add(timeout);
+                } else {
+                    timeout.rounds--;
+                }
+
+                timeout = next;
+            }
+
+            if (LRALogger.logger.isTraceEnabled() && !expired.isEmpty()) {
+                LRALogger.logger.tracef("LRA timeout wheel expired %d time limits", expired.size());
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import io.narayana.lra.client.NarayanaLRAClient;
 import io.narayana.lra.coordinator.api.Coordinator;
 import io.narayana.lra.coordinator.domain.service.LRAService;
 import io.narayana.lra.coordinator.internal.LRARecoveryModule;
+import io.narayana.lra.coordinator.internal.ParticipantClientPool;
 import io.narayana.lra.filter.ServerLRAFilter;
 import io.narayana.lra.logging.LRALogger;
 import io.narayana.lra.provider.ParticipantStatusOctetStreamProvider;
@@ -58,6 +59,7 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
@@ -395,6 +397,33 @@ public class LRATest {
         assertTrue("LRA should have closed", status == null || status == LRAStatus.Closed);
     }
 
+    /**
+     * test that participant callbacks share the pooled client and that its statistics are maintained
+     */
+    @Test
+    public void testParticipantClientPool() {
+        ParticipantClientPool pool = ParticipantClientPool.getInstance();
+        URI participant = URI.create(TestPortProvider.generateURL("/base/test/complete"));
+        String endpoint = ParticipantClientPool.endpointKey(participant);
+        ParticipantClientPool.EndpointStatistics before = pool.getEndpointStatistics(endpoint);
+        long requests = before == null ? 0 : before.getRequests();
+        int completions = completeCount.get();
+
+        for (int i = 0; i < 5; i++) {
+            client.target(TestPortProvider.generateURL("/base/test/start-end")).request().get(String.class);
+        }
+
+        assertEquals(completions + 5, completeCount.get());
+
+        ParticipantClientPool.EndpointStatistics after = pool.getEndpointStatistics(endpoint);
+
+        assertNotNull("no statistics for " + endpoint, after);
+        assertTrue("participant requests were not counted", after.getRequests() >= requests + 5);
+        assertEquals(0, after.getActive());
+        assertTrue(after.getMaxLatency(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(Arrays.stream(pool.getEndpointStatistics()).anyMatch(s -> s.startsWith(endpoint)));
+    }
+
     /**
      * test that participants that report LRAStatus.Closing are replayed
      */
@@ -0,0 +1,168 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+package io.narayana.lra.coordinator.domain.service;
+
+import io.narayana.lra.coordinator.domain.model.LongRunningAction;
+import io.narayana.lra.coordinator.internal.LRARecoveryModule;
+import io.narayana.lra.logging.LRALogger;
+import org.eclipse.microprofile.lra.annotation.LRAStatus;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jakarta.ws.rs.core.Response;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the coordinator service directly from a number of client threads to check that starting and
+ * joining LRAs is not serialised across unrelated LRAs. The start rate achieved at each level of
+ * concurrency is logged; the thread counts and the time spent at each can be changed using the
+ * system properties {@value #THREADS_PROPERTY} (a comma separated list) and {@value #DURATION_PROPERTY}
+ * (in milliseconds).
+ */
+public class LRAServiceLoadTest {
+    private static final String THREADS_PROPERTY = "lra.service.load.threads";
+    private static final String DURATION_PROPERTY = "lra.service.load.duration";
+    private static final String BASE_URI = "http://localhost:8080/lra-coordinator";
+    private static final String PARTICIPANT_URI = "http://localhost:8081/participant/";
+    private static final String RECOVERY_URI = "http://localhost:8080/lra-coordinator/recovery";
+
+    private static LRAService service;
+
+    @BeforeClass
+    public static void beforeClass() {
+        service = LRARecoveryModule.getService();
+    }
+
+    /**
+     * start and close LRAs, each with a nested child, from an increasing number of threads
+     */
+    @Test
+    public void testStartThroughput() throws Exception {
+        long duration = Long.getLong(DURATION_PROPERTY, 1000L);
+        Set<URI> started = ConcurrentHashMap.newKeySet();
+
+        for (String threads : System.getProperty(THREADS_PROPERTY, "1,2,4,8").split(",")) {
+            int numberOfThreads = Integer.parseInt(threads.trim());
+            int before = started.size();
+            long elapsed = run(numberOfThreads, duration, started);
+            int count = started.size() - before;
+
+            LRALogger.logger.infof("LRAServiceLoadTest: %d threads started %d LRAs in %d ms (%d starts/sec)",
+                    numberOfThreads, count, elapsed, count * 1000L / Math.max(1L, elapsed));
+
+            assertTrue("no LRAs were started by " + numberOfThreads + " threads", count > 0);
+        }
+    }
+
+    /**
+     * join a single LRA from many threads and check that every participant is enlisted
+     */
+    @Test
+    public void testConcurrentJoin() throws Exception {
+        int numberOfThreads = 8;
+        int numberOfParticipants = 16;
+        LongRunningAction lra = service.startLRA(BASE_URI, null, "testConcurrentJoin", 0L);
+        URI lraId = lra.getId();
+        Set<String> recoveryUrls = ConcurrentHashMap.newKeySet();
+        AtomicInteger failures = new AtomicInteger();
+        CyclicBarrier barrier = new CyclicBarrier(numberOfThreads);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    barrier.await();
+
+                    for (int p = 0; p < numberOfParticipants; p++) {
+                        StringBuilder recoveryUrl = new StringBuilder();
+                        int status = service.joinLRA(recoveryUrl, lraId, 0L,
+                                PARTICIPANT_URI + Thread.currentThread().getName() + "/" + p,
+                                null, RECOVERY_URI, null);
+
+                        if (status == Response.Status.OK.getStatusCode()) {
+                            recoveryUrls.add(recoveryUrl.toString());
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    LRALogger.logger.infof(e, "LRAServiceLoadTest: join failed");
+                    failures.incrementAndGet();
+                }
+            });
+
+            workers.add(worker);
+            worker.start();
+        }
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals("some joins failed", 0, failures.get());
+        assertEquals("some participants were not enlisted", numberOfThreads * numberOfParticipants, recoveryUrls.size());
+
+        for (String recoveryUrl : recoveryUrls) {
+            assertEquals(Response.Status.OK.getStatusCode(), service.leave(lraId, recoveryUrl));
+        }
+
+        assertEquals(LRAStatus.Closed, service.endLRA(lraId, false, false).getStatus());
+    }
+
+    private long run(int numberOfThreads, long duration, Set<URI> started) throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(numberOfThreads);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(numberOfThreads);
+        long[] end = new long[1];
+
+        for (int i = 0; i < numberOfThreads; i++) {
+            new Thread(() -> {
+                try {
+                    ready.countDown();
+                    go.await();
+
+                    while (System.currentTimeMillis() < end[0]) {
+                        LongRunningAction parent = service.startLRA(BASE_URI, null, "load", 0L);
+                        LongRunningAction child = service.startLRA(BASE_URI, parent.getId(), "load", 0L);
+
+                        if (!started.add(parent.getId()) || !started.add(child.getId())) {
+                            failures.incrementAndGet();
+                        }
+
+                        service.endLRA(parent.getId(), false, false);
+                    }
+                } catch (Exception e) {
+                    LRALogger.logger.infof(e, "LRAServiceLoadTest: start failed");
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        ready.await();
+
+        long start = System.currentTimeMillis();
+
+        end[0] = start + duration;
+        go.countDown();
+        done.await();
+
+        assertEquals("starting LRAs concurrently failed", 0, failures.get());
+
+        return System.currentTimeMillis() - start;
+    }
+}
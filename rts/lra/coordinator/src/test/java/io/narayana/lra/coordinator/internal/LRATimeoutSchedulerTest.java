@@ -0,0 +1,109 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+package io.narayana.lra.coordinator.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LRATimeoutSchedulerTest {
+
+    @Test
+    public void testTimingWheel() throws InterruptedException {
+        LRATimeoutScheduler scheduler = new TimingWheelTimeoutScheduler(1, TimeUnit.MILLISECONDS, 4);
+
+        try {
+            testScheduler(scheduler);
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testExecutor() throws InterruptedException {
+        LRATimeoutScheduler scheduler = new ExecutorTimeoutScheduler();
+
+        try {
+            testScheduler(scheduler);
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    /**
+     * check that a time limit longer than one revolution of the wheel is neither fired early nor lost
+     * and that one which is effectively unbounded never fires
+     */
+    @Test
+    public void testTimingWheelLongDelay() throws InterruptedException {
+        LRATimeoutScheduler scheduler = new TimingWheelTimeoutScheduler(1, TimeUnit.MILLISECONDS, 1);
+
+        try {
+            CountDownLatch fired = new CountDownLatch(1);
+            long start = System.nanoTime();
+
+            LRATimeoutScheduler.Timeout forever = scheduler.schedule(fired::countDown, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+            scheduler.schedule(fired::countDown, 1200, TimeUnit.MILLISECONDS);
+
+            assertTrue("time limit did not expire", fired.await(10, TimeUnit.SECONDS));
+            assertTrue("time limit expired early",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 1200);
+            assertTrue("an unbounded time limit expired", forever.cancel());
+        } finally {
+            scheduler.stop();
+        }
+
+        try {
+            scheduler.schedule(() -> { }, 1, TimeUnit.MILLISECONDS);
+            fail("a stopped scheduler should reject new time limits");
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+
+    private void testScheduler(LRATimeoutScheduler scheduler) throws InterruptedException {
+        int count = 2000;
+        List<LRATimeoutScheduler.Timeout> cancelled = new ArrayList<>();
+        CountDownLatch fired = new CountDownLatch(count / 2);
+        AtomicInteger wrongly = new AtomicInteger();
+
+        for (int i = 0; i < count; i++) {
+            long delay = ThreadLocalRandom.current().nextLong(200);
+
+            if (i % 2 == 0) {
+                scheduler.schedule(fired::countDown, delay, TimeUnit.MILLISECONDS);
+            } else {
+                cancelled.add(scheduler.schedule(wrongly::incrementAndGet, delay + 100, TimeUnit.MILLISECONDS));
+            }
+        }
+
+        for (LRATimeoutScheduler.Timeout timeout : cancelled) {
+            assertTrue(timeout.cancel());
+            assertFalse("a time limit can only be cancelled once", timeout.cancel());
+        }
+
+        assertTrue("time limits did not expire", fired.await(10, TimeUnit.SECONDS));
+
+        // give any wrongly retained time limits the chance to fire
+        Thread.sleep(400);
+
+        assertEquals("cancelled time limits expired", 0, wrongly.get());
+        assertEquals(0, scheduler.getPendingTimeouts());
+        assertEquals(count / 2, scheduler.getExpiredTimeouts());
+        assertEquals(count / 2, scheduler.getCancelledTimeouts());
+        assertTrue(scheduler.getMaxLatenessMillis() >= scheduler.getMeanLatenessMillis());
+    }
+}
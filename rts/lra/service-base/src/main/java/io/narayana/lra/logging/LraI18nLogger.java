@@ -162,6 +162,21 @@ public interface LraI18nLogger {
     @Message(id = 25038, value = "Invalid participant enlistment with LRA %s: participant data is disabled")
     String error_participant_data_disallowed(String lraId);
 
+    @Message(id = 25039, value = "Too many concurrent requests to participant endpoint %s: no connection became available within %d seconds")
+    String error_participantEndpointBusy(String endpoint, long timeout);
+
+    @LogMessage(level = WARN)
+    @Message(id = 25040, value = "Unable to register the participant client pool MBean %s")
+    void warn_cannotRegisterClientPoolMBean(String name, @Cause Throwable t);
+
+    @LogMessage(level = WARN)
+    @Message(id = 25041, value = "Unable to use the LRA timeout scheduler %s, using the default instead")
+    void warn_invalidTimeoutScheduler(String className, @Cause Throwable t);
+
+    @LogMessage(level = WARN)
+    @Message(id = 25042, value = "Unable to register the LRA timeout scheduler MBean %s")
+    void warn_cannotRegisterTimeoutSchedulerMBean(String name, @Cause Throwable t);
+
     /*
         Allocate new messages directly above this notice.
           - id: use the next id number in numeric sequence. Don't reuse ids.
@@ -0,0 +1,279 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads the results of a JMH run written in JMH's JSON result format (-rf json) so that they
+ * can be compared against the stored metrics by {@link RegressionChecker#checkJMHResults}.
+ *
+ * Each benchmark (and each combination of its parameters) becomes one metric whose name is
+ * the fully qualified benchmark method name followed by _name_value for each parameter,
+ * in alphabetical order of the parameter names, and _threads_n if more than one thread was used.
+ */
+public class JMHResults {
+    private final String name;
+    private final double score;
+    private final String unit;
+    private final boolean largerIsBetter;
+
+    JMHResults(String name, double score, String unit, boolean largerIsBetter) {
+        this.name = name;
+        this.score = score;
+        this.unit = unit;
+        this.largerIsBetter = largerIsBetter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * @return true for throughput benchmarks and false for those which measure time per operation
+     */
+    public boolean isLargerIsBetter() {
+        return largerIsBetter;
+    }
+
+    public static List<JMHResults> read(File file) throws IOException {
+        return parse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<JMHResults> parse(String json) {
+        Object document = new Parser(json).parse();
+        List<JMHResults> results = new ArrayList<>();
+
+        if (!(document instanceof List))
+            throw new IllegalArgumentException("JMH results must be a JSON array");
+
+        for (Object o : (List<Object>) document) {
+            Map<String, Object> benchmark = (Map<String, Object>) o;
+            Map<String, Object> primaryMetric = (Map<String, Object>) benchmark.get("primaryMetric");
+            Map<String, Object> params = (Map<String, Object>) benchmark.get("params");
+            Object threads = benchmark.get("threads");
+            StringBuilder name = new StringBuilder((String) benchmark.get("benchmark"));
+
+            if (primaryMetric == null || !(primaryMetric.get("score") instanceof Double))
+                continue; // the benchmark failed or the score is not a number
+
+            if (params != null) {
+                for (Map.Entry<String, Object> param : new TreeMap<>(params).entrySet())
+                    name.append('_').append(param.getKey()).append('_').append(param.getValue());
+            }
+
+            if (threads instanceof Double && (Double) threads > 1)
+                name.append("_threads_").append(((Double) threads).intValue());
+
+            results.add(new JMHResults(name.toString(), (Double) primaryMetric.get("score"),
+                    (String) primaryMetric.get("scoreUnit"), "thrpt".equals(benchmark.get("mode"))));
+        }
+
+        return results;
+    }
+
+    /**
+     * Just enough of a JSON parser to read the files that JMH writes: objects become maps, arrays
+     * become lists and numbers become doubles.
+     */
+    private static class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Object parse() {
+            Object value = value();
+
+            skipWhitespace();
+
+            if (pos != text.length())
+                throw error("unexpected trailing content");
+
+            return value;
+        }
+
+        private Object value() {
+            skipWhitespace();
+
+            if (pos >= text.length())
+                throw error("unexpected end of input");
+
+            char c = text.charAt(pos);
+
+            switch (c) {
+                case '{':
+                    return object();
+                case '[':
+                    return array();
+                case '"':
+                    return string();
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default:
+                    return number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+
+            pos++;
+
+            skipWhitespace();
+
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+
+            do {
+                skipWhitespace();
+
+                String key = string();
+
+                skipWhitespace();
+                expect(':');
+
+                map.put(key, value());
+
+                skipWhitespace();
+            } while (consume(','));
+
+            expect('}');
+
+            return map;
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+
+            pos++;
+
+            skipWhitespace();
+
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+
+            do {
+                list.add(value());
+
+                skipWhitespace();
+            } while (consume(','));
+
+            expect(']');
+
+            return list;
+        }
+
+        private String string() {
+            StringBuilder sb = new StringBuilder();
+
+            expect('"');
+
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+
+                if (c == '"')
+                    return sb.toString();
+
+                if (c == '\\') {
+                    char e = text.charAt(pos++);
+
+                    switch (e) {
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'n': sb.append('\n'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'u':
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                            pos += 4;
+                            break;
+                        default: sb.append(e);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+
+            throw error("unterminated string");
+        }
+
+        private Double number() {
+            int start = pos;
+
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0)
+                pos++;
+
+            if (start == pos)
+                throw error("unexpected character '" + text.charAt(pos) + "'");
+
+            return Double.valueOf(text.substring(start, pos));
+        }
+
+        private Object literal(String literal, Object value) {
+            if (!text.startsWith(literal, pos))
+                throw error("expected " + literal);
+
+            pos += literal.length();
+
+            return value;
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c))
+                throw error("expected '" + c + "'");
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+                pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JMH results at offset " + pos + ": " + message);
+        }
+    }
+}
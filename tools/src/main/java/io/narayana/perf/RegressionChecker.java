@@ -190,6 +190,33 @@ public class RegressionChecker {
         return Double.parseDouble(testHistory.getProperty(name, Double.toString(defaultValue)));
     }
 
+    /**
+     * Compare the results of a JMH run against the stored metrics. Benchmarks which have no stored
+     * metric, or which have improved, are recorded in the same way as for a {@link Measurement}.
+     *
+     * @param resultsFileName a file written by JMH using the JSON result format
+     * @param info if not null then a description of each comparison is appended, one per line
+     * @return true if none of the benchmarks regressed
+     * @throws IOException if the results cannot be read
+     */
+    public boolean checkJMHResults(String resultsFileName, StringBuilder info) throws IOException {
+        boolean passed = true;
+
+        for (JMHResults result : JMHResults.read(new File(resultsFileName))) {
+            StringBuilder sb = new StringBuilder();
+
+            if (!updateMetric(sb, result.getName(), result.getScore(), result.isLargerIsBetter()))
+                passed = false;
+
+            if (info != null)
+                info.append(sb).append(System.lineSeparator());
+            else
+                System.out.printf("%s%n", sb);
+        }
+
+        return passed;
+    }
+
     boolean updateMetric(StringBuilder info, String metricName, double metricValue, boolean largerIsBetter) {
         return updateMetric(info, getVariance(metricName), metricName, metricValue, largerIsBetter);
     }
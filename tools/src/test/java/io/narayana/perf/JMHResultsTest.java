@@ -0,0 +1,101 @@
+/*
+   Copyright The Narayana Authors
+   SPDX short identifier: Apache-2.0
+ */
+
+package io.narayana.perf;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JMHResultsTest {
+    private static final String RESULTS = "[\n" +
+            "    {\n" +
+            "        \"jmhVersion\" : \"1.37\",\n" +
+            "        \"benchmark\" : \"io.narayana.perf.arjuna.AtomicActionBenchmark.beginCommit\",\n" +
+            "        \"mode\" : \"thrpt\",\n" +
+            "        \"threads\" : 4,\n" +
+            "        \"jvmArgs\" : [ \"-Xmx1g\" ],\n" +
+            "        \"params\" : {\n" +
+            "            \"participants\" : \"2\"\n" +
+            "        },\n" +
+            "        \"primaryMetric\" : {\n" +
+            "            \"score\" : 12345.5,\n" +
+            "            \"scoreError\" : 12.5,\n" +
+            "            \"scoreConfidence\" : [ 12333.0, 12358.0 ],\n" +
+            "            \"scoreUnit\" : \"ops/s\",\n" +
+            "            \"rawData\" : [ [ 12340.1, 1.2E4 ] ]\n" +
+            "        },\n" +
+            "        \"secondaryMetrics\" : {\n" +
+            "        }\n" +
+            "    },\n" +
+            "    {\n" +
+            "        \"benchmark\" : \"io.narayana.perf.arjuna.UidBenchmark.create\",\n" +
+            "        \"mode\" : \"avgt\",\n" +
+            "        \"threads\" : 1,\n" +
+            "        \"primaryMetric\" : {\n" +
+            "            \"score\" : 42.0,\n" +
+            "            \"scoreUnit\" : \"ns/op\"\n" +
+            "        }\n" +
+            "    },\n" +
+            "    {\n" +
+            "        \"benchmark\" : \"io.narayana.perf.arjuna.UidBenchmark.failed\",\n" +
+            "        \"mode\" : \"avgt\",\n" +
+            "        \"primaryMetric\" : {\n" +
+            "            \"score\" : \"NaN\",\n" +
+            "            \"scoreUnit\" : \"ns/op\"\n" +
+            "        }\n" +
+            "    }\n" +
+            "]\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParse() {
+        List<JMHResults> results = JMHResults.parse(RESULTS);
+
+        assertEquals(2, results.size());
+
+        assertEquals("io.narayana.perf.arjuna.AtomicActionBenchmark.beginCommit_participants_2_threads_4",
+                results.get(0).getName());
+        assertEquals(12345.5, results.get(0).getScore(), 0.0);
+        assertEquals("ops/s", results.get(0).getUnit());
+        assertTrue(results.get(0).isLargerIsBetter());
+
+        assertEquals("io.narayana.perf.arjuna.UidBenchmark.create", results.get(1).getName());
+        assertFalse(results.get(1).isLargerIsBetter());
+    }
+
+    @Test
+    public void testRegression() throws IOException {
+        File resultsFile = folder.newFile("results.json");
+        RegressionChecker checker = new RegressionChecker(folder.newFile("args").getPath(),
+                folder.newFile("last").getPath(), folder.newFile("var").getPath());
+
+        Files.write(resultsFile.toPath(), RESULTS.getBytes(StandardCharsets.UTF_8));
+
+        // the first run records the baseline
+        assertTrue(checker.checkJMHResults(resultsFile.getPath(), new StringBuilder()));
+
+        // a lower throughput and a longer time per operation are both regressions
+        Files.write(resultsFile.toPath(), RESULTS.replace("12345.5", "1000.0").replace("42.0", "420.0")
+                .getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder info = new StringBuilder();
+
+        assertFalse(checker.checkJMHResults(resultsFile.getPath(), info));
+        assertEquals(2, info.toString().split("regression").length - 1);
+    }
+}